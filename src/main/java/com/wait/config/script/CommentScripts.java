@@ -0,0 +1,31 @@
+package com.wait.config.script;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+public class CommentScripts extends LuaScriptConfig {
+
+    public static final String FILE_PATH = "lua/comment/%s.lua";
+    public static final String COMMENT_COUNT_INCR = "comment_count_incr";
+
+    public CommentScripts(StringRedisTemplate stringRedisTemplate) {
+        super(stringRedisTemplate);
+    }
+
+    @Override
+    protected Map<String, Class<?>> buildReturnTypeMap() {
+        Map<String, Class<?>> returnTypeMap = new HashMap<>();
+        returnTypeMap.put(COMMENT_COUNT_INCR, Long.class);
+        return Collections.unmodifiableMap(returnTypeMap);
+    }
+
+    @Override
+    protected String getScriptDirectory() {
+        return "classpath:lua/comment/*.lua";
+    }
+}
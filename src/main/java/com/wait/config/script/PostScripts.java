@@ -0,0 +1,34 @@
+package com.wait.config.script;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+public class PostScripts extends LuaScriptConfig {
+
+    public static final String FILE_PATH = "lua/post/%s.lua";
+    public static final String POST_STATS_INCR = "post_stats_incr";
+    public static final String POST_STATS_INIT = "post_stats_init";
+
+    public PostScripts(StringRedisTemplate stringRedisTemplate) {
+        super(stringRedisTemplate);
+    }
+
+    @Override
+    protected Map<String, Class<?>> buildReturnTypeMap() {
+        Map<String, Class<?>> returnTypeMap = new HashMap<>();
+        returnTypeMap.put(POST_STATS_INCR, Long.class);
+        returnTypeMap.put(POST_STATS_INIT, List.class);
+        return Collections.unmodifiableMap(returnTypeMap);
+    }
+
+    @Override
+    protected String getScriptDirectory() {
+        return "classpath:lua/post/*.lua";
+    }
+}
@@ -0,0 +1,33 @@
+package com.wait.config.script;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+public class RankingScripts extends LuaScriptConfig {
+
+    public static final String FILE_PATH = "lua/ranking/%s.lua";
+    public static final String HOT_SCORE_EVENT = "hot_score_event";
+    public static final String HOT_TRENDING_REBASE = "hot_trending_rebase";
+
+    public RankingScripts(StringRedisTemplate stringRedisTemplate) {
+        super(stringRedisTemplate);
+    }
+
+    @Override
+    protected Map<String, Class<?>> buildReturnTypeMap() {
+        Map<String, Class<?>> returnTypeMap = new HashMap<>();
+        returnTypeMap.put(HOT_SCORE_EVENT, Long.class);
+        returnTypeMap.put(HOT_TRENDING_REBASE, Long.class);
+        return Collections.unmodifiableMap(returnTypeMap);
+    }
+
+    @Override
+    protected String getScriptDirectory() {
+        return "classpath:lua/ranking/*.lua";
+    }
+}
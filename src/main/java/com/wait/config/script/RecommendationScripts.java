@@ -2,6 +2,7 @@ package com.wait.config.script;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.context.annotation.Configuration;
@@ -12,6 +13,9 @@ public class RecommendationScripts extends LuaScriptConfig {
 
     public static final String FILE_PATH = "lua/recommendation/%s.lua";
     public static final String RECOMMEND_AND_MARK = "recommend_and_mark";
+    public static final String FOF_RECOMMEND = "fof_recommend";
+    public static final String FOF_APPLY_DELTAS = "fof_apply_deltas";
+    public static final String FOF_SEED_CANDIDATES = "fof_seed_candidates";
 
     public RecommendationScripts(StringRedisTemplate stringRedisTemplate) {
         super(stringRedisTemplate);
@@ -21,6 +25,9 @@ public class RecommendationScripts extends LuaScriptConfig {
     protected Map<String, Class<?>> buildReturnTypeMap() {
         Map<String, Class<?>> returnTypeMap = new HashMap<>();
         returnTypeMap.put(RECOMMEND_AND_MARK, String.class); // 返回 JSON 字符串
+        returnTypeMap.put(FOF_RECOMMEND, List.class);
+        returnTypeMap.put(FOF_APPLY_DELTAS, List.class);
+        returnTypeMap.put(FOF_SEED_CANDIDATES, Long.class);
         return Collections.unmodifiableMap(returnTypeMap);
     }
 
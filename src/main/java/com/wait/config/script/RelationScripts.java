@@ -2,6 +2,7 @@ package com.wait.config.script;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -25,6 +26,17 @@ public class RelationScripts extends LuaScriptConfig {
     public static final String UNFAVORITE_POST = "unfavorite_post";
     public static final String BLOCK_USER = "block_user";
     public static final String UNBLOCK_USER = "unblock_user";
+    public static final String BITMAP_ADD = "bitmap_add";
+    public static final String BITMAP_REMOVE = "bitmap_remove";
+    public static final String BITMAP_CONTAINS = "bitmap_contains";
+    public static final String BITMAP_IMPORT = "bitmap_import";
+    public static final String BITMAP_MIGRATE = "bitmap_migrate";
+    public static final String MEMORY_USAGE = "memory_usage";
+    public static final String SPLIT_FOLLOWER_SET = "split_follower_set";
+    public static final String SSCAN_PAGE = "sscan_page";
+    public static final String DIGEST_INIT = "digest_init";
+    public static final String DIGEST_UPDATE = "digest_update";
+    public static final String FAVORITE_CLEANUP = "favorite_cleanup";
 
     public RelationScripts(StringRedisTemplate stringRedisTemplate) {
         super(stringRedisTemplate);
@@ -41,6 +53,17 @@ public class RelationScripts extends LuaScriptConfig {
         returnTypeMap.put(UNFAVORITE_POST, Long.class);
         returnTypeMap.put(BLOCK_USER, Long.class);
         returnTypeMap.put(UNBLOCK_USER, Long.class);
+        returnTypeMap.put(BITMAP_ADD, Long.class);
+        returnTypeMap.put(BITMAP_REMOVE, Long.class);
+        returnTypeMap.put(BITMAP_CONTAINS, Long.class);
+        returnTypeMap.put(BITMAP_IMPORT, Long.class);
+        returnTypeMap.put(BITMAP_MIGRATE, Long.class);
+        returnTypeMap.put(MEMORY_USAGE, Long.class);
+        returnTypeMap.put(SPLIT_FOLLOWER_SET, Long.class);
+        returnTypeMap.put(SSCAN_PAGE, List.class);
+        returnTypeMap.put(DIGEST_INIT, Long.class);
+        returnTypeMap.put(DIGEST_UPDATE, Long.class);
+        returnTypeMap.put(FAVORITE_CLEANUP, Long.class);
         return Collections.unmodifiableMap(returnTypeMap);
     }
 
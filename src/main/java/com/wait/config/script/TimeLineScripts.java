@@ -14,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
  * 统一管理 timeline 目录下的所有 Lua 脚本，包括：
  * - 帖子发布/删除相关脚本（publish_post, delete_post）
  * - 时间线 Sorted Set 操作脚本（publish_to_timeline, remove_from_timeline）
+ * - 首页收件箱写扩散脚本（inbox_push）
  */
 @Component
 @Slf4j
@@ -27,6 +28,9 @@ public class TimeLineScripts extends LuaScriptConfig {
     public static final String PUBLISH_TO_TIMELINE = "publish_to_timeline";
     public static final String REMOVE_FROM_TIMELINE = "remove_from_timeline";
 
+    // 首页收件箱脚本
+    public static final String INBOX_PUSH = "inbox_push";
+
     public TimeLineScripts(StringRedisTemplate stringRedisTemplate) {
         super(stringRedisTemplate);
     }
@@ -40,6 +44,8 @@ public class TimeLineScripts extends LuaScriptConfig {
         // 时间线 Sorted Set 操作脚本
         returnTypeMap.put(PUBLISH_TO_TIMELINE, Long.class);
         returnTypeMap.put(REMOVE_FROM_TIMELINE, Long.class);
+        // 首页收件箱脚本
+        returnTypeMap.put(INBOX_PUSH, Long.class);
         return Collections.unmodifiableMap(returnTypeMap);
     }
 
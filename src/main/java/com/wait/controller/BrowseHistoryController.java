@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.wait.entity.dto.CursorPage;
 import com.wait.service.BrowseHistoryService;
 import com.wait.util.ResponseUtil;
 
@@ -83,6 +84,27 @@ public class BrowseHistoryController {
         return ResponseUtil.success(data);
     }
 
+    /**
+     * 游标分页获取浏览历史（翻页期间有新的浏览记录也不会重复或遗漏）
+     * GET /api/browse-history/user/{userId}/cursor?cursor=&pageSize=20
+     */
+    @GetMapping("/user/{userId}/cursor")
+    public ResponseEntity<Map<String, Object>> getBrowseHistoryByCursor(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize) {
+        log.info("Getting browse history by cursor for user: {}, cursor: {}, pageSize: {}", userId, cursor, pageSize);
+        CursorPage<Long> page = browseHistoryService.getBrowseHistoryPage(userId, cursor,
+                Math.max(1, Math.min(pageSize, 100)));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("postIds", page.getItems());
+        data.put("count", page.getItems().size());
+        data.put("nextCursor", page.getNextCursor());
+        data.put("hasMore", page.isHasMore());
+        return ResponseUtil.success(data);
+    }
+
     /**
      * 按时间范围查询浏览记录
      * GET /api/browse-history/user/{userId}/range?startTime=xxx&endTime=xxx
@@ -1,5 +1,6 @@
 package com.wait.controller;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +19,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.wait.entity.domain.Post;
+import com.wait.entity.dto.CursorPage;
 import com.wait.entity.type.ResourceType;
 import com.wait.service.BrowseHistoryService;
 import com.wait.service.PostService;
@@ -125,6 +127,77 @@ public class PostController {
         return ResponseUtil.success(posts);
     }
 
+    /**
+     * 游标分页获取用户帖子（按更新时间、帖子ID倒序，深翻页不使用 OFFSET）
+     * GET /api/posts/user/{userId}/page?cursor=&pageSize=20
+     */
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<Map<String, Object>> getPostsPageByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) Long currentUserId) {
+        log.info("Getting posts page for user: {}, cursor: {}, size: {}, currentUserId: {}", userId, cursor,
+                pageSize, currentUserId);
+        CursorPage<Post> page = postService.getUserPostsPage(userId, cursor, Math.max(1, Math.min(pageSize, 100)));
+
+        List<Post> posts = page.getItems();
+        if (currentUserId != null && !posts.isEmpty()) {
+            List<Long> postIds = posts.stream()
+                    .map(Post::getId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            posts = postService.getPostsByIdsWithRelation(postIds, currentUserId);
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", userId);
+        data.put("posts", posts);
+        data.put("count", posts.size());
+        data.put("nextCursor", page.getNextCursor());
+        data.put("hasMore", page.isHasMore());
+        return ResponseUtil.success(data);
+    }
+
+    /**
+     * 批量获取帖子卡片（正文 + 计数 + 当前用户的点赞收藏状态）
+     * 客户端按 ids 的顺序传入已缓存正文的版本戳，版本戳未变化的帖子不返回正文（content 为 null，并列入 unchangedIds）
+     * GET /api/posts/cards?ids=1,2,3&versions=v1,v2,v3&currentUserId=
+     */
+    @GetMapping("/cards")
+    public ResponseEntity<Map<String, Object>> getPostCards(
+            @RequestParam List<Long> ids,
+            @RequestParam(required = false) List<Long> versions,
+            @RequestParam(required = false) Long currentUserId) {
+        log.info("Getting post cards: {}, currentUserId: {}", ids, currentUserId);
+        if (ids.size() > 100) {
+            return ResponseUtil.badRequest("一次最多获取100个帖子");
+        }
+        Map<Long, Long> knownVersions = new HashMap<>();
+        if (versions != null) {
+            for (int i = 0; i < ids.size() && i < versions.size(); i++) {
+                if (ids.get(i) != null && versions.get(i) != null) {
+                    knownVersions.put(ids.get(i), versions.get(i));
+                }
+            }
+        }
+
+        List<Post> posts = postService.getPostsByIdsWithRelation(ids, currentUserId);
+        List<Long> unchangedIds = new ArrayList<>();
+        for (Post post : posts) {
+            if (post.getVersion() != null && post.getVersion().equals(knownVersions.get(post.getId()))) {
+                post.setContent(null);
+                unchangedIds.add(post.getId());
+            }
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("posts", posts);
+        data.put("count", posts.size());
+        data.put("unchangedIds", unchangedIds);
+        return ResponseUtil.success(data);
+    }
+
     @PutMapping("")
     public ResponseEntity<Map<String, Object>> updatePost(
             @RequestBody Post post) {
@@ -144,4 +217,20 @@ public class PostController {
         data.put("rowsAffected", rowsAffected);
         return ResponseUtil.success("帖子删除成功", data);
     }
+
+    /**
+     * 批量删除帖子（审核清理），时间线、排行榜等索引异步清理
+     * DELETE /api/posts/batch?postIds=1,2,3
+     */
+    @DeleteMapping("/batch")
+    public ResponseEntity<Map<String, Object>> batchDeletePosts(@RequestParam List<Long> postIds) {
+        log.info("Batch deleting {} posts", postIds.size());
+        if (postIds.size() > 1000) {
+            return ResponseUtil.badRequest("一次最多删除1000个帖子");
+        }
+        int rowsAffected = postService.batchDelete(postIds);
+        Map<String, Object> data = new HashMap<>();
+        data.put("rowsAffected", rowsAffected);
+        return ResponseUtil.success("帖子删除成功", data);
+    }
 }
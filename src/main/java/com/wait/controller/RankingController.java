@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.wait.entity.domain.Post;
+import com.wait.entity.dto.CursorPage;
 import com.wait.service.HotRankingService;
 import com.wait.service.PostService;
 import com.wait.service.RankingService;
@@ -94,6 +95,38 @@ public class RankingController {
         return ResponseUtil.success(data);
     }
 
+    /**
+     * 游标分页获取用户时间线（按发布时间 seek 分页，翻页期间发布新帖子不会导致重复或遗漏）
+     * GET /ranking/timeline/user/{userId}/page?cursor=&pageSize=
+     */
+    @GetMapping("/timeline/user/{userId}/page")
+    public ResponseEntity<Map<String, Object>> getUserTimelinePage(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) Long currentUserId) {
+        log.info("Getting timeline page for user: {}, cursor: {}, size: {}", userId, cursor, pageSize);
+        CursorPage<Long> page = timelineSortedSetService.getUserTimelinePage(userId, cursor, clampPageSize(pageSize));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", userId);
+        return cursorPageResponse(page, currentUserId, data);
+    }
+
+    /**
+     * 游标分页获取全局时间线
+     * GET /ranking/timeline/global/page?cursor=&pageSize=
+     */
+    @GetMapping("/timeline/global/page")
+    public ResponseEntity<Map<String, Object>> getGlobalTimelinePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) Long currentUserId) {
+        log.info("Getting global timeline page, cursor: {}, size: {}", cursor, pageSize);
+        CursorPage<Long> page = timelineSortedSetService.getGlobalTimelinePage(cursor, clampPageSize(pageSize));
+        return cursorPageResponse(page, currentUserId, new HashMap<>());
+    }
+
     /**
      * 获取指定时间范围内的帖子
      * GET /ranking/timeline/range
@@ -156,6 +189,33 @@ public class RankingController {
         return ResponseUtil.success(data);
     }
 
+    /**
+     * 游标分页获取我的时间线（拉模式多路归并，翻页期间有新帖子也不会重复或遗漏）
+     * GET /ranking/timeline/my/{userId}/page?cursor=&pageSize=
+     */
+    @GetMapping("/timeline/my/{userId}/page")
+    public ResponseEntity<Map<String, Object>> getMyTimelinePage(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) Long currentUserId) {
+        log.info("Getting my timeline page for user: {}, cursor: {}, size: {}", userId, cursor, pageSize);
+
+        CursorPage<Long> page = timelineSortedSetService.getMyTimelinePage(userId, cursor, clampPageSize(pageSize));
+
+        Long actualCurrentUserId = currentUserId != null ? currentUserId : userId;
+        List<Post> posts = postService.getPostsByIdsWithRelation(page.getItems(), actualCurrentUserId);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", userId);
+        data.put("posts", posts);
+        data.put("count", posts.size());
+        data.put("nextCursor", page.getNextCursor());
+        data.put("hasMore", page.isHasMore());
+
+        return ResponseUtil.success(data);
+    }
+
     // ==================== 热度排行榜相关 ====================
 
     /**
@@ -187,6 +247,24 @@ public class RankingController {
         return ResponseUtil.success(data);
     }
 
+    /**
+     * 游标分页获取热门帖子排行榜（按热度分数 seek 分页，翻页期间热度变化不会导致整页错位）
+     * GET /ranking/hot/page?cursor=&pageSize=
+     */
+    @GetMapping("/hot/page")
+    public ResponseEntity<Map<String, Object>> getHotPostsPage(
+            @RequestParam(defaultValue = "daily") String period,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) Long currentUserId) {
+        log.info("Getting hot posts page, period: {}, cursor: {}, size: {}", period, cursor, pageSize);
+        CursorPage<Long> page = hotRankingService.getHotPostsPage(period, cursor, clampPageSize(pageSize));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("period", period);
+        return cursorPageResponse(page, currentUserId, data);
+    }
+
     /**
      * 获取帖子在排行榜中的排名
      * GET /ranking/hot/{postId}/rank
@@ -287,4 +365,63 @@ public class RankingController {
 
         return ResponseUtil.success(data);
     }
+
+    /**
+     * 游标分页获取点赞数排行榜
+     * GET /ranking/likes/page?cursor=&pageSize=
+     */
+    @GetMapping("/likes/page")
+    public ResponseEntity<Map<String, Object>> getLikesRankingPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) Long currentUserId) {
+        log.info("Getting likes ranking page, cursor: {}, size: {}", cursor, pageSize);
+        CursorPage<Long> page = rankingService.getLikesRankingPage(cursor, clampPageSize(pageSize));
+        return cursorPageResponse(page, currentUserId, new HashMap<>());
+    }
+
+    /**
+     * 游标分页获取收藏数排行榜
+     * GET /ranking/favorites/page?cursor=&pageSize=
+     */
+    @GetMapping("/favorites/page")
+    public ResponseEntity<Map<String, Object>> getFavoritesRankingPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) Long currentUserId) {
+        log.info("Getting favorites ranking page, cursor: {}, size: {}", cursor, pageSize);
+        CursorPage<Long> page = rankingService.getFavoritesRankingPage(cursor, clampPageSize(pageSize));
+        return cursorPageResponse(page, currentUserId, new HashMap<>());
+    }
+
+    /**
+     * 游标分页获取评论数排行榜
+     * GET /ranking/comments/page?cursor=&pageSize=
+     */
+    @GetMapping("/comments/page")
+    public ResponseEntity<Map<String, Object>> getCommentsRankingPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) Long currentUserId) {
+        log.info("Getting comments ranking page, cursor: {}, size: {}", cursor, pageSize);
+        CursorPage<Long> page = rankingService.getCommentsRankingPage(cursor, clampPageSize(pageSize));
+        return cursorPageResponse(page, currentUserId, new HashMap<>());
+    }
+
+    private static int clampPageSize(int pageSize) {
+        return Math.max(1, Math.min(pageSize, 100));
+    }
+
+    /**
+     * 根据游标页中的帖子 ID 获取完整帖子信息，与下一页游标一起返回
+     */
+    private ResponseEntity<Map<String, Object>> cursorPageResponse(CursorPage<Long> page, Long currentUserId,
+            Map<String, Object> data) {
+        List<Post> posts = postService.getPostsByIdsWithRelation(page.getItems(), currentUserId);
+        data.put("posts", posts);
+        data.put("count", posts.size());
+        data.put("nextCursor", page.getNextCursor());
+        data.put("hasMore", page.isHasMore());
+        return ResponseUtil.success(data);
+    }
 }
@@ -15,12 +15,18 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.wait.entity.dto.BitmapMemoryReport;
+import com.wait.entity.dto.CursorPage;
 import com.wait.entity.param.BatchCheckRequest;
 import com.wait.entity.param.BlockRequest;
 import com.wait.entity.param.FavoriteRequest;
 import com.wait.entity.param.FilterRequest;
 import com.wait.entity.param.FollowRequest;
 import com.wait.entity.param.LikeRequest;
+import com.wait.entity.param.RelationRebuildRequest;
+import com.wait.service.RelationEventService;
+import com.wait.service.RelationPersistenceService;
+import com.wait.service.RelationRebuildService;
 import com.wait.service.RelationService;
 import com.wait.util.ResponseUtil;
 
@@ -38,6 +44,12 @@ import lombok.extern.slf4j.Slf4j;
 public class RelationController {
 
     private final RelationService relationService;
+    private final RelationEventService relationEventService;
+    private final RelationPersistenceService relationPersistenceService;
+    private final RelationRebuildService relationRebuildService;
+
+    /** 游标分页单页最大数量 */
+    private static final int MAX_PAGE_SIZE = 200;
 
     // ==================== 关注相关 ====================
 
@@ -129,6 +141,46 @@ public class RelationController {
         return ResponseUtil.success(data);
     }
 
+    /**
+     * 游标分页获取关注列表（大账号使用，避免一次返回全部数据）
+     * GET /relation/follow/{userId}/following/page?cursor=&pageSize=
+     */
+    @GetMapping("/follow/{userId}/following/page")
+    public ResponseEntity<Map<String, Object>> getFollowingPage(@PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize) {
+        CursorPage<Long> page = relationService.getFollowingPage(userId, cursor, limitPageSize(pageSize));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", userId);
+        data.put("following", page.getItems());
+        data.put("count", page.getItems().size());
+        data.put("nextCursor", page.getNextCursor());
+        data.put("hasMore", page.isHasMore());
+
+        return ResponseUtil.success(data);
+    }
+
+    /**
+     * 游标分页获取粉丝列表
+     * GET /relation/follow/{userId}/followers/page?cursor=&pageSize=
+     */
+    @GetMapping("/follow/{userId}/followers/page")
+    public ResponseEntity<Map<String, Object>> getFollowersPage(@PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize) {
+        CursorPage<Long> page = relationService.getFollowersPage(userId, cursor, limitPageSize(pageSize));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", userId);
+        data.put("followers", page.getItems());
+        data.put("count", page.getItems().size());
+        data.put("nextCursor", page.getNextCursor());
+        data.put("hasMore", page.isHasMore());
+
+        return ResponseUtil.success(data);
+    }
+
     /**
      * 获取关注数和粉丝数
      * GET /relation/follow/{userId}/count
@@ -166,6 +218,25 @@ public class RelationController {
         return ResponseUtil.success(data);
     }
 
+    /**
+     * 获取共同关注数和前几个共同关注（个人主页"N 位共同关注"角标）
+     * GET /relation/follow/mutual/count
+     */
+    @GetMapping("/follow/mutual/count")
+    public ResponseEntity<Map<String, Object>> getMutualFollowingCount(
+            @RequestParam Long userId1,
+            @RequestParam Long userId2,
+            @RequestParam(defaultValue = "3") int preview) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId1", userId1);
+        data.put("userId2", userId2);
+        data.put("count", relationService.getMutualFollowingCount(userId1, userId2));
+        data.put("preview", relationService.getMutualFollowing(userId1, userId2, limitPageSize(preview)));
+        data.put("mutualFollowerCount", relationService.getMutualFollowerCount(userId1, userId2));
+
+        return ResponseUtil.success(data);
+    }
+
     /**
      * 检查是否互相关注
      * GET /relation/follow/mutual/check
@@ -282,6 +353,26 @@ public class RelationController {
         return ResponseUtil.success(data);
     }
 
+    /**
+     * 游标分页获取点赞用户列表
+     * GET /relation/like/{postId}/likers/page?cursor=&pageSize=
+     */
+    @GetMapping("/like/{postId}/likers/page")
+    public ResponseEntity<Map<String, Object>> getLikersPage(@PathVariable Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize) {
+        CursorPage<Long> page = relationService.getLikersPage(postId, cursor, limitPageSize(pageSize));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("postId", postId);
+        data.put("likers", page.getItems());
+        data.put("count", page.getItems().size());
+        data.put("nextCursor", page.getNextCursor());
+        data.put("hasMore", page.isHasMore());
+
+        return ResponseUtil.success(data);
+    }
+
     /**
      * 获取点赞数
      * GET /relation/like/{postId}/count
@@ -314,6 +405,38 @@ public class RelationController {
         return ResponseUtil.success(data);
     }
 
+    /**
+     * 将帖子点赞用户迁移为压缩位图
+     * POST /relation/like/{postId}/bitmap/migrate
+     */
+    @PostMapping("/like/{postId}/bitmap/migrate")
+    public ResponseEntity<Map<String, Object>> migrateLikersToBitmap(@PathVariable Long postId,
+            @RequestParam(defaultValue = "false") boolean deleteSource) {
+        log.info("迁移帖子{}的点赞用户到位图, deleteSource: {}", postId, deleteSource);
+        BitmapMemoryReport report = relationService.migrateLikersToBitmap(postId, deleteSource);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("postId", postId);
+        data.put("report", report);
+
+        return ResponseUtil.success("迁移完成", data);
+    }
+
+    /**
+     * 获取帖子点赞用户的内存对比报告
+     * GET /relation/like/{postId}/bitmap/report
+     */
+    @GetMapping("/like/{postId}/bitmap/report")
+    public ResponseEntity<Map<String, Object>> getLikersMemoryReport(@PathVariable Long postId) {
+        BitmapMemoryReport report = relationService.getLikersMemoryReport(postId);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("postId", postId);
+        data.put("report", report);
+
+        return ResponseUtil.success(data);
+    }
+
     // ==================== 收藏相关 ====================
 
     /**
@@ -391,6 +514,26 @@ public class RelationController {
         return ResponseUtil.success(data);
     }
 
+    /**
+     * 游标分页获取用户收藏列表
+     * GET /relation/favorite/user/{userId}/page?cursor=&pageSize=
+     */
+    @GetMapping("/favorite/user/{userId}/page")
+    public ResponseEntity<Map<String, Object>> getUserFavoritesPage(@PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize) {
+        CursorPage<Long> page = relationService.getUserFavoritesPage(userId, cursor, limitPageSize(pageSize));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", userId);
+        data.put("favorites", page.getItems());
+        data.put("count", page.getItems().size());
+        data.put("nextCursor", page.getNextCursor());
+        data.put("hasMore", page.isHasMore());
+
+        return ResponseUtil.success(data);
+    }
+
     /**
      * 获取收藏数
      * GET /relation/favorite/{postId}/count
@@ -496,4 +639,67 @@ public class RelationController {
 
         return ResponseUtil.success(data);
     }
+
+    // ==================== 事件管道与持久化 ====================
+
+    /**
+     * 获取关系事件管道运行统计
+     * GET /api/relation/event/stats
+     */
+    @GetMapping("/event/stats")
+    public ResponseEntity<Map<String, Object>> getEventStats() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("stats", relationEventService.getStats());
+
+        return ResponseUtil.success(data);
+    }
+
+    /**
+     * 获取点赞/收藏批量刷库的吞吐统计
+     * GET /api/relation/persist/stats
+     */
+    @GetMapping("/persist/stats")
+    public ResponseEntity<Map<String, Object>> getPersistStats() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("stats", relationPersistenceService.getFlushStats());
+
+        return ResponseUtil.success(data);
+    }
+
+    // ==================== 数据重建 ====================
+
+    /**
+     * 从数据库流式重建关系 Redis 数据（异步执行）
+     * POST /api/relation/rebuild
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild(@RequestBody RelationRebuildRequest request) {
+        log.info("启动关系数据重建, types: {}, dryRun: {}, replace: {}", request.getTypes(), request.isDryRun(),
+                request.isReplace());
+        boolean started = relationRebuildService.start(request);
+        if (!started) {
+            return ResponseUtil.error("已有重建任务在运行");
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("status", relationRebuildService.getStatus());
+
+        return ResponseUtil.success("重建任务已启动", data);
+    }
+
+    /**
+     * 获取关系数据重建进度
+     * GET /api/relation/rebuild/status
+     */
+    @GetMapping("/rebuild/status")
+    public ResponseEntity<Map<String, Object>> getRebuildStatus() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("status", relationRebuildService.getStatus());
+
+        return ResponseUtil.success(data);
+    }
+
+    private int limitPageSize(int pageSize) {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
 }
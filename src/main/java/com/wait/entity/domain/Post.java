@@ -26,5 +26,6 @@ public class Post {
     private Boolean isFavorited;  // 当前用户是否已收藏
     private Integer favoriteCount; // 收藏数（从Redis获取）
     private String username;       // 用户名（从UserBase获取）
+    private Long version;          // 正文版本戳（从帖子视图缓存获取），相同说明正文未变化
 
 }
@@ -0,0 +1,25 @@
+package com.wait.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 位图存储内存对比报告
+ * 对比同一份关系数据在 Redis Set 和压缩位图两种存储方式下的内存占用
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BitmapMemoryReport {
+    private String setKey;          // 旧版 Set key
+    private String bitmapKey;       // 位图 key 前缀
+    private Long setCardinality;    // Set 成员数
+    private Long bitmapCardinality; // 位图基数
+    private Long setBytes;          // Set 内存占用（MEMORY USAGE，字节）
+    private Long bitmapBytes;       // 位图内存占用（所有容器 + 元数据，字节）
+    private Integer containerCount; // 容器数量
+    private Double compressionRatio; // setBytes / bitmapBytes
+}
@@ -0,0 +1,22 @@
+package com.wait.entity.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 游标分页结果
+ * nextCursor 为下一页的游标（不透明字符串），为 null 表示没有更多数据
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;      // 当前页数据
+    private String nextCursor;  // 下一页游标
+    private boolean hasMore;    // 是否还有更多数据
+}
@@ -0,0 +1,22 @@
+package com.wait.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 帖子卡片的可变计数（post:stats:{postId} Hash）
+ * version 为帖子正文的版本戳：正文更新或计数缓存重建时变化，版本相同说明正文未变化
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostStats {
+    private Long postId;        // 帖子ID
+    private long likeCount;     // 点赞数
+    private long favoriteCount; // 收藏数
+    private long commentCount;  // 评论数
+    private long version;       // 正文版本戳
+}
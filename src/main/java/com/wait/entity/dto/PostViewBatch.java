@@ -0,0 +1,21 @@
+package com.wait.entity.dto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.wait.entity.domain.Post;
+
+import lombok.Data;
+
+/**
+ * 一次管道读取的帖子卡片视图：正文和计数分别记录命中与未命中的帖子
+ */
+@Data
+public class PostViewBatch {
+    private final Map<Long, Post> bodies = new HashMap<>();      // postId -> 正文
+    private final Map<Long, PostStats> stats = new HashMap<>();  // postId -> 计数
+    private final List<Long> missingBodies = new ArrayList<>();  // 正文未缓存的帖子ID
+    private final List<Long> missingStats = new ArrayList<>();   // 计数未缓存的帖子ID
+}
@@ -0,0 +1,83 @@
+package com.wait.entity.dto;
+
+import java.util.Collection;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 关系集合摘要：成员数、成员 id 之和、成员 id 低32位异或
+ * Redis 侧由 Lua 脚本增量维护（relation:digest:{type}:{entityId}），数据库侧由关系写入在同一事务内
+ * 增量维护（relation_digest 表），两边摘要一致时认为集合一致，不一致时才拉取全量成员比对
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelationDigest {
+    private Long entityId; // 实体ID（帖子ID或用户ID）
+    private long count; // 成员数
+    private long sum; // 成员 id 之和
+    private long xor; // 成员 id 低32位的异或（无符号）
+
+    public static final String TYPE_LIKE = "like";
+    public static final String TYPE_FAVORITE = "favorite";
+    public static final String TYPE_FOLLOW = "follow";
+    public static final String TYPE_BLOCK = "block";
+
+    private static final long LOW_32_MASK = 0xFFFFFFFFL;
+
+    /**
+     * 根据成员集合计算摘要
+     */
+    public static RelationDigest of(Long entityId, Collection<Long> members) {
+        long sum = 0;
+        long xor = 0;
+        if (members != null) {
+            for (Long member : members) {
+                sum += member;
+                xor ^= member & LOW_32_MASK;
+            }
+        }
+        return new RelationDigest(entityId, members != null ? members.size() : 0, sum, xor);
+    }
+
+    /**
+     * 从 Redis 摘要 Hash 解析（Lua 中异或结果为有符号32位整数，这里统一转为无符号）
+     */
+    public static RelationDigest fromHash(Long entityId, Map<String, Long> hash) {
+        return new RelationDigest(entityId,
+                valueOf(hash.get("count")),
+                valueOf(hash.get("sum")),
+                valueOf(hash.get("xor")) & LOW_32_MASK);
+    }
+
+    /**
+     * 空集合的摘要（数据库中没有任何记录）
+     */
+    public static RelationDigest empty(Long entityId) {
+        return new RelationDigest(entityId, 0, 0, 0);
+    }
+
+    /**
+     * 累加一个成员的增减，作为摘要增量使用（异或的逆运算是它本身，增减都做异或）
+     */
+    public RelationDigest accumulate(Long member, boolean added) {
+        count += added ? 1 : -1;
+        sum += added ? member : -member;
+        xor ^= member & LOW_32_MASK;
+        return this;
+    }
+
+    public boolean matches(RelationDigest other) {
+        return other != null && count == other.count && sum == other.sum
+                && (xor & LOW_32_MASK) == (other.xor & LOW_32_MASK);
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+}
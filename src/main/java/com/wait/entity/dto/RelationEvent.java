@@ -0,0 +1,22 @@
+package com.wait.entity.dto;
+
+import com.wait.entity.type.RelationEventType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 关系事件：Redis 关系写入成功后投递到事件管道，由后台线程批量处理排行榜、热度、统计、通知和持久化
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelationEvent {
+    private RelationEventType type; // 事件类型
+    private Long actorId; // 操作者ID（点赞/收藏的用户、关注者）
+    private Long targetId; // 目标ID（帖子ID、被关注者ID）
+    private long timestamp; // 事件发生时间（毫秒）
+}
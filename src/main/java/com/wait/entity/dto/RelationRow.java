@@ -0,0 +1,19 @@
+package com.wait.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 关系表的一行（流式重建 Redis 时使用），按实体分组后写入以实体为 key 的集合
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelationRow {
+    private Long entityId; // 实体ID（集合所属的帖子ID或用户ID）
+    private Long memberId; // 成员ID
+    private Long createdAt; // 关系建立时间（毫秒）
+}
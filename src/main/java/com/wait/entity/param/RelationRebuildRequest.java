@@ -0,0 +1,19 @@
+package com.wait.entity.param;
+
+import java.util.List;
+
+import com.wait.entity.type.RelationRebuildType;
+
+import lombok.Data;
+
+/**
+ * 关系数据重建请求
+ */
+@Data
+public class RelationRebuildRequest {
+    private List<RelationRebuildType> types; // 重建类型，为空时重建全部
+    private boolean dryRun; // 只读取和统计，不写 Redis
+    private boolean resume = true; // 从上次中断的检查点继续
+    private boolean replace; // 先删除实体原有集合再写入（默认只做并集补全，不影响未落库的新关系）
+    private int maxRowsPerSecond; // 读取限速（行/秒），0 表示不限速
+}
@@ -0,0 +1,24 @@
+package com.wait.entity.type;
+
+/**
+ * 关系事件类型枚举
+ * positive 为 true 表示建立关系（点赞/收藏/关注），false 表示解除关系
+ */
+public enum RelationEventType {
+    LIKE(true),
+    UNLIKE(false),
+    FAVORITE(true),
+    UNFAVORITE(false),
+    FOLLOW(true),
+    UNFOLLOW(false);
+
+    private final boolean positive;
+
+    RelationEventType(boolean positive) {
+        this.positive = positive;
+    }
+
+    public boolean isPositive() {
+        return positive;
+    }
+}
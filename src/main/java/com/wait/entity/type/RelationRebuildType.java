@@ -0,0 +1,26 @@
+package com.wait.entity.type;
+
+/**
+ * 关系数据重建类型枚举
+ * 每种类型对应一张关系表按某一列流式读取，重建以该列为实体的 Redis 集合
+ */
+public enum RelationRebuildType {
+    FOLLOWING("user_follow 按 follower_id：关注列表及时间索引"),
+    FOLLOWERS("user_follow 按 followed_id：粉丝列表（已分片的写入分片）"),
+    POST_LIKERS("post_like 按 post_id：帖子点赞用户及点赞数"),
+    USER_LIKES("post_like 按 user_id：用户点赞过的帖子"),
+    USER_FAVORITES("post_favorite 按 user_id：用户收藏列表及时间索引"),
+    POST_FAVORITERS("post_favorite 按 post_id：帖子收藏用户及收藏数"),
+    BLACKLIST("user_block 按 user_id：黑名单"),
+    BLOCKED_BY("user_block 按 blocked_user_id：被拉黑列表");
+
+    private final String description;
+
+    RelationRebuildType(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
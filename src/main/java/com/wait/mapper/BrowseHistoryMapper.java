@@ -33,6 +33,31 @@ public interface BrowseHistoryMapper {
                                         @Param("offset") int offset,
                                         @Param("limit") int limit);
 
+    /**
+     * 键集分页查询用户的浏览记录：返回排在 (cursorTime, cursorPostId) 之后的记录，按 (browse_time, post_id) 倒序
+     * 同一帖子多次浏览会返回多行，由调用方跳过较早的重复记录
+     * 
+     * @param userId 用户ID
+     * @param cursorTime 游标浏览时间戳（毫秒），null 表示从最新开始
+     * @param cursorPostId 游标帖子ID
+     * @param limit 数量限制
+     * @return 浏览记录列表（只填充 postId 和 browseTime）
+     */
+    List<BrowseHistory> selectByUserIdBefore(@Param("userId") Long userId,
+                                             @Param("cursorTime") Long cursorTime,
+                                             @Param("cursorPostId") Long cursorPostId,
+                                             @Param("limit") int limit);
+
+    /**
+     * 批量查询用户对指定帖子最近一次浏览的时间
+     * 
+     * @param userId 用户ID
+     * @param postIds 帖子ID列表（不能为空）
+     * @return 浏览记录列表（每个帖子一条，只填充 postId 和 browseTime）
+     */
+    List<BrowseHistory> selectLatestBrowseTimes(@Param("userId") Long userId,
+                                                @Param("postIds") List<Long> postIds);
+
     /**
      * 查询指定用户和帖子ID的浏览记录
      * 
@@ -90,5 +115,25 @@ public interface BrowseHistoryMapper {
      */
     int deleteByUserIdAndExpireTime(@Param("userId") Long userId,
                                      @Param("expireTime") Long expireTime);
+
+    /**
+     * 按记录ID键集分页查询浏览过指定帖子的记录（用于帖子删除后的级联清理）
+     * 
+     * @param postId 帖子ID
+     * @param afterId 上一页最后一条记录ID，0 表示从头开始
+     * @param limit 数量限制
+     * @return 浏览记录列表（只包含 id、userId 和 postId，同一用户可能出现多次）
+     */
+    List<BrowseHistory> selectViewersByPostIdAfter(@Param("postId") Long postId,
+                                                   @Param("afterId") long afterId,
+                                                   @Param("limit") int limit);
+
+    /**
+     * 删除指定帖子的所有浏览记录
+     * 
+     * @param postIds 帖子ID列表
+     * @return 删除的记录数
+     */
+    int deleteByPostIds(@Param("postIds") List<Long> postIds);
 }
 
@@ -4,8 +4,10 @@ import java.util.List;
 
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import com.wait.entity.domain.UserFollow;
+import com.wait.entity.dto.RelationRow;
 
 @Mapper
 public interface FollowMapper {
@@ -47,11 +49,26 @@ public interface FollowMapper {
     List<Long> selectDistinctUserIds();
 
     /**
-     * 分页查询有关注关系的用户ID列表（用于分批校验）
+     * 分页查询有关注关系的用户ID列表（键集分页，用于分批校验）
      * 
-     * @param offset 偏移量
-     * @param limit  限制数量
+     * @param afterId 上一页最后一个ID（第一页传 0）
+     * @param limit   限制数量
      * @return 用户ID列表
      */
-    List<Long> selectDistinctUserIdsWithPaging(@Param("offset") int offset, @Param("limit") int limit);
+    List<Long> selectDistinctUserIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 按关注者流式读取关注关系（服务端游标逐行返回，按实体ID排序，用于批量重建 Redis）
+     * 需要在事务内遍历，遍历结束后关闭游标
+     * 
+     * @param afterId 从该实体ID之后开始（断点续传）
+     */
+    Cursor<RelationRow> streamByFollowerId(@Param("afterId") long afterId);
+
+    /**
+     * 按被关注者流式读取关注关系（服务端游标逐行返回，按实体ID排序，用于批量重建 Redis）
+     * 
+     * @param afterId 从该实体ID之后开始（断点续传）
+     */
+    Cursor<RelationRow> streamByFollowedId(@Param("afterId") long afterId);
 }
@@ -4,8 +4,10 @@ import java.util.List;
 
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import com.wait.entity.domain.PostFavorite;
+import com.wait.entity.dto.RelationRow;
 
 @Mapper
 public interface PostFavoriteMapper {
@@ -57,6 +59,12 @@ public interface PostFavoriteMapper {
      */
     int batchInsert(List<PostFavorite> favorites);
 
+    /**
+     * 批量插入或忽略（INSERT ... ON DUPLICATE KEY UPDATE），已存在的收藏关系保留原收藏时间
+     * 用于 Write-Behind 批量刷库，省去写入前的 batchExists 查询
+     */
+    int batchUpsert(List<PostFavorite> favorites);
+
     /**
      * 查询所有收藏关系（用于数据加载）
      */
@@ -78,11 +86,26 @@ public interface PostFavoriteMapper {
     List<Long> selectDistinctUserIds();
 
     /**
-     * 分页查询有收藏的用户ID列表（用于分批校验）
+     * 分页查询有收藏的用户ID列表（键集分页，用于分批校验）
      * 
-     * @param offset 偏移量
-     * @param limit  限制数量
+     * @param afterId 上一页最后一个ID（第一页传 0）
+     * @param limit   限制数量
      * @return 用户ID列表
      */
-    List<Long> selectDistinctUserIdsWithPaging(@Param("offset") int offset, @Param("limit") int limit);
+    List<Long> selectDistinctUserIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 按用户流式读取收藏关系（服务端游标逐行返回，按实体ID排序，用于批量重建 Redis）
+     * 需要在事务内遍历，遍历结束后关闭游标
+     * 
+     * @param afterId 从该实体ID之后开始（断点续传）
+     */
+    Cursor<RelationRow> streamByUserId(@Param("afterId") long afterId);
+
+    /**
+     * 按帖子流式读取收藏关系（服务端游标逐行返回，按实体ID排序，用于批量重建 Redis）
+     * 
+     * @param afterId 从该实体ID之后开始（断点续传）
+     */
+    Cursor<RelationRow> streamByPostId(@Param("afterId") long afterId);
 }
@@ -4,8 +4,10 @@ import java.util.List;
 
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import com.wait.entity.domain.PostLike;
+import com.wait.entity.dto.RelationRow;
 
 @Mapper
 public interface PostLikeMapper {
@@ -17,6 +19,12 @@ public interface PostLikeMapper {
      */
     int batchInsert(List<PostLike> likes);
 
+    /**
+     * 批量插入或忽略（INSERT ... ON DUPLICATE KEY UPDATE），已存在的点赞关系保持不变
+     * 用于 Write-Behind 批量刷库，省去写入前的 batchExists 查询
+     */
+    int batchUpsert(List<PostLike> likes);
+
     int delete(@Param("postId") Long postId, @Param("userId") Long userId);
 
     /**
@@ -70,11 +78,26 @@ public interface PostLikeMapper {
     List<Long> selectDistinctPostIds();
 
     /**
-     * 分页查询有点赞的帖子ID列表（用于分批校验）
+     * 分页查询有点赞的帖子ID列表（键集分页，用于分批校验）
      * 
-     * @param offset 偏移量
-     * @param limit  限制数量
+     * @param afterId 上一页最后一个ID（第一页传 0）
+     * @param limit   限制数量
      * @return 帖子ID列表
      */
-    List<Long> selectDistinctPostIdsWithPaging(@Param("offset") int offset, @Param("limit") int limit);
+    List<Long> selectDistinctPostIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 按帖子流式读取点赞关系（服务端游标逐行返回，按实体ID排序，用于批量重建 Redis）
+     * 需要在事务内遍历，遍历结束后关闭游标
+     * 
+     * @param afterId 从该实体ID之后开始（断点续传）
+     */
+    Cursor<RelationRow> streamByPostId(@Param("afterId") long afterId);
+
+    /**
+     * 按用户流式读取点赞关系（服务端游标逐行返回，按实体ID排序，用于批量重建 Redis）
+     * 
+     * @param afterId 从该实体ID之后开始（断点续传）
+     */
+    Cursor<RelationRow> streamByUserId(@Param("afterId") long afterId);
 }
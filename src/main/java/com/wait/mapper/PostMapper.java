@@ -1,5 +1,6 @@
 package com.wait.mapper;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -33,10 +34,41 @@ public interface PostMapper {
             @Param("offset") int offset,
             @Param("limit") int limit);
 
+    /**
+     * 键集分页查询用户帖子：与 selectByUserIdWithPagination 相同的 (updated_at, id) 倒序，
+     * 返回排在游标帖子之后的帖子，用于预取下一页
+     * 
+     * @param userId          用户ID
+     * @param cursorUpdatedAt 游标帖子的更新时间
+     * @param cursorId        游标帖子ID
+     * @param limit           数量
+     * @return 帖子列表
+     */
+    List<Post> selectByUserIdAfterPosition(@Param("userId") Long userId,
+            @Param("cursorUpdatedAt") LocalDateTime cursorUpdatedAt,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit);
+
     int update(Post post);
 
     int delete(Long id);
 
+    /**
+     * 批量逻辑删除帖子
+     * 
+     * @param ids 帖子ID列表
+     * @return 删除的行数
+     */
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 查询帖子作者（包含已删除的帖子，用于删除后的级联清理）
+     * 
+     * @param ids 帖子ID列表
+     * @return 帖子列表（只包含 id 和 userId）
+     */
+    List<Post> selectAuthorsByIds(@Param("ids") List<Long> ids);
+
     int countByUserId(Long userId);
 
     List<Post> selectByIds(@Param("ids") List<Long> ids);
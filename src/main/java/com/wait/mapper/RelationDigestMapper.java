@@ -0,0 +1,53 @@
+package com.wait.mapper;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.wait.entity.dto.RelationDigest;
+
+/**
+ * 数据库侧关系摘要 Mapper（relation_digest 表）
+ * 摘要随关系写入增量维护，校验时按主键点查，不再对关系表做 GROUP BY 聚合
+ */
+@Mapper
+public interface RelationDigestMapper {
+
+    /**
+     * 批量查询摘要，没有摘要记录的实体不返回
+     * 
+     * @param type      关系类型（like, favorite, follow, block）
+     * @param entityIds 实体ID列表
+     * @return 摘要列表
+     */
+    List<RelationDigest> selectByEntityIds(@Param("type") String type, @Param("entityIds") List<Long> entityIds);
+
+    /**
+     * 批量累加摘要增量：成员数、成员ID之和相加，异或值再次异或；实体没有摘要记录时以增量作为初始值
+     * 
+     * @param type   关系类型
+     * @param deltas 各实体的摘要增量
+     * @return 影响的行数
+     */
+    int batchApplyDeltas(@Param("type") String type, @Param("deltas") List<RelationDigest> deltas);
+
+    /**
+     * 批量删除摘要
+     * 
+     * @param type      关系类型
+     * @param entityIds 实体ID列表
+     * @return 删除的行数
+     */
+    int deleteByEntityIds(@Param("type") String type, @Param("entityIds") List<Long> entityIds);
+
+    /**
+     * 按关系表重新聚合并覆盖摘要（INSERT ... SELECT ... GROUP BY），只用于校验后修正少量实体
+     * 关系表中没有记录的实体不会写入，调用方应先 deleteByEntityIds 并放在同一事务内
+     * 
+     * @param type      关系类型
+     * @param entityIds 实体ID列表
+     * @return 影响的行数
+     */
+    int refreshFromRelations(@Param("type") String type, @Param("entityIds") List<Long> entityIds);
+}
@@ -2,6 +2,8 @@ package com.wait.service;
 
 import java.util.List;
 
+import com.wait.entity.dto.CursorPage;
+
 /**
  * 浏览记录服务
  * 使用 Redis Sorted Set 记录用户浏览历史，支持去重和时间范围查询
@@ -41,6 +43,17 @@ public interface BrowseHistoryService {
      */
     List<Long> getBrowseHistory(Long userId, int page, int pageSize);
 
+    /**
+     * 游标分页获取浏览历史（按浏览时间 + 帖子ID seek 分页）
+     * Redis中的记录读完后，从数据库按同一顺序继续读取更早的记录
+     * 
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，null 表示第一页
+     * @param pageSize 每页数量
+     * @return 浏览的帖子ID列表（从新到旧）和下一页游标
+     */
+    CursorPage<Long> getBrowseHistoryPage(Long userId, String cursor, int pageSize);
+
     /**
      * 查询指定时间范围内的浏览记录
      * 
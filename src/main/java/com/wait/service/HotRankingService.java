@@ -2,6 +2,8 @@ package com.wait.service;
 
 import java.util.List;
 
+import com.wait.entity.dto.CursorPage;
+
 /**
  * 热度排行榜服务
  * 使用 Sorted Set 实现帖子热度排行榜
@@ -14,6 +16,48 @@ public interface HotRankingService {
      */
     void updateHotScore(Long postId);
 
+    /**
+     * 标记帖子待重算热度，由定时任务批量重算（计数变化时调用）
+     * @param postId 帖子ID
+     */
+    void markDirty(Long postId);
+
+    /**
+     * 各时间段热度排行榜及当前小时分桶的 Redis key，发帖脚本在同一次往返中写入新帖子的初始分数
+     * @return 排行榜 key 列表
+     */
+    List<String> getHotRankingKeys();
+
+    /**
+     * 仍在保留期内的全部小时分桶 key（删帖时从分桶中移除，避免下次聚合重新加入窗口排行榜）
+     * @return 分桶 key 列表
+     */
+    List<String> getHotBucketKeys();
+
+    /**
+     * 时间衰减趋势榜的 Redis key：[趋势榜, 衰减基准时间]，发帖脚本据此写入新帖子的衰减分数
+     * @return key 列表
+     */
+    List<String> getTrendingKeys();
+
+    /**
+     * 趋势榜衰减时间常数 τ（毫秒）
+     * @return 时间常数
+     */
+    long getTrendingTauMillis();
+
+    /**
+     * 新帖子进入趋势榜时的初始热度
+     * @return 初始热度（大于 0）
+     */
+    double getTrendingPublishWeight();
+
+    /**
+     * 新帖子（没有任何互动）的初始热度分数
+     * @return 热度分数
+     */
+    double getInitialHotScore();
+
     /**
      * 点赞时更新热度分数
      * @param postId 帖子ID
@@ -26,6 +70,13 @@ public interface HotRankingService {
      */
     void onUnlike(Long postId);
 
+    /**
+     * 批量点赞事件合并后的净增量更新热度分数
+     * @param postId 帖子ID
+     * @param delta 点赞数净增量（可为负）
+     */
+    void incrementLikes(Long postId, long delta);
+
     /**
      * 收藏时更新热度分数
      * @param postId 帖子ID
@@ -38,21 +89,43 @@ public interface HotRankingService {
      */
     void onUnfavorite(Long postId);
 
+    /**
+     * 批量收藏事件合并后的净增量更新热度分数
+     * @param postId 帖子ID
+     * @param delta 收藏数净增量（可为负）
+     */
+    void incrementFavorites(Long postId, long delta);
+
     /**
      * 评论时更新热度分数
      * @param postId 帖子ID
      */
     void onComment(Long postId);
 
+    /**
+     * 删除评论时更新热度分数
+     * @param postId 帖子ID
+     */
+    void onUncomment(Long postId);
+
     /**
      * 获取热门帖子排行榜（指定时间段）
-     * @param period 时间段（daily/weekly/monthly/alltime）
+     * @param period 时间段（daily/weekly/monthly/alltime/trending）
      * @param page 页码（从1开始）
      * @param pageSize 每页大小
      * @return 帖子ID列表
      */
     List<Long> getHotPosts(String period, int page, int pageSize);
 
+    /**
+     * 游标分页获取热门帖子排行榜（按热度分数 + 帖子ID seek 分页）
+     * @param period 时间段（daily/weekly/monthly/alltime/trending）
+     * @param cursor 上一页返回的游标，null 表示第一页
+     * @param pageSize 每页大小
+     * @return 帖子ID列表和下一页游标
+     */
+    CursorPage<Long> getHotPostsPage(String period, String cursor, int pageSize);
+
     /**
      * 获取帖子在排行榜中的排名
      * @param postId 帖子ID
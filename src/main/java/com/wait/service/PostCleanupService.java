@@ -0,0 +1,25 @@
+package com.wait.service;
+
+import java.util.Collection;
+
+/**
+ * 帖子删除级联清理服务
+ * 删帖只同步删除帖子缓存和作者帖子列表，其余索引（时间线、排行榜、点赞收藏集合、浏览记录、计数缓存）
+ * 由本服务异步批量清理
+ */
+public interface PostCleanupService {
+
+    /**
+     * 登记待清理的已删除帖子（写入待清理 Set，重复登记自动合并）
+     * 
+     * @param postIds 帖子ID列表
+     */
+    void enqueue(Collection<Long> postIds);
+
+    /**
+     * 立即处理一轮待清理的帖子（定时任务也会调用）
+     * 
+     * @return 本轮清理的帖子数
+     */
+    int cleanupPending();
+}
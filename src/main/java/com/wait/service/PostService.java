@@ -3,6 +3,7 @@ package com.wait.service;
 import java.util.List;
 
 import com.wait.entity.domain.Post;
+import com.wait.entity.dto.CursorPage;
 
 /**
  * 帖子服务接口
@@ -26,6 +27,16 @@ public interface PostService {
      */
     List<Post> getUserPagedPosts(Long userId, int page, int pageSize);
 
+    /**
+     * 游标分页查询用户帖子（按 updated_at、帖子ID倒序 seek 分页）
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标（{updatedAt 毫秒}:{帖子ID}），null 表示第一页
+     * @throws IllegalArgumentException 游标格式错误
+     * @param pageSize 每页大小
+     * @return 帖子列表和下一页游标
+     */
+    CursorPage<Post> getUserPostsPage(Long userId, String cursor, int pageSize);
+
     /**
      * 根据ID获取单个帖子详情
      * @param postId 帖子ID
@@ -55,12 +66,6 @@ public interface PostService {
      */
     int update(Post post);
 
-    /**
-     * 评论数变化时调用，更新排行榜和热度分数
-     * @param postId 帖子ID
-     */
-    void onCommentCountChanged(Long postId);
-
     /**
      * 增加评论数
      * @param postId 帖子ID
@@ -80,5 +85,12 @@ public interface PostService {
      * @return 删除的行数
      */
     int delete(Long userId, Long postId);
+
+    /**
+     * 批量删除帖子（删除用户、审核清理），缓存和索引由级联清理异步批量移除
+     * @param postIds 帖子ID列表
+     * @return 删除的行数
+     */
+    int batchDelete(List<Long> postIds);
 }
 
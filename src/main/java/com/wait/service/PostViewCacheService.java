@@ -0,0 +1,61 @@
+package com.wait.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.wait.entity.domain.Post;
+import com.wait.entity.dto.PostStats;
+import com.wait.entity.dto.PostViewBatch;
+import com.wait.entity.dto.RelationEvent;
+
+/**
+ * 帖子卡片视图缓存
+ * 正文（post:{postId}）与可变计数（post:stats:{postId} Hash）分开存放：
+ * 正文只在更新时重写，计数随点赞/收藏/评论增量更新，读取时一次管道取回两者
+ */
+public interface PostViewCacheService {
+
+    /**
+     * 一次管道读取一批帖子的计数和正文
+     * 
+     * @param postIds 帖子ID列表
+     * @return 读取结果，正文或计数未缓存的帖子分别记录在 missingBodies / missingStats 中
+     */
+    PostViewBatch fetch(List<Long> postIds);
+
+    /**
+     * 写入按源数据计算的计数并以读取源数据之前的时间作为版本戳，只在计数 Hash 没有版本戳时写入（以已建立的为准）；
+     * 同时读取当前正文，与生效的版本戳一起记入进程内缓存
+     * 
+     * @param stats    postId -> 计数（version 字段忽略）
+     * @param loadedAt 开始读取源数据之前的毫秒时间，早于该时间的点赞/收藏/评论已包含在源数据中
+     * @return stats 为缓存中实际生效的计数，bodies 为与之对应的当前正文（正文未缓存的帖子不返回）
+     */
+    PostViewBatch initStats(Collection<PostStats> stats, long loadedAt);
+
+    /**
+     * 把从 Redis 或数据库加载的正文记入进程内缓存，对应版本戳相同时下次读取不再下载正文
+     */
+    void rememberBody(Post post, long version);
+
+    /**
+     * 按点赞事件更新点赞数（计数未缓存时忽略），早于版本戳的事件已包含在建立计数时的源数据中，不再计入
+     */
+    void incrementLikes(Long postId, List<RelationEvent> events);
+
+    /**
+     * 按收藏事件更新收藏数（计数未缓存时忽略），规则同点赞
+     */
+    void incrementFavorites(Long postId, List<RelationEvent> events);
+
+    /**
+     * 评论数变化（计数未缓存时忽略），在源数据更新之后调用
+     */
+    void incrementComments(Long postId, long delta);
+
+    /**
+     * 正文更新或帖子删除时使计数和版本戳失效，下次读取重建并生成新版本戳
+     */
+    void invalidate(Long postId);
+}
@@ -2,6 +2,8 @@ package com.wait.service;
 
 import java.util.List;
 
+import com.wait.entity.dto.CursorPage;
+
 /**
  * 单项排行榜服务
  * 实现按点赞数、收藏数、评论数排序的排行榜
@@ -36,6 +38,22 @@ public interface RankingService {
      */
     void onUnfavorite(Long postId);
 
+    /**
+     * 按净增量批量更新点赞排行榜（同一帖子一批只执行一次 ZINCRBY）
+     * 
+     * @param postId 帖子ID
+     * @param delta  点赞数净增量（可为负）
+     */
+    void incrementLikes(Long postId, long delta);
+
+    /**
+     * 按净增量批量更新收藏排行榜
+     * 
+     * @param postId 帖子ID
+     * @param delta  收藏数净增量（可为负）
+     */
+    void incrementFavorites(Long postId, long delta);
+
     /**
      * 评论时更新评论排行榜
      * 
@@ -77,6 +95,33 @@ public interface RankingService {
      */
     List<Long> getCommentsRanking(int page, int pageSize);
 
+    /**
+     * 游标分页获取点赞数排行榜（按点赞数 + 帖子ID seek 分页）
+     * 
+     * @param cursor   上一页返回的游标，null 表示第一页
+     * @param pageSize 每页大小
+     * @return 帖子ID列表和下一页游标
+     */
+    CursorPage<Long> getLikesRankingPage(String cursor, int pageSize);
+
+    /**
+     * 游标分页获取收藏数排行榜
+     * 
+     * @param cursor   上一页返回的游标，null 表示第一页
+     * @param pageSize 每页大小
+     * @return 帖子ID列表和下一页游标
+     */
+    CursorPage<Long> getFavoritesRankingPage(String cursor, int pageSize);
+
+    /**
+     * 游标分页获取评论数排行榜
+     * 
+     * @param cursor   上一页返回的游标，null 表示第一页
+     * @param pageSize 每页大小
+     * @return 帖子ID列表和下一页游标
+     */
+    CursorPage<Long> getCommentsRankingPage(String cursor, int pageSize);
+
     /**
      * 获取帖子的点赞数（从Redis Sorted Set获取）
      * 
@@ -0,0 +1,35 @@
+package com.wait.service;
+
+import java.util.List;
+
+/**
+ * 排行榜前 K 名快照服务
+ * 每个节点定时拉取各排行榜的前 K 名，读取前 K 名的分页和排名时不访问 Redis
+ */
+public interface RankingSnapshotService {
+
+    /**
+     * 从快照读取排行榜的一段（按分数从高到低）
+     * @param key 排行榜 Redis key
+     * @param start 起始排名（0-based，包含）
+     * @param end 结束排名（0-based，包含）
+     * @return 帖子ID列表；快照不存在、已过期或不能完整覆盖该区间时返回 null，调用方回源 Redis
+     */
+    List<Long> getRange(String key, long start, long end);
+
+    /**
+     * 从快照读取帖子的排名
+     * @param key 排行榜 Redis key
+     * @param postId 帖子ID
+     * @return 排名（1-based）；帖子不在快照的前 K 名中或快照不可用时返回 null，调用方回源 Redis
+     */
+    Long getRank(String key, Long postId);
+
+    /**
+     * 从快照读取帖子的分数
+     * @param key 排行榜 Redis key
+     * @param postId 帖子ID
+     * @return 分数；帖子不在快照的前 K 名中或快照不可用时返回 null，调用方回源 Redis
+     */
+    Double getScore(String key, Long postId);
+}
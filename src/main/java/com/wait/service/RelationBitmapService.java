@@ -0,0 +1,160 @@
+package com.wait.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.wait.entity.dto.BitmapMemoryReport;
+
+/**
+ * 关系位图存储服务接口 - 以类 Roaring Bitmap 的压缩位图存储数值 id 集合
+ * 用于替代超大的帖子点赞用户 Set，降低内存占用
+ */
+public interface RelationBitmapService {
+
+    /**
+     * 是否启用位图存储模式
+     */
+    boolean isEnabled();
+
+    /**
+     * 添加 id
+     * 
+     * @param bitmapKey 位图 key 前缀
+     * @param id        数值 id（非负）
+     * @return 是否新增（已存在返回 false）
+     */
+    boolean add(String bitmapKey, Long id);
+
+    /**
+     * 添加 id，同时原子地维护反向集合和计数
+     * 
+     * @param bitmapKey     位图 key 前缀
+     * @param id            数值 id（非负）
+     * @param reverseKey    反向集合 key（如 user:like:{userId}）
+     * @param reverseMember 反向集合成员（如 postId）
+     * @param counterKey    计数 key（如 post:like_count:{postId}）
+     * @return 是否新增
+     */
+    boolean add(String bitmapKey, Long id, String reverseKey, Long reverseMember, String counterKey);
+
+    /**
+     * 移除 id
+     */
+    boolean remove(String bitmapKey, Long id);
+
+    /**
+     * 移除 id，同时原子地维护反向集合和计数
+     */
+    boolean remove(String bitmapKey, Long id, String reverseKey, Long reverseMember, String counterKey);
+
+    /**
+     * 检查 id 是否存在
+     * 
+     * @param bitmapKey      位图 key 前缀
+     * @param id             数值 id
+     * @param fallbackSetKey 尚未迁移时回退查询的旧版 Set key，可为 null
+     */
+    boolean contains(String bitmapKey, Long id, String fallbackSetKey);
+
+    /**
+     * 获取基数（O(1)，读取元数据中的总数）
+     * 
+     * @param bitmapKey      位图 key 前缀
+     * @param fallbackSetKey 尚未迁移时回退 SCARD 的旧版 Set key，可为 null
+     */
+    Long cardinality(String bitmapKey, String fallbackSetKey);
+
+    /**
+     * 批量检查同一个 id 是否存在于多个位图中（两次管道往返：先 TYPE 容器，再按类型 GETBIT/SISMEMBER）
+     * 
+     * @param bitmapKeys      位图 key 前缀列表
+     * @param id              数值 id
+     * @param fallbackSetKeys 与 bitmapKeys 一一对应的旧版 Set key，元素可为 null
+     * @return 与 bitmapKeys 顺序一致的检查结果
+     */
+    List<Boolean> batchContains(List<String> bitmapKeys, Long id, List<String> fallbackSetKeys);
+
+    /**
+     * 批量获取基数（一次管道读取元数据总数，并附带回退 SCARD）
+     * 
+     * @param bitmapKeys      位图 key 前缀列表
+     * @param fallbackSetKeys 与 bitmapKeys 一一对应的旧版 Set key，元素可为 null
+     * @return 与 bitmapKeys 顺序一致的基数
+     */
+    List<Long> batchCardinality(List<String> bitmapKeys, List<String> fallbackSetKeys);
+
+    /**
+     * 获取全部 id（按容器逐个读取并解码）
+     * 
+     * @param bitmapKey      位图 key 前缀
+     * @param fallbackSetKey 尚未迁移时回退 SMEMBERS 的旧版 Set key，可为 null
+     */
+    Set<Long> members(String bitmapKey, String fallbackSetKey);
+
+    /**
+     * 按容器逐个读取并解码，每个非空容器回调一次（遍历超大位图时不一次性加载全部 id）
+     * 
+     * @param bitmapKey 位图 key 前缀
+     * @param callback  处理一个容器内全部 id 的回调
+     */
+    void forEachContainer(String bitmapKey, Consumer<List<Long>> callback);
+
+    /**
+     * 按 id 升序返回大于 afterId 的最多 limit 个 id（用于游标分页，游标即上一页最后一个 id）
+     * 
+     * @param bitmapKey 位图 key 前缀
+     * @param afterId   上一页最后一个 id，null 表示第一页
+     * @param limit     数量
+     */
+    List<Long> membersAfter(String bitmapKey, Long afterId, int limit);
+
+    /**
+     * 位图是否存在（元数据存在即表示已有数据或已迁移）
+     */
+    boolean exists(String bitmapKey);
+
+    /**
+     * 位图的元数据 key，可用于管道批量 EXISTS 判断位图是否存在
+     */
+    String metaKey(String bitmapKey);
+
+    /**
+     * 删除位图（全部容器和元数据），用于帖子删除后的清理
+     */
+    void delete(String bitmapKey);
+
+    /**
+     * 批量导入 id（按容器分组，每个容器一次 Lua 导入，可重复执行）
+     * 
+     * @param bitmapKey 位图 key 前缀
+     * @param ids       数值 id（负数会被跳过）
+     * @return 实际新增的数量
+     */
+    long importIds(String bitmapKey, Collection<Long> ids);
+
+    /**
+     * 将旧版 Set 迁移为位图（SSCAN 分批导入，可重复执行）
+     * 
+     * @param setKey       旧版 Set key
+     * @param bitmapKey    位图 key 前缀
+     * @param deleteSource 迁移完成后是否删除旧版 Set
+     * @return 迁移前后的内存对比报告
+     */
+    BitmapMemoryReport migrateFromSet(String setKey, String bitmapKey, boolean deleteSource);
+
+    /**
+     * 如果旧版 Set 仍存在则迁移并删除（写路径上的惰性迁移）
+     * 成员分批从 Set 原子地移入位图，返回时 Set 已不存在，并发调用安全
+     */
+    void migrateIfPresent(String setKey, String bitmapKey);
+
+    /**
+     * 生成内存对比报告
+     * 
+     * @param setKey    旧版 Set key
+     * @param bitmapKey 位图 key 前缀
+     */
+    BitmapMemoryReport memoryReport(String setKey, String bitmapKey);
+}
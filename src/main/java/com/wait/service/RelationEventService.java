@@ -0,0 +1,26 @@
+package com.wait.service;
+
+import java.util.Map;
+
+import com.wait.entity.dto.RelationEvent;
+
+/**
+ * 关系事件管道服务
+ * 点赞、收藏、关注等操作在请求线程只执行 Redis Lua 脚本，其余副作用（排行榜、热度、统计、通知、持久化）
+ * 投递到有界环形缓冲区，由后台线程合并批量处理
+ */
+public interface RelationEventService {
+
+    /**
+     * 投递关系事件
+     * 缓冲区已满时在调用线程同步处理（背压），不会丢弃事件
+     *
+     * @param event 关系事件
+     */
+    void publish(RelationEvent event);
+
+    /**
+     * 获取管道运行统计（投递数、处理数、批次数、同步回退数、当前积压）
+     */
+    Map<String, Object> getStats();
+}
@@ -1,5 +1,6 @@
 package com.wait.service;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -47,4 +48,9 @@ public interface RelationPersistenceService {
      * 批量同步收藏关系到数据库（用于数据恢复/迁移）
      */
     void batchSyncFavorites(Long userId);
+
+    /**
+     * 获取 Write-Behind 批量刷库的吞吐统计（刷库次数、操作数、插入/删除行数、耗时、每秒操作数）
+     */
+    Map<String, Object> getFlushStats();
 }
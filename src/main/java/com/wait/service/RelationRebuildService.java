@@ -0,0 +1,25 @@
+package com.wait.service;
+
+import java.util.Map;
+
+import com.wait.entity.param.RelationRebuildRequest;
+
+/**
+ * 关系数据重建服务接口
+ * Redis 关系数据丢失（淘汰、故障切换、误清空）后，从 MySQL 流式批量重建
+ */
+public interface RelationRebuildService {
+
+    /**
+     * 在后台启动重建任务
+     * 
+     * @param request 重建选项
+     * @return 是否启动成功（已有重建任务在运行时返回 false）
+     */
+    boolean start(RelationRebuildRequest request);
+
+    /**
+     * 获取重建进度（各类型已读取的实体数、行数、检查点等）
+     */
+    Map<String, Object> getStatus();
+}
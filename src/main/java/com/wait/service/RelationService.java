@@ -4,6 +4,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.wait.entity.dto.BitmapMemoryReport;
+import com.wait.entity.dto.CursorPage;
+
 /**
  * 关系服务接口 - 用于处理关注、点赞、收藏等社交媒体关系
  */
@@ -36,6 +39,16 @@ public interface RelationService {
      */
     Set<Long> getFollowers(Long userId);
 
+    /**
+     * 获取关注列表的升序数组（进程内短暂缓存，调用方不能修改）
+     */
+    long[] getFollowingIds(Long userId);
+
+    /**
+     * 获取粉丝列表的升序数组，已分片时合并所有分片（进程内短暂缓存，调用方不能修改）
+     */
+    long[] getFollowerIds(Long userId);
+
     /**
      * 获取关注数
      */
@@ -51,6 +64,16 @@ public interface RelationService {
      */
     Set<Long> getMutualFollowing(Long userId1, Long userId2);
 
+    /**
+     * 获取共同关注的前 limit 个（按用户ID升序）
+     */
+    List<Long> getMutualFollowing(Long userId1, Long userId2, int limit);
+
+    /**
+     * 获取共同关注数（只计数，不返回成员）
+     */
+    long getMutualFollowingCount(Long userId1, Long userId2);
+
     /**
      * 检查是否互相关注
      */
@@ -91,6 +114,25 @@ public interface RelationService {
      */
     Set<Long> getMutualFollowers(Long userId1, Long userId2);
 
+    /**
+     * 获取两个用户的共同粉丝数（只计数，不返回成员）
+     */
+    long getMutualFollowerCount(Long userId1, Long userId2);
+
+    /**
+     * 游标分页获取关注列表（有时间索引时按关注时间倒序）
+     * 
+     * @param userId   用户ID
+     * @param cursor   上一页返回的游标，第一页传 null
+     * @param pageSize 每页数量
+     */
+    CursorPage<Long> getFollowingPage(Long userId, String cursor, int pageSize);
+
+    /**
+     * 游标分页获取粉丝列表（SSCAN 游标，支持分片粉丝列表）
+     */
+    CursorPage<Long> getFollowersPage(Long userId, String cursor, int pageSize);
+
     // ==================== 点赞相关 ====================
 
     /**
@@ -113,11 +155,21 @@ public interface RelationService {
      */
     Set<Long> getLikers(Long postId);
 
+    /**
+     * 游标分页获取点赞用户列表（位图模式下按用户ID升序）
+     */
+    CursorPage<Long> getLikersPage(Long postId, String cursor, int pageSize);
+
     /**
      * 获取点赞数
      */
     Long getLikeCount(Long postId);
 
+    /**
+     * 批量获取点赞数（一次管道）
+     */
+    Map<Long, Long> batchGetLikeCounts(List<Long> postIds);
+
     /**
      * 批量检查点赞状态
      */
@@ -128,6 +180,20 @@ public interface RelationService {
      */
     Set<Long> getUserLikedPosts(Long userId);
 
+    /**
+     * 将帖子的点赞用户 Set 迁移为压缩位图
+     * 
+     * @param postId       帖子ID
+     * @param deleteSource 迁移后是否删除旧版 Set
+     * @return 迁移前后的内存对比报告
+     */
+    BitmapMemoryReport migrateLikersToBitmap(Long postId, boolean deleteSource);
+
+    /**
+     * 获取帖子点赞用户的内存对比报告（Set vs 位图）
+     */
+    BitmapMemoryReport getLikersMemoryReport(Long postId);
+
     // ==================== 收藏相关 ====================
 
     /**
@@ -150,11 +216,21 @@ public interface RelationService {
      */
     Set<Long> getUserFavorites(Long userId);
 
+    /**
+     * 游标分页获取用户收藏列表（有时间索引时按收藏时间倒序）
+     */
+    CursorPage<Long> getUserFavoritesPage(Long userId, String cursor, int pageSize);
+
     /**
      * 获取收藏数
      */
     Long getFavoriteCount(Long postId);
 
+    /**
+     * 批量获取收藏数（一次管道）
+     */
+    Map<Long, Long> batchGetFavoriteCounts(List<Long> postIds);
+
     /**
      * 批量检查收藏状态
      */
@@ -186,4 +262,22 @@ public interface RelationService {
      * 过滤黑名单用户
      */
     List<Long> filterBlacklisted(Long userId, List<Long> userIds);
+
+    /**
+     * 双向过滤拉黑关系：去掉 viewer 拉黑的用户和拉黑了 viewer 的用户
+     * 两个方向的关系一次往返读取，并按 viewer 短暂缓存，适合时间线翻页等高频场景
+     * 
+     * @param viewerId 查看者用户ID
+     * @param userIds  待过滤的用户ID列表
+     * @return 过滤后的用户ID列表（保持原顺序）
+     */
+    List<Long> filterBlocked(Long viewerId, List<Long> userIds);
+
+    /**
+     * 与用户存在拉黑关系（我拉黑的用户和拉黑了我的用户）的用户ID，按用户短暂缓存
+     * 
+     * @param userId 用户ID
+     * @return 升序去重的用户ID数组
+     */
+    long[] getBlockRelationIds(Long userId);
 }
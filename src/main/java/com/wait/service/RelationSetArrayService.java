@@ -0,0 +1,30 @@
+package com.wait.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 关系集合数组服务 - 以有序 long[] 读取关系 Set，并在进程内短暂缓存
+ * 供共同关注、共同粉丝等集合运算使用，避免 SINTER/SDIFF 结果经 JSON 反序列化装箱成 Set<Long>
+ */
+public interface RelationSetArrayService {
+
+    /**
+     * 读取一个或多个 Set 的成员（多个时取并集，用于分片集合），返回升序去重数组
+     * 
+     * @param cacheKey 进程内缓存 key
+     * @param setKeys  Redis Set key 列表
+     * @return 升序数组，调用方不能修改
+     */
+    long[] members(String cacheKey, List<String> setKeys);
+
+    /**
+     * 使进程内缓存失效（关系变更后调用）
+     */
+    void invalidate(String... cacheKeys);
+
+    /**
+     * 缓存统计信息
+     */
+    Map<String, Object> getStats();
+}
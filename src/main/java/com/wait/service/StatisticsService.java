@@ -41,6 +41,22 @@ public interface StatisticsService {
      */
     void recordFavorite(Long postId, boolean isFavorite);
 
+    /**
+     * 按净增量记录点赞操作（批量处理时同一帖子合并为一个数据点）
+     * 
+     * @param postId 帖子ID
+     * @param delta  点赞数净增量（可为负）
+     */
+    void recordLikes(Long postId, long delta);
+
+    /**
+     * 按净增量记录收藏操作
+     * 
+     * @param postId 帖子ID
+     * @param delta  收藏数净增量（可为负）
+     */
+    void recordFavorites(Long postId, long delta);
+
     /**
      * 获取帖子浏览量统计（时间序列数据，适合绘制图表）
      * 
@@ -1,6 +1,10 @@
 package com.wait.service;
 
 import java.util.List;
+import java.util.Map;
+
+import com.wait.entity.dto.CursorPage;
+import com.wait.entity.dto.RelationEvent;
 
 /**
  * 时间线排序服务
@@ -13,6 +17,11 @@ public interface TimelineSortedSetService {
      */
     void publishToTimeline(Long userId, Long postId, long publishTime);
 
+    /**
+     * 帖子已写入作者时间线后（发帖脚本已完成），异步写扩散到粉丝收件箱，不阻塞发帖
+     */
+    void fanOutAsync(Long userId, Long postId, long publishTime);
+
     /**
      * 获取用户时间线（最新发布的在前）
      */
@@ -23,6 +32,20 @@ public interface TimelineSortedSetService {
      */
     List<Long> getGlobalTimeline(int page, int pageSize);
 
+    /**
+     * 游标分页获取用户时间线（seek 分页，翻页期间有新帖子也不会重复或遗漏）
+     *
+     * @param cursor 上一页返回的游标，null 表示第一页
+     */
+    CursorPage<Long> getUserTimelinePage(Long userId, String cursor, int pageSize);
+
+    /**
+     * 游标分页获取全局时间线
+     *
+     * @param cursor 上一页返回的游标，null 表示第一页
+     */
+    CursorPage<Long> getGlobalTimelinePage(String cursor, int pageSize);
+
     /**
      * 获取指定时间范围内的帖子
      */
@@ -33,10 +56,37 @@ public interface TimelineSortedSetService {
      */
     void removeFromTimeline(Long userId, Long postId);
 
+    /**
+     * 删帖级联清理时批量移除：一次管道从作者时间线和全局时间线移除，
+     * 同一作者的多个帖子在一次粉丝遍历中从收件箱撤回（异步）
+     * 
+     * @param postIdsByAuthor 作者ID -> 帖子ID列表
+     */
+    void removeFromTimelines(Map<Long, List<Long>> postIdsByAuthor);
+
     /**
      * 获取我的时间线（聚合关注用户的帖子，按发布时间排序）
      * 会自动过滤黑名单用户的帖子
      */
     List<Long> getMyTimeline(Long userId, int page, int pageSize);
+
+    /**
+     * 游标分页获取我的时间线（拉模式：从每个关注用户的时间线读取游标之后的一页，进程内多路归并）
+     * 会自动过滤黑名单用户的帖子
+     *
+     * @param cursor 上一页返回的游标，null 表示第一页
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    CursorPage<Long> getMyTimelinePage(Long userId, String cursor, int pageSize);
+
+    /**
+     * 关注/取消关注后增量更新关注者的收件箱（由关系事件管道批量调用）
+     */
+    void onFollowEvents(List<RelationEvent> events);
+
+    /**
+     * 使用户的收件箱失效，下次读取时重建（拉黑/取消拉黑后调用）
+     */
+    void invalidateInbox(Long... userIds);
 }
 
@@ -1,11 +1,12 @@
 package com.wait.service;
 
 import java.util.List;
-import java.util.Set;
+
+import com.wait.entity.dto.RelationEvent;
 
 /**
  * 用户推荐服务
- * 基于 Redis Set 实现随机用户推荐功能
+ * 优先按二度关系（关注的人还关注了谁）的共同关注数推荐，候选不足时从 Redis Set 候选池随机补足
  */
 public interface UserRecommendationService {
 
@@ -69,5 +70,19 @@ public interface UserRecommendationService {
      * @return 候选用户数量
      */
     Long getCandidateCount(Long userId);
-}
 
+    /**
+     * 全量生成二度关系候选：统计关注的人的关注列表中每个用户出现的次数，取前 K 个写入 ZSet
+     * 
+     * @param userId 用户ID
+     * @return 写入的候选数量
+     */
+    int generateCandidates(Long userId);
+
+    /**
+     * 根据关注/取关事件增量更新已生成的二度关系候选
+     * 
+     * @param events 关注、取关事件
+     */
+    void onFollowEvents(List<RelationEvent> events);
+}
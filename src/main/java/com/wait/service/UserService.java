@@ -14,6 +14,11 @@ public interface UserService {
      * 根据用户ID查找用户
      */
     UserBase findById(Long userId);
+
+    /**
+     * 批量查找用户（一条 IN 查询），不存在或已禁用的用户不在结果中
+     */
+    List<UserBase> findByIds(List<Long> userIds);
     
     /**
      * 根据用户名查找用户
@@ -1,8 +1,11 @@
 package com.wait.service.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -10,9 +13,11 @@ import org.springframework.stereotype.Service;
 
 import com.wait.config.script.BrowseHistoryScripts;
 import com.wait.entity.domain.BrowseHistory;
+import com.wait.entity.dto.CursorPage;
 import com.wait.mapper.BrowseHistoryMapper;
 import com.wait.service.BrowseHistoryService;
 import com.wait.util.BoundUtil;
+import com.wait.util.ScoreCursor;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -40,6 +45,8 @@ public class BrowseHistoryServiceImpl implements BrowseHistoryService {
     private final BrowseHistoryScripts browseHistoryScripts;
 
     private static final String BROWSE_PREFIX = "browse:history:user:";
+    // 帖子的近期浏览者（score 为浏览时间），删帖时用于清理浏览记录
+    private static final String BROWSE_POST_PREFIX = "browse:history:post:";
     private static final int KEEP_DAYS = 3; // Redis中保留最近3天的数据
     private static final int DEFAULT_MAX_RECORDS = 1000; // 默认最多保留1000条记录
 
@@ -56,10 +63,12 @@ public class BrowseHistoryServiceImpl implements BrowseHistoryService {
         try {
             Long removedCount = browseHistoryScripts.executeScript(
                     BrowseHistoryScripts.RECORD_BROWSE,
-                    java.util.Arrays.asList(key),
+                    java.util.Arrays.asList(key, BROWSE_POST_PREFIX + postId),
                     String.valueOf(postId),
                     String.valueOf(currentTime),
-                    String.valueOf(DEFAULT_MAX_RECORDS));
+                    String.valueOf(DEFAULT_MAX_RECORDS),
+                    String.valueOf(userId),
+                    String.valueOf(KEEP_DAYS * 24L * 60 * 60 * 1000));
             if (removedCount != null && removedCount > 0) {
                 log.debug("Browse recorded and {} old records removed: user={}, post={}, time={}",
                         removedCount, userId, postId, currentTime);
@@ -71,6 +80,7 @@ public class BrowseHistoryServiceImpl implements BrowseHistoryService {
                     userId, postId, e);
             // 降级处理：使用普通命令
             boundUtil.zAdd(key, postId, currentTime);
+            boundUtil.zAdd(BROWSE_POST_PREFIX + postId, userId, currentTime);
             Long size = boundUtil.zCard(key);
             if (size != null && size > DEFAULT_MAX_RECORDS) {
                 boundUtil.zRemRangeByRank(key, 0, size - DEFAULT_MAX_RECORDS - 1);
@@ -149,6 +159,104 @@ public class BrowseHistoryServiceImpl implements BrowseHistoryService {
         return redisPostIds;
     }
 
+    @Override
+    public CursorPage<Long> getBrowseHistoryPage(Long userId, String cursor, int pageSize) {
+        if (userId == null || pageSize <= 0) {
+            return CursorPage.<Long>builder().items(new ArrayList<>()).hasMore(false).build();
+        }
+        ScoreCursor seek = ScoreCursor.parse(cursor);
+
+        // 1. 从Redis读取游标之后的 pageSize + 1 条（多取一条判断是否还有下一页）
+        Map<Long, Double> entries = boundUtil.zRevRangeByScoreAfter(BROWSE_PREFIX + userId,
+                seek != null ? seek.getScore() : null,
+                seek != null ? seek.getMember() : null,
+                pageSize + 1, Long.class);
+        if (entries.size() > pageSize) {
+            return ScoreCursor.toPage(entries, pageSize);
+        }
+
+        // 2. Redis中的记录已读完，从最后一条（或游标）处继续按 (browse_time, post_id) 倒序查数据库，
+        //    同一帖子多次浏览只在最近一次的位置返回
+        Map<Long, Double> merged = new LinkedHashMap<>(entries);
+        Long lastTime = seek != null ? (long) seek.getScore() : null;
+        Long lastPostId = seek != null ? parseCursorPostId(seek) : null;
+        for (Map.Entry<Long, Double> entry : entries.entrySet()) {
+            lastTime = entry.getValue().longValue();
+            lastPostId = entry.getKey();
+        }
+        while (merged.size() <= pageSize) {
+            int limit = pageSize + 1 - merged.size();
+            List<BrowseHistory> records = browseHistoryMapper.selectByUserIdBefore(userId, lastTime,
+                    lastPostId, limit);
+            Map<Long, Long> latestTimes = getLatestBrowseTimes(userId, records);
+            List<Double> redisScores = getRedisScores(userId, records);
+            for (int i = 0; i < records.size(); i++) {
+                BrowseHistory record = records.get(i);
+                lastTime = record.getBrowseTime();
+                lastPostId = record.getPostId();
+                // 数据库中有更晚的浏览记录时，该帖子已在更靠前的位置返回过，跳过较早的重复记录
+                Long latestTime = latestTimes.get(record.getPostId());
+                if (latestTime != null && latestTime > record.getBrowseTime()) {
+                    continue;
+                }
+                // Redis 中有更新的浏览记录时，该帖子已在前面的页按 Redis 位置返回过（入库任务尚未同步最新一次浏览）
+                Double redisScore = redisScores.get(i);
+                if (redisScore != null && redisScore > record.getBrowseTime()) {
+                    continue;
+                }
+                merged.putIfAbsent(record.getPostId(), record.getBrowseTime().doubleValue());
+            }
+            if (records.size() < limit) {
+                break;
+            }
+        }
+        return ScoreCursor.toPage(merged, pageSize);
+    }
+
+    private static Long parseCursorPostId(ScoreCursor seek) {
+        try {
+            return Long.valueOf(seek.getMember());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor post id: " + seek.getMember(), e);
+        }
+    }
+
+    /**
+     * 批量查询数据库记录对应帖子最近一次浏览的时间（按 uk_user_post 逐帖子读取，与历史总量无关）
+     */
+    private Map<Long, Long> getLatestBrowseTimes(Long userId, List<BrowseHistory> records) {
+        if (records.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> postIds = records.stream()
+                .map(BrowseHistory::getPostId)
+                .distinct()
+                .collect(Collectors.toList());
+        return browseHistoryMapper.selectLatestBrowseTimes(userId, postIds).stream()
+                .collect(Collectors.toMap(BrowseHistory::getPostId, BrowseHistory::getBrowseTime));
+    }
+
+    /**
+     * 批量读取数据库记录对应帖子在 Redis 浏览历史中的分数（最近浏览时间），不存在时为 null
+     */
+    private List<Double> getRedisScores(Long userId, List<BrowseHistory> records) {
+        if (records.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String key = BROWSE_PREFIX + userId;
+        List<Object> results = boundUtil.executePipelined(operations -> {
+            for (BrowseHistory record : records) {
+                operations.opsForZSet().score(key, record.getPostId());
+            }
+        });
+        List<Double> scores = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            Object value = results != null && i < results.size() ? results.get(i) : null;
+            scores.add(value instanceof Number ? ((Number) value).doubleValue() : null);
+        }
+        return scores;
+    }
+
     @Override
     public List<Long> getBrowseHistoryByTimeRange(Long userId, long startTime, long endTime) {
         if (userId == null) {
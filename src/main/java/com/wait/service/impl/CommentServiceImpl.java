@@ -1,12 +1,20 @@
 package com.wait.service.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.wait.config.script.CommentScripts;
 import com.wait.entity.domain.Comment;
 import com.wait.entity.domain.Post;
 import com.wait.mapper.CommentMapper;
@@ -14,14 +22,21 @@ import com.wait.mapper.PostMapper;
 import com.wait.service.CommentService;
 import com.wait.service.HotRankingService;
 import com.wait.service.NotificationService;
+import com.wait.service.PostViewCacheService;
 import com.wait.service.RankingService;
 import com.wait.service.UserService;
+import com.wait.util.BoundUtil;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 评论服务实现
+ * 
+ * 评论数缓存在 Redis Hash（post:comment:count，field 为 postId）：
+ * 发表/删除评论时由 Lua 脚本原子地 HINCRBY，批量读取时一次 HMGET，
+ * 未缓存的帖子用一条 GROUP BY 查询补齐后 HSETNX 回填。
+ * 计数变化过的帖子记入待校对 Set，由 CommentCountSyncService 定时按数据库校对
  */
 @Slf4j
 @Service
@@ -34,6 +49,17 @@ public class CommentServiceImpl implements CommentService {
     private final HotRankingService hotRankingService;
     private final NotificationService notificationService;
     private final UserService userService;
+    private final BoundUtil boundUtil;
+    private final CommentScripts commentScripts;
+    private final PostViewCacheService postViewCacheService;
+
+    // 评论数 Hash 按 postId % shards 分片（post:comment:count:{shard}），避免单个全局大 key 和热 key
+    private static final String COMMENT_COUNT_PREFIX = "post:comment:count:";
+    private static final String COMMENT_COUNT_DIRTY_KEY = "post:comment:count:dirty";
+
+    /** 评论数 Hash 分片数，各服务需保持一致 */
+    @Value("${comment.count.shards:64}")
+    private int countShards;
 
     @Override
     @Transactional
@@ -70,6 +96,7 @@ public class CommentServiceImpl implements CommentService {
 
         commentMapper.insert(comment);
         log.info("User {} created comment {} on post {}", userId, comment.getId(), postId);
+        adjustCommentCount(postId, 1);
 
         // 更新帖子的评论数
         Post updatePost = new Post();
@@ -147,6 +174,8 @@ public class CommentServiceImpl implements CommentService {
         // 逻辑删除
         int deleted = commentMapper.delete(commentId, System.currentTimeMillis());
         if (deleted > 0) {
+            adjustCommentCount(comment.getPostId(), -1);
+
             // 更新帖子的评论数
             Post post = postMapper.selectById(comment.getPostId());
             if (post != null) {
@@ -157,6 +186,15 @@ public class CommentServiceImpl implements CommentService {
                 postMapper.update(updatePost);
             }
 
+            // 更新排行榜和热度分数（含当前小时桶的负增量，窗口榜单不再计入已删除的评论）
+            try {
+                rankingService.onUncomment(comment.getPostId());
+                hotRankingService.onUncomment(comment.getPostId());
+            } catch (Exception e) {
+                log.error("Failed to update ranking/hot score for post {}", comment.getPostId(), e);
+                // 不影响主流程
+            }
+
             log.info("Comment {} deleted by user {}", commentId, userId);
             return true;
         }
@@ -194,7 +232,11 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     public int getCommentCount(Long postId) {
-        return commentMapper.countByPostId(postId);
+        if (postId == null) {
+            return 0;
+        }
+        Integer count = batchGetCommentCounts(Collections.singletonList(postId)).get(postId);
+        return count != null ? count : 0;
     }
 
     @Override
@@ -202,13 +244,99 @@ public class CommentServiceImpl implements CommentService {
         if (postIds == null || postIds.isEmpty()) {
             return new HashMap<>();
         }
-
-        // 这里简化处理，实际应该使用批量查询优化
-        // 如果CommentMapper有批量查询方法，应该使用它
+        List<Long> ids = postIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
         Map<Long, Integer> result = new HashMap<>();
-        for (Long postId : postIds) {
-            result.put(postId, commentMapper.countByPostId(postId));
+        if (ids.isEmpty()) {
+            return result;
+        }
+
+        // 1. 按分片分组，一次管道对每个分片 HMGET 读取已缓存的计数
+        Map<String, List<Long>> idsByShard = new LinkedHashMap<>();
+        for (Long id : ids) {
+            idsByShard.computeIfAbsent(countKey(id), k -> new ArrayList<>()).add(id);
+        }
+        List<String> shardKeys = new ArrayList<>(idsByShard.keySet());
+        List<Object> replies = boundUtil.executePipelined(operations -> {
+            for (String shardKey : shardKeys) {
+                List<Object> fields = new ArrayList<>();
+                for (Long id : idsByShard.get(shardKey)) {
+                    fields.add(String.valueOf(id));
+                }
+                operations.opsForHash().multiGet(shardKey, fields);
+            }
+        });
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < shardKeys.size(); i++) {
+            List<Long> shardIds = idsByShard.get(shardKeys.get(i));
+            List<?> cached = i < replies.size() && replies.get(i) instanceof List
+                    ? (List<?>) replies.get(i)
+                    : Collections.emptyList();
+            for (int j = 0; j < shardIds.size(); j++) {
+                Object count = j < cached.size() ? cached.get(j) : null;
+                if (count instanceof Number) {
+                    result.put(shardIds.get(j), ((Number) count).intValue());
+                } else {
+                    missing.add(shardIds.get(j));
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        // 2. 未缓存的帖子一条 GROUP BY 查询补齐，HSETNX 回填，不覆盖查询期间已建立的计数
+        Map<Long, Integer> loaded = countFromDatabase(missing);
+        result.putAll(loaded);
+        try {
+            boundUtil.executePipelined(operations -> {
+                for (Map.Entry<Long, Integer> entry : loaded.entrySet()) {
+                    operations.opsForHash().putIfAbsent(countKey(entry.getKey()), String.valueOf(entry.getKey()),
+                            entry.getValue());
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to cache comment counts for {} posts", loaded.size(), e);
         }
         return result;
     }
+
+    /**
+     * 一条 GROUP BY 查询（IN 列表）取回帖子的评论数，没有评论的帖子补 0
+     */
+    private Map<Long, Integer> countFromDatabase(List<Long> postIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Long postId : postIds) {
+            counts.put(postId, 0);
+        }
+        for (Comment row : commentMapper.countByPostIds(postIds)) {
+            if (row.getPostId() != null && row.getLikeCount() != null) {
+                counts.put(row.getPostId(), row.getLikeCount());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 原子地调整缓存的评论数并记入待校对 Set
+     * 在事务内调用，事务回滚时计数可能偏差，由定时校对修正
+     */
+    private void adjustCommentCount(Long postId, int delta) {
+        try {
+            commentScripts.executeScript(CommentScripts.COMMENT_COUNT_INCR,
+                    Arrays.asList(countKey(postId), COMMENT_COUNT_DIRTY_KEY), postId, delta);
+            postViewCacheService.incrementComments(postId, delta);
+        } catch (Exception e) {
+            // 计数缓存失败不影响评论本身，删除字段使下次读取回源数据库
+            log.error("Failed to adjust comment count for post {} by {}", postId, delta, e);
+            try {
+                boundUtil.hDel(countKey(postId), String.valueOf(postId));
+            } catch (Exception ignored) {
+                // Redis 不可用时读取路径同样会回源
+            }
+        }
+    }
+
+    private String countKey(Long postId) {
+        return COMMENT_COUNT_PREFIX + Math.floorMod(postId, (long) Math.max(1, countShards));
+    }
 }
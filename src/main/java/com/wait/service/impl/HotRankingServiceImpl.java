@@ -1,13 +1,22 @@
 package com.wait.service.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisZSetCommands;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.wait.config.script.RankingScripts;
+import com.wait.entity.dto.CursorPage;
 import com.wait.service.HotRankingService;
 import com.wait.service.RankingService;
+import com.wait.service.RankingSnapshotService;
 import com.wait.util.BoundUtil;
 
 import lombok.RequiredArgsConstructor;
@@ -19,6 +28,17 @@ import lombok.extern.slf4j.Slf4j;
  * 
  * 热度算法：热度 = 点赞数 × 0.4 + 收藏数 × 0.3 + 评论数 × 0.2 + 分享数 × 0.1
  * 支持多个时间段：daily（日榜）、weekly（周榜）、monthly（月榜）、alltime（总榜）
+ * 
+ * 总榜：点赞/收藏/评论事件只把帖子记入待重算 Set，定时任务按批弹出，
+ * 一次管道读取计数、一次管道写入总榜，热点帖子的事件量不再放大为排行榜写入量
+ *
+ * 日榜/周榜/月榜：事件把热度增量累加到所在小时的分桶（post:ranking:hot:bucket:{小时序号}），
+ * 定时任务用 ZUNIONSTORE 把窗口内的分桶按时间衰减权重合并到对应排行榜，
+ * 聚合开销每个周期只付一次，读取仍是单个 Sorted Set；分桶超过最长窗口后由 TTL 自动删除
+ *
+ * 趋势榜（trending）：分数为 log(Σ 热度增量 × e^((事件时间 - 基准时间) / τ))，
+ * 每个事件在 Lua 脚本中按 log-sum-exp 合入，新近互动的权重指数更高，旧帖子自然下沉，无需全量重算；
+ * 定时任务截断排行榜并在基准时间过旧时整体前移，分数量级有界
  */
 @Slf4j
 @Service
@@ -27,6 +47,8 @@ public class HotRankingServiceImpl implements HotRankingService {
 
     private final BoundUtil boundUtil;
     private final RankingService rankingService;
+    private final RankingScripts rankingScripts;
+    private final RankingSnapshotService rankingSnapshotService;
 
     // 热度权重配置
     private static final double LIKE_WEIGHT = 0.4; // 点赞权重
@@ -36,12 +58,47 @@ public class HotRankingServiceImpl implements HotRankingService {
 
     // Redis Key前缀
     private static final String HOT_RANKING_PREFIX = "post:ranking:hot:";
+    private static final String[] PERIODS = { "daily", "weekly", "monthly", "alltime" };
+    private static final String ALLTIME_PERIOD = "alltime";
+    // 按窗口聚合的时间段及其窗口长度（小时）
+    private static final String[] WINDOW_PERIODS = { "daily", "weekly", "monthly" };
+    private static final int[] WINDOW_HOURS = { 24, 24 * 7, 24 * 30 };
+    // 每小时的热度增量分桶
+    private static final String HOT_BUCKET_PREFIX = "post:ranking:hot:bucket:";
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    // 时间衰减趋势榜及其衰减基准时间
+    private static final String HOT_TRENDING_KEY = "post:ranking:hot:trending";
+    private static final String HOT_TRENDING_EPOCH_KEY = "post:ranking:hot:trending:epoch";
+    // 待重算热度的帖子
+    private static final String HOT_DIRTY_KEY = "post:ranking:hot:dirty";
+    // 计数排行榜（与 RankingServiceImpl 保持一致），批量重算时一次管道读取
+    private static final String RANKING_LIKES = "post:ranking:likes";
+    private static final String RANKING_FAVORITES = "post:ranking:favorites";
+    private static final String RANKING_COMMENTS = "post:ranking:comments";
+
+    /** 每批重算的帖子数 */
+    @Value("${hot-ranking.recompute.chunk-size:500}")
+    private int recomputeChunkSize;
+
+    /** 窗口内最旧分桶的权重（相对当前小时为 1），介于两者之间的分桶按小时指数衰减 */
+    @Value("${hot-ranking.window.decay-ratio:0.5}")
+    private double windowDecayRatio;
+
+    /** 趋势榜衰减时间常数：互动每过这么久权重降为 1/e */
+    @Value("${hot-ranking.trending.tau-hours:24}")
+    private long trendingTauHours;
 
-    // 时间加成配置（可选，用于提升新帖子的热度）
-    @SuppressWarnings("unused")
-    private static final int TIME_BOOST_HOURS = 24; // 24小时内发布的内容有加成
-    @SuppressWarnings("unused")
-    private static final double TIME_BOOST_RATIO = 1.2; // 加成比例
+    /** 发帖时给新帖子的初始热度（相当于一次刚发生的互动），新帖子据此进入趋势榜 */
+    @Value("${hot-ranking.trending.publish-weight:1.0}")
+    private double trendingPublishWeight;
+
+    /** 趋势榜保留的帖子数上限 */
+    @Value("${hot-ranking.trending.max-size:10000}")
+    private int trendingMaxSize;
+
+    /** 衰减基准时间的最大距今时长，超过时前移 */
+    @Value("${hot-ranking.trending.rebase-interval-hours:168}")
+    private long trendingRebaseIntervalHours;
 
     @Override
     public void updateHotScore(Long postId) {
@@ -79,8 +136,8 @@ public class HotRankingServiceImpl implements HotRankingService {
                     commentCount.intValue(),
                     0);
 
-            // 更新所有时间段的排行榜
-            updateRankingForAllPeriods(postId, hotScore);
+            // 更新总榜（日榜/周榜/月榜由分桶聚合）
+            boundUtil.zAdd(HOT_RANKING_PREFIX + ALLTIME_PERIOD, postId, hotScore);
 
             log.debug("Updated hot score for post {}: likeCount={}, favoriteCount={}, commentCount={}, hotScore={}",
                     postId, likeCount, favoriteCount, commentCount, hotScore);
@@ -91,43 +148,263 @@ public class HotRankingServiceImpl implements HotRankingService {
     }
 
     @Override
-    public void onLike(Long postId) {
+    public void markDirty(Long postId) {
         if (postId == null) {
             return;
         }
-        updateHotScore(postId);
+        // 不做进程内去重：其他节点可能已弹出并重算该帖子，每次事件都要重新写入；SADD 本身幂等
+        try {
+            boundUtil.sAdd(HOT_DIRTY_KEY, postId);
+        } catch (Exception e) {
+            log.error("Failed to mark hot score of post {} dirty", postId, e);
+        }
+    }
+
+    /**
+     * 定时批量重算待重算帖子的热度分数，热度滞后不超过一个重算间隔
+     */
+    @Scheduled(fixedDelayString = "${hot-ranking.recompute.interval-ms:1000}")
+    public void recomputeDirtyScores() {
+        int recomputed = 0;
+        try {
+            while (true) {
+                List<Long> postIds = boundUtil.sPop(HOT_DIRTY_KEY, Math.max(1, recomputeChunkSize), Long.class);
+                if (postIds.isEmpty()) {
+                    break;
+                }
+                try {
+                    recompute(postIds);
+                } catch (RuntimeException e) {
+                    boundUtil.sAdd(HOT_DIRTY_KEY, postIds.toArray());
+                    throw e;
+                }
+                recomputed += postIds.size();
+            }
+        } catch (Exception e) {
+            log.error("Failed to recompute hot scores", e);
+        }
+        if (recomputed > 0) {
+            log.debug("Recomputed hot scores of {} posts", recomputed);
+        }
+    }
+
+    /**
+     * 一次管道读取一批帖子的点赞/收藏/评论数，再一次管道写入总榜
+     */
+    private void recompute(List<Long> postIds) {
+        List<Object> scores = boundUtil.executePipelined(operations -> {
+            for (Long postId : postIds) {
+                operations.opsForZSet().score(RANKING_LIKES, postId);
+                operations.opsForZSet().score(RANKING_FAVORITES, postId);
+                operations.opsForZSet().score(RANKING_COMMENTS, postId);
+            }
+        });
+        Map<Long, Double> hotScores = new HashMap<>();
+        for (int i = 0; i < postIds.size(); i++) {
+            if (countAt(scores, i * 3) == null && countAt(scores, i * 3 + 1) == null
+                    && countAt(scores, i * 3 + 2) == null) {
+                // 不在任何计数排行榜中（如已删除的帖子），不重新加入热度排行榜
+                continue;
+            }
+            hotScores.put(postIds.get(i), calculateHotScore(
+                    orZero(countAt(scores, i * 3)),
+                    orZero(countAt(scores, i * 3 + 1)),
+                    orZero(countAt(scores, i * 3 + 2)),
+                    0));
+        }
+        if (hotScores.isEmpty()) {
+            return;
+        }
+        String key = HOT_RANKING_PREFIX + ALLTIME_PERIOD;
+        boundUtil.executePipelined(operations -> {
+            for (Map.Entry<Long, Double> entry : hotScores.entrySet()) {
+                operations.opsForZSet().add(key, entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    private static Integer countAt(List<Object> results, int index) {
+        Object value = index < results.size() ? results.get(index) : null;
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * 定时把窗口内的小时分桶合并到日榜/周榜/月榜
+     * 分桶权重 = decayRatio ^ (距当前小时数 / 窗口小时数)，ZUNIONSTORE 整体覆盖目标排行榜
+     */
+    @Scheduled(fixedDelayString = "${hot-ranking.window.aggregate-interval-ms:60000}")
+    public void aggregateWindows() {
+        long currentHour = System.currentTimeMillis() / HOUR_MILLIS;
+        for (int i = 0; i < WINDOW_PERIODS.length; i++) {
+            int hours = WINDOW_HOURS[i];
+            List<String> bucketKeys = new ArrayList<>(hours);
+            List<Double> weights = new ArrayList<>(hours);
+            for (int age = 0; age < hours; age++) {
+                bucketKeys.add(HOT_BUCKET_PREFIX + (currentHour - age));
+                weights.add(Math.pow(windowDecayRatio, (double) age / hours));
+            }
+            try {
+                boundUtil.zUnionAndStore(HOT_RANKING_PREFIX + WINDOW_PERIODS[i], bucketKeys, weights,
+                        RedisZSetCommands.Aggregate.SUM);
+            } catch (Exception e) {
+                log.error("Failed to aggregate {} hot ranking", WINDOW_PERIODS[i], e);
+            }
+        }
+        try {
+            // 发帖脚本直接写入当前分桶，在此补上过期时间
+            boundUtil.expire(HOT_BUCKET_PREFIX + currentHour, bucketTtlHours(), TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.error("Failed to set TTL of hot ranking bucket {}", currentHour, e);
+        }
+    }
+
+    @Override
+    public List<String> getHotRankingKeys() {
+        List<String> keys = new ArrayList<>(PERIODS.length + 1);
+        for (String period : PERIODS) {
+            keys.add(HOT_RANKING_PREFIX + period);
+        }
+        // 当前小时分桶，新帖子在下次聚合后仍留在窗口排行榜中
+        keys.add(currentBucketKey());
+        return keys;
+    }
+
+    /**
+     * 定时截断趋势榜，并在衰减基准时间过旧时整体前移（只处理保留的前 N 个帖子）
+     */
+    @Scheduled(fixedDelayString = "${hot-ranking.trending.maintain-interval-ms:3600000}")
+    public void maintainTrending() {
+        try {
+            Long rebased = rankingScripts.executeScript(RankingScripts.HOT_TRENDING_REBASE,
+                    Arrays.asList(HOT_TRENDING_KEY, HOT_TRENDING_EPOCH_KEY),
+                    System.currentTimeMillis(), getTrendingTauMillis(), trendingMaxSize,
+                    TimeUnit.HOURS.toMillis(trendingRebaseIntervalHours));
+            if (rebased != null && rebased > 0) {
+                log.info("Rebased trending hot ranking epoch, rescored {} posts", rebased);
+            }
+        } catch (Exception e) {
+            log.error("Failed to maintain trending hot ranking", e);
+        }
+    }
+
+    @Override
+    public List<String> getTrendingKeys() {
+        return Arrays.asList(HOT_TRENDING_KEY, HOT_TRENDING_EPOCH_KEY);
+    }
+
+    @Override
+    public long getTrendingTauMillis() {
+        return TimeUnit.HOURS.toMillis(Math.max(1, trendingTauHours));
+    }
+
+    @Override
+    public double getTrendingPublishWeight() {
+        return trendingPublishWeight;
+    }
+
+    @Override
+    public List<String> getHotBucketKeys() {
+        long currentHour = System.currentTimeMillis() / HOUR_MILLIS;
+        int hours = bucketTtlHours();
+        List<String> keys = new ArrayList<>(hours);
+        for (int age = 0; age < hours; age++) {
+            keys.add(HOT_BUCKET_PREFIX + (currentHour - age));
+        }
+        return keys;
+    }
+
+    @Override
+    public double getInitialHotScore() {
+        return calculateHotScore(0, 0, 0, 0);
+    }
+
+    @Override
+    public void onLike(Long postId) {
+        markDirty(postId);
+        recordEvent(postId, LIKE_WEIGHT);
     }
 
     @Override
     public void onUnlike(Long postId) {
-        if (postId == null) {
-            return;
+        markDirty(postId);
+        recordEvent(postId, -LIKE_WEIGHT);
+    }
+
+    @Override
+    public void incrementLikes(Long postId, long delta) {
+        if (delta != 0) {
+            markDirty(postId);
+            recordEvent(postId, delta * LIKE_WEIGHT);
         }
-        updateHotScore(postId);
     }
 
     @Override
     public void onFavorite(Long postId) {
-        if (postId == null) {
-            return;
-        }
-        updateHotScore(postId);
+        markDirty(postId);
+        recordEvent(postId, FAVORITE_WEIGHT);
     }
 
     @Override
     public void onUnfavorite(Long postId) {
-        if (postId == null) {
-            return;
+        markDirty(postId);
+        recordEvent(postId, -FAVORITE_WEIGHT);
+    }
+
+    @Override
+    public void incrementFavorites(Long postId, long delta) {
+        if (delta != 0) {
+            markDirty(postId);
+            recordEvent(postId, delta * FAVORITE_WEIGHT);
         }
-        updateHotScore(postId);
     }
 
     @Override
     public void onComment(Long postId) {
+        markDirty(postId);
+        recordEvent(postId, COMMENT_WEIGHT);
+    }
+
+    @Override
+    public void onUncomment(Long postId) {
+        markDirty(postId);
+        recordEvent(postId, -COMMENT_WEIGHT);
+    }
+
+    /**
+     * 一次脚本调用：把热度增量累加到当前小时分桶（保证分桶在最长窗口之后过期），并合入趋势榜的衰减分数
+     */
+    private void recordEvent(Long postId, double delta) {
         if (postId == null) {
             return;
         }
-        updateHotScore(postId);
+        String key = currentBucketKey();
+        try {
+            rankingScripts.executeScript(RankingScripts.HOT_SCORE_EVENT,
+                    Arrays.asList(key, HOT_TRENDING_KEY, HOT_TRENDING_EPOCH_KEY),
+                    postId, delta, System.currentTimeMillis(), getTrendingTauMillis(),
+                    TimeUnit.HOURS.toSeconds(bucketTtlHours()));
+        } catch (Exception e) {
+            log.error("Failed to record hot score delta {} of post {} to bucket {}", delta, postId, key, e);
+        }
+    }
+
+    private static String currentBucketKey() {
+        return HOT_BUCKET_PREFIX + System.currentTimeMillis() / HOUR_MILLIS;
+    }
+
+    /**
+     * 分桶保留到最长窗口之外一小时
+     */
+    private static int bucketTtlHours() {
+        int max = 0;
+        for (int hours : WINDOW_HOURS) {
+            max = Math.max(max, hours);
+        }
+        return max + 1;
     }
 
     @Override
@@ -136,17 +413,33 @@ public class HotRankingServiceImpl implements HotRankingService {
         long start = (page - 1) * pageSize;
         long end = start + pageSize - 1;
 
+        // 前 K 名直接读本节点快照
+        List<Long> snapshot = rankingSnapshotService.getRange(key, start, end);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
         // 使用 zReverseRange 获取分数最高的帖子（热度从高到低）
         List<Long> postIds = boundUtil.zReverseRange(key, start, end, Long.class);
         return postIds != null ? postIds : new ArrayList<>();
     }
 
+    @Override
+    public CursorPage<Long> getHotPostsPage(String period, String cursor, int pageSize) {
+        // 热度分数是小数，游标保留完整精度，下一页从该分数继续向下读取
+        return boundUtil.zRevPage(HOT_RANKING_PREFIX + period.toLowerCase(), cursor, pageSize, Long.class);
+    }
+
     @Override
     public Long getPostRank(Long postId, String period) {
         if (postId == null) {
             return null;
         }
         String key = HOT_RANKING_PREFIX + period.toLowerCase();
+        Long snapshotRank = rankingSnapshotService.getRank(key, postId);
+        if (snapshotRank != null) {
+            return snapshotRank;
+        }
 
         // 使用 zRevRank 获取排名（0-based），转换为1-based
         Long rank = boundUtil.zRevRank(key, postId);
@@ -159,7 +452,8 @@ public class HotRankingServiceImpl implements HotRankingService {
             return null;
         }
         String key = HOT_RANKING_PREFIX + period.toLowerCase();
-        return boundUtil.zScore(key, postId);
+        Double snapshotScore = rankingSnapshotService.getScore(key, postId);
+        return snapshotScore != null ? snapshotScore : boundUtil.zScore(key, postId);
     }
 
     /**
@@ -173,18 +467,6 @@ public class HotRankingServiceImpl implements HotRankingService {
                 + shareCount * SHARE_WEIGHT;
     }
 
-    /**
-     * 更新所有时间段的排行榜
-     */
-    private void updateRankingForAllPeriods(Long postId, double hotScore) {
-        String[] periods = { "daily", "weekly", "monthly", "alltime" };
-        for (String period : periods) {
-            String key = HOT_RANKING_PREFIX + period;
-            // 使用 ZADD 更新分数（如果不存在则添加，存在则更新）
-            boundUtil.zAdd(key, postId, hotScore);
-        }
-    }
-
     /**
      * 定时清理过期数据（每天凌晨2点执行）
      * 可选功能：清理超过一定时间未更新的数据，避免排行榜过大
@@ -193,8 +475,8 @@ public class HotRankingServiceImpl implements HotRankingService {
     public void cleanExpiredRankingData() {
         log.info("Starting to clean expired ranking data...");
         try {
-            // 这里可以添加清理逻辑，比如删除30天前的数据
-            // 当前实现暂不清理，保留所有历史数据
+            // 小时分桶由 TTL 过期，日榜/周榜/月榜每次聚合整体覆盖，无需额外清理
+            // 总榜保留所有历史数据
             log.info("Ranking data cleanup completed");
         } catch (Exception e) {
             log.error("Failed to clean expired ranking data", e);
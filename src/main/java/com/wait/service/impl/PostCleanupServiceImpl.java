@@ -0,0 +1,314 @@
+package com.wait.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.wait.config.script.RelationScripts;
+import com.wait.entity.domain.BrowseHistory;
+import com.wait.entity.domain.Post;
+import com.wait.mapper.BrowseHistoryMapper;
+import com.wait.mapper.PostMapper;
+import com.wait.service.HotRankingService;
+import com.wait.service.PostCleanupService;
+import com.wait.service.RelationBitmapService;
+import com.wait.service.TimelineSortedSetService;
+import com.wait.util.BoundUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 帖子删除级联清理服务实现
+ *
+ * 1. 删帖时帖子ID写入待清理 Set（post:cleanup:pending），批量删除（删除用户、审核清理）只需一次 SADD，
+ * 重复登记由 Set 合并
+ * 2. 定时任务每轮 SRANDMEMBER 读取一批帖子，整批处理：一条 IN 查询取作者，点赞、收藏、浏览用户分块扫描，
+ * 移除命令累积到管道中每满 N 条执行一次，时间线按作者合并后批量移除（收件箱撤回异步执行）
+ * 3. 整批清理成功后才从待清理 Set 中 SREM，失败或进程崩溃时帖子留在 Set 中，下一轮重试；所有清理操作都可重复执行
+ */
+@Slf4j
+@Service
+public class PostCleanupServiceImpl implements PostCleanupService {
+
+    private final BoundUtil boundUtil;
+    private final PostMapper postMapper;
+    private final BrowseHistoryMapper browseHistoryMapper;
+    private final RelationBitmapService bitmapService;
+    private final RelationScripts relationScripts;
+    private final HotRankingService hotRankingService;
+    private final TimelineSortedSetService timelineSortedSetService;
+
+    public PostCleanupServiceImpl(BoundUtil boundUtil, PostMapper postMapper,
+            BrowseHistoryMapper browseHistoryMapper, RelationBitmapService bitmapService,
+            RelationScripts relationScripts, HotRankingService hotRankingService,
+            @Lazy TimelineSortedSetService timelineSortedSetService) {
+        this.boundUtil = boundUtil;
+        this.postMapper = postMapper;
+        this.browseHistoryMapper = browseHistoryMapper;
+        this.bitmapService = bitmapService;
+        this.relationScripts = relationScripts;
+        this.hotRankingService = hotRankingService;
+        this.timelineSortedSetService = timelineSortedSetService;
+    }
+
+    private static final String CLEANUP_PENDING_KEY = "post:cleanup:pending";
+
+    // 帖子相关索引 key，与各服务保持一致
+    private static final String POST_PREFIX = "post:";
+    private static final String POST_STATS_PREFIX = "post:stats:";
+    private static final String POST_LIKE_PREFIX = "post:like:";
+    private static final String POST_LIKE_COUNT_PREFIX = "post:like_count:";
+    private static final String POST_LIKE_BITMAP_PREFIX = "post:like_bm:";
+    private static final String POST_FAVORITED_BY_PREFIX = "post:favorited_by:";
+    private static final String POST_FAVORITE_COUNT_PREFIX = "post:favorite_count:";
+    private static final String DIGEST_LIKE_PREFIX = "relation:digest:like:";
+    // 收藏摘要按用户维度存储（relation:digest:favorite:{userId}）
+    private static final String DIGEST_FAVORITE_PREFIX = "relation:digest:favorite:";
+    private static final String USER_LIKE_PREFIX = "user:like:";
+    private static final String USER_FAVORITE_PREFIX = "user:favorite:";
+    private static final String USER_FAVORITE_TIME_PREFIX = "user:favorite:time:";
+    private static final String USER_POST_REL_PREFIX = "user:post:rel:";
+    private static final String BROWSE_PREFIX = "browse:history:user:";
+    private static final String BROWSE_POST_PREFIX = "browse:history:post:";
+    private static final String COMMENT_COUNT_PREFIX = "post:comment:count:";
+    private static final String COMMENT_COUNT_DIRTY_KEY = "post:comment:count:dirty";
+    private static final String COMMENT_COUNT_PROCESSING_KEY = "post:comment:count:processing";
+    private static final String RANKING_LIKES = "post:ranking:likes";
+    private static final String RANKING_FAVORITES = "post:ranking:favorites";
+    private static final String RANKING_COMMENTS = "post:ranking:comments";
+    private static final String HOT_DIRTY_KEY = "post:ranking:hot:dirty";
+    private static final String HOT_TRENDING_KEY = "post:ranking:hot:trending";
+    // 点赞、收藏、浏览用户的分块扫描大小
+    private static final int SCAN_COUNT = 1000;
+
+    /** 每批清理的帖子数 */
+    @Value("${post.cleanup.batch-size:200}")
+    private int batchSize;
+
+    /** 每轮最多处理的批次数，剩余的留给下一轮 */
+    @Value("${post.cleanup.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    /** 评论数 Hash 分片数，与 CommentServiceImpl 保持一致 */
+    @Value("${comment.count.shards:64}")
+    private int commentCountShards;
+
+    /** 管道中累积多少条命令后执行一次 */
+    @Value("${post.cleanup.pipeline-flush-size:1000}")
+    private int pipelineFlushSize;
+
+    @Override
+    public void enqueue(Collection<Long> postIds) {
+        if (postIds == null || postIds.isEmpty()) {
+            return;
+        }
+        boundUtil.sAdd(CLEANUP_PENDING_KEY, postIds.toArray());
+    }
+
+    @Scheduled(fixedDelayString = "${post.cleanup.interval-ms:2000}")
+    public void scheduledCleanup() {
+        try {
+            int cleaned = cleanupPending();
+            if (cleaned > 0) {
+                log.info("Cleaned up indexes of {} deleted posts", cleaned);
+            }
+        } catch (Exception e) {
+            log.error("Failed to clean up deleted posts", e);
+        }
+    }
+
+    @Override
+    public int cleanupPending() {
+        int cleaned = 0;
+        for (int batch = 0; batch < Math.max(1, maxBatchesPerRun); batch++) {
+            // SRANDMEMBER 只读取不移除，整批清理成功后再 SREM：处理中进程崩溃时帖子仍留在待清理 Set，下一轮重试
+            List<Long> postIds = boundUtil.sRandMembers(CLEANUP_PENDING_KEY, Math.max(1, batchSize), Long.class);
+            if (postIds.isEmpty()) {
+                break;
+            }
+            cleanup(postIds);
+            boundUtil.sRem(CLEANUP_PENDING_KEY, postIds.toArray());
+            cleaned += postIds.size();
+        }
+        return cleaned;
+    }
+
+    /**
+     * 清理一批已删除帖子的全部索引
+     */
+    private void cleanup(List<Long> postIds) {
+        // 1. 作者（包含已删除的帖子）
+        Map<Long, List<Long>> postIdsByAuthor = new HashMap<>();
+        Map<Long, Long> authorByPost = new HashMap<>();
+        for (Post post : postMapper.selectAuthorsByIds(postIds)) {
+            if (post.getId() != null && post.getUserId() != null) {
+                authorByPost.put(post.getId(), post.getUserId());
+                postIdsByAuthor.computeIfAbsent(post.getUserId(), k -> new ArrayList<>()).add(post.getId());
+            }
+        }
+
+        PipelineBuffer pipeline = new PipelineBuffer();
+
+        // 2. 排行榜、计数缓存和作者帖子列表
+        Object[] members = postIds.toArray();
+        Set<String> rankingKeys = new LinkedHashSet<>(hotRankingService.getHotRankingKeys());
+        rankingKeys.addAll(hotRankingService.getHotBucketKeys());
+        rankingKeys.add(HOT_TRENDING_KEY);
+        rankingKeys.add(RANKING_LIKES);
+        rankingKeys.add(RANKING_FAVORITES);
+        rankingKeys.add(RANKING_COMMENTS);
+        for (String rankingKey : rankingKeys) {
+            pipeline.add(operations -> operations.opsForZSet().remove(rankingKey, members));
+        }
+        for (Long postId : postIds) {
+            String countKey = COMMENT_COUNT_PREFIX + Math.floorMod(postId, (long) Math.max(1, commentCountShards));
+            pipeline.add(operations -> operations.opsForHash().delete(countKey, String.valueOf(postId)));
+        }
+        pipeline.add(operations -> operations.opsForSet().remove(COMMENT_COUNT_DIRTY_KEY, members));
+        pipeline.add(operations -> operations.opsForSet().remove(COMMENT_COUNT_PROCESSING_KEY, members));
+        pipeline.add(operations -> operations.opsForSet().remove(HOT_DIRTY_KEY, members));
+        for (Long postId : postIds) {
+            Long authorId = authorByPost.get(postId);
+            if (authorId != null) {
+                pipeline.add(operations -> operations.opsForList().remove(USER_POST_REL_PREFIX + authorId, 0, postId));
+            }
+        }
+
+        // 3. 点赞、收藏、浏览过的用户分块扫描，边扫描边移除反向索引，不把全部成员装入内存
+        for (Long postId : postIds) {
+            Consumer<List<Long>> removeLike = userIds -> {
+                for (Long userId : userIds) {
+                    pipeline.add(operations -> operations.opsForSet().remove(USER_LIKE_PREFIX + userId, postId));
+                }
+            };
+            // 点赞在位图模式下存位图，尚未迁移的旧版 Set 一并扫描
+            bitmapService.forEachContainer(POST_LIKE_BITMAP_PREFIX + postId, removeLike);
+            boundUtil.sScanWithCallback(POST_LIKE_PREFIX + postId, SCAN_COUNT, Long.class, removeLike);
+
+            // 收藏始终使用 Set；收藏摘要按用户维度存储，每个分块一次脚本调用，移除反向索引的同时扣减用户的摘要
+            boundUtil.sScanWithCallback(POST_FAVORITED_BY_PREFIX + postId, SCAN_COUNT, Long.class,
+                    userIds -> removeFavorites(postId, userIds));
+
+            forEachViewerChunk(postId, userIds -> {
+                for (Long userId : userIds) {
+                    pipeline.add(operations -> operations.opsForZSet().remove(BROWSE_PREFIX + userId, postId));
+                }
+            });
+        }
+
+        // 4. 反向索引移除完成后再删除帖子维度的 key（扫描依赖这些 key）
+        for (Long postId : postIds) {
+            List<String> keys = new ArrayList<>();
+            keys.add(POST_PREFIX + postId);
+            keys.add(POST_STATS_PREFIX + postId);
+            keys.add(POST_LIKE_PREFIX + postId);
+            keys.add(POST_LIKE_COUNT_PREFIX + postId);
+            keys.add(POST_FAVORITED_BY_PREFIX + postId);
+            keys.add(POST_FAVORITE_COUNT_PREFIX + postId);
+            keys.add(DIGEST_LIKE_PREFIX + postId);
+            keys.add(BROWSE_POST_PREFIX + postId);
+            pipeline.add(operations -> operations.delete(keys));
+        }
+        pipeline.flush();
+
+        // 5. 位图容器、数据库浏览记录、时间线
+        for (Long postId : postIds) {
+            bitmapService.delete(POST_LIKE_BITMAP_PREFIX + postId);
+        }
+        browseHistoryMapper.deleteByPostIds(postIds);
+        timelineSortedSetService.removeFromTimelines(postIdsByAuthor);
+
+        log.debug("Cleaned up {} deleted posts of {} authors", postIds.size(), postIdsByAuthor.size());
+    }
+
+    /**
+     * 移除一批用户对已删除帖子的收藏反向索引，并按实际移除的收藏更新各用户的收藏摘要
+     */
+    private void removeFavorites(Long postId, List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(userIds.size() * 3);
+        for (Long userId : userIds) {
+            keys.add(USER_FAVORITE_PREFIX + userId);
+            keys.add(USER_FAVORITE_TIME_PREFIX + userId);
+            keys.add(DIGEST_FAVORITE_PREFIX + userId);
+        }
+        relationScripts.executeScript(RelationScripts.FAVORITE_CLEANUP, keys, postId);
+    }
+
+    /**
+     * 分块遍历浏览过帖子的用户：Redis 帖子浏览者按下标分段读取，数据库浏览记录按主键键集分页
+     * 同一用户可能在多个分块中出现，移除操作幂等
+     */
+    private void forEachViewerChunk(Long postId, Consumer<List<Long>> callback) {
+        String viewersKey = BROWSE_POST_PREFIX + postId;
+        for (long start = 0;; start += SCAN_COUNT) {
+            Set<Long> viewers = boundUtil.zRange(viewersKey, start, start + SCAN_COUNT - 1, Long.class);
+            if (viewers == null || viewers.isEmpty()) {
+                break;
+            }
+            callback.accept(new ArrayList<>(viewers));
+            if (viewers.size() < SCAN_COUNT) {
+                break;
+            }
+        }
+
+        long afterId = 0;
+        while (true) {
+            List<BrowseHistory> records = browseHistoryMapper.selectViewersByPostIdAfter(postId, afterId, SCAN_COUNT);
+            if (records.isEmpty()) {
+                break;
+            }
+            List<Long> userIds = new ArrayList<>(records.size());
+            for (BrowseHistory record : records) {
+                afterId = record.getId();
+                if (record.getUserId() != null) {
+                    userIds.add(record.getUserId());
+                }
+            }
+            callback.accept(userIds);
+            if (records.size() < SCAN_COUNT) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 累积管道命令，每满 pipelineFlushSize 条执行一次，避免超大帖子的清理生成一个巨大的管道
+     */
+    private final class PipelineBuffer {
+        private final List<Consumer<RedisOperations<String, Object>>> commands = new ArrayList<>();
+
+        void add(Consumer<RedisOperations<String, Object>> command) {
+            commands.add(command);
+            if (commands.size() >= Math.max(1, pipelineFlushSize)) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (commands.isEmpty()) {
+                return;
+            }
+            List<Consumer<RedisOperations<String, Object>>> batch = new ArrayList<>(commands);
+            commands.clear();
+            boundUtil.executePipelined(operations -> {
+                for (Consumer<RedisOperations<String, Object>> command : batch) {
+                    command.accept(operations);
+                }
+            });
+        }
+    }
+}
@@ -1,33 +1,56 @@
 package com.wait.service.impl;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeoutException;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.wait.config.script.TimeLineScripts;
 import com.wait.entity.domain.Post;
 import com.wait.entity.domain.UserBase;
+import com.wait.entity.dto.CursorPage;
+import com.wait.entity.dto.PostStats;
+import com.wait.entity.dto.PostViewBatch;
 import com.wait.mapper.PostMapper;
 import com.wait.service.CommentService;
 import com.wait.service.HotRankingService;
+import com.wait.service.PostCleanupService;
 import com.wait.service.PostService;
+import com.wait.service.PostViewCacheService;
 import com.wait.service.RankingService;
 import com.wait.service.RelationService;
 import com.wait.service.TimelineSortedSetService;
 import com.wait.service.UserService;
+import com.wait.util.BatchLoader;
 import com.wait.util.BoundUtil;
+import com.wait.util.ScoreCursor;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -48,12 +71,15 @@ public class PostServiceImpl implements PostService {
     private final RelationService relationService;
     private final CommentService commentService;
     private final UserService userService;
+    private final PostViewCacheService postViewCacheService;
+    private final PostCleanupService postCleanupService;
 
     public PostServiceImpl(PostMapper postMapper, TimeLineScripts timeLineScripts,
             ObjectMapper redisObjectMapper, BoundUtil boundUtil,
             TimelineSortedSetService timelineSortedSetService, HotRankingService hotRankingService,
             RankingService rankingService, @Lazy RelationService relationService,
-            CommentService commentService, UserService userService) {
+            CommentService commentService, UserService userService,
+            PostViewCacheService postViewCacheService, PostCleanupService postCleanupService) {
         this.postMapper = postMapper;
         this.timeLineScripts = timeLineScripts;
         this.redisObjectMapper = redisObjectMapper;
@@ -64,12 +90,90 @@ public class PostServiceImpl implements PostService {
         this.relationService = relationService;
         this.commentService = commentService;
         this.userService = userService;
+        this.postViewCacheService = postViewCacheService;
+        this.postCleanupService = postCleanupService;
+    }
+
+    /** 帖子数据装配的批量加载线程数，各类数据的批次在其中并发执行 */
+    @Value("${post.hydration.threads:8}")
+    private int hydrationThreads;
+
+    /** 等待全部批次的超时时间，超时的批次不填充对应字段 */
+    @Value("${post.hydration.timeout-ms:2000}")
+    private long hydrationTimeoutMs;
+
+    private ExecutorService hydrationExecutor;
+
+    /** 是否开启用户帖子分页预取（OFFSET 分页超出 Redis 缓存范围时，异步预取后续页） */
+    @Value("${post.prefetch.enabled:true}")
+    private boolean prefetchEnabled;
+
+    /** 预取深度：保持缓存领先当前页的页数 */
+    @Value("${post.prefetch.depth:1}")
+    private int prefetchDepth;
+
+    /** 超过该每页大小的请求不预取，与深度、过期时间共同限定预取占用的内存 */
+    @Value("${post.prefetch.max-page-size:50}")
+    private int prefetchMaxPageSize;
+
+    /** 预取页的过期时间，同时是新发帖/删帖后分页结果的最长滞后时间 */
+    @Value("${post.prefetch.ttl-seconds:30}")
+    private long prefetchTtlSeconds;
+
+    @Value("${post.prefetch.threads:2}")
+    private int prefetchThreads;
+
+    /** 等待执行的预取任务上限，队列满时直接放弃预取 */
+    @Value("${post.prefetch.queue-capacity:200}")
+    private int prefetchQueueCapacity;
+
+    private ExecutorService prefetchExecutor;
+
+    /** 正在执行或排队的预取任务，避免同一页被重复预取 */
+    private final Set<String> prefetchInFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, hydrationThreads);
+        // 队列满时由调用线程执行，批次退化为串行而不是被拒绝
+        hydrationExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(1000),
+                new ThreadFactoryBuilder().setNameFormat("post-hydration-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        int prefetchPoolSize = Math.max(1, prefetchThreads);
+        prefetchExecutor = new ThreadPoolExecutor(prefetchPoolSize, prefetchPoolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, prefetchQueueCapacity)),
+                new ThreadFactoryBuilder().setNameFormat("post-prefetch-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shutdownExecutor(hydrationExecutor);
+        shutdownExecutor(prefetchExecutor);
+    }
+
+    private void shutdownExecutor(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
 
     private static final String POST_PREFIX = "post:";
     private static final String USER_POST_REL_PREFIX = "user:post:rel:";
     // 使用Set存储所有空用户ID，节省空间（业界常见做法）
     private static final String USER_POST_EMPTY_SET = "user:post:empty:set";
+    // 预取的用户帖子分页：user:post:page:{userId}:{pageSize}:{page}，List 按页内顺序存放帖子
+    private static final String USER_POST_PAGE_PREFIX = "user:post:page:";
+    // 时间线 key，与 TimelineSortedSetServiceImpl 保持一致（发帖脚本直接写入）
+    private static final String TIMELINE_USER_POSTS_PREFIX = "timeline:posts:user:";
+    private static final String TIMELINE_GLOBAL_KEY = "timeline:posts:global";
+    private static final int TIMELINE_MAX_SIZE = 1000;
     private static final long POST_EXPIRE_TIME = 60 * 5;
     private static final long USER_POST_EMPTY_EXPIRE_TIME = 60 * 10;
     // Redis中保存用户帖子的上限（测试环境设置为5）
@@ -96,43 +200,35 @@ public class PostServiceImpl implements PostService {
             throw new IllegalStateException("Failed to serialize post to JSON", e);
         }
 
-        // 如果用户在空用户Set中，需要移除（用户现在有帖子了）
-        Boolean isInEmptySet = boundUtil.sIsMember(USER_POST_EMPTY_SET, post.getUserId());
-        if (isInEmptySet != null && isInEmptySet) {
-            boundUtil.sRem(USER_POST_EMPTY_SET, post.getUserId());
-            log.debug("Removed user {} from empty set as new post is created", post.getUserId());
-        }
-
-        // 使用 Lua 脚本原子性地执行：1. 存储 Post 对象 2. 添加到用户帖子列表 3. 检查上限并删除超限元素
+        // 使用 Lua 脚本在一次往返中原子性地执行发帖后的全部缓存写入：
+        // 1. 移出空用户Set 2. 存储 Post 对象并添加到用户帖子列表（检查上限）
+        // 3. 添加到用户时间线和全局时间线 4. 初始化各时间段热度分数和趋势榜衰减分数
+        long publishTime = System.currentTimeMillis();
         List<String> keyList = new ArrayList<>();
         keyList.add(POST_PREFIX + postId);
         keyList.add(USER_POST_REL_PREFIX + post.getUserId());
+        keyList.add(USER_POST_EMPTY_SET);
+        keyList.add(TIMELINE_USER_POSTS_PREFIX + post.getUserId());
+        keyList.add(TIMELINE_GLOBAL_KEY);
+        keyList.addAll(hotRankingService.getTrendingKeys());
+        keyList.addAll(hotRankingService.getHotRankingKeys());
 
         Long removedCount = timeLineScripts.executeScript(TimeLineScripts.PUBLISH_POST,
                 keyList,
-                postJson, postId, POST_EXPIRE_TIME, USER_POST_LIST_MAX_SIZE);
+                postJson, postId, POST_EXPIRE_TIME, USER_POST_LIST_MAX_SIZE,
+                post.getUserId(), publishTime, TIMELINE_MAX_SIZE, hotRankingService.getInitialHotScore(),
+                hotRankingService.getTrendingTauMillis(), hotRankingService.getTrendingPublishWeight());
 
         if (removedCount != null && removedCount > 0) {
             log.info("Post list exceeded max size, removed {} old posts from user {} list",
                     removedCount, post.getUserId());
         }
 
-        // 新增：添加到时间线 Sorted Set（使用当前时间作为时间戳）
-        long publishTime = System.currentTimeMillis();
+        // 写扩散到粉丝收件箱走异步线程池，不计入发帖耗时
         try {
-            timelineSortedSetService.publishToTimeline(post.getUserId(), postId, publishTime);
-            log.debug("Added post {} to timeline", postId);
+            timelineSortedSetService.fanOutAsync(post.getUserId(), postId, publishTime);
         } catch (Exception e) {
-            log.error("Failed to add post {} to timeline", postId, e);
-            // 不影响主流程，继续执行
-        }
-
-        // 新增：初始化热度分数（可选，如果帖子初始时就有统计数据）
-        try {
-            hotRankingService.updateHotScore(postId);
-            log.debug("Initialized hot score for post {}", postId);
-        } catch (Exception e) {
-            log.error("Failed to initialize hot score for post {}", postId, e);
+            log.error("Failed to schedule fan-out for post {}", postId, e);
             // 不影响主流程，继续执行
         }
 
@@ -183,6 +279,58 @@ public class PostServiceImpl implements PostService {
         }
     }
 
+    /**
+     * 游标分页查询用户帖子
+     * 第一页在缓存范围内时走Redis缓存，其余页按 (updated_at, id) 键集分页查询数据库，
+     * 与缓存列表（同样按 updated_at DESC, id DESC 加载）同序，翻到多深都只扫描一页的索引行。
+     * 游标格式为 {updatedAt 毫秒}:{postId}，格式错误时抛出 IllegalArgumentException
+     */
+    @Override
+    public CursorPage<Post> getUserPostsPage(Long userId, String cursor, int pageSize) {
+        pageSize = Math.max(1, pageSize);
+        ScoreCursor position = ScoreCursor.parse(cursor);
+        List<Post> posts;
+        if (position == null && pageSize < USER_POST_LIST_MAX_SIZE) {
+            // 多取一条判断是否还有下一页
+            posts = getUserPagedPosts(userId, 1, pageSize + 1);
+        } else {
+            if (Boolean.TRUE.equals(boundUtil.sIsMember(USER_POST_EMPTY_SET, userId))) {
+                return CursorPage.<Post>builder().items(Collections.emptyList()).hasMore(false).build();
+            }
+            posts = position == null
+                    ? postMapper.selectByUserIdWithPagination(userId, 0, pageSize + 1)
+                    : postMapper.selectByUserIdAfterPosition(userId, cursorUpdatedAt(position),
+                            cursorPostId(position), pageSize + 1);
+        }
+
+        List<Post> items = posts.size() > pageSize ? new ArrayList<>(posts.subList(0, pageSize)) : posts;
+        String nextCursor = null;
+        if (posts.size() > pageSize) {
+            Post last = items.get(items.size() - 1);
+            if (last.getUpdatedAt() != null) {
+                nextCursor = ScoreCursor.encode(
+                        last.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), last.getId());
+            }
+        }
+        return CursorPage.<Post>builder().items(items).nextCursor(nextCursor).hasMore(nextCursor != null).build();
+    }
+
+    private static LocalDateTime cursorUpdatedAt(ScoreCursor position) {
+        double millis = position.getScore();
+        if (Double.isNaN(millis) || Double.isInfinite(millis)) {
+            throw new IllegalArgumentException("Invalid cursor time: " + millis);
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli((long) millis), ZoneId.systemDefault());
+    }
+
+    private static long cursorPostId(ScoreCursor position) {
+        try {
+            return Long.parseLong(position.getMember());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor post id: " + position.getMember(), e);
+        }
+    }
+
     /**
      * 从Redis缓存中分页查询用户帖子
      */
@@ -241,11 +389,106 @@ public class PostServiceImpl implements PostService {
      * - 代码清晰易懂
      */
     private List<Post> getUserPagedPostsFromDatabase(Long userId, int page, int pageSize) {
+        boolean prefetchable = prefetchEnabled && pageSize > 0 && pageSize <= prefetchMaxPageSize;
+        int depth = Math.max(1, prefetchDepth);
+        if (prefetchable) {
+            // 顺序翻页时该页通常已被上一次请求预取
+            List<Post> prefetched = getPrefetchedPage(userId, page, pageSize);
+            if (!prefetched.isEmpty()) {
+                log.debug("User {} page {} served from prefetch cache", userId, page);
+                if (prefetched.size() == pageSize) {
+                    // 窗口向前推进一页：page+1 ~ page+depth-1 已在缓存中，只需预取 page+depth
+                    Post anchor = depth == 1 ? prefetched.get(prefetched.size() - 1) : null;
+                    schedulePrefetch(userId, page + depth, pageSize, 1, anchor);
+                }
+                return prefetched;
+            }
+        }
+
         // 计算偏移量（OFFSET）
         int offset = (page - 1) * pageSize;
 
         // 从数据库分页查询（数据库层面分页，性能更好）
-        return postMapper.selectByUserIdWithPagination(userId, offset, pageSize);
+        List<Post> posts = postMapper.selectByUserIdWithPagination(userId, offset, pageSize);
+        if (prefetchable && posts.size() == pageSize) {
+            schedulePrefetch(userId, page + 1, pageSize, depth, posts.get(posts.size() - 1));
+        }
+        return posts;
+    }
+
+    private String userPostPageKey(Long userId, int pageSize, int page) {
+        return USER_POST_PAGE_PREFIX + userId + ":" + pageSize + ":" + page;
+    }
+
+    private List<Post> getPrefetchedPage(Long userId, int page, int pageSize) {
+        try {
+            return boundUtil.range(userPostPageKey(userId, pageSize, page), 0, -1, Post.class);
+        } catch (Exception e) {
+            log.warn("Failed to read prefetched page {} of user {}", page, userId, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 异步预取从 fromPage 开始的 pages 页
+     * 
+     * @param anchor fromPage 前一页的最后一个帖子，null 时从缓存中的前一页读取
+     */
+    private void schedulePrefetch(Long userId, int fromPage, int pageSize, int pages, Post anchor) {
+        String taskKey = userId + ":" + pageSize + ":" + fromPage;
+        if (!prefetchInFlight.add(taskKey)) {
+            return;
+        }
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    prefetchPages(userId, fromPage, pageSize, pages, anchor);
+                } catch (Exception e) {
+                    log.warn("Failed to prefetch page {} of user {}", fromPage, userId, e);
+                } finally {
+                    prefetchInFlight.remove(taskKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            prefetchInFlight.remove(taskKey);
+            log.debug("Prefetch queue is full, skipping page {} of user {}", fromPage, userId);
+        }
+    }
+
+    /**
+     * 从锚点帖子之后按键集分页一次查询 pages 页，逐页写入 Redis List 并设置过期时间
+     */
+    private void prefetchPages(Long userId, int fromPage, int pageSize, int pages, Post anchor) {
+        if (Boolean.TRUE.equals(boundUtil.exists(userPostPageKey(userId, pageSize, fromPage)))) {
+            return;
+        }
+        if (anchor == null) {
+            List<Post> previousTail = boundUtil.range(userPostPageKey(userId, pageSize, fromPage - 1), -1, -1,
+                    Post.class);
+            if (previousTail.isEmpty()) {
+                return;
+            }
+            anchor = previousTail.get(0);
+        }
+        if (anchor.getUpdatedAt() == null || anchor.getId() == null) {
+            return;
+        }
+
+        List<Post> posts = postMapper.selectByUserIdAfterPosition(userId, anchor.getUpdatedAt(), anchor.getId(),
+                pageSize * pages);
+        if (posts.isEmpty()) {
+            return;
+        }
+        boundUtil.executePipelined(operations -> {
+            for (int i = 0; i * pageSize < posts.size(); i++) {
+                String key = userPostPageKey(userId, pageSize, fromPage + i);
+                List<Post> pagePosts = posts.subList(i * pageSize, Math.min(posts.size(), (i + 1) * pageSize));
+                operations.delete(key);
+                operations.opsForList().rightPushAll(key, pagePosts.toArray());
+                operations.expire(key, prefetchTtlSeconds, TimeUnit.SECONDS);
+            }
+        });
+        log.debug("Prefetched {} posts of user {} from page {}", posts.size(), userId, fromPage);
     }
 
     /**
@@ -360,14 +603,23 @@ public class PostServiceImpl implements PostService {
         if (!missingIds.isEmpty()) {
             List<Post> dbPosts = postMapper.selectByIds(missingIds);
             if (dbPosts != null && !dbPosts.isEmpty()) {
-                // 4. 将数据库查询结果写入Redis缓存
-                // BoundUtil.set() 会自动使用 RedisTemplate 的序列化器序列化 Post 对象
+                // 4. 将数据库查询结果写入Redis缓存（一次管道写回全部未命中的帖子）
+                // 管道内同样使用 RedisTemplate 的序列化器序列化 Post 对象
+                List<Post> loaded = new ArrayList<>();
                 for (Post post : dbPosts) {
                     if (post != null && post.getIsDeleted() == 0) {
                         resultMap.put(post.getId(), post);
-                        boundUtil.set(POST_PREFIX + post.getId(), post, POST_EXPIRE_TIME, TimeUnit.SECONDS);
+                        loaded.add(post);
                     }
                 }
+                if (!loaded.isEmpty()) {
+                    boundUtil.executePipelined(operations -> {
+                        for (Post post : loaded) {
+                            operations.opsForValue().set(POST_PREFIX + post.getId(), post, POST_EXPIRE_TIME,
+                                    TimeUnit.SECONDS);
+                        }
+                    });
+                }
             }
         }
 
@@ -386,6 +638,10 @@ public class PostServiceImpl implements PostService {
     /**
      * 批量获取帖子详情，并填充当前用户的点赞、收藏状态和统计数据
      * 优化：一次请求返回所有需要的数据，避免前端多次请求
+     * 
+     * 正文和计数来自帖子视图缓存（一次管道取回，正文版本戳未变时使用进程内缓存）；
+     * 视图缓存未命中的部分以及点赞/收藏状态、用户名由 BatchLoader 去重后整批加载，
+     * 各批次在线程池中并发执行：Redis 数据各走一次管道，评论数和用户名各一条 IN 查询，往返次数与页大小无关
      */
     @Override
     public List<Post> getPostsByIdsWithRelation(List<Long> postIds, Long currentUserId) {
@@ -393,87 +649,179 @@ public class PostServiceImpl implements PostService {
             return Collections.emptyList();
         }
 
-        // 1. 获取帖子基本信息
-        List<Post> posts = getPostsByIds(postIds);
-        if (posts.isEmpty()) {
-            return posts;
+        // 1. 当前用户的点赞、收藏状态只依赖帖子ID，先发出，与读取视图缓存并发执行
+        BatchLoader<Long, Boolean> likedFlags = new BatchLoader<>("likedFlags",
+                ids -> relationService.batchCheckLiked(currentUserId, ids));
+        BatchLoader<Long, Boolean> favoritedFlags = new BatchLoader<>("favoritedFlags",
+                ids -> relationService.batchCheckFavorited(currentUserId, ids));
+        Map<String, CompletableFuture<Void>> batches = new LinkedHashMap<>();
+        if (currentUserId != null) {
+            for (BatchLoader<Long, Boolean> loader : Arrays.asList(likedFlags, favoritedFlags)) {
+                loader.loadMany(postIds);
+                batches.put(loader.getName(), loader.dispatch(hydrationExecutor));
+            }
         }
 
-        // 2. 批量获取统计数据（点赞数、收藏数、评论数）
-        Map<Long, Long> likeCounts = new HashMap<>();
-        Map<Long, Long> favoriteCounts = new HashMap<>();
-        Map<Long, Integer> commentCounts = commentService.batchGetCommentCounts(postIds);
-
-        for (Post post : posts) {
-            Long postId = post.getId();
-            if (postId != null) {
-                likeCounts.put(postId, relationService.getLikeCount(postId));
-                favoriteCounts.put(postId, relationService.getFavoriteCount(postId));
+        // 2. 一次管道读取正文和计数
+        PostViewBatch views = postViewCacheService.fetch(postIds);
+
+        // 3. 计数未缓存的帖子按源数据批量加载，加载前的时间作为版本戳，之后的点赞/收藏/评论增量才计入计数缓存
+        long statsLoadedAt = System.currentTimeMillis();
+        BatchLoader<Long, Long> likeCounts = new BatchLoader<>("likeCounts",
+                relationService::batchGetLikeCounts);
+        BatchLoader<Long, Long> favoriteCounts = new BatchLoader<>("favoriteCounts",
+                relationService::batchGetFavoriteCounts);
+        BatchLoader<Long, Integer> commentCounts = new BatchLoader<>("commentCounts",
+                commentService::batchGetCommentCounts);
+        List<Long> missingStats = views.getMissingStats();
+        if (!missingStats.isEmpty()) {
+            for (BatchLoader<Long, ?> loader : Arrays.<BatchLoader<Long, ?>>asList(likeCounts, favoriteCounts,
+                    commentCounts)) {
+                loader.loadMany(missingStats);
+                batches.put(loader.getName(), loader.dispatch(hydrationExecutor));
             }
         }
 
-        // 3. 如果提供了当前用户ID，批量查询点赞和收藏状态
-        Map<Long, Boolean> likedMap = Collections.emptyMap();
-        Map<Long, Boolean> favoritedMap = Collections.emptyMap();
-        if (currentUserId != null) {
-            likedMap = relationService.batchCheckLiked(currentUserId, postIds);
-            favoritedMap = relationService.batchCheckFavorited(currentUserId, postIds);
+        // 4. 正文未缓存的帖子走 Redis/数据库加载
+        Map<Long, Post> bodies = new HashMap<>(views.getBodies());
+        if (!views.getMissingBodies().isEmpty()) {
+            for (Post post : getPostsByIds(views.getMissingBodies())) {
+                bodies.put(post.getId(), post);
+            }
+        }
+        if (bodies.isEmpty()) {
+            awaitBatches(batches);
+            return Collections.emptyList();
         }
 
-        // 4. 批量获取用户名（从帖子中提取userId，去重后批量查询）
-        Set<Long> userIds = posts.stream()
-                .map(Post::getUserId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-        Map<Long, String> usernameMap = new HashMap<>();
-        for (Long userId : userIds) {
+        // 5. 用户名依赖帖子中的作者ID，去重后一条 IN 查询
+        BatchLoader<Long, String> usernames = new BatchLoader<>("usernames", this::loadUsernames);
+        for (Post body : bodies.values()) {
+            if (body.getUserId() != null) {
+                usernames.load(body.getUserId());
+            }
+        }
+        batches.put(usernames.getName(), usernames.dispatch(hydrationExecutor));
+        awaitBatches(batches);
+
+        // 6. 加载成功的计数写回视图缓存，得到生效的计数、版本戳和与之对应的当前正文
+        Map<Long, PostStats> stats = new HashMap<>(views.getStats());
+        List<PostStats> loadedStats = new ArrayList<>();
+        for (Long postId : missingStats) {
+            Long likeCount = likeCounts.getIfLoaded(postId);
+            Long favoriteCount = favoriteCounts.getIfLoaded(postId);
+            Integer commentCount = commentCounts.getIfLoaded(postId);
+            if (bodies.containsKey(postId) && likeCount != null && favoriteCount != null && commentCount != null) {
+                loadedStats.add(PostStats.builder().postId(postId).likeCount(likeCount)
+                        .favoriteCount(favoriteCount).commentCount(commentCount).build());
+            }
+        }
+        if (!loadedStats.isEmpty()) {
             try {
-                UserBase user = userService.findById(userId);
-                if (user != null && user.getUsername() != null) {
-                    usernameMap.put(userId, user.getUsername());
-                }
+                PostViewBatch initialized = postViewCacheService.initStats(loadedStats, statsLoadedAt);
+                stats.putAll(initialized.getStats());
+                // 步骤 2/4 读取的正文可能早于本次建立的版本戳，使用脚本中与版本戳一起读取的正文
+                bodies.putAll(initialized.getBodies());
             } catch (Exception e) {
-                log.warn("Failed to get username for user {}", userId, e);
+                log.warn("Failed to cache post stats for {} posts", loadedStats.size(), e);
             }
         }
 
-        // 5. 填充数据到Post对象
-        for (Post post : posts) {
-            Long postId = post.getId();
-            if (postId != null) {
-                // 填充统计数据
-                Long likeCount = likeCounts.get(postId);
+        // 7. 按请求顺序组装（正文可能来自进程内缓存，复制后再填充），失败或超时的批次对应字段保持正文中的值
+        List<Post> posts = new ArrayList<>(bodies.size());
+        for (Long postId : new LinkedHashSet<>(postIds)) {
+            Post body = postId != null ? bodies.get(postId) : null;
+            if (body == null) {
+                continue;
+            }
+            Post post = copyOf(body);
+            PostStats postStats = stats.get(postId);
+            if (postStats != null) {
+                post.setLikeCount((int) postStats.getLikeCount());
+                post.setFavoriteCount((int) postStats.getFavoriteCount());
+                post.setCommentCount((int) postStats.getCommentCount());
+                post.setVersion(postStats.getVersion());
+            } else {
+                Long likeCount = likeCounts.getIfLoaded(postId);
                 if (likeCount != null) {
                     post.setLikeCount(likeCount.intValue());
                 }
-                Long favoriteCount = favoriteCounts.get(postId);
+                Long favoriteCount = favoriteCounts.getIfLoaded(postId);
                 if (favoriteCount != null) {
                     post.setFavoriteCount(favoriteCount.intValue());
                 }
-                Integer commentCount = commentCounts.get(postId);
+                Integer commentCount = commentCounts.getIfLoaded(postId);
                 if (commentCount != null) {
                     post.setCommentCount(commentCount);
                 }
+            }
 
-                // 填充关系状态（如果提供了当前用户ID）
-                if (currentUserId != null) {
-                    post.setIsLiked(likedMap.getOrDefault(postId, false));
-                    post.setIsFavorited(favoritedMap.getOrDefault(postId, false));
-                }
+            // 填充关系状态（如果提供了当前用户ID）
+            if (currentUserId != null) {
+                post.setIsLiked(Boolean.TRUE.equals(likedFlags.getIfLoaded(postId)));
+                post.setIsFavorited(Boolean.TRUE.equals(favoritedFlags.getIfLoaded(postId)));
+            }
 
-                // 填充用户名
-                if (post.getUserId() != null) {
-                    String username = usernameMap.get(post.getUserId());
-                    if (username != null) {
-                        post.setUsername(username);
-                    }
+            if (post.getUserId() != null) {
+                String username = usernames.getIfLoaded(post.getUserId());
+                if (username != null) {
+                    post.setUsername(username);
                 }
             }
+            posts.add(post);
         }
 
         return posts;
     }
 
+    /**
+     * 复制帖子正文字段（不含按请求填充的字段）
+     */
+    private static Post copyOf(Post body) {
+        return Post.builder()
+                .id(body.getId())
+                .userId(body.getUserId())
+                .content(body.getContent())
+                .likeCount(body.getLikeCount())
+                .commentCount(body.getCommentCount())
+                .isDeleted(body.getIsDeleted())
+                .createdAt(body.getCreatedAt())
+                .updatedAt(body.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * 批量查询作者用户名
+     */
+    private Map<Long, String> loadUsernames(List<Long> userIds) {
+        Map<Long, String> usernames = new HashMap<>();
+        for (UserBase user : userService.findByIds(userIds)) {
+            if (user != null && user.getId() != null && user.getUsername() != null) {
+                usernames.put(user.getId(), user.getUsername());
+            }
+        }
+        return usernames;
+    }
+
+    /**
+     * 在总超时时间内等待所有批次，失败或超时的批次只记录日志
+     */
+    private void awaitBatches(Map<String, CompletableFuture<Void>> batches) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hydrationTimeoutMs);
+        for (Map.Entry<String, CompletableFuture<Void>> batch : batches.entrySet()) {
+            try {
+                batch.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Post hydration batch {} timed out after {} ms", batch.getKey(), hydrationTimeoutMs);
+            } catch (ExecutionException e) {
+                log.warn("Post hydration batch {} failed", batch.getKey(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
     /**
      * 更新帖子
      * 使用Cache-Aside策略：先更新数据库，然后更新缓存
@@ -498,14 +846,16 @@ public class PostServiceImpl implements PostService {
         // BoundUtil.set() 会自动使用 RedisTemplate 的序列化器序列化 Post 对象
         String cacheKey = POST_PREFIX + postId;
         boundUtil.set(cacheKey, post, POST_EXPIRE_TIME, TimeUnit.SECONDS);
+        // 正文变化，使视图缓存的版本戳失效
+        postViewCacheService.invalidate(postId);
         log.debug("Updated post cache: {}", postId);
 
         // 新增：如果评论数变化，更新排行榜和热度分数（可选）
         // 注意：这里假设评论数是通过Post的commentCount字段更新的
         // 如果需要更精确的控制，可以在评论Service中直接调用排行榜更新方法
         try {
-            hotRankingService.updateHotScore(postId);
-            log.debug("Updated hot score for post {} after update", postId);
+            hotRankingService.markDirty(postId);
+            log.debug("Marked hot score of post {} dirty after update", postId);
         } catch (Exception e) {
             log.error("Failed to update hot score for post {}", postId, e);
             // 不影响主流程，继续执行
@@ -514,29 +864,6 @@ public class PostServiceImpl implements PostService {
         return rowsAffected;
     }
 
-    /**
-     * 评论数更新时调用，更新排行榜和热度分数
-     * 注意：此方法已废弃，评论数增减已直接在incrementCommentCount和decrementCommentCount中处理
-     * 
-     * @param postId 帖子ID
-     * @deprecated 评论数增减已直接在对应方法中处理，不再需要此方法
-     */
-    @Deprecated
-    @Override
-    public void onCommentCountChanged(Long postId) {
-        if (postId == null) {
-            return;
-        }
-        try {
-            // 更新热度分数（排行榜已在increment/decrement中更新）
-            hotRankingService.onComment(postId);
-            log.debug("Updated hot score for post {} due to comment count change", postId);
-        } catch (Exception e) {
-            log.error("Failed to update hot score for post {} due to comment", postId, e);
-            // 不影响主流程
-        }
-    }
-
     /**
      * 增加评论数
      * 只更新Redis数据，数据库通过定时任务同步（Write-Behind模式）
@@ -577,7 +904,7 @@ public class PostServiceImpl implements PostService {
             rankingService.onUncomment(postId);
 
             // 更新热度分数
-            hotRankingService.onComment(postId); // 热度分数会重新计算，使用最新的评论数
+            hotRankingService.onUncomment(postId); // 热度分数会重新计算，使用最新的评论数
 
             log.debug("Decremented comment count in Redis for post {}", postId);
         } catch (Exception e) {
@@ -626,20 +953,45 @@ public class PostServiceImpl implements PostService {
         } else {
             log.warn("Post {} not found in user {} post list cache", postId, userId);
         }
+        postViewCacheService.invalidate(postId);
 
-        // 新增：从时间线移除帖子
+        // 3. 时间线、排行榜、点赞收藏集合、浏览记录等索引由级联清理异步批量移除
         try {
-            timelineSortedSetService.removeFromTimeline(userId, postId);
-            log.debug("Removed post {} from timeline", postId);
+            postCleanupService.enqueue(Collections.singletonList(postId));
         } catch (Exception e) {
-            log.error("Failed to remove post {} from timeline", postId, e);
+            log.error("Failed to enqueue cleanup for post {}", postId, e);
             // 不影响主流程，继续执行
         }
 
-        // 新增：从排行榜移除（可选，如果需要）
-        // 删除的帖子通常不需要立即从排行榜移除，可以等定期清理时自然过期
-        // 如果需要立即移除，可以在这里调用相应的服务
+        return rowsAffected;
+    }
 
+    /**
+     * 批量删除帖子（删除用户、审核清理）
+     * 一条 UPDATE 逻辑删除，所有缓存和索引交给级联清理按批处理
+     */
+    @Override
+    public int batchDelete(List<Long> postIds) {
+        if (postIds == null || postIds.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(postIds));
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int rowsAffected = postMapper.deleteByIds(ids);
+        // 帖子缓存立即删除，避免详情页在清理前读到已删除的帖子
+        List<String> postKeys = new ArrayList<>(ids.size());
+        for (Long postId : ids) {
+            postKeys.add(POST_PREFIX + postId);
+        }
+        boundUtil.executePipelined(operations -> operations.delete(postKeys));
+        postCleanupService.enqueue(ids);
+        for (Long postId : ids) {
+            postViewCacheService.invalidate(postId);
+        }
+        log.info("Batch deleted {} posts, {} rows affected", ids.size(), rowsAffected);
         return rowsAffected;
     }
 }
@@ -0,0 +1,353 @@
+package com.wait.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.wait.config.script.PostScripts;
+import com.wait.entity.domain.Post;
+import com.wait.entity.dto.PostStats;
+import com.wait.entity.dto.PostViewBatch;
+import com.wait.entity.dto.RelationEvent;
+import com.wait.service.PostViewCacheService;
+import com.wait.util.BoundUtil;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 帖子卡片视图缓存实现
+ *
+ * 1. 计数 Hash（post:stats:{postId}）字段为 like/fav/cmt/ver，点赞/收藏/评论由 Lua 脚本增量更新，
+ * 未建立时不创建，读取时按源数据建立（脚本只在没有 ver 时写入，不覆盖并发建立的计数）
+ * 2. ver 为正文版本戳，取读取源数据之前的毫秒时间；正文更新或删帖时删除计数 Hash，下次建立生成新版本戳
+ * 3. 增量携带源数据变化后的时间戳，早于 ver 的变化已包含在建立时的源数据中，脚本不再计入，
+ * 建立计数时仍在事件管道中排队的点赞/收藏不会被重复计入（误差只剩源数据写入与取时间戳之间的瞬间及节点时钟偏差）
+ * 4. 进程内缓存保存 (版本戳, 正文)，fetch 时版本戳与计数 Hash 中的一致则不再从 Redis 下载正文；
+ * 建立计数时正文与版本戳由同一个脚本读取，不会把读取计数之前拿到的旧正文记到新版本戳下
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostViewCacheServiceImpl implements PostViewCacheService {
+
+    private final BoundUtil boundUtil;
+    private final PostScripts postScripts;
+    private final ObjectMapper redisObjectMapper;
+
+    private static final String POST_PREFIX = "post:";
+    private static final String POST_STATS_PREFIX = "post:stats:";
+    private static final String FIELD_LIKE = "like";
+    private static final String FIELD_FAVORITE = "fav";
+    private static final String FIELD_COMMENT = "cmt";
+    private static final String FIELD_VERSION = "ver";
+
+    /** 计数 Hash 的过期时间，增量维护的偏差最多持续这么久 */
+    @Value("${post.view-cache.stats-ttl-seconds:600}")
+    private long statsTtlSeconds;
+
+    /** 进程内正文缓存的条目上限 */
+    @Value("${post.view-cache.local-max-size:10000}")
+    private long localMaxSize;
+
+    /** 进程内正文缓存的过期时间 */
+    @Value("${post.view-cache.local-ttl-seconds:60}")
+    private long localTtlSeconds;
+
+    private Cache<Long, VersionedBody> localBodies;
+
+    @PostConstruct
+    public void init() {
+        localBodies = CacheBuilder.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public PostViewBatch fetch(List<Long> postIds) {
+        PostViewBatch batch = new PostViewBatch();
+        if (postIds == null || postIds.isEmpty()) {
+            return batch;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(postIds));
+        ids.remove(null);
+
+        // 1. 一次管道：全部帖子的计数 + 进程内缓存未命中帖子的正文
+        Map<Long, VersionedBody> local = localBodies.getAllPresent(ids);
+        List<Long> bodyIds = new ArrayList<>();
+        for (Long postId : ids) {
+            if (!local.containsKey(postId)) {
+                bodyIds.add(postId);
+            }
+        }
+        List<Object> results = boundUtil.executePipelined(operations -> {
+            for (Long postId : ids) {
+                operations.opsForHash().entries(POST_STATS_PREFIX + postId);
+            }
+            for (Long postId : bodyIds) {
+                operations.opsForValue().get(POST_PREFIX + postId);
+            }
+        });
+
+        for (int i = 0; i < ids.size(); i++) {
+            Long postId = ids.get(i);
+            PostStats stats = i < results.size() ? toStats(postId, results.get(i)) : null;
+            if (stats != null) {
+                batch.getStats().put(postId, stats);
+            } else {
+                batch.getMissingStats().add(postId);
+            }
+        }
+
+        // 2. 版本戳一致的进程内正文直接使用，不一致的与 Redis 正文一样重新读取
+        List<Long> staleIds = new ArrayList<>();
+        for (Map.Entry<Long, VersionedBody> entry : local.entrySet()) {
+            PostStats stats = batch.getStats().get(entry.getKey());
+            if (stats != null && stats.getVersion() == entry.getValue().version) {
+                batch.getBodies().put(entry.getKey(), entry.getValue().post);
+            } else {
+                staleIds.add(entry.getKey());
+            }
+        }
+        for (int i = 0; i < bodyIds.size(); i++) {
+            int index = ids.size() + i;
+            Post post = index < results.size() ? toPost(results.get(index)) : null;
+            collectBody(batch, bodyIds.get(i), post);
+        }
+        if (!staleIds.isEmpty()) {
+            List<String> keys = new ArrayList<>(staleIds.size());
+            for (Long postId : staleIds) {
+                keys.add(POST_PREFIX + postId);
+            }
+            List<Object> values = boundUtil.executePipelined(operations -> {
+                for (String key : keys) {
+                    operations.opsForValue().get(key);
+                }
+            });
+            for (int i = 0; i < staleIds.size(); i++) {
+                collectBody(batch, staleIds.get(i), i < values.size() ? toPost(values.get(i)) : null);
+            }
+        }
+        return batch;
+    }
+
+    @Override
+    public PostViewBatch initStats(Collection<PostStats> stats, long loadedAt) {
+        PostViewBatch batch = new PostViewBatch();
+        if (stats == null || stats.isEmpty()) {
+            return batch;
+        }
+        List<PostStats> entries = new ArrayList<>(stats);
+        List<String> keys = new ArrayList<>(entries.size() * 2);
+        List<Object> args = new ArrayList<>(entries.size() * 3 + 2);
+        args.add(statsTtlSeconds);
+        args.add(loadedAt);
+        for (PostStats entry : entries) {
+            keys.add(POST_STATS_PREFIX + entry.getPostId());
+            keys.add(POST_PREFIX + entry.getPostId());
+            args.add(entry.getLikeCount());
+            args.add(entry.getFavoriteCount());
+            args.add(entry.getCommentCount());
+        }
+        List<Object> results = postScripts.executeScript(PostScripts.POST_STATS_INIT, keys, args.toArray());
+
+        // 每个帖子 5 个元素：like, fav, cmt, ver, body
+        for (int i = 0; i < entries.size(); i++) {
+            Long postId = entries.get(i).getPostId();
+            int base = i * 5;
+            if (results == null || base + 4 >= results.size()) {
+                break;
+            }
+            PostStats effective = PostStats.builder()
+                    .postId(postId)
+                    .likeCount(orZero(toLong(results.get(base))))
+                    .favoriteCount(orZero(toLong(results.get(base + 1))))
+                    .commentCount(orZero(toLong(results.get(base + 2))))
+                    .version(orZero(toLong(results.get(base + 3))))
+                    .build();
+            batch.getStats().put(postId, effective);
+            Post body = parsePost(results.get(base + 4));
+            if (body != null) {
+                batch.getBodies().put(postId, body);
+                rememberBody(body, effective.getVersion());
+            } else {
+                batch.getMissingBodies().add(postId);
+            }
+        }
+        return batch;
+    }
+
+    @Override
+    public void rememberBody(Post post, long version) {
+        if (post != null && post.getId() != null) {
+            localBodies.put(post.getId(), new VersionedBody(post, version));
+        }
+    }
+
+    @Override
+    public void incrementLikes(Long postId, List<RelationEvent> events) {
+        increment(postId, FIELD_LIKE, toTimedDeltas(events));
+    }
+
+    @Override
+    public void incrementFavorites(Long postId, List<RelationEvent> events) {
+        increment(postId, FIELD_FAVORITE, toTimedDeltas(events));
+    }
+
+    @Override
+    public void incrementComments(Long postId, long delta) {
+        if (delta != 0) {
+            increment(postId, FIELD_COMMENT, Arrays.<Object>asList(System.currentTimeMillis(), delta));
+        }
+    }
+
+    @Override
+    public void invalidate(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        localBodies.invalidate(postId);
+        try {
+            boundUtil.del(POST_STATS_PREFIX + postId);
+        } catch (Exception e) {
+            log.error("Failed to invalidate post stats for post {}", postId, e);
+        }
+    }
+
+    /**
+     * @param timedDeltas 依次为 timestamp, delta
+     */
+    private void increment(Long postId, String field, List<Object> timedDeltas) {
+        if (postId == null || timedDeltas.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(timedDeltas.size() + 1);
+        args.add(field);
+        args.addAll(timedDeltas);
+        try {
+            postScripts.executeScript(PostScripts.POST_STATS_INCR,
+                    Collections.singletonList(POST_STATS_PREFIX + postId), args.toArray());
+        } catch (Exception e) {
+            // 增量失败时删除计数，下次读取按源数据重建
+            log.error("Failed to increment {} of post {} with {} changes", field, postId, timedDeltas.size() / 2, e);
+            invalidate(postId);
+        }
+    }
+
+    private static List<Object> toTimedDeltas(List<RelationEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> timedDeltas = new ArrayList<>(events.size() * 2);
+        for (RelationEvent event : events) {
+            timedDeltas.add(event.getTimestamp());
+            timedDeltas.add(event.getType().isPositive() ? 1 : -1);
+        }
+        return timedDeltas;
+    }
+
+    private void collectBody(PostViewBatch batch, Long postId, Post post) {
+        if (post == null) {
+            batch.getMissingBodies().add(postId);
+            return;
+        }
+        batch.getBodies().put(postId, post);
+        PostStats stats = batch.getStats().get(postId);
+        if (stats != null) {
+            rememberBody(post, stats.getVersion());
+        }
+    }
+
+    /**
+     * 解析脚本返回的正文 JSON，空字符串表示正文未缓存
+     */
+    private Post parsePost(Object value) {
+        if (!(value instanceof String) || ((String) value).isEmpty()) {
+            return null;
+        }
+        try {
+            Post post = redisObjectMapper.readValue((String) value, Post.class);
+            return post != null && post.getId() != null ? post : null;
+        } catch (IOException e) {
+            log.warn("Failed to parse cached post body", e);
+            return null;
+        }
+    }
+
+    private Post toPost(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            Post post = redisObjectMapper.convertValue(value, Post.class);
+            return post != null && post.getId() != null ? post : null;
+        } catch (IllegalArgumentException e) {
+            log.warn("Failed to convert cached post body", e);
+            return null;
+        }
+    }
+
+    /**
+     * HGETALL 结果转为计数，缺少版本戳（未建立或已过期）时返回 null
+     */
+    private PostStats toStats(Long postId, Object value) {
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> hash = (Map<?, ?>) value;
+        Long version = toLong(hash.get(FIELD_VERSION));
+        if (version == null) {
+            return null;
+        }
+        return PostStats.builder()
+                .postId(postId)
+                .likeCount(orZero(toLong(hash.get(FIELD_LIKE))))
+                .favoriteCount(orZero(toLong(hash.get(FIELD_FAVORITE))))
+                .commentCount(orZero(toLong(hash.get(FIELD_COMMENT))))
+                .version(version)
+                .build();
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static final class VersionedBody {
+        private final Post post;
+        private final long version;
+
+        VersionedBody(Post post, long version) {
+            this.post = post;
+            this.version = version;
+        }
+    }
+}
@@ -5,7 +5,9 @@ import java.util.List;
 
 import org.springframework.stereotype.Service;
 
+import com.wait.entity.dto.CursorPage;
 import com.wait.service.RankingService;
+import com.wait.service.RankingSnapshotService;
 import com.wait.util.BoundUtil;
 
 import lombok.RequiredArgsConstructor;
@@ -21,6 +23,7 @@ import lombok.extern.slf4j.Slf4j;
 public class RankingServiceImpl implements RankingService {
 
     private final BoundUtil boundUtil;
+    private final RankingSnapshotService rankingSnapshotService;
 
     private static final String RANKING_LIKES = "post:ranking:likes";
     private static final String RANKING_FAVORITES = "post:ranking:favorites";
@@ -50,6 +53,24 @@ public class RankingServiceImpl implements RankingService {
         log.debug("Updated favorites ranking for post {} (unfavorite)", postId);
     }
 
+    @Override
+    public void incrementLikes(Long postId, long delta) {
+        if (postId == null || delta == 0) {
+            return;
+        }
+        boundUtil.zIncrBy(RANKING_LIKES, postId, (double) delta);
+        log.debug("Updated likes ranking for post {} by {}", postId, delta);
+    }
+
+    @Override
+    public void incrementFavorites(Long postId, long delta) {
+        if (postId == null || delta == 0) {
+            return;
+        }
+        boundUtil.zIncrBy(RANKING_FAVORITES, postId, (double) delta);
+        log.debug("Updated favorites ranking for post {} by {}", postId, delta);
+    }
+
     @Override
     public void onComment(Long postId) {
         boundUtil.zIncrBy(RANKING_COMMENTS, postId, 1.0);
@@ -66,24 +87,36 @@ public class RankingServiceImpl implements RankingService {
     public List<Long> getLikesRanking(int page, int pageSize) {
         long start = (page - 1) * pageSize;
         long end = start + pageSize - 1;
-        List<Long> postIds = boundUtil.zReverseRange(RANKING_LIKES, start, end, Long.class);
-        return postIds != null ? postIds : new ArrayList<>();
+        return range(RANKING_LIKES, start, end);
     }
 
     @Override
     public List<Long> getFavoritesRanking(int page, int pageSize) {
         long start = (page - 1) * pageSize;
         long end = start + pageSize - 1;
-        List<Long> postIds = boundUtil.zReverseRange(RANKING_FAVORITES, start, end, Long.class);
-        return postIds != null ? postIds : new ArrayList<>();
+        return range(RANKING_FAVORITES, start, end);
     }
 
     @Override
     public List<Long> getCommentsRanking(int page, int pageSize) {
         long start = (page - 1) * pageSize;
         long end = start + pageSize - 1;
-        List<Long> postIds = boundUtil.zReverseRange(RANKING_COMMENTS, start, end, Long.class);
-        return postIds != null ? postIds : new ArrayList<>();
+        return range(RANKING_COMMENTS, start, end);
+    }
+
+    @Override
+    public CursorPage<Long> getLikesRankingPage(String cursor, int pageSize) {
+        return boundUtil.zRevPage(RANKING_LIKES, cursor, pageSize, Long.class);
+    }
+
+    @Override
+    public CursorPage<Long> getFavoritesRankingPage(String cursor, int pageSize) {
+        return boundUtil.zRevPage(RANKING_FAVORITES, cursor, pageSize, Long.class);
+    }
+
+    @Override
+    public CursorPage<Long> getCommentsRankingPage(String cursor, int pageSize) {
+        return boundUtil.zRevPage(RANKING_COMMENTS, cursor, pageSize, Long.class);
     }
 
     @Override
@@ -112,4 +145,16 @@ public class RankingServiceImpl implements RankingService {
         Double score = boundUtil.zScore(RANKING_COMMENTS, postId);
         return score != null ? score.longValue() : 0L;
     }
+
+    /**
+     * 前 K 名读本节点快照，超出快照范围时回源 Redis
+     */
+    private List<Long> range(String key, long start, long end) {
+        List<Long> snapshot = rankingSnapshotService.getRange(key, start, end);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        List<Long> postIds = boundUtil.zReverseRange(key, start, end, Long.class);
+        return postIds != null ? postIds : new ArrayList<>();
+    }
 }
@@ -0,0 +1,187 @@
+package com.wait.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.wait.service.RankingSnapshotService;
+import com.wait.util.BoundUtil;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 排行榜前 K 名快照服务实现
+ *
+ * 1. 定时任务一次管道对每个排行榜执行 ZREVRANGE 0 K-1 WITHSCORES，构建不可变快照
+ * 2. 全部快照放在一个不可变 Map 中，通过 volatile 引用整体替换，读取无锁
+ * 3. 快照超过最大时长（刷新持续失败）或请求区间超出前 K 名时返回 null，由调用方回源 Redis
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RankingSnapshotServiceImpl implements RankingSnapshotService {
+
+    private final BoundUtil boundUtil;
+
+    // 需要快照的排行榜（与 HotRankingServiceImpl、RankingServiceImpl 保持一致）
+    private static final List<String> SNAPSHOT_KEYS = Collections.unmodifiableList(Arrays.asList(
+            "post:ranking:hot:daily",
+            "post:ranking:hot:weekly",
+            "post:ranking:hot:monthly",
+            "post:ranking:hot:alltime",
+            "post:ranking:hot:trending",
+            "post:ranking:likes",
+            "post:ranking:favorites",
+            "post:ranking:comments"));
+
+    /** 是否启用快照，关闭时全部读取回源 Redis */
+    @Value("${ranking.snapshot.enabled:true}")
+    private boolean enabled;
+
+    /** 每个排行榜快照的帖子数 */
+    @Value("${ranking.snapshot.top-k:500}")
+    private int topK;
+
+    /** 快照的最大时长，超过后不再使用（避免刷新失败时长期返回旧数据） */
+    @Value("${ranking.snapshot.max-age-ms:30000}")
+    private long maxAgeMs;
+
+    private volatile Map<String, Snapshot> snapshots = Collections.emptyMap();
+
+    /**
+     * 定时刷新全部排行榜快照
+     */
+    @Scheduled(fixedDelayString = "${ranking.snapshot.refresh-interval-ms:3000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        int k = Math.max(1, topK);
+        try {
+            List<Object> results = boundUtil.executePipelined(operations -> {
+                for (String key : SNAPSHOT_KEYS) {
+                    operations.opsForZSet().reverseRangeWithScores(key, 0, k - 1);
+                }
+            });
+            long now = System.currentTimeMillis();
+            Map<String, Snapshot> refreshed = new HashMap<>();
+            for (int i = 0; i < SNAPSHOT_KEYS.size(); i++) {
+                Object value = i < results.size() ? results.get(i) : null;
+                refreshed.put(SNAPSHOT_KEYS.get(i), toSnapshot(value, k, now));
+            }
+            snapshots = Collections.unmodifiableMap(refreshed);
+        } catch (Exception e) {
+            log.error("Failed to refresh ranking snapshots", e);
+        }
+    }
+
+    @Override
+    public List<Long> getRange(String key, long start, long end) {
+        Snapshot snapshot = current(key);
+        if (snapshot == null || start < 0 || end < start) {
+            return null;
+        }
+        int size = snapshot.postIds.size();
+        if (end >= size && snapshot.truncated) {
+            // 区间超出前 K 名
+            return null;
+        }
+        if (start >= size) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(snapshot.postIds.subList((int) start, (int) Math.min(end + 1, size)));
+    }
+
+    @Override
+    public Long getRank(String key, Long postId) {
+        Snapshot snapshot = current(key);
+        Integer index = snapshot != null && postId != null ? snapshot.indexById.get(postId) : null;
+        return index != null ? (long) index + 1 : null;
+    }
+
+    @Override
+    public Double getScore(String key, Long postId) {
+        Snapshot snapshot = current(key);
+        Integer index = snapshot != null && postId != null ? snapshot.indexById.get(postId) : null;
+        return index != null ? snapshot.scores[index] : null;
+    }
+
+    private Snapshot current(String key) {
+        if (!enabled || key == null) {
+            return null;
+        }
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot == null || System.currentTimeMillis() - snapshot.takenAt > maxAgeMs) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    private static Snapshot toSnapshot(Object value, int k, long takenAt) {
+        List<Long> postIds = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        if (value instanceof Set) {
+            for (Object item : (Set<?>) value) {
+                if (!(item instanceof ZSetOperations.TypedTuple)) {
+                    continue;
+                }
+                ZSetOperations.TypedTuple<?> tuple = (ZSetOperations.TypedTuple<?>) item;
+                Long postId = toLong(tuple.getValue());
+                if (postId != null && tuple.getScore() != null) {
+                    postIds.add(postId);
+                    scores.add(tuple.getScore());
+                }
+            }
+        }
+        return new Snapshot(postIds, scores, postIds.size() >= k, takenAt);
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 单个排行榜的不可变快照
+     */
+    private static final class Snapshot {
+        private final List<Long> postIds;
+        private final double[] scores;
+        private final Map<Long, Integer> indexById;
+        /** 排行榜成员可能多于快照（快照已取满 K 个） */
+        private final boolean truncated;
+        private final long takenAt;
+
+        Snapshot(List<Long> postIds, List<Double> scores, boolean truncated, long takenAt) {
+            this.postIds = Collections.unmodifiableList(postIds);
+            this.scores = new double[scores.size()];
+            Map<Long, Integer> index = new HashMap<>();
+            for (int i = 0; i < scores.size(); i++) {
+                this.scores[i] = scores.get(i);
+                index.put(postIds.get(i), i);
+            }
+            this.indexById = Collections.unmodifiableMap(index);
+            this.truncated = truncated;
+            this.takenAt = takenAt;
+        }
+    }
+}
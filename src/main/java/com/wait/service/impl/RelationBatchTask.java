@@ -1,7 +1,6 @@
 package com.wait.service.impl;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import com.wait.util.LongPairStateBuffer;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,31 +19,29 @@ import lombok.NoArgsConstructor;
 public class RelationBatchTask {
 
     /**
-     * 点赞操作缓冲：key = "postId:userId", value = true(点赞) / false(取消点赞)
+     * 点赞操作缓冲：key = (postId, userId), value = true(点赞) / false(取消点赞)
      */
     @Default
-    private ConcurrentMap<String, Boolean> likeOperations = new ConcurrentHashMap<>();
+    private LongPairStateBuffer likeOperations = new LongPairStateBuffer();
 
     /**
-     * 收藏操作缓冲：key = "userId:postId", value = true(收藏) / false(取消收藏)
+     * 收藏操作缓冲：key = (userId, postId), value = true(收藏) / false(取消收藏)
      */
     @Default
-    private ConcurrentMap<String, Boolean> favoriteOperations = new ConcurrentHashMap<>();
+    private LongPairStateBuffer favoriteOperations = new LongPairStateBuffer();
 
     /**
      * 添加点赞操作到缓冲
      */
     public void addLikeOperation(Long postId, Long userId, boolean isLike) {
-        String key = postId + ":" + userId;
-        likeOperations.put(key, isLike);
+        likeOperations.put(postId, userId, isLike);
     }
 
     /**
      * 添加收藏操作到缓冲
      */
     public void addFavoriteOperation(Long userId, Long postId, boolean isFavorite) {
-        String key = userId + ":" + postId;
-        favoriteOperations.put(key, isFavorite);
+        favoriteOperations.put(userId, postId, isFavorite);
     }
 
     /**
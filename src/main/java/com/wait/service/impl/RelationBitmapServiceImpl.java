@@ -0,0 +1,460 @@
+package com.wait.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.stereotype.Service;
+
+import com.wait.config.script.RelationScripts;
+import com.wait.entity.dto.BitmapMemoryReport;
+import com.wait.service.RelationBitmapService;
+import com.wait.util.BoundUtil;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 关系位图存储服务实现
+ *
+ * 存储结构（参考 Roaring Bitmap 的分桶思路）：
+ * 1. id 按高位（id >>> 16）分到不同容器，每个容器覆盖 65536 个 id
+ * 2. 容器 key：{bitmapKey}:c:{high}
+ * - 稀疏时为 Set（Redis 对小整数集合使用 intset 编码，每个成员 2~8 字节）
+ * - 基数超过阈值（默认4096）后升级为位图（固定 8KB，每个 id 1 bit）
+ * - 基数低于阈值一半时降级回 Set，滞后区间避免频繁转换
+ * 3. 元数据 key：{bitmapKey}:meta（Hash），字段 {high} 为容器基数，字段 total 为总基数
+ *
+ * 相比直接 SETBIT 整个 id 空间，分桶后稀疏的高位区间不会产生大段全零字节；
+ * 相比 Set 存储 JSON 序列化的 Long，稠密容器内存可降低一个数量级
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RelationBitmapServiceImpl implements RelationBitmapService {
+
+    private final BoundUtil boundUtil;
+    private final RelationScripts relationScripts;
+
+    private static final String CONTAINER_INFIX = ":c:";
+    private static final String META_SUFFIX = ":meta";
+    private static final String TOTAL_FIELD = "total";
+    private static final int CONTAINER_BITS = 16;
+    private static final long LOW_MASK = (1L << CONTAINER_BITS) - 1;
+    private static final int MIGRATION_SCAN_COUNT = 1000;
+
+    /** 是否启用位图存储模式 */
+    @Value("${relation.storage.bitmap.enabled:false}")
+    private boolean enabled;
+
+    /** 数组容器升级为位图容器的阈值（4096 个 id 时 Set 与 8KB 位图内存相当） */
+    @Value("${relation.storage.bitmap.container-threshold:4096}")
+    private int containerThreshold;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean add(String bitmapKey, Long id) {
+        checkId(id);
+        long high = id >>> CONTAINER_BITS;
+        List<String> keys = new ArrayList<>();
+        keys.add(containerKey(bitmapKey, high));
+        keys.add(metaKey(bitmapKey));
+
+        Long added = relationScripts.executeScript(RelationScripts.BITMAP_ADD, keys,
+                id & LOW_MASK, high, containerThreshold);
+        return added != null && added > 0;
+    }
+
+    @Override
+    public boolean add(String bitmapKey, Long id, String reverseKey, Long reverseMember, String counterKey) {
+        checkId(id);
+        long high = id >>> CONTAINER_BITS;
+        List<String> keys = new ArrayList<>();
+        keys.add(containerKey(bitmapKey, high));
+        keys.add(metaKey(bitmapKey));
+        keys.add(reverseKey);
+        keys.add(counterKey);
+
+        Long added = relationScripts.executeScript(RelationScripts.BITMAP_ADD, keys,
+                id & LOW_MASK, high, containerThreshold, reverseMember);
+        return added != null && added > 0;
+    }
+
+    @Override
+    public boolean remove(String bitmapKey, Long id) {
+        checkId(id);
+        long high = id >>> CONTAINER_BITS;
+        List<String> keys = new ArrayList<>();
+        keys.add(containerKey(bitmapKey, high));
+        keys.add(metaKey(bitmapKey));
+
+        Long removed = relationScripts.executeScript(RelationScripts.BITMAP_REMOVE, keys,
+                id & LOW_MASK, high, containerThreshold);
+        return removed != null && removed > 0;
+    }
+
+    @Override
+    public boolean remove(String bitmapKey, Long id, String reverseKey, Long reverseMember, String counterKey) {
+        checkId(id);
+        long high = id >>> CONTAINER_BITS;
+        List<String> keys = new ArrayList<>();
+        keys.add(containerKey(bitmapKey, high));
+        keys.add(metaKey(bitmapKey));
+        keys.add(reverseKey);
+        keys.add(counterKey);
+
+        Long removed = relationScripts.executeScript(RelationScripts.BITMAP_REMOVE, keys,
+                id & LOW_MASK, high, containerThreshold, reverseMember);
+        return removed != null && removed > 0;
+    }
+
+    @Override
+    public boolean contains(String bitmapKey, Long id, String fallbackSetKey) {
+        if (id == null || id < 0) {
+            return false;
+        }
+        List<String> keys = new ArrayList<>();
+        keys.add(containerKey(bitmapKey, id >>> CONTAINER_BITS));
+        if (fallbackSetKey != null) {
+            keys.add(fallbackSetKey);
+        }
+
+        Long result = relationScripts.executeScript(RelationScripts.BITMAP_CONTAINS, keys, id & LOW_MASK, id);
+        return result != null && result > 0;
+    }
+
+    @Override
+    public Long cardinality(String bitmapKey, String fallbackSetKey) {
+        Long total = boundUtil.hGet(metaKey(bitmapKey), TOTAL_FIELD, Long.class);
+        if (total != null) {
+            return total;
+        }
+        // 元数据不存在：位图为空，或者尚未迁移
+        if (fallbackSetKey != null) {
+            Long card = boundUtil.sCard(fallbackSetKey);
+            return card != null ? card : 0L;
+        }
+        return 0L;
+    }
+
+    @Override
+    public List<Boolean> batchContains(List<String> bitmapKeys, Long id, List<String> fallbackSetKeys) {
+        List<Boolean> result = new ArrayList<>(Collections.nCopies(bitmapKeys.size(), Boolean.FALSE));
+        if (id == null || id < 0 || bitmapKeys.isEmpty()) {
+            return result;
+        }
+        long high = id >>> CONTAINER_BITS;
+        long low = id & LOW_MASK;
+        List<String> containerKeys = new ArrayList<>(bitmapKeys.size());
+        for (String bitmapKey : bitmapKeys) {
+            containerKeys.add(containerKey(bitmapKey, high));
+        }
+
+        // 1. 容器类型决定读取命令（对 Set 执行 GETBIT 会返回 WRONGTYPE，导致整个管道失败）
+        List<Object> types = boundUtil.executePipelined(operations -> {
+            for (String containerKey : containerKeys) {
+                operations.type(containerKey);
+            }
+        });
+
+        // 2. 按类型读取：位图 GETBIT，数组 SISMEMBER，容器不存在时回退旧版 Set
+        List<Integer> indexes = new ArrayList<>();
+        List<Object> replies = boundUtil.executePipelined(operations -> {
+            for (int i = 0; i < containerKeys.size(); i++) {
+                Object type = types.get(i);
+                if (type == DataType.STRING) {
+                    operations.opsForValue().getBit(containerKeys.get(i), low);
+                } else if (type == DataType.SET) {
+                    operations.opsForSet().isMember(containerKeys.get(i), low);
+                } else if (fallbackSetKeys.get(i) != null) {
+                    operations.opsForSet().isMember(fallbackSetKeys.get(i), id);
+                } else {
+                    continue;
+                }
+                indexes.add(i);
+            }
+        });
+        for (int i = 0; i < indexes.size() && i < replies.size(); i++) {
+            result.set(indexes.get(i), Boolean.TRUE.equals(replies.get(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Long> batchCardinality(List<String> bitmapKeys, List<String> fallbackSetKeys) {
+        if (bitmapKeys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 元数据总数和回退 SCARD 放在同一个管道，回复依次为：HGET [, SCARD]
+        List<Object> replies = boundUtil.executePipelined(operations -> {
+            for (int i = 0; i < bitmapKeys.size(); i++) {
+                operations.opsForHash().get(metaKey(bitmapKeys.get(i)), TOTAL_FIELD);
+                if (fallbackSetKeys.get(i) != null) {
+                    operations.opsForSet().size(fallbackSetKeys.get(i));
+                }
+            }
+        });
+        List<Long> result = new ArrayList<>(bitmapKeys.size());
+        int reply = 0;
+        for (int i = 0; i < bitmapKeys.size(); i++) {
+            Object total = replies.get(reply++);
+            Object card = fallbackSetKeys.get(i) != null ? replies.get(reply++) : null;
+            if (total instanceof Number) {
+                result.add(((Number) total).longValue());
+            } else if (card instanceof Number) {
+                result.add(((Number) card).longValue());
+            } else {
+                result.add(0L);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Long> members(String bitmapKey, String fallbackSetKey) {
+        Map<String, Long> meta = boundUtil.hEntries(metaKey(bitmapKey), Long.class);
+        if (meta.isEmpty()) {
+            if (fallbackSetKey != null) {
+                return boundUtil.sMembers(fallbackSetKey, Long.class);
+            }
+            return Collections.emptySet();
+        }
+
+        Set<Long> result = new HashSet<>();
+        for (String field : meta.keySet()) {
+            if (TOTAL_FIELD.equals(field)) {
+                continue;
+            }
+            long high = Long.parseLong(field);
+            readContainer(containerKey(bitmapKey, high), high, result);
+        }
+        return result;
+    }
+
+    @Override
+    public void forEachContainer(String bitmapKey, Consumer<List<Long>> callback) {
+        Map<String, Long> meta = boundUtil.hEntries(metaKey(bitmapKey), Long.class);
+        for (String field : meta.keySet()) {
+            if (TOTAL_FIELD.equals(field)) {
+                continue;
+            }
+            long high = Long.parseLong(field);
+            Set<Long> decoded = new HashSet<>();
+            readContainer(containerKey(bitmapKey, high), high, decoded);
+            if (!decoded.isEmpty()) {
+                callback.accept(new ArrayList<>(decoded));
+            }
+        }
+    }
+
+    @Override
+    public List<Long> membersAfter(String bitmapKey, Long afterId, int limit) {
+        Map<String, Long> meta = boundUtil.hEntries(metaKey(bitmapKey), Long.class);
+        List<Long> highs = new ArrayList<>();
+        for (String field : meta.keySet()) {
+            if (!TOTAL_FIELD.equals(field)) {
+                highs.add(Long.parseLong(field));
+            }
+        }
+        Collections.sort(highs);
+
+        long startHigh = afterId != null ? afterId >>> CONTAINER_BITS : 0;
+        List<Long> result = new ArrayList<>(limit);
+        for (Long high : highs) {
+            if (high < startHigh) {
+                continue;
+            }
+            // 逐个容器解码，凑够数量即停止，不会读取后面的容器
+            Set<Long> decoded = new HashSet<>();
+            readContainer(containerKey(bitmapKey, high), high, decoded);
+            List<Long> sorted = new ArrayList<>(decoded);
+            Collections.sort(sorted);
+            for (Long id : sorted) {
+                if (afterId != null && id <= afterId) {
+                    continue;
+                }
+                result.add(id);
+                if (result.size() >= limit) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean exists(String bitmapKey) {
+        return Boolean.TRUE.equals(boundUtil.exists(metaKey(bitmapKey)));
+    }
+
+    @Override
+    public void delete(String bitmapKey) {
+        Map<String, Long> meta = boundUtil.hEntries(metaKey(bitmapKey), Long.class);
+        if (meta.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(meta.size());
+        for (String field : meta.keySet()) {
+            if (!TOTAL_FIELD.equals(field)) {
+                keys.add(containerKey(bitmapKey, Long.parseLong(field)));
+            }
+        }
+        // 元数据最后删除，中途失败时仍可按元数据重新清理
+        keys.add(metaKey(bitmapKey));
+        boundUtil.executePipelined(operations -> operations.delete(keys));
+    }
+
+    /**
+     * 读取单个容器并解码为 id
+     */
+    private void readContainer(String containerKey, long high, Set<Long> result) {
+        long base = high << CONTAINER_BITS;
+        DataType type = boundUtil.type(containerKey);
+        if (type == DataType.SET) {
+            for (Long low : boundUtil.sMembers(containerKey, Long.class)) {
+                result.add(base | low);
+            }
+        } else if (type == DataType.STRING) {
+            byte[] bytes = boundUtil.getBytes(containerKey);
+            if (bytes == null) {
+                return;
+            }
+            // Redis 位图按大端位序存储：字节内最高位对应最小偏移
+            for (int i = 0; i < bytes.length; i++) {
+                int b = bytes[i] & 0xFF;
+                while (b != 0) {
+                    int bit = Integer.numberOfLeadingZeros(b) - 24;
+                    result.add(base | ((long) i << 3 | bit));
+                    b &= ~(0x80 >>> bit);
+                }
+            }
+        }
+    }
+
+    @Override
+    public long importIds(String bitmapKey, Collection<Long> ids) {
+        Map<Long, List<Long>> groups = new HashMap<>();
+        for (Long id : ids) {
+            if (id == null || id < 0) {
+                log.warn("Skip invalid id {} when importing into bitmap {}", id, bitmapKey);
+                continue;
+            }
+            groups.computeIfAbsent(id >>> CONTAINER_BITS, k -> new ArrayList<>()).add(id & LOW_MASK);
+        }
+        long imported = 0;
+        for (Map.Entry<Long, List<Long>> entry : groups.entrySet()) {
+            List<String> keys = new ArrayList<>();
+            keys.add(containerKey(bitmapKey, entry.getKey()));
+            keys.add(metaKey(bitmapKey));
+
+            List<Object> args = new ArrayList<>();
+            args.add(entry.getKey());
+            args.add(containerThreshold);
+            args.addAll(entry.getValue());
+            Long added = relationScripts.executeScript(RelationScripts.BITMAP_IMPORT, keys, args.toArray());
+            imported += added != null ? added : 0;
+        }
+        return imported;
+    }
+
+    @Override
+    public BitmapMemoryReport migrateFromSet(String setKey, String bitmapKey, boolean deleteSource) {
+        long[] imported = new long[1];
+        // SSCAN 分批读取，按容器分组后每组一次 Lua 导入
+        boundUtil.sScanWithCallback(setKey, MIGRATION_SCAN_COUNT, Long.class,
+                batch -> imported[0] += importIds(bitmapKey, batch));
+
+        // 删除旧数据前生成报告，保证对比的是同一份数据
+        BitmapMemoryReport report = memoryReport(setKey, bitmapKey);
+        if (deleteSource) {
+            boundUtil.del(setKey);
+        }
+        log.info("Migrated set {} to bitmap {}, imported: {}, report: {}", setKey, bitmapKey, imported[0], report);
+        return report;
+    }
+
+    @Override
+    public void migrateIfPresent(String setKey, String bitmapKey) {
+        // 检查、导入和删除在同一个脚本内完成：每批 SPOP 出的成员原子地写入位图，
+        // 返回0说明 Set 已空（或已被并发的请求迁移完），此后的写入只会落在位图上
+        List<String> keys = new ArrayList<>();
+        keys.add(setKey);
+        keys.add(metaKey(bitmapKey));
+        long migrated = 0;
+        while (true) {
+            Long moved = relationScripts.executeScript(RelationScripts.BITMAP_MIGRATE, keys,
+                    bitmapKey, containerThreshold, MIGRATION_SCAN_COUNT);
+            if (moved == null || moved <= 0) {
+                break;
+            }
+            migrated += moved;
+        }
+        if (migrated > 0) {
+            log.info("Lazily migrated set {} to bitmap {}, moved: {}", setKey, bitmapKey, migrated);
+        }
+    }
+
+    @Override
+    public BitmapMemoryReport memoryReport(String setKey, String bitmapKey) {
+        String metaKey = metaKey(bitmapKey);
+        Map<String, Long> meta = boundUtil.hEntries(metaKey, Long.class);
+
+        List<String> bitmapKeys = new ArrayList<>();
+        for (String field : meta.keySet()) {
+            if (!TOTAL_FIELD.equals(field)) {
+                bitmapKeys.add(containerKey(bitmapKey, Long.parseLong(field)));
+            }
+        }
+        int containerCount = bitmapKeys.size();
+        bitmapKeys.add(metaKey);
+
+        Long setBytes = relationScripts.executeScript(RelationScripts.MEMORY_USAGE,
+                Collections.singletonList(setKey));
+        Long bitmapBytes = relationScripts.executeScript(RelationScripts.MEMORY_USAGE, bitmapKeys);
+        Long setCard = boundUtil.sCard(setKey);
+        Long bitmapCard = meta.get(TOTAL_FIELD);
+
+        Double ratio = null;
+        if (setBytes != null && bitmapBytes != null && bitmapBytes > 0 && setBytes > 0) {
+            ratio = (double) setBytes / bitmapBytes;
+        }
+
+        return BitmapMemoryReport.builder()
+                .setKey(setKey)
+                .bitmapKey(bitmapKey)
+                .setCardinality(setCard != null ? setCard : 0L)
+                .bitmapCardinality(bitmapCard != null ? bitmapCard : 0L)
+                .setBytes(setBytes != null ? setBytes : 0L)
+                .bitmapBytes(bitmapBytes != null ? bitmapBytes : 0L)
+                .containerCount(containerCount)
+                .compressionRatio(ratio)
+                .build();
+    }
+
+    private void checkId(Long id) {
+        if (id == null || id < 0) {
+            throw new IllegalArgumentException("bitmap id must be non-negative: " + id);
+        }
+    }
+
+    private String containerKey(String bitmapKey, long high) {
+        return bitmapKey + CONTAINER_INFIX + high;
+    }
+
+    @Override
+    public String metaKey(String bitmapKey) {
+        return bitmapKey + META_SUFFIX;
+    }
+}
@@ -1,9 +1,22 @@
 package com.wait.service.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,16 +24,23 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.wait.config.script.RelationScripts;
 import com.wait.entity.domain.PostFavorite;
 import com.wait.entity.domain.PostLike;
 import com.wait.entity.domain.UserBlock;
 import com.wait.entity.domain.UserFollow;
+import com.wait.entity.dto.RelationDigest;
 import com.wait.entity.dto.ValidationResult;
 import com.wait.mapper.FollowMapper;
 import com.wait.mapper.PostFavoriteMapper;
 import com.wait.mapper.PostLikeMapper;
+import com.wait.mapper.RelationDigestMapper;
 import com.wait.mapper.UserBlockMapper;
+import com.wait.service.RelationBitmapService;
 import com.wait.service.RelationDataValidationService;
 import com.wait.service.RelationPersistenceService;
 import com.wait.util.BoundUtil;
@@ -37,6 +57,11 @@ import lombok.extern.slf4j.Slf4j;
  * 1. 定时校验：每N分钟执行一次全量或抽样校验
  * 2. 差异修复：发现不一致时，以Redis为准修复数据库（因为Redis是实时数据源）
  * 3. 日志记录：记录所有校验结果，便于监控和排查
+ * 4. 摘要比对：定时分批校验时先比对 Redis 摘要（Lua 脚本增量维护的 count/sum/xor）与数据库摘要
+ * （relation_digest 表，随关系写入增量维护，按主键点查），只对摘要不一致、摘要尚未初始化或 Redis 集合已不存在的
+ * 实体拉取全量数据比对，全量比对后按关系表重新聚合这些实体的数据库摘要，校验开销与不一致的实体数成正比
+ * 5. 并行流式校验：键集分页读取实体ID，多页并行校验，令牌桶限制数据库 QPS，
+ * 进度检查点保存在 Redis 中，节点重启后从检查点继续而不是从头开始
  */
 @Slf4j
 @Service
@@ -48,7 +73,11 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
     private final PostFavoriteMapper postFavoriteMapper;
     private final FollowMapper followMapper;
     private final UserBlockMapper userBlockMapper;
+    private final RelationDigestMapper relationDigestMapper;
     private final RelationPersistenceService persistenceService;
+    private final RelationBitmapService bitmapService;
+    private final RelationScripts relationScripts;
+    private final TransactionTemplate transactionTemplate;
 
     @Qualifier("refreshScheduler")
     private final ThreadPoolTaskScheduler taskScheduler;
@@ -57,8 +86,14 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
     private static final String USER_FOLLOW_PREFIX = "user:follow:";
     private static final String USER_FOLLOWER_PREFIX = "user:follower:";
     private static final String POST_LIKE_PREFIX = "post:like:";
+    private static final String POST_LIKE_BITMAP_PREFIX = "post:like_bm:";
     private static final String USER_FAVORITE_PREFIX = "user:favorite:";
     private static final String USER_BLACKLIST_PREFIX = "user:blacklist:";
+    private static final String DIGEST_LIKE_PREFIX = "relation:digest:like:";
+    private static final String DIGEST_FAVORITE_PREFIX = "relation:digest:favorite:";
+    private static final String DIGEST_FOLLOW_PREFIX = "relation:digest:follow:";
+    private static final String DIGEST_BLOCK_PREFIX = "relation:digest:block:";
+    private static final String VALIDATION_CHECKPOINT_PREFIX = "relation:validation:checkpoint:";
 
     /** 是否启用定时校验 */
     @Value("${relation.validation.enabled:true}")
@@ -68,19 +103,60 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
     @Value("${relation.validation.batch-size:100}")
     private int batchValidationSize;
 
+    /** 分批校验时是否先比对摘要，只对摘要不一致的实体做全量比对 */
+    @Value("${relation.validation.digest.enabled:true}")
+    private boolean digestEnabled;
+
     /** 是否启用定时修复 */
     @Value("${relation.validation.fix.enabled:false}")
     private boolean fixEnabled;
 
-    /** 校验进度跟踪：记录当前校验到哪个批次 */
-    private volatile int likeValidationOffset = 0;
-    private volatile int favoriteValidationOffset = 0;
-    private volatile int followValidationOffset = 0;
-    private volatile int blockValidationOffset = 0;
+    /** 并行校验的工作线程数（同时在途的页数） */
+    @Value("${relation.validation.parallelism:4}")
+    private int parallelism;
+
+    /** 校验过程中数据库查询的 QPS 上限（令牌桶） */
+    @Value("${relation.validation.db-qps:200}")
+    private double dbQps;
 
-    /** 校验类型轮询：每次定时任务校验不同类型的数据 */
+    /** 单次定时校验的最长运行时间，超时后保存检查点，下次继续 */
+    @Value("${relation.validation.max-run-ms:600000}")
+    private long maxRunMillis;
+
+    /** 校验类型轮询：每次定时任务从不同类型开始校验 */
     private volatile int validationTypeIndex = 0;
 
+    private ExecutorService validationExecutor;
+    private RateLimiter dbRateLimiter;
+    private List<ValidationStream> streams;
+
+    @PostConstruct
+    public void init() {
+        validationExecutor = Executors.newFixedThreadPool(parallelism,
+                new ThreadFactoryBuilder().setNameFormat("relation-validation-%d").setDaemon(true).build());
+        dbRateLimiter = RateLimiter.create(dbQps);
+        streams = Arrays.asList(
+                new ValidationStream(RelationDigest.TYPE_LIKE, postLikeMapper::selectDistinctPostIdsAfter,
+                        DIGEST_LIKE_PREFIX, this::likeSetKeys, this::validateLikeData),
+                new ValidationStream(RelationDigest.TYPE_FAVORITE, postFavoriteMapper::selectDistinctUserIdsAfter,
+                        DIGEST_FAVORITE_PREFIX, id -> Collections.singletonList(USER_FAVORITE_PREFIX + id),
+                        this::validateFavoriteData),
+                new ValidationStream(RelationDigest.TYPE_FOLLOW, followMapper::selectDistinctUserIdsAfter,
+                        DIGEST_FOLLOW_PREFIX, id -> Collections.singletonList(USER_FOLLOW_PREFIX + id),
+                        this::validateFollowData),
+                new ValidationStream(RelationDigest.TYPE_BLOCK, userBlockMapper::selectDistinctUserIdsAfter,
+                        DIGEST_BLOCK_PREFIX, id -> Collections.singletonList(USER_BLACKLIST_PREFIX + id),
+                        this::validateBlockData));
+        log.info("Relation validation initialized, parallelism: {}, db qps: {}, page size: {}",
+                parallelism, dbQps, batchValidationSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 校验可从检查点恢复，关闭时不等待在途任务
+        validationExecutor.shutdownNow();
+    }
+
     @Override
     @Transactional
     public void validateLikeData(Long postId) {
@@ -104,8 +180,10 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
      * 校验单个帖子的点赞数据
      */
     private void validateSinglePostLike(Long postId) {
-        // 1. 从Redis读取点赞用户列表
-        Set<Long> redisLikers = boundUtil.sMembers(POST_LIKE_PREFIX + postId, Long.class);
+        // 1. 从Redis读取点赞用户列表（位图模式下从位图解码）
+        Set<Long> redisLikers = bitmapService.isEnabled()
+                ? bitmapService.members(POST_LIKE_BITMAP_PREFIX + postId, POST_LIKE_PREFIX + postId)
+                : boundUtil.sMembers(POST_LIKE_PREFIX + postId, Long.class);
         long redisCount = redisLikers != null ? redisLikers.size() : 0;
 
         // 2. 从数据库读取点赞用户列表
@@ -118,6 +196,7 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
         if (diffCount == 0 && redisLikers != null && redisLikers.equals(dbLikerSet)) {
             // 数据一致
             log.debug("Like data consistent for postId: {}, count: {}", postId, redisCount);
+            rebuildLikeDigest(postId, redisLikers);
             return;
         }
 
@@ -129,6 +208,7 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
         ValidationResult result = new ValidationResult("LIKE", postId, redisCount, dbCount,
                 diffCount, fixed);
         log.info("Like data validation result: {}", result);
+        rebuildLikeDigest(postId, redisLikers);
     }
 
     /**
@@ -221,6 +301,7 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
         long diffCount = Math.abs(redisCount - dbCount);
         if (diffCount == 0 && redisFavorites != null && redisFavorites.equals(dbFavoriteSet)) {
             log.debug("Favorite data consistent for userId: {}, count: {}", userId, redisCount);
+            rebuildDigest(DIGEST_FAVORITE_PREFIX + userId, USER_FAVORITE_PREFIX + userId);
             return;
         }
 
@@ -232,6 +313,7 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
         ValidationResult result = new ValidationResult("FAVORITE", userId, redisCount, dbCount,
                 diffCount, fixed);
         log.info("Favorite data validation result: {}", result);
+        rebuildDigest(DIGEST_FAVORITE_PREFIX + userId, USER_FAVORITE_PREFIX + userId);
     }
 
     /**
@@ -322,6 +404,7 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
         long diffCount = Math.abs(redisCount - dbCount);
         if (diffCount == 0 && redisFollowing != null && redisFollowing.equals(dbFollowingSet)) {
             log.debug("Follow data consistent for userId: {}, count: {}", userId, redisCount);
+            rebuildDigest(DIGEST_FOLLOW_PREFIX + userId, USER_FOLLOW_PREFIX + userId);
             return;
         }
 
@@ -333,6 +416,7 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
         ValidationResult result = new ValidationResult("FOLLOW", userId, redisCount, dbCount,
                 diffCount, fixed);
         log.info("Follow data validation result: {}", result);
+        rebuildDigest(DIGEST_FOLLOW_PREFIX + userId, USER_FOLLOW_PREFIX + userId);
     }
 
     /**
@@ -421,6 +505,7 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
         long diffCount = Math.abs(redisCount - dbCount);
         if (diffCount == 0 && redisBlacklist != null && redisBlacklist.equals(dbBlacklistSet)) {
             log.debug("Block data consistent for userId: {}, count: {}", userId, redisCount);
+            rebuildDigest(DIGEST_BLOCK_PREFIX + userId, USER_BLACKLIST_PREFIX + userId);
             return;
         }
 
@@ -432,6 +517,7 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
         ValidationResult result = new ValidationResult("BLOCK", userId, redisCount, dbCount,
                 diffCount, fixed);
         log.info("Block data validation result: {}", result);
+        rebuildDigest(DIGEST_BLOCK_PREFIX + userId, USER_BLACKLIST_PREFIX + userId);
     }
 
     /**
@@ -491,129 +577,211 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
         }
     }
 
+    // ==================== 摘要 ====================
+
     /**
-     * 分批校验点赞数据
+     * 比对 Redis 摘要与数据库摘要，返回需要全量比对的实体ID
+     * Redis 摘要不存在（尚未初始化）的实体需要全量比对，比对后会重建摘要；
+     * 摘要非空但 Redis 集合已不存在（过期或被淘汰而摘要残留）的实体，摘要不可信，同样需要全量比对
+     *
+     * @param stream 校验流（关系类型、Redis 摘要前缀、集合 key）
+     * @param ids    待校验的实体ID
      */
-    private void validateLikeDataInBatches() {
-        try {
-            List<Long> postIds = postLikeMapper.selectDistinctPostIdsWithPaging(
-                    likeValidationOffset, batchValidationSize);
-
-            if (postIds.isEmpty()) {
-                // 重置偏移量，开始新一轮校验
-                likeValidationOffset = 0;
-                log.info("Like data validation cycle completed, resetting offset");
-                return;
-            }
+    private List<Long> selectDigestMismatches(ValidationStream stream, List<Long> ids) {
+        Map<Long, RelationDigest> dbDigests = new HashMap<>();
+        for (RelationDigest digest : relationDigestMapper.selectByEntityIds(stream.type, ids)) {
+            dbDigests.put(digest.getEntityId(), digest);
+        }
 
-            int validatedCount = 0;
-            for (Long postId : postIds) {
-                try {
-                    validateLikeData(postId);
-                    validatedCount++;
-                } catch (Exception e) {
-                    log.error("Failed to validate like data for postId: {}", postId, e);
-                }
+        List<String> keys = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            keys.add(stream.digestPrefix + id);
+        }
+        List<Map<String, Long>> redisDigests = boundUtil.hEntriesPipelined(keys, Long.class);
+        List<Object> existing = boundUtil.executePipelined(operations -> {
+            for (Long id : ids) {
+                operations.countExistingKeys(stream.setKeys.apply(id));
+            }
+        });
+
+        List<Long> mismatched = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            Map<String, Long> hash = redisDigests.get(i);
+            RelationDigest dbDigest = dbDigests.getOrDefault(id, RelationDigest.empty(id));
+            if (hash.isEmpty()) {
+                mismatched.add(id);
+                continue;
+            }
+            RelationDigest redisDigest = RelationDigest.fromHash(id, hash);
+            boolean setMissing = !(existing.get(i) instanceof Long) || (Long) existing.get(i) == 0L;
+            if ((setMissing && redisDigest.getCount() > 0) || !redisDigest.matches(dbDigest)) {
+                mismatched.add(id);
             }
-
-            likeValidationOffset += postIds.size();
-            log.info("Validated {} like records, current offset: {}", validatedCount, likeValidationOffset);
-        } catch (Exception e) {
-            log.error("Failed to validate like data in batches", e);
         }
+        log.info("Digest check for {}: {} checked, {} need full validation", stream.type, ids.size(),
+                mismatched.size());
+        return mismatched;
     }
 
     /**
-     * 分批校验收藏数据
+     * 全量比对修复后，按关系表重新聚合这些实体的数据库摘要（删除与重新聚合在同一事务内）
+     * 只针对少量不一致的实体，同时修正直接写库（校验修复、批量同步）绕过增量维护造成的摘要偏差
      */
-    private void validateFavoriteDataInBatches() {
+    private void refreshDbDigests(String type, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
         try {
-            List<Long> userIds = postFavoriteMapper.selectDistinctUserIdsWithPaging(
-                    favoriteValidationOffset, batchValidationSize);
-
-            if (userIds.isEmpty()) {
-                favoriteValidationOffset = 0;
-                log.info("Favorite data validation cycle completed, resetting offset");
-                return;
-            }
+            transactionTemplate.execute(status -> {
+                relationDigestMapper.deleteByEntityIds(type, ids);
+                return relationDigestMapper.refreshFromRelations(type, ids);
+            });
+        } catch (Exception e) {
+            log.error("Failed to refresh {} db digests for {} entities", type, ids.size(), e);
+        }
+    }
 
-            int validatedCount = 0;
-            for (Long userId : userIds) {
-                try {
-                    validateFavoriteData(userId);
-                    validatedCount++;
-                } catch (Exception e) {
-                    log.error("Failed to validate favorite data for userId: {}", userId, e);
-                }
-            }
+    /**
+     * 点赞集合的 key：Set 存储时为集合本身，位图存储时还包括位图元数据（尚未迁移的帖子仍在 Set 中）
+     */
+    private List<String> likeSetKeys(Long postId) {
+        if (!bitmapService.isEnabled()) {
+            return Collections.singletonList(POST_LIKE_PREFIX + postId);
+        }
+        return Arrays.asList(POST_LIKE_PREFIX + postId, bitmapService.metaKey(POST_LIKE_BITMAP_PREFIX + postId));
+    }
 
-            favoriteValidationOffset += userIds.size();
-            log.info("Validated {} favorite records, current offset: {}", validatedCount, favoriteValidationOffset);
+    /**
+     * 根据 Redis 集合原子地重建摘要
+     */
+    private void rebuildDigest(String digestKey, String setKey) {
+        try {
+            relationScripts.executeScript(RelationScripts.DIGEST_INIT, Arrays.asList(digestKey, setKey));
         } catch (Exception e) {
-            log.error("Failed to validate favorite data in batches", e);
+            log.error("Failed to rebuild relation digest {}", digestKey, e);
         }
     }
 
     /**
-     * 分批校验关注数据
+     * 重建点赞摘要：Set 存储时由脚本原子重建，位图存储时根据已读取的成员计算
+     * 位图模式下计算与写入之间的并发点赞可能使摘要偏差，下一轮校验会再次全量比对并重建
      */
-    private void validateFollowDataInBatches() {
+    private void rebuildLikeDigest(Long postId, Set<Long> likers) {
+        if (!bitmapService.isEnabled()) {
+            rebuildDigest(DIGEST_LIKE_PREFIX + postId, POST_LIKE_PREFIX + postId);
+            return;
+        }
         try {
-            List<Long> userIds = followMapper.selectDistinctUserIdsWithPaging(
-                    followValidationOffset, batchValidationSize);
+            RelationDigest digest = RelationDigest.of(postId, likers);
+            Map<String, Long> hash = new HashMap<>();
+            hash.put("count", digest.getCount());
+            hash.put("sum", digest.getSum());
+            hash.put("xor", digest.getXor());
+            boundUtil.del(DIGEST_LIKE_PREFIX + postId);
+            boundUtil.hSetAll(DIGEST_LIKE_PREFIX + postId, hash);
+        } catch (Exception e) {
+            log.error("Failed to rebuild like digest for postId: {}", postId, e);
+        }
+    }
 
-            if (userIds.isEmpty()) {
-                followValidationOffset = 0;
-                log.info("Follow data validation cycle completed, resetting offset");
-                return;
-            }
+    // ==================== 并行流式校验 ====================
+
+    /**
+     * 一类关系数据的校验流：键集分页读取实体ID，摘要筛选后逐个全量校验
+     */
+    @RequiredArgsConstructor
+    private static final class ValidationStream {
+        private final String type;
+        private final BiFunction<Long, Integer, List<Long>> idPager;
+        private final String digestPrefix;
+        private final Function<Long, List<String>> setKeys;
+        private final Consumer<Long> validator;
+    }
 
-            int validatedCount = 0;
-            for (Long userId : userIds) {
-                try {
-                    validateFollowData(userId);
-                    validatedCount++;
-                } catch (Exception e) {
-                    log.error("Failed to validate follow data for userId: {}", userId, e);
+    /**
+     * 从 Redis 检查点开始流式校验一类数据，直到校验完一整轮或到达截止时间
+     * 
+     * 每一轮顺序读取 parallelism 页ID（键集游标只依赖上一页最后一个ID，读取很快），
+     * 各页提交到工作线程并行校验，整轮完成后才推进检查点，节点重启后最多重做一轮
+     */
+    private void validateStream(ValidationStream stream, long deadline) {
+        String checkpointKey = VALIDATION_CHECKPOINT_PREFIX + stream.type;
+        Long checkpoint = boundUtil.get(checkpointKey, Long.class);
+        long cursor = checkpoint != null ? checkpoint : 0L;
+        long startTime = System.currentTimeMillis();
+        long scanned = 0;
+        long validated = 0;
+        log.info("Validating {} data from checkpoint: {}", stream.type, cursor);
+
+        while (System.currentTimeMillis() < deadline) {
+            List<List<Long>> pages = new ArrayList<>(parallelism);
+            boolean exhausted = false;
+            while (pages.size() < parallelism) {
+                dbRateLimiter.acquire();
+                List<Long> ids = stream.idPager.apply(cursor, batchValidationSize);
+                if (!ids.isEmpty()) {
+                    pages.add(ids);
+                    cursor = ids.get(ids.size() - 1);
+                }
+                if (ids.size() < batchValidationSize) {
+                    exhausted = true;
+                    break;
                 }
             }
 
-            followValidationOffset += userIds.size();
-            log.info("Validated {} follow records, current offset: {}", validatedCount, followValidationOffset);
-        } catch (Exception e) {
-            log.error("Failed to validate follow data in batches", e);
+            List<CompletableFuture<Integer>> futures = new ArrayList<>(pages.size());
+            for (List<Long> page : pages) {
+                futures.add(CompletableFuture.supplyAsync(() -> validatePage(stream, page), validationExecutor));
+                scanned += page.size();
+            }
+            for (CompletableFuture<Integer> future : futures) {
+                validated += future.join();
+            }
+
+            if (exhausted) {
+                boundUtil.del(checkpointKey);
+                log.info("{} data validation cycle completed, scanned: {}, fully validated: {}, cost: {}ms",
+                        stream.type, scanned, validated, System.currentTimeMillis() - startTime);
+                return;
+            }
+            boundUtil.set(checkpointKey, cursor);
         }
+        log.info("{} data validation paused at checkpoint: {}, scanned: {}, fully validated: {}, cost: {}ms",
+                stream.type, cursor, scanned, validated, System.currentTimeMillis() - startTime);
     }
 
     /**
-     * 分批校验黑名单数据
+     * 校验一页实体：先批量比对摘要，再对不一致的实体做全量比对
+     * 
+     * @return 全量比对的实体数
      */
-    private void validateBlockDataInBatches() {
-        try {
-            List<Long> userIds = userBlockMapper.selectDistinctUserIdsWithPaging(
-                    blockValidationOffset, batchValidationSize);
-
-            if (userIds.isEmpty()) {
-                blockValidationOffset = 0;
-                log.info("Block data validation cycle completed, resetting offset");
-                return;
+    private int validatePage(ValidationStream stream, List<Long> ids) {
+        List<Long> toValidate = ids;
+        if (digestEnabled) {
+            try {
+                dbRateLimiter.acquire();
+                toValidate = selectDigestMismatches(stream, ids);
+            } catch (Exception e) {
+                log.error("Failed to compare {} digests, falling back to full validation", stream.type, e);
             }
+        }
 
-            int validatedCount = 0;
-            for (Long userId : userIds) {
-                try {
-                    validateBlockData(userId);
-                    validatedCount++;
-                } catch (Exception e) {
-                    log.error("Failed to validate block data for userId: {}", userId, e);
-                }
+        List<Long> validatedIds = new ArrayList<>(toValidate.size());
+        for (Long id : toValidate) {
+            dbRateLimiter.acquire();
+            try {
+                stream.validator.accept(id);
+                validatedIds.add(id);
+            } catch (Exception e) {
+                log.error("Failed to validate {} data for id: {}", stream.type, id, e);
             }
-
-            blockValidationOffset += userIds.size();
-            log.info("Validated {} block records, current offset: {}", validatedCount, blockValidationOffset);
-        } catch (Exception e) {
-            log.error("Failed to validate block data in batches", e);
         }
+        if (digestEnabled && !validatedIds.isEmpty()) {
+            dbRateLimiter.acquire();
+            refreshDbDigests(stream.type, validatedIds);
+        }
+        return validatedIds.size();
     }
 
     /**
@@ -621,7 +789,7 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
      * 
      * 定时校验策略：
      * 1. 固定间隔校验：每N分钟执行一次校验
-     * 2. 分批校验：避免一次性校验所有数据，影响性能
+     * 2. 分批校验：键集分页 + 多页并行，令牌桶限制数据库 QPS，避免影响线上业务
      * 3. 抽样校验：对于大数据量，可以抽样校验
      * 4. 错峰执行：在业务低峰期执行，减少对业务的影响
      * 
@@ -635,6 +803,9 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
      * validation:
      * interval: 1800000 # 30分钟
      * enabled: true # 是否启用定时校验
+     * parallelism: 4 # 并行校验线程数
+     * db-qps: 200 # 数据库 QPS 上限
+     * max-run-ms: 600000 # 单次最长运行时间
      */
     @Scheduled(fixedDelayString = "${relation.validation.interval:1800000}") // 默认30分钟
     public void scheduledValidation() {
@@ -648,28 +819,14 @@ public class RelationDataValidationServiceImpl implements RelationDataValidation
             log.info("Starting scheduled validation of relation data, type index: {}, batch size: {}",
                     validationTypeIndex, batchValidationSize);
 
-            // 轮询校验不同类型的数据，避免一次性校验所有数据
-            switch (validationTypeIndex % 4) {
-                case 0:
-                    log.info("Validating like data in batch");
-                    validateLikeDataInBatches();
-                    break;
-                case 1:
-                    log.info("Validating favorite data in batch");
-                    validateFavoriteDataInBatches();
-                    break;
-                case 2:
-                    log.info("Validating follow data in batch");
-                    validateFollowDataInBatches();
-                    break;
-                case 3:
-                    log.info("Validating block data in batch");
-                    validateBlockDataInBatches();
-                    break;
+            // 每次从不同类型开始，避免数据量大的类型长期占满时间预算；各类型从各自的检查点继续
+            long deadline = System.currentTimeMillis() + maxRunMillis;
+            for (int i = 0; i < streams.size() && System.currentTimeMillis() < deadline; i++) {
+                validateStream(streams.get((validationTypeIndex + i) % streams.size()), deadline);
             }
 
             // 轮询到下一个类型
-            validationTypeIndex = (validationTypeIndex + 1) % 4;
+            validationTypeIndex = (validationTypeIndex + 1) % streams.size();
 
             log.info("Scheduled validation completed, next type index: {}", validationTypeIndex);
 
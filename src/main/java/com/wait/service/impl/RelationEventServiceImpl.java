@@ -0,0 +1,407 @@
+package com.wait.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.wait.entity.domain.Post;
+import com.wait.entity.domain.UserBase;
+import com.wait.entity.dto.RelationEvent;
+import com.wait.service.HotRankingService;
+import com.wait.service.NotificationService;
+import com.wait.service.PostService;
+import com.wait.service.PostViewCacheService;
+import com.wait.service.RankingService;
+import com.wait.service.RelationEventService;
+import com.wait.service.StatisticsService;
+import com.wait.service.TimelineSortedSetService;
+import com.wait.service.UserRecommendationService;
+import com.wait.service.UserService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 关系事件管道实现
+ *
+ * 点赞、收藏、关注三类事件各自一个有界环形缓冲区（ArrayBlockingQueue）和一个消费线程：
+ * 1. 消费线程阻塞等待第一个事件，再 drainTo 取出缓冲区中已有的事件组成一批（最多 batch-size 个），
+ * 流量越大批次越大，流量小时单个事件也能及时处理
+ * 2. 批内按帖子合并净增量：同一帖子一批只执行一次 ZINCRBY、一次统计记录、一次热度重算
+ * 3. 通知按接收者合并：同一帖子/用户的多次点赞、关注合并为一条通知，帖子和用户信息每批只查询一次
+ * 4. 缓冲区已满时在调用线程同步处理该事件（背压），保证事件不丢失
+ * 5. 关注事件按批增量更新二度关系推荐候选（见 UserRecommendationService#onFollowEvents）
+ * 和关注者的首页收件箱（见 TimelineSortedSetService#onFollowEvents）
+ */
+@Slf4j
+@Service
+public class RelationEventServiceImpl implements RelationEventService {
+
+    private final RankingService rankingService;
+    private final HotRankingService hotRankingService;
+    private final StatisticsService statisticsService;
+    private final NotificationService notificationService;
+    private final PostService postService;
+    private final UserService userService;
+    private final UserRecommendationService recommendationService;
+    private final TimelineSortedSetService timelineService;
+    private final PostViewCacheService postViewCacheService;
+
+    public RelationEventServiceImpl(RankingService rankingService, HotRankingService hotRankingService,
+            StatisticsService statisticsService, NotificationService notificationService,
+            @Lazy PostService postService, UserService userService,
+            @Lazy UserRecommendationService recommendationService,
+            @Lazy TimelineSortedSetService timelineService, PostViewCacheService postViewCacheService) {
+        this.rankingService = rankingService;
+        this.hotRankingService = hotRankingService;
+        this.statisticsService = statisticsService;
+        this.notificationService = notificationService;
+        this.postService = postService;
+        this.userService = userService;
+        this.recommendationService = recommendationService;
+        this.timelineService = timelineService;
+        this.postViewCacheService = postViewCacheService;
+    }
+
+    /** 是否异步批量处理，关闭后在请求线程逐个处理（与改造前行为一致） */
+    @Value("${relation.event.async-enabled:true}")
+    private boolean asyncEnabled;
+
+    /** 每类事件的缓冲区容量 */
+    @Value("${relation.event.buffer-size:8192}")
+    private int bufferSize;
+
+    /** 单批最大事件数 */
+    @Value("${relation.event.batch-size:512}")
+    private int batchSize;
+
+    /** 消费线程空闲时的轮询间隔（毫秒），也是关闭时检查退出标志的间隔 */
+    @Value("${relation.event.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    private final List<Channel> channels = new ArrayList<>();
+    private Channel likeChannel;
+    private Channel favoriteChannel;
+    private Channel followChannel;
+    private ExecutorService consumerExecutor;
+    private volatile boolean running;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong callerRunsCount = new AtomicLong();
+
+    /**
+     * 单类事件的缓冲区及其批处理逻辑
+     */
+    private static class Channel {
+        private final String name;
+        private final BlockingQueue<RelationEvent> queue;
+        private final Consumer<List<RelationEvent>> handler;
+
+        Channel(String name, int capacity, Consumer<List<RelationEvent>> handler) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.handler = handler;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        likeChannel = new Channel("like", bufferSize, this::handleLikes);
+        favoriteChannel = new Channel("favorite", bufferSize, this::handleFavorites);
+        followChannel = new Channel("follow", bufferSize, this::handleFollows);
+        channels.add(likeChannel);
+        channels.add(favoriteChannel);
+        channels.add(followChannel);
+
+        if (!asyncEnabled) {
+            log.info("Relation event pipeline disabled, side effects run on caller thread");
+            return;
+        }
+        running = true;
+        consumerExecutor = Executors.newFixedThreadPool(channels.size(),
+                new ThreadFactoryBuilder().setNameFormat("relation-event-%d").setDaemon(true).build());
+        for (Channel channel : channels) {
+            consumerExecutor.execute(() -> consumeLoop(channel));
+        }
+        log.info("Relation event pipeline started, bufferSize: {}, batchSize: {}", bufferSize, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (consumerExecutor == null) {
+            return;
+        }
+        // 停止标志置位后，消费线程会把缓冲区剩余事件处理完再退出
+        running = false;
+        consumerExecutor.shutdown();
+        try {
+            if (!consumerExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Relation event pipeline did not drain in time, remaining: {}", backlog());
+                consumerExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            consumerExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("Relation event pipeline stopped, stats: {}", getStats());
+    }
+
+    @Override
+    public void publish(RelationEvent event) {
+        if (event == null || event.getType() == null) {
+            return;
+        }
+        Channel channel = channelOf(event);
+        publishedCount.incrementAndGet();
+        if (running && channel.queue.offer(event)) {
+            return;
+        }
+        // 未开启异步、已关闭或缓冲区已满：在调用线程同步处理
+        if (running) {
+            callerRunsCount.incrementAndGet();
+            log.warn("Relation event buffer {} is full, processing on caller thread", channel.name);
+        }
+        process(channel, Collections.singletonList(event));
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("asyncEnabled", asyncEnabled);
+        stats.put("running", running);
+        stats.put("published", publishedCount.get());
+        stats.put("processed", processedCount.get());
+        stats.put("batches", batchCount.get());
+        stats.put("callerRuns", callerRunsCount.get());
+        stats.put("backlog", backlog());
+        long batches = batchCount.get();
+        stats.put("avgBatchSize", batches > 0 ? (double) processedCount.get() / batches : 0.0);
+        return stats;
+    }
+
+    private Channel channelOf(RelationEvent event) {
+        switch (event.getType()) {
+            case LIKE:
+            case UNLIKE:
+                return likeChannel;
+            case FAVORITE:
+            case UNFAVORITE:
+                return favoriteChannel;
+            default:
+                return followChannel;
+        }
+    }
+
+    private int backlog() {
+        int total = 0;
+        for (Channel channel : channels) {
+            total += channel.queue.size();
+        }
+        return total;
+    }
+
+    private void consumeLoop(Channel channel) {
+        List<RelationEvent> batch = new ArrayList<>(batchSize);
+        while (running || !channel.queue.isEmpty()) {
+            try {
+                RelationEvent first = channel.queue.poll(pollIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                channel.queue.drainTo(batch, batchSize - 1);
+                process(channel, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(Channel channel, List<RelationEvent> batch) {
+        try {
+            channel.handler.accept(batch);
+        } catch (Exception e) {
+            // 副作用处理失败不影响关系数据本身（Redis 已写入），记录后继续处理下一批
+            log.error("Failed to process relation event batch, channel: {}, size: {}", channel.name, batch.size(), e);
+        }
+        processedCount.addAndGet(batch.size());
+        batchCount.incrementAndGet();
+    }
+
+    // ==================== 批处理 ====================
+
+    private void handleLikes(List<RelationEvent> batch) {
+        Map<Long, Long> deltas = netDeltas(batch);
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            Long postId = entry.getKey();
+            long delta = entry.getValue();
+            try {
+                rankingService.incrementLikes(postId, delta);
+                hotRankingService.incrementLikes(postId, delta);
+            } catch (Exception e) {
+                log.error("Failed to update ranking/hot score for post {}", postId, e);
+            }
+            try {
+                statisticsService.recordLikes(postId, delta);
+            } catch (Exception e) {
+                log.error("Failed to record like statistics: postId={}", postId, e);
+            }
+        }
+        // 视图缓存按事件时间戳过滤，净增量为 0 的帖子也可能需要调整，不使用 netDeltas
+        for (Map.Entry<Long, List<RelationEvent>> entry : groupByTarget(batch).entrySet()) {
+            postViewCacheService.incrementLikes(entry.getKey(), entry.getValue());
+        }
+        log.debug("Processed {} like events for {} posts", batch.size(), deltas.size());
+
+        // 同一帖子的点赞合并为一条通知（批内先点赞后取消的用户不通知）
+        Map<Long, Set<Long>> likersByPost = finalActors(batch);
+        for (Map.Entry<Long, Set<Long>> entry : likersByPost.entrySet()) {
+            Long postId = entry.getKey();
+            try {
+                Post post = postService.getPostById(postId);
+                if (post == null) {
+                    continue;
+                }
+                Long authorId = post.getUserId();
+                Set<Long> likers = entry.getValue();
+                likers.remove(authorId); // 自己点赞不通知
+                if (likers.isEmpty()) {
+                    continue;
+                }
+                String content = likers.size() == 1
+                        ? String.format("%s点赞了你的帖子", userName(likers.iterator().next()))
+                        : String.format("%s等%d人点赞了你的帖子", userName(likers.iterator().next()), likers.size());
+                notificationService.sendNotificationAsync(authorId, "like", content, postId);
+            } catch (Exception e) {
+                log.error("Failed to send like notification: post={}", postId, e);
+            }
+        }
+    }
+
+    private void handleFavorites(List<RelationEvent> batch) {
+        Map<Long, Long> deltas = netDeltas(batch);
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            Long postId = entry.getKey();
+            long delta = entry.getValue();
+            try {
+                rankingService.incrementFavorites(postId, delta);
+                hotRankingService.incrementFavorites(postId, delta);
+            } catch (Exception e) {
+                log.error("Failed to update ranking/hot score for post {}", postId, e);
+            }
+            try {
+                statisticsService.recordFavorites(postId, delta);
+            } catch (Exception e) {
+                log.error("Failed to record favorite statistics: postId={}", postId, e);
+            }
+        }
+        for (Map.Entry<Long, List<RelationEvent>> entry : groupByTarget(batch).entrySet()) {
+            postViewCacheService.incrementFavorites(entry.getKey(), entry.getValue());
+        }
+        log.debug("Processed {} favorite events for {} posts", batch.size(), deltas.size());
+    }
+
+    private void handleFollows(List<RelationEvent> batch) {
+        // 同一用户的新增粉丝合并为一条通知
+        Map<Long, Set<Long>> followersByUser = finalActors(batch);
+        for (Map.Entry<Long, Set<Long>> entry : followersByUser.entrySet()) {
+            Long followedId = entry.getKey();
+            Set<Long> followers = entry.getValue();
+            try {
+                Long firstFollower = followers.iterator().next();
+                String content = followers.size() == 1
+                        ? String.format("%s关注了你", userName(firstFollower))
+                        : String.format("%s等%d人关注了你", userName(firstFollower), followers.size());
+                notificationService.sendNotificationAsync(followedId, "follow", content, firstFollower);
+            } catch (Exception e) {
+                log.error("Failed to send follow notification: followed={}", followedId, e);
+            }
+        }
+        log.debug("Processed {} follow events for {} users", batch.size(), followersByUser.size());
+
+        // 增量更新二度关系推荐候选
+        try {
+            recommendationService.onFollowEvents(batch);
+        } catch (Exception e) {
+            log.error("Failed to update friend-of-friend candidates for {} follow events", batch.size(), e);
+        }
+
+        // 增量更新首页收件箱
+        try {
+            timelineService.onFollowEvents(batch);
+        } catch (Exception e) {
+            log.error("Failed to apply {} follow events to timeline inboxes", batch.size(), e);
+        }
+    }
+
+    /**
+     * 按目标合并净增量，净增量为0的目标不返回
+     */
+    private Map<Long, Long> netDeltas(List<RelationEvent> batch) {
+        Map<Long, Long> deltas = new HashMap<>();
+        for (RelationEvent event : batch) {
+            deltas.merge(event.getTargetId(), event.getType().isPositive() ? 1L : -1L, Long::sum);
+        }
+        deltas.values().removeIf(delta -> delta == 0L);
+        return deltas;
+    }
+
+    /**
+     * 按目标分组（保持事件顺序），视图缓存按各事件的时间戳判断是否已包含在建立计数时的源数据中
+     */
+    private Map<Long, List<RelationEvent>> groupByTarget(List<RelationEvent> batch) {
+        Map<Long, List<RelationEvent>> groups = new HashMap<>();
+        for (RelationEvent event : batch) {
+            groups.computeIfAbsent(event.getTargetId(), k -> new ArrayList<>()).add(event);
+        }
+        return groups;
+    }
+
+    /**
+     * 按目标分组，计算批处理结束时仍处于"已建立关系"状态的操作者（保持事件顺序）
+     */
+    private Map<Long, Set<Long>> finalActors(List<RelationEvent> batch) {
+        Map<Long, Set<Long>> actors = new LinkedHashMap<>();
+        for (RelationEvent event : batch) {
+            if (event.getType().isPositive()) {
+                actors.computeIfAbsent(event.getTargetId(), k -> new LinkedHashSet<>()).add(event.getActorId());
+            } else {
+                Set<Long> set = actors.get(event.getTargetId());
+                if (set != null) {
+                    set.remove(event.getActorId());
+                }
+            }
+        }
+        actors.values().removeIf(Set::isEmpty);
+        return actors;
+    }
+
+    private String userName(Long userId) {
+        UserBase user = userService.findById(userId);
+        return user != null && user.getUsername() != null ? user.getUsername() : "用户" + userId;
+    }
+}
@@ -1,30 +1,47 @@
 package com.wait.service.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
 
 import com.wait.entity.domain.UserBlock;
 import com.wait.mapper.UserBlockMapper;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.wait.entity.domain.PostFavorite;
 import com.wait.entity.domain.PostLike;
 import com.wait.entity.domain.UserFollow;
+import com.wait.entity.dto.RelationDigest;
 import com.wait.mapper.FollowMapper;
 import com.wait.mapper.PostFavoriteMapper;
 import com.wait.mapper.PostLikeMapper;
+import com.wait.mapper.RelationDigestMapper;
+import com.wait.service.RelationBitmapService;
 import com.wait.service.RelationPersistenceService;
 import com.wait.sync.write.RelationWriteBehindStrategy;
 import com.wait.util.AsyncSQLWrapper;
 import com.wait.util.BoundUtil;
+import com.wait.util.LongPairStateBuffer;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -43,7 +60,7 @@ import lombok.extern.slf4j.Slf4j;
  * - 策略：先写 Redis，缓冲操作，定时（如 5 分钟）或定量（如 100 条）批量写入数据库
  * - 优势：减少数据库压力，提高响应速度，批量写入效率更高
  * - 适用场景：帖子点赞、评论点赞等高频操作
- * - 实现：参考 IncrementalWriteStrategy，使用 ConcurrentHashMap 缓冲 + ThreadPoolTaskScheduler 定时执行
+ * - 实现：参考 IncrementalWriteStrategy，使用 LongPairStateBuffer 缓冲 (postId, userId) + ThreadPoolTaskScheduler 定时执行
  * 
  * 3. **收藏关系（Favorite）**：采用 Write-Behind（写回）策略 - 定时+定量批量写入
  * - 原因：类似点赞，高频操作，但可接受最终一致性
@@ -64,8 +81,13 @@ import lombok.extern.slf4j.Slf4j;
  * 性能优化：
  * - 批量操作：将多个操作合并为批量写入，减少数据库交互次数
  * - 异步写入：使用线程池异步执行数据库写入，不阻塞主流程
- * - 事务控制：使用 @Transactional 保证数据一致性
+ * - 事务控制：使用 @Transactional 保证数据一致性，批量刷库回调使用 TransactionTemplate（私有方法上的 @Transactional 不生效）
+ * - Upsert：批量刷库使用 INSERT ... ON DUPLICATE KEY UPDATE，省去写入前的存在性查询
+ * - 分区刷库：点赞/收藏缓冲按帖子ID分区，热门帖子不阻塞其他帖子的刷库；每个分区对应一个刷库线程，
+ *   定量和定时触发都只向刷库线程池提交任务，请求线程不执行数据库写入
  * - 去重优化：相同操作的多次更新只保留最新状态，减少无效写入
+ * - 关系摘要：刷库和写透时在同一事务内按真正新增/删除的记录累加 relation_digest 增量，
+ *   定时校验按主键点查数据库侧摘要，不再对关系表做 GROUP BY 聚合
  */
 @Slf4j
 @Service
@@ -76,8 +98,11 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
     private final PostLikeMapper postLikeMapper;
     private final PostFavoriteMapper postFavoriteMapper;
     private final UserBlockMapper userBlockMapper;
+    private final RelationDigestMapper relationDigestMapper;
     private final AsyncSQLWrapper asyncSQLWrapper;
     private final RelationWriteBehindStrategy relationWriteBehindStrategy;
+    private final RelationBitmapService bitmapService;
+    private final TransactionTemplate transactionTemplate;
 
     @Qualifier("refreshScheduler")
     private final ThreadPoolTaskScheduler taskScheduler;
@@ -85,6 +110,7 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
     // Redis Key 前缀（与 RelationServiceImpl 保持一致）
     private static final String USER_FOLLOW_PREFIX = "user:follow:";
     private static final String POST_LIKE_PREFIX = "post:like:";
+    private static final String POST_LIKE_BITMAP_PREFIX = "post:like_bm:";
     private static final String USER_FAVORITE_PREFIX = "user:favorite:";
 
     // ==================== 批量写入配置 ====================
@@ -94,35 +120,83 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
     /** 定量批量写入阈值：当缓冲达到 100 条时立即写入 */
     private static final int BATCH_SIZE_THRESHOLD = 100;
 
+    /** 单条 SQL 的最大行数（multi-row INSERT / IN 删除），避免超出 max_allowed_packet 和占位符上限 */
+    private final int flushChunkSize;
+
     // ==================== 批量任务管理器（使用新的策略类）====================
-    /** 点赞批量任务管理器 */
-    private final RelationWriteBehindStrategy.BatchTaskManager<String, Boolean> likeBatchManager;
+    /** 点赞批量任务管理器，按帖子ID分区：热门帖子的点赞风暴只触发所在分区刷库，不阻塞其他分区 */
+    private final List<RelationWriteBehindStrategy.PairBatchTaskManager> likeBatchManagers;
+
+    /** 收藏批量任务管理器，按帖子ID分区 */
+    private final List<RelationWriteBehindStrategy.PairBatchTaskManager> favoriteBatchManagers;
 
-    /** 收藏批量任务管理器 */
-    private final RelationWriteBehindStrategy.BatchTaskManager<String, Boolean> favoriteBatchManager;
+    /** 刷库线程池，线程数等于分区数，使分区之间真正并行刷库（同一管理器的刷库由管理器自身串行化） */
+    private final ExecutorService flushExecutor;
+
+    private final FlushMetrics likeFlushMetrics = new FlushMetrics("like");
+    private final FlushMetrics favoriteFlushMetrics = new FlushMetrics("favorite");
 
     // 初始化批量任务管理器
     public RelationPersistenceServiceImpl(BoundUtil boundUtil, FollowMapper followMapper,
             PostLikeMapper postLikeMapper, PostFavoriteMapper postFavoriteMapper,
-            UserBlockMapper userBlockMapper, AsyncSQLWrapper asyncSQLWrapper,
-            RelationWriteBehindStrategy relationWriteBehindStrategy,
-            @Qualifier("refreshScheduler") ThreadPoolTaskScheduler taskScheduler) {
+            UserBlockMapper userBlockMapper, RelationDigestMapper relationDigestMapper,
+            AsyncSQLWrapper asyncSQLWrapper,
+            RelationWriteBehindStrategy relationWriteBehindStrategy, RelationBitmapService bitmapService,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("refreshScheduler") ThreadPoolTaskScheduler taskScheduler,
+            @Value("${relation.persist.partitions:4}") int flushPartitions,
+            @Value("${relation.persist.chunk-size:500}") int flushChunkSize) {
         this.boundUtil = boundUtil;
         this.followMapper = followMapper;
         this.postLikeMapper = postLikeMapper;
         this.postFavoriteMapper = postFavoriteMapper;
         this.userBlockMapper = userBlockMapper;
+        this.relationDigestMapper = relationDigestMapper;
         this.asyncSQLWrapper = asyncSQLWrapper;
         this.relationWriteBehindStrategy = relationWriteBehindStrategy;
+        this.bitmapService = bitmapService;
+        this.transactionTemplate = transactionTemplate;
         this.taskScheduler = taskScheduler;
+        this.flushChunkSize = Math.max(1, flushChunkSize);
+
+        // 初始化点赞、收藏批量任务管理器（每个分区独立缓冲、独立定时和定量触发）
+        int partitions = Math.max(1, flushPartitions);
+        // 每个管理器同一时刻最多有一个已提交、未执行完的刷库任务：同一分区的快照按顺序落库，队列长度不会超过 2 * partitions
+        this.flushExecutor = new ThreadPoolExecutor(partitions, partitions, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("relation-flush-%d").setDaemon(true).build());
+        this.likeBatchManagers = new ArrayList<>(partitions);
+        this.favoriteBatchManagers = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            likeBatchManagers.add(relationWriteBehindStrategy.createPairBatchTaskManager(
+                    BATCH_FLUSH_DELAY_MS, BATCH_SIZE_THRESHOLD, this::flushLikesToDatabase, flushExecutor));
+            favoriteBatchManagers.add(relationWriteBehindStrategy.createPairBatchTaskManager(
+                    BATCH_FLUSH_DELAY_MS, BATCH_SIZE_THRESHOLD, this::flushFavoritesToDatabase, flushExecutor));
+        }
+    }
 
-        // 初始化点赞批量任务管理器
-        this.likeBatchManager = relationWriteBehindStrategy.createBatchTaskManager(
-                BATCH_FLUSH_DELAY_MS, BATCH_SIZE_THRESHOLD, this::flushLikesToDatabase);
-
-        // 初始化收藏批量任务管理器
-        this.favoriteBatchManager = relationWriteBehindStrategy.createBatchTaskManager(
-                BATCH_FLUSH_DELAY_MS, BATCH_SIZE_THRESHOLD, this::flushFavoritesToDatabase);
+    /**
+     * 关闭时等待进行中的刷库完成，再把缓冲中剩余的操作同步刷库
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Relation flush executor did not terminate in 30s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<RelationWriteBehindStrategy.PairBatchTaskManager> managers = new ArrayList<>(likeBatchManagers);
+        managers.addAll(favoriteBatchManagers);
+        for (RelationWriteBehindStrategy.PairBatchTaskManager manager : managers) {
+            try {
+                manager.flushBatchToDatabase();
+            } catch (Exception e) {
+                log.error("Failed to flush pending relation operations on shutdown", e);
+            }
+        }
     }
 
     // ==================== 关注关系持久化（Write-Through）====================
@@ -141,6 +215,7 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
                             .followedId(followedId)
                             .build();
                     followMapper.insert(userFollow);
+                    applyDigestDelta(RelationDigest.TYPE_FOLLOW, followerId, followedId, true);
                     log.info("Persisted follow: user {} follows user {}", followerId, followedId);
                 } else {
                     log.debug("Follow already exists in DB: user {} follows user {}", followerId, followedId);
@@ -149,6 +224,7 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
                 // 取消关注
                 int deleted = followMapper.delete(followerId, followedId);
                 if (deleted > 0) {
+                    applyDigestDelta(RelationDigest.TYPE_FOLLOW, followerId, followedId, false);
                     log.info("Persisted unfollow: user {} unfollows user {}", followerId, followedId);
                 } else {
                     log.debug("Follow not found in DB: user {} unfollows user {}", followerId, followedId);
@@ -162,9 +238,8 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
 
     @Override
     public CompletableFuture<Void> persistLike(Long userId, Long postId, boolean isLike) {
-        // 使用新的批量任务管理器，支持定时定量混合方案
-        String key = postId + ":" + userId;
-        likeBatchManager.addOperation(key, isLike);
+        // 使用新的批量任务管理器，支持定时定量混合方案（键为 (postId, userId)）
+        partitionOf(likeBatchManagers, postId).addOperation(postId, userId, isLike);
 
         // 立即返回 CompletableFuture，不阻塞主流程
         return CompletableFuture.completedFuture(null);
@@ -174,9 +249,8 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
 
     @Override
     public CompletableFuture<Void> persistFavorite(Long userId, Long postId, boolean isFavorite) {
-        // 使用新的批量任务管理器，支持定时定量混合方案
-        String key = userId + ":" + postId;
-        favoriteBatchManager.addOperation(key, isFavorite);
+        // 使用新的批量任务管理器，支持定时定量混合方案（键为 (userId, postId)）
+        partitionOf(favoriteBatchManagers, postId).addOperation(userId, postId, isFavorite);
 
         // 立即返回 CompletableFuture，不阻塞主流程
         return CompletableFuture.completedFuture(null);
@@ -199,6 +273,7 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
                             .createdAt(System.currentTimeMillis())
                             .build();
                     userBlockMapper.insert(userBlock);
+                    applyDigestDelta(RelationDigest.TYPE_BLOCK, userId, blockedUserId, true);
                     log.info("Persisted block: user {} blocks user {}", userId, blockedUserId);
                 } else {
                     log.debug("Block already exists in DB: user {} blocks user {}", userId, blockedUserId);
@@ -207,6 +282,7 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
                 // 取消拉黑
                 int deleted = userBlockMapper.delete(userId, blockedUserId);
                 if (deleted > 0) {
+                    applyDigestDelta(RelationDigest.TYPE_BLOCK, userId, blockedUserId, false);
                     log.info("Persisted unblock: user {} unblocks user {}", userId, blockedUserId);
                 } else {
                     log.debug("Block not found in DB: user {} unblocks user {}", userId, blockedUserId);
@@ -216,6 +292,20 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
         });
     }
 
+    @Override
+    public Map<String, Object> getFlushStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("partitions", likeBatchManagers.size());
+        stats.put("chunkSize", flushChunkSize);
+        stats.put("like", likeFlushMetrics.toMap());
+        stats.put("favorite", favoriteFlushMetrics.toMap());
+        stats.put("pendingLikes", likeBatchManagers.stream()
+                .mapToInt(RelationWriteBehindStrategy.PairBatchTaskManager::getPendingCount).sum());
+        stats.put("pendingFavorites", favoriteBatchManagers.stream()
+                .mapToInt(RelationWriteBehindStrategy.PairBatchTaskManager::getPendingCount).sum());
+        return stats;
+    }
+
     // ==================== 批量同步（用于数据恢复/迁移）====================
 
     @Override
@@ -264,7 +354,9 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
     public void batchSyncLikes(Long postId) {
         try {
             // 从 Redis 读取点赞用户列表
-            Set<Long> likers = boundUtil.sMembers(POST_LIKE_PREFIX + postId, Long.class);
+            Set<Long> likers = bitmapService.isEnabled()
+                    ? bitmapService.members(POST_LIKE_BITMAP_PREFIX + postId, POST_LIKE_PREFIX + postId)
+                    : boundUtil.sMembers(POST_LIKE_PREFIX + postId, Long.class);
             if (likers == null || likers.isEmpty()) {
                 log.info("No likes to sync for post {}", postId);
                 return;
@@ -347,100 +439,69 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
     /**
      * 批量写入点赞操作到数据库
      * 由RelationWriteBehindStrategy的BatchTaskManager回调调用
+     * 点赞使用 INSERT ... ON DUPLICATE KEY UPDATE 批量 upsert，取消点赞使用 (post_id, user_id) IN 批量删除，
+     * 按 chunk-size 分块后在同一个事务内执行，不再逐条查询存在性和逐条删除；
+     * 缓冲只接收 Redis 脚本中真正生效的操作，快照中相对上一轮发生净变化的点赞即为数据库的摘要增量，
+     * 与 Redis 摘要脚本的计算一致，在同一事务内累加到帖子的点赞摘要，无需事先查询已存在的记录
      */
-    @Transactional
-    private void flushLikesToDatabase(Map<String, Boolean> operations) {
+    private void flushLikesToDatabase(LongPairStateBuffer.Snapshot operations) {
         if (operations == null || operations.isEmpty()) {
             return;
         }
+        long start = System.currentTimeMillis();
 
         // 分离点赞和取消点赞操作
-        List<PostLike> likeCandidates = new ArrayList<>();
+        List<PostLike> toUpsert = new ArrayList<>();
         List<PostLike> toDelete = new ArrayList<>();
-
-        for (java.util.Map.Entry<String, Boolean> entry : operations.entrySet()) {
-            String[] parts = entry.getKey().split(":");
-            Long postId = Long.parseLong(parts[0]);
-            Long userId = Long.parseLong(parts[1]);
-            boolean isLike = entry.getValue();
-
+        Map<Long, RelationDigest> digestDeltas = new TreeMap<>();
+        operations.forEachChange((postId, userId, isLike, changed) -> {
+            PostLike like = PostLike.builder()
+                    .postId(postId)
+                    .userId(userId)
+                    .build();
             if (isLike) {
-                likeCandidates.add(PostLike.builder()
-                        .postId(postId)
-                        .userId(userId)
-                        .build());
+                toUpsert.add(like);
             } else {
-                toDelete.add(PostLike.builder()
-                        .postId(postId)
-                        .userId(userId)
-                        .build());
+                toDelete.add(like);
             }
-        }
-
-        // 批量查询已存在的点赞关系（优化：减少数据库交互次数）
-        Set<String> existingLikes = new HashSet<>();
-        if (!likeCandidates.isEmpty()) {
-            List<PostLike> existing = postLikeMapper.batchExists(likeCandidates);
-            for (PostLike like : existing) {
-                existingLikes.add(like.getPostId() + ":" + like.getUserId());
-            }
-        }
-
-        // 过滤出需要插入的点赞关系（排除已存在的）
-        List<PostLike> toInsert = new ArrayList<>();
-        for (PostLike candidate : likeCandidates) {
-            String key = candidate.getPostId() + ":" + candidate.getUserId();
-            if (!existingLikes.contains(key)) {
-                toInsert.add(candidate);
+            if (changed) {
+                digestDeltas.computeIfAbsent(postId, RelationDigest::empty).accumulate(userId, isLike);
             }
-        }
+        });
 
-        // 批量插入点赞
-        if (!toInsert.isEmpty()) {
-            if (toInsert.size() == 1) {
-                postLikeMapper.insert(toInsert.get(0));
-            } else {
-                postLikeMapper.batchInsert(toInsert);
+        int[] affected = transactionTemplate.execute(status -> {
+            int upserted = 0;
+            int deleted = 0;
+            for (List<PostLike> chunk : Lists.partition(toUpsert, flushChunkSize)) {
+                upserted += postLikeMapper.batchUpsert(chunk);
             }
-            log.debug("Batch inserted {} likes", toInsert.size());
-        }
-
-        // 批量删除取消点赞（MyBatis 批量删除需要循环调用，或使用 IN 子句）
-        int deletedCount = 0;
-        for (PostLike like : toDelete) {
-            int deleted = postLikeMapper.delete(like.getPostId(), like.getUserId());
-            if (deleted > 0) {
-                deletedCount++;
+            for (List<PostLike> chunk : Lists.partition(toDelete, flushChunkSize)) {
+                deleted += postLikeMapper.batchDelete(chunk);
             }
-        }
-        if (deletedCount > 0) {
-            log.debug("Batch deleted {} unlikes", deletedCount);
-        }
+            applyDigestDeltas(RelationDigest.TYPE_LIKE, digestDeltas);
+            return new int[] { upserted, deleted };
+        });
+        likeFlushMetrics.record(operations.size(), affected, System.currentTimeMillis() - start);
     }
 
     /**
      * 批量写入收藏操作到数据库
-     * 由RelationWriteBehindStrategy的BatchTaskManager回调调用
+     * 由RelationWriteBehindStrategy的BatchTaskManager回调调用，写入方式同点赞，摘要按收藏用户累加
      */
-    @Transactional
-    private void flushFavoritesToDatabase(Map<String, Boolean> operations) {
+    private void flushFavoritesToDatabase(LongPairStateBuffer.Snapshot operations) {
         if (operations == null || operations.isEmpty()) {
             return;
         }
+        long start = System.currentTimeMillis();
 
         // 分离收藏和取消收藏操作
-        List<PostFavorite> favoriteCandidates = new ArrayList<>();
+        List<PostFavorite> toUpsert = new ArrayList<>();
         List<PostFavorite> toDelete = new ArrayList<>();
+        Map<Long, RelationDigest> digestDeltas = new TreeMap<>();
         long now = System.currentTimeMillis();
-
-        for (java.util.Map.Entry<String, Boolean> entry : operations.entrySet()) {
-            String[] parts = entry.getKey().split(":");
-            Long userId = Long.parseLong(parts[0]);
-            Long postId = Long.parseLong(parts[1]);
-            boolean isFavorite = entry.getValue();
-
+        operations.forEachChange((userId, postId, isFavorite, changed) -> {
             if (isFavorite) {
-                favoriteCandidates.add(PostFavorite.builder()
+                toUpsert.add(PostFavorite.builder()
                         .userId(userId)
                         .postId(postId)
                         .createdAt(now)
@@ -451,46 +512,91 @@ public class RelationPersistenceServiceImpl implements RelationPersistenceServic
                         .postId(postId)
                         .build());
             }
-        }
+            if (changed) {
+                digestDeltas.computeIfAbsent(userId, RelationDigest::empty).accumulate(postId, isFavorite);
+            }
+        });
 
-        // 批量查询已存在的收藏关系（优化：减少数据库交互次数）
-        Set<String> existingFavorites = new HashSet<>();
-        if (!favoriteCandidates.isEmpty()) {
-            List<PostFavorite> existing = postFavoriteMapper.batchExists(favoriteCandidates);
-            for (PostFavorite favorite : existing) {
-                existingFavorites.add(favorite.getUserId() + ":" + favorite.getPostId());
+        int[] affected = transactionTemplate.execute(status -> {
+            int upserted = 0;
+            int deleted = 0;
+            for (List<PostFavorite> chunk : Lists.partition(toUpsert, flushChunkSize)) {
+                upserted += postFavoriteMapper.batchUpsert(chunk);
+            }
+            for (List<PostFavorite> chunk : Lists.partition(toDelete, flushChunkSize)) {
+                deleted += postFavoriteMapper.batchDelete(chunk);
             }
+            applyDigestDeltas(RelationDigest.TYPE_FAVORITE, digestDeltas);
+            return new int[] { upserted, deleted };
+        });
+        favoriteFlushMetrics.record(operations.size(), affected, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 累加一条写透关系的摘要增量，与关系写入在同一事务内
+     */
+    private void applyDigestDelta(String type, Long entityId, Long member, boolean added) {
+        relationDigestMapper.batchApplyDeltas(type,
+                Collections.singletonList(RelationDigest.empty(entityId).accumulate(member, added)));
+    }
+
+    /**
+     * 分块写入摘要增量，deltas 按实体ID有序，并发刷库按相同顺序加锁，降低死锁概率
+     */
+    private void applyDigestDeltas(String type, Map<Long, RelationDigest> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        for (List<RelationDigest> chunk : Lists.partition(new ArrayList<>(deltas.values()), flushChunkSize)) {
+            relationDigestMapper.batchApplyDeltas(type, chunk);
         }
+    }
 
-        // 过滤出需要插入的收藏关系（排除已存在的）
-        List<PostFavorite> toInsert = new ArrayList<>();
-        for (PostFavorite candidate : favoriteCandidates) {
-            String key = candidate.getUserId() + ":" + candidate.getPostId();
-            if (!existingFavorites.contains(key)) {
-                toInsert.add(candidate);
-            }
+    /**
+     * 按帖子ID选择刷库分区，同一帖子的操作始终落在同一分区
+     */
+    private <M> M partitionOf(List<M> managers, Long postId) {
+        return managers.get((int) Math.floorMod(postId, (long) managers.size()));
+    }
+
+    /**
+     * 刷库吞吐统计（累计值）
+     */
+    private static class FlushMetrics {
+        private final String name;
+        private final AtomicLong flushes = new AtomicLong();
+        private final AtomicLong operations = new AtomicLong();
+        private final AtomicLong upserted = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong elapsedMs = new AtomicLong();
+
+        FlushMetrics(String name) {
+            this.name = name;
         }
 
-        // 批量插入收藏
-        if (!toInsert.isEmpty()) {
-            if (toInsert.size() == 1) {
-                postFavoriteMapper.insert(toInsert.get(0));
-            } else {
-                postFavoriteMapper.batchInsert(toInsert);
-            }
-            log.debug("Batch inserted {} favorites", toInsert.size());
+        void record(int operationCount, int[] affected, long costMs) {
+            flushes.incrementAndGet();
+            operations.addAndGet(operationCount);
+            upserted.addAndGet(affected[0]);
+            deleted.addAndGet(affected[1]);
+            elapsedMs.addAndGet(costMs);
+            log.info("Flushed {} {} operations in {}ms ({} ops/s), inserted: {}, deleted: {}",
+                    operationCount, name, costMs, throughput(operationCount, costMs), affected[0], affected[1]);
         }
 
-        // 批量删除取消收藏
-        int deletedCount = 0;
-        for (PostFavorite favorite : toDelete) {
-            int deleted = postFavoriteMapper.delete(favorite.getUserId(), favorite.getPostId());
-            if (deleted > 0) {
-                deletedCount++;
-            }
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("flushes", flushes.get());
+            map.put("operations", operations.get());
+            map.put("inserted", upserted.get());
+            map.put("deleted", deleted.get());
+            map.put("elapsedMs", elapsedMs.get());
+            map.put("opsPerSecond", throughput(operations.get(), elapsedMs.get()));
+            return map;
         }
-        if (deletedCount > 0) {
-            log.debug("Batch deleted {} unfavorites", deletedCount);
+
+        private static long throughput(long count, long costMs) {
+            return costMs > 0 ? count * 1000 / costMs : count;
         }
     }
 }
@@ -0,0 +1,608 @@
+package com.wait.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.wait.entity.dto.RelationRow;
+import com.wait.entity.param.RelationRebuildRequest;
+import com.wait.entity.type.RelationRebuildType;
+import com.wait.mapper.FollowMapper;
+import com.wait.mapper.PostFavoriteMapper;
+import com.wait.mapper.PostLikeMapper;
+import com.wait.mapper.UserBlockMapper;
+import com.wait.service.RelationBitmapService;
+import com.wait.service.RelationRebuildService;
+import com.wait.util.BoundUtil;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 关系数据重建服务实现
+ *
+ * 1. 每种重建类型用服务端游标按实体ID顺序流式读取关系表，相邻的行按实体分组，堆内存只保留在途分块
+ * 2. 分组累积成分块（默认 500 个实体或 5 万个成员）后交给写线程，用管道批量 SADD/ZADD；
+ * 超大实体（如大V粉丝）按成员数拆成多段依次写入
+ * 3. 每轮 parallelism 个分块写完后，把已完整写入的最后一个实体ID作为检查点保存到 Redis，中断后可继续
+ * 4. 计数（点赞数、收藏数、分片粉丝总数）在集合写完后按 SCARD 回填；摘要直接删除，由校验任务重建
+ * 位图模式下帖子的点赞/收藏用户写入位图（bitmap_import.lua），计数取位图基数，与读取路径同源
+ * 5. 支持只读演练（dry-run）、按行限速，默认只做并集补全，replace 模式先删除再写入
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RelationRebuildServiceImpl implements RelationRebuildService {
+
+    private final BoundUtil boundUtil;
+    private final PostLikeMapper postLikeMapper;
+    private final PostFavoriteMapper postFavoriteMapper;
+    private final FollowMapper followMapper;
+    private final UserBlockMapper userBlockMapper;
+    private final RelationBitmapService bitmapService;
+    private final PlatformTransactionManager transactionManager;
+
+    // Redis Key 前缀（与 RelationServiceImpl 保持一致）
+    private static final String USER_FOLLOW_PREFIX = "user:follow:";
+    private static final String USER_FOLLOWER_PREFIX = "user:follower:";
+    private static final String POST_LIKE_PREFIX = "post:like:";
+    private static final String USER_LIKE_PREFIX = "user:like:";
+    private static final String POST_LIKE_COUNT_PREFIX = "post:like_count:";
+    private static final String USER_FAVORITE_PREFIX = "user:favorite:";
+    private static final String POST_FAVORITED_BY_PREFIX = "post:favorited_by:";
+    private static final String POST_FAVORITE_COUNT_PREFIX = "post:favorite_count:";
+    private static final String POST_LIKE_BITMAP_PREFIX = "post:like_bm:";
+    private static final String USER_BLACKLIST_PREFIX = "user:blacklist:";
+    private static final String USER_BLOCKED_BY_PREFIX = "user:blocked_by:";
+    private static final String USER_FOLLOW_TIME_PREFIX = "user:follow:time:";
+    private static final String USER_FAVORITE_TIME_PREFIX = "user:favorite:time:";
+    private static final String DIGEST_LIKE_PREFIX = "relation:digest:like:";
+    private static final String DIGEST_FAVORITE_PREFIX = "relation:digest:favorite:";
+    private static final String DIGEST_FOLLOW_PREFIX = "relation:digest:follow:";
+    private static final String DIGEST_BLOCK_PREFIX = "relation:digest:block:";
+    private static final String FOLLOWER_SHARD_META_SUFFIX = ":meta";
+    private static final String FOLLOWER_SHARD_INFIX = ":s:";
+    private static final String CHECKPOINT_PREFIX = "relation:rebuild:checkpoint:";
+
+    /** 写 Redis 的线程数（同时在途的分块数） */
+    @Value("${relation.rebuild.parallelism:4}")
+    private int parallelism;
+
+    /** 每个分块的最大实体数 */
+    @Value("${relation.rebuild.chunk-entities:500}")
+    private int chunkEntities;
+
+    /** 每个分块的最大成员数，也是超大实体拆段的大小 */
+    @Value("${relation.rebuild.chunk-members:50000}")
+    private int chunkMembers;
+
+    private final Map<RelationRebuildType, RebuildTarget> targets = new EnumMap<>(RelationRebuildType.class);
+    private final Map<RelationRebuildType, PassProgress> progress = Collections.synchronizedMap(
+            new EnumMap<>(RelationRebuildType.class));
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile RelationRebuildRequest currentRequest;
+
+    private ExecutorService coordinator;
+    private ExecutorService writers;
+    private TransactionTemplate streamingTransaction;
+
+    /**
+     * 一种重建类型的读取方式和写入的 key
+     */
+    @RequiredArgsConstructor
+    private static final class RebuildTarget {
+        private final LongFunction<Cursor<RelationRow>> streamer;
+        private final String setPrefix;
+        private final String timePrefix; // 时间索引 ZSet，可为 null
+        private final String counterPrefix; // 计数 key，可为 null
+        private final String digestPrefix; // 摘要 key，可为 null
+        private final String bitmapPrefix; // 位图模式下的位图 key 前缀，可为 null
+
+        RebuildTarget(LongFunction<Cursor<RelationRow>> streamer, String setPrefix, String timePrefix,
+                String counterPrefix, String digestPrefix) {
+            this(streamer, setPrefix, timePrefix, counterPrefix, digestPrefix, null);
+        }
+    }
+
+    /**
+     * 同一实体的一段成员，超大实体会拆成多段，first 表示是否为第一段
+     */
+    private static final class RebuildGroup {
+        private final long entityId;
+        private final boolean first;
+        private long[] members = new long[16];
+        private long[] times = new long[16];
+        private int size;
+
+        RebuildGroup(long entityId, boolean first) {
+            this.entityId = entityId;
+            this.first = first;
+        }
+
+        void add(long member, long time) {
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size << 1);
+                times = Arrays.copyOf(times, size << 1);
+            }
+            members[size] = member;
+            times[size] = time;
+            size++;
+        }
+    }
+
+    /**
+     * 单个类型的重建进度
+     */
+    private static final class PassProgress {
+        private final AtomicLong entities = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong chunks = new AtomicLong();
+        private volatile long checkpoint;
+        private volatile String state = "PENDING";
+        private volatile long startTime;
+        private volatile long endTime;
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("state", state);
+            map.put("entities", entities.get());
+            map.put("rows", rows.get());
+            map.put("chunksWritten", chunks.get());
+            map.put("checkpoint", checkpoint);
+            long end = endTime > 0 ? endTime : System.currentTimeMillis();
+            long cost = startTime > 0 ? end - startTime : 0;
+            map.put("costMillis", cost);
+            map.put("rowsPerSecond", cost > 0 ? rows.get() * 1000 / cost : 0);
+            return map;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        streamingTransaction = new TransactionTemplate(transactionManager);
+        streamingTransaction.setReadOnly(true);
+        coordinator = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("relation-rebuild").setDaemon(true).build());
+        writers = Executors.newFixedThreadPool(parallelism,
+                new ThreadFactoryBuilder().setNameFormat("relation-rebuild-writer-%d").setDaemon(true).build());
+
+        targets.put(RelationRebuildType.FOLLOWING, new RebuildTarget(followMapper::streamByFollowerId,
+                USER_FOLLOW_PREFIX, USER_FOLLOW_TIME_PREFIX, null, DIGEST_FOLLOW_PREFIX));
+        targets.put(RelationRebuildType.FOLLOWERS, new RebuildTarget(followMapper::streamByFollowedId,
+                USER_FOLLOWER_PREFIX, null, null, null));
+        targets.put(RelationRebuildType.POST_LIKERS, new RebuildTarget(postLikeMapper::streamByPostId,
+                POST_LIKE_PREFIX, null, POST_LIKE_COUNT_PREFIX, DIGEST_LIKE_PREFIX, POST_LIKE_BITMAP_PREFIX));
+        targets.put(RelationRebuildType.USER_LIKES, new RebuildTarget(postLikeMapper::streamByUserId,
+                USER_LIKE_PREFIX, null, null, null));
+        targets.put(RelationRebuildType.USER_FAVORITES, new RebuildTarget(postFavoriteMapper::streamByUserId,
+                USER_FAVORITE_PREFIX, USER_FAVORITE_TIME_PREFIX, null, DIGEST_FAVORITE_PREFIX));
+        targets.put(RelationRebuildType.POST_FAVORITERS, new RebuildTarget(postFavoriteMapper::streamByPostId,
+                POST_FAVORITED_BY_PREFIX, null, POST_FAVORITE_COUNT_PREFIX, null));
+        targets.put(RelationRebuildType.BLACKLIST, new RebuildTarget(userBlockMapper::streamByUserId,
+                USER_BLACKLIST_PREFIX, null, null, DIGEST_BLOCK_PREFIX));
+        targets.put(RelationRebuildType.BLOCKED_BY, new RebuildTarget(userBlockMapper::streamByBlockedUserId,
+                USER_BLOCKED_BY_PREFIX, null, null, null));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 重建可从检查点继续，关闭时不等待
+        coordinator.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    @Override
+    public boolean start(RelationRebuildRequest request) {
+        if (request == null || !running.compareAndSet(false, true)) {
+            return false;
+        }
+        currentRequest = request;
+        List<RelationRebuildType> types = request.getTypes() == null || request.getTypes().isEmpty()
+                ? Arrays.asList(RelationRebuildType.values())
+                : request.getTypes();
+        progress.clear();
+        for (RelationRebuildType type : types) {
+            progress.put(type, new PassProgress());
+        }
+        coordinator.execute(() -> {
+            try {
+                run(request, types);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("request", currentRequest);
+        Map<String, Object> passes = new LinkedHashMap<>();
+        synchronized (progress) {
+            for (Map.Entry<RelationRebuildType, PassProgress> entry : progress.entrySet()) {
+                passes.put(entry.getKey().name(), entry.getValue().toMap());
+            }
+        }
+        status.put("passes", passes);
+        return status;
+    }
+
+    private void run(RelationRebuildRequest request, List<RelationRebuildType> types) {
+        RateLimiter limiter = request.getMaxRowsPerSecond() > 0
+                ? RateLimiter.create(request.getMaxRowsPerSecond())
+                : null;
+        log.info("Relation rebuild started, types: {}, dryRun: {}, resume: {}, replace: {}, maxRowsPerSecond: {}",
+                types, request.isDryRun(), request.isResume(), request.isReplace(), request.getMaxRowsPerSecond());
+        for (RelationRebuildType type : types) {
+            PassProgress pass = progress.get(type);
+            try {
+                new PassRunner(type, request, limiter, pass).run();
+            } catch (Exception e) {
+                pass.state = "FAILED";
+                pass.endTime = System.currentTimeMillis();
+                log.error("Relation rebuild of {} failed at checkpoint {}", type, pass.checkpoint, e);
+            }
+        }
+        log.info("Relation rebuild finished, status: {}", getStatus());
+    }
+
+    /**
+     * 单个类型的流式重建：读线程分组、分块，写线程并行写入，按轮保存检查点
+     */
+    private final class PassRunner {
+        private final RelationRebuildType type;
+        private final RebuildTarget target;
+        private final RelationRebuildRequest request;
+        private final RateLimiter limiter;
+        private final PassProgress pass;
+        private final String checkpointKey;
+        private final List<Future<?>> wave = new ArrayList<>();
+        /** 已提交的分块中完整包含的最后一个实体ID，本轮写完后作为检查点 */
+        private long submittedThrough;
+
+        PassRunner(RelationRebuildType type, RelationRebuildRequest request, RateLimiter limiter,
+                PassProgress pass) {
+            this.type = type;
+            this.target = targets.get(type);
+            this.request = request;
+            this.limiter = limiter;
+            this.pass = pass;
+            this.checkpointKey = CHECKPOINT_PREFIX + type.name().toLowerCase();
+        }
+
+        void run() {
+            Long saved = request.isResume() ? boundUtil.get(checkpointKey, Long.class) : null;
+            long afterId = saved != null ? saved : 0L;
+            pass.checkpoint = afterId;
+            submittedThrough = afterId;
+            pass.state = "RUNNING";
+            pass.startTime = System.currentTimeMillis();
+            log.info("Rebuilding {} ({}) from entity id > {}", type, type.getDescription(), afterId);
+
+            streamingTransaction.execute(status -> {
+                try (Cursor<RelationRow> cursor = target.streamer.apply(afterId)) {
+                    consume(cursor);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+
+            if (!request.isDryRun()) {
+                boundUtil.del(checkpointKey);
+            }
+            pass.state = "COMPLETED";
+            pass.endTime = System.currentTimeMillis();
+            log.info("Rebuilt {}: {}", type, pass.toMap());
+        }
+
+        private void consume(Cursor<RelationRow> cursor) {
+            List<RebuildGroup> chunk = new ArrayList<>();
+            int chunkSize = 0;
+            long completedThrough = submittedThrough;
+            RebuildGroup group = null;
+            for (RelationRow row : cursor) {
+                long entityId = row.getEntityId();
+                if (group != null && group.entityId != entityId) {
+                    // 上一个实体已读完
+                    if (group.size > 0) {
+                        chunk.add(group);
+                        chunkSize += group.size;
+                    }
+                    completedThrough = group.entityId;
+                    pass.entities.incrementAndGet();
+                    group = null;
+                    if (chunk.size() >= chunkEntities || chunkSize >= chunkMembers) {
+                        submit(chunk, chunkSize, completedThrough);
+                        chunk = new ArrayList<>();
+                        chunkSize = 0;
+                    }
+                }
+                if (group == null) {
+                    group = new RebuildGroup(entityId, true);
+                }
+                group.add(row.getMemberId(), row.getCreatedAt() != null ? row.getCreatedAt() : 0L);
+                pass.rows.incrementAndGet();
+
+                if (group.size >= chunkMembers) {
+                    // 超大实体拆段：等之前的分块写完，保证同一实体的各段按顺序写入（replace 模式只在第一段删除）
+                    chunk.add(group);
+                    submit(chunk, chunkSize + group.size, completedThrough);
+                    drainWave();
+                    chunk = new ArrayList<>();
+                    chunkSize = 0;
+                    group = new RebuildGroup(entityId, false);
+                }
+            }
+            if (group != null) {
+                if (group.size > 0) {
+                    chunk.add(group);
+                    chunkSize += group.size;
+                }
+                completedThrough = group.entityId;
+                pass.entities.incrementAndGet();
+            }
+            if (!chunk.isEmpty() || completedThrough != submittedThrough) {
+                submit(chunk, chunkSize, completedThrough);
+            }
+            drainWave();
+        }
+
+        private void submit(List<RebuildGroup> chunk, int rows, long completedThrough) {
+            if (limiter != null && rows > 0) {
+                limiter.acquire(rows);
+            }
+            submittedThrough = completedThrough;
+            if (request.isDryRun() || chunk.isEmpty()) {
+                return;
+            }
+            wave.add(writers.submit(() -> {
+                writeChunk(type, target, chunk, request.isReplace());
+                pass.chunks.incrementAndGet();
+            }));
+            if (wave.size() >= parallelism) {
+                drainWave();
+            }
+        }
+
+        /**
+         * 等待本轮分块写完，然后推进检查点
+         */
+        private void drainWave() {
+            try {
+                for (Future<?> future : wave) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Relation rebuild interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to write relation chunk of " + type, e.getCause());
+            } finally {
+                wave.clear();
+            }
+            if (!request.isDryRun() && submittedThrough != pass.checkpoint) {
+                boundUtil.set(checkpointKey, submittedThrough);
+            }
+            pass.checkpoint = submittedThrough;
+        }
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 管道写入一个分块：集合成员、时间索引，删除摘要，然后回填计数
+     * 位图模式下帖子的点赞/收藏用户改为导入位图：replace 模式先删除旧位图，并集模式先合并尚未迁移的旧版 Set
+     */
+    private void writeChunk(RelationRebuildType type, RebuildTarget target, List<RebuildGroup> chunk,
+            boolean replace) {
+        int[] shardCounts = type == RelationRebuildType.FOLLOWERS ? followerShardCounts(chunk) : null;
+        boolean bitmap = usesBitmap(target);
+        if (bitmap && replace) {
+            for (RebuildGroup group : chunk) {
+                if (group.first) {
+                    bitmapService.delete(target.bitmapPrefix + group.entityId);
+                }
+            }
+        }
+        boundUtil.executePipelined(operations -> {
+            for (int i = 0; i < chunk.size(); i++) {
+                RebuildGroup group = chunk.get(i);
+                List<String> setKeys = setKeys(target, group.entityId, shardCounts != null ? shardCounts[i] : 0);
+                String timeKey = target.timePrefix != null ? target.timePrefix + group.entityId : null;
+                if (replace && group.first) {
+                    operations.delete(setKeys);
+                    if (timeKey != null) {
+                        operations.delete(timeKey);
+                    }
+                }
+                if (!bitmap) {
+                    addMembers(operations, setKeys, group);
+                }
+                if (timeKey != null) {
+                    Set<TypedTuple<Object>> tuples = new HashSet<>(group.size * 4 / 3 + 1);
+                    for (int j = 0; j < group.size; j++) {
+                        tuples.add(new DefaultTypedTuple<>((Object) group.members[j], (double) group.times[j]));
+                    }
+                    operations.opsForZSet().add(timeKey, tuples);
+                }
+                if (target.digestPrefix != null) {
+                    operations.delete(target.digestPrefix + group.entityId);
+                }
+            }
+        });
+        if (bitmap) {
+            for (RebuildGroup group : chunk) {
+                String bitmapKey = target.bitmapPrefix + group.entityId;
+                if (!replace) {
+                    bitmapService.migrateIfPresent(target.setPrefix + group.entityId, bitmapKey);
+                }
+                List<Long> ids = new ArrayList<>(group.size);
+                for (int j = 0; j < group.size; j++) {
+                    ids.add(group.members[j]);
+                }
+                bitmapService.importIds(bitmapKey, ids);
+            }
+        }
+        writeCounters(target, chunk, shardCounts);
+    }
+
+    private boolean usesBitmap(RebuildTarget target) {
+        return target.bitmapPrefix != null && bitmapService.isEnabled();
+    }
+
+    /**
+     * 成员写入对应的集合，已分片的粉丝列表按 followerId % 分片数 写入分片
+     */
+    private void addMembers(RedisOperations<String, Object> operations, List<String> setKeys, RebuildGroup group) {
+        if (setKeys.size() == 1) {
+            Object[] members = new Object[group.size];
+            for (int j = 0; j < group.size; j++) {
+                members[j] = group.members[j];
+            }
+            operations.opsForSet().add(setKeys.get(0), members);
+            return;
+        }
+        List<List<Object>> buckets = new ArrayList<>(setKeys.size());
+        for (int s = 0; s < setKeys.size(); s++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (int j = 0; j < group.size; j++) {
+            buckets.get((int) Math.floorMod(group.members[j], (long) setKeys.size())).add(group.members[j]);
+        }
+        for (int s = 0; s < setKeys.size(); s++) {
+            if (!buckets.get(s).isEmpty()) {
+                operations.opsForSet().add(setKeys.get(s), buckets.get(s).toArray());
+            }
+        }
+    }
+
+    /**
+     * 回填计数：Set 存储时以 SCARD 为准（并集补全后包含未落库的新关系），
+     * 位图存储时以位图基数为准（与读取路径的 getLikeCount/getFavoriteCount 同源）
+     */
+    private void writeCounters(RebuildTarget target, List<RebuildGroup> chunk, int[] shardCounts) {
+        if (usesBitmap(target)) {
+            writeBitmapCounters(target, chunk);
+            return;
+        }
+        boolean countByCard = target.counterPrefix != null;
+        List<String> cardKeys = new ArrayList<>();
+        int[] keyCounts = new int[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            boolean sharded = shardCounts != null && shardCounts[i] > 0;
+            if (countByCard || sharded) {
+                List<String> keys = setKeys(target, chunk.get(i).entityId, sharded ? shardCounts[i] : 0);
+                cardKeys.addAll(keys);
+                keyCounts[i] = keys.size();
+            }
+        }
+        if (target.counterPrefix == null && cardKeys.isEmpty()) {
+            return;
+        }
+
+        List<Object> cards = cardKeys.isEmpty()
+                ? Collections.emptyList()
+                : boundUtil.executePipelined(operations -> {
+                    for (String key : cardKeys) {
+                        operations.opsForSet().size(key);
+                    }
+                });
+        boundUtil.executePipelined(operations -> {
+            int offset = 0;
+            for (int i = 0; i < chunk.size(); i++) {
+                RebuildGroup group = chunk.get(i);
+                long total = 0;
+                for (int k = 0; k < keyCounts[i]; k++) {
+                    Object card = cards.get(offset++);
+                    total += card instanceof Number ? ((Number) card).longValue() : 0L;
+                }
+                if (target.counterPrefix != null) {
+                    operations.opsForValue().set(target.counterPrefix + group.entityId, total);
+                } else if (keyCounts[i] > 0) {
+                    operations.opsForHash().put(followerShardMetaKey(group.entityId), "count", total);
+                }
+            }
+        });
+    }
+
+    /**
+     * 位图模式：计数取位图元数据中的总基数（一次管道读取），同一实体的多段写入以最后一段为准
+     */
+    private void writeBitmapCounters(RebuildTarget target, List<RebuildGroup> chunk) {
+        List<String> bitmapKeys = new ArrayList<>(chunk.size());
+        for (RebuildGroup group : chunk) {
+            bitmapKeys.add(target.bitmapPrefix + group.entityId);
+        }
+        List<Long> totals = bitmapService.batchCardinality(bitmapKeys,
+                Collections.nCopies(bitmapKeys.size(), (String) null));
+        boundUtil.executePipelined(operations -> {
+            for (int i = 0; i < chunk.size(); i++) {
+                operations.opsForValue().set(target.counterPrefix + chunk.get(i).entityId, totals.get(i));
+            }
+        });
+    }
+
+    /**
+     * 管道读取分块内每个用户的粉丝分片数，未分片为0
+     */
+    private int[] followerShardCounts(List<RebuildGroup> chunk) {
+        List<Object> shards = boundUtil.executePipelined(operations -> {
+            for (RebuildGroup group : chunk) {
+                operations.opsForHash().get(followerShardMetaKey(group.entityId), "shards");
+            }
+        });
+        int[] counts = new int[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            Object value = shards.get(i);
+            counts[i] = value instanceof Number ? ((Number) value).intValue() : 0;
+        }
+        return counts;
+    }
+
+    private List<String> setKeys(RebuildTarget target, long entityId, int shardCount) {
+        if (shardCount <= 0) {
+            return Collections.singletonList(target.setPrefix + entityId);
+        }
+        List<String> keys = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            keys.add(target.setPrefix + entityId + FOLLOWER_SHARD_INFIX + i);
+        }
+        return keys;
+    }
+
+    private String followerShardMetaKey(long userId) {
+        return USER_FOLLOWER_PREFIX + userId + FOLLOWER_SHARD_META_SUFFIX;
+    }
+}
@@ -1,33 +1,45 @@
 package com.wait.service.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import com.wait.config.script.RelationScripts;
-import com.wait.entity.domain.UserBase;
-import com.wait.service.HotRankingService;
-import com.wait.service.NotificationService;
-import com.wait.service.PostService;
-import com.wait.service.RankingService;
+import com.wait.entity.dto.BitmapMemoryReport;
+import com.wait.entity.dto.CursorPage;
+import com.wait.entity.dto.RelationEvent;
+import com.wait.entity.type.RelationEventType;
+import com.wait.service.RelationBitmapService;
+import com.wait.service.RelationEventService;
 import com.wait.service.RelationPersistenceService;
 import com.wait.service.RelationService;
-import com.wait.service.StatisticsService;
-import com.wait.service.UserService;
+import com.wait.service.RelationSetArrayService;
+import com.wait.service.TimelineSortedSetService;
 import com.wait.util.BoundUtil;
+import com.wait.util.ScoreCursor;
+import com.wait.util.SortedLongArrays;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 关系服务实现 - 使用 Redis Set 实现关注、点赞、收藏等功能
  * 使用 Lua 脚本确保多条 Redis 命令的原子性
+ * 大V粉丝列表超过阈值后拆分为 N 个分片 Set（user:follower:{id}:s:{followerId % N}），读写接口对分片透明
+ * 开启 relation.storage.bitmap.enabled 后，帖子的点赞用户改用压缩位图存储（见 RelationBitmapService）；
+ * 收藏始终使用 Set：校验以用户收藏 Set 为准，且与收藏时间索引、摘要在同一个 Lua 脚本中原子更新
+ * 关系变更后的排行榜、热度、统计和通知等副作用投递到事件管道异步批量处理（见 RelationEventService）
+ * 共同关注、共同粉丝等集合运算在进程内对有序 long[] 求交/差/并（见 RelationSetArrayService、SortedLongArrays）
  */
 @Slf4j
 @Service
@@ -36,27 +48,22 @@ public class RelationServiceImpl implements RelationService {
     private final BoundUtil boundUtil;
     private final RelationScripts relationScripts;
     private final RelationPersistenceService persistenceService;
-    private final RankingService rankingService;
-    private final HotRankingService hotRankingService;
-    private final NotificationService notificationService;
-    private final PostService postService;
-    private final UserService userService;
-    private final StatisticsService statisticsService;
+    private final RelationBitmapService bitmapService;
+    private final RelationEventService eventService;
+    private final RelationSetArrayService setArrayService;
+    private final TimelineSortedSetService timelineService;
 
     public RelationServiceImpl(BoundUtil boundUtil, RelationScripts relationScripts,
-            RelationPersistenceService persistenceService, RankingService rankingService,
-            HotRankingService hotRankingService, NotificationService notificationService,
-            @Lazy PostService postService, UserService userService,
-            StatisticsService statisticsService) {
+            RelationPersistenceService persistenceService, RelationBitmapService bitmapService,
+            RelationEventService eventService, RelationSetArrayService setArrayService,
+            @Lazy TimelineSortedSetService timelineService) {
         this.boundUtil = boundUtil;
         this.relationScripts = relationScripts;
         this.persistenceService = persistenceService;
-        this.rankingService = rankingService;
-        this.hotRankingService = hotRankingService;
-        this.notificationService = notificationService;
-        this.postService = postService;
-        this.userService = userService;
-        this.statisticsService = statisticsService;
+        this.bitmapService = bitmapService;
+        this.eventService = eventService;
+        this.setArrayService = setArrayService;
+        this.timelineService = timelineService;
     }
 
     // Redis Key 前缀
@@ -70,6 +77,36 @@ public class RelationServiceImpl implements RelationService {
     private static final String POST_FAVORITE_COUNT_PREFIX = "post:favorite_count:";
     private static final String USER_BLACKLIST_PREFIX = "user:blacklist:";
     private static final String USER_BLOCKED_BY_PREFIX = "user:blocked_by:";
+    // 时间索引（ZSet，score 为关系建立时间），用于按时间倒序的游标分页
+    private static final String USER_FOLLOW_TIME_PREFIX = "user:follow:time:";
+    private static final String USER_FAVORITE_TIME_PREFIX = "user:favorite:time:";
+    // 游标前缀：z 时间索引 seek 游标，s SSCAN 游标，h 分片 SSCAN 游标，b 位图 id 游标
+    private static final String CURSOR_TIME = "z:";
+    private static final String CURSOR_SCAN = "s:";
+    private static final String CURSOR_SHARD = "h:";
+    private static final String CURSOR_BITMAP = "b:";
+    // 位图存储模式下的 key 前缀（不能以 post:like: 开头，避免与旧版 Set 的 SCAN 模式冲突）
+    private static final String POST_LIKE_BITMAP_PREFIX = "post:like_bm:";
+    // 关系摘要（Hash：count/sum/xor），由 Lua 脚本增量维护，用于与数据库快速比对一致性
+    private static final String DIGEST_LIKE_PREFIX = "relation:digest:like:";
+    private static final String DIGEST_FAVORITE_PREFIX = "relation:digest:favorite:";
+    private static final String DIGEST_FOLLOW_PREFIX = "relation:digest:follow:";
+    private static final String DIGEST_BLOCK_PREFIX = "relation:digest:block:";
+    // 粉丝分片：元数据 hash（shards 分片数，count 总数）和分片 Set 的后缀
+    private static final String FOLLOWER_SHARD_META_SUFFIX = ":meta";
+    private static final String FOLLOWER_SHARD_INFIX = ":s:";
+    // 进程内有序数组缓存 key
+    private static final String ARRAY_FOLLOWING = "following:";
+    private static final String ARRAY_FOLLOWERS = "followers:";
+    private static final String ARRAY_BLOCK_RELATIONS = "block-relations:";
+
+    /** 粉丝列表拆分阈值：未分片的粉丝 Set 超过该数量后拆分 */
+    @Value("${relation.follower.shard.threshold:10000}")
+    private int followerShardThreshold;
+
+    /** 粉丝分片数量（拆分后写入元数据，已拆分的用户以元数据为准，不应修改） */
+    @Value("${relation.follower.shard.count:16}")
+    private int followerShardCount;
 
     // ==================== 关注相关 ====================
 
@@ -87,11 +124,22 @@ public class RelationServiceImpl implements RelationService {
         List<String> keys = new ArrayList<>();
         keys.add(USER_FOLLOW_PREFIX + followerId);
         keys.add(USER_FOLLOWER_PREFIX + followedId);
+        keys.add(followerShardMetaKey(followedId));
+        keys.add(followerShardKey(followedId, followerId, getFollowerShardCount(followedId)));
+        keys.add(USER_FOLLOW_TIME_PREFIX + followerId);
+        keys.add(DIGEST_FOLLOW_PREFIX + followerId);
 
-        Long added = relationScripts.executeScript(RelationScripts.FOLLOW, keys, followedId, followerId);
+        Long added = relationScripts.executeScript(RelationScripts.FOLLOW, keys, followedId, followerId,
+                followerShardThreshold, System.currentTimeMillis());
 
         if (added != null && added > 0) {
             log.info("user {} follows user {}", followerId, followedId);
+            setArrayService.invalidate(ARRAY_FOLLOWING + followerId, ARRAY_FOLLOWERS + followedId);
+
+            // 粉丝列表超过阈值，拆分为分片 Set
+            if (added == 2) {
+                splitFollowerSet(followedId);
+            }
 
             // Write-Through: 立即持久化到数据库
             try {
@@ -101,22 +149,8 @@ public class RelationServiceImpl implements RelationService {
                 log.error("Failed to persist follow to DB, but Redis operation succeeded", e);
             }
 
-            // 异步发送关注通知给被关注的用户
-            try {
-                UserBase follower = userService.findById(followerId);
-                String followerName = follower != null && follower.getUsername() != null
-                        ? follower.getUsername()
-                        : "用户" + followerId;
-                notificationService.sendNotificationAsync(
-                        followedId,
-                        "follow",
-                        String.format("%s关注了你", followerName),
-                        followerId);
-            } catch (Exception e) {
-                // 通知发送失败不影响主流程
-                log.error("Failed to send follow notification: follower={}, followed={}",
-                        followerId, followedId, e);
-            }
+            // 关注通知由事件管道批量合并发送
+            eventService.publish(event(RelationEventType.FOLLOW, followerId, followedId));
 
             return true;
         }
@@ -134,11 +168,16 @@ public class RelationServiceImpl implements RelationService {
         List<String> keys = new ArrayList<>();
         keys.add(USER_FOLLOW_PREFIX + followerId);
         keys.add(USER_FOLLOWER_PREFIX + followedId);
+        keys.add(followerShardMetaKey(followedId));
+        keys.add(followerShardKey(followedId, followerId, getFollowerShardCount(followedId)));
+        keys.add(USER_FOLLOW_TIME_PREFIX + followerId);
+        keys.add(DIGEST_FOLLOW_PREFIX + followerId);
 
         Long removed = relationScripts.executeScript(RelationScripts.UNFOLLOW, keys, followedId, followerId);
 
         if (removed != null && removed > 0) {
             log.info("user {} unfollows user {}", followerId, followedId);
+            setArrayService.invalidate(ARRAY_FOLLOWING + followerId, ARRAY_FOLLOWERS + followedId);
 
             // Write-Through: 立即持久化到数据库
             try {
@@ -146,6 +185,7 @@ public class RelationServiceImpl implements RelationService {
             } catch (Exception e) {
                 log.error("Failed to persist unfollow to DB, but Redis operation succeeded", e);
             }
+            eventService.publish(event(RelationEventType.UNFOLLOW, followerId, followedId));
 
             return true;
         }
@@ -175,7 +215,16 @@ public class RelationServiceImpl implements RelationService {
         if (userId == null) {
             return Collections.emptySet();
         }
-        return boundUtil.sMembers(USER_FOLLOWER_PREFIX + userId, Long.class);
+        int shardCount = getFollowerShardCount(userId);
+        if (shardCount == 0) {
+            return boundUtil.sMembers(USER_FOLLOWER_PREFIX + userId, Long.class);
+        }
+        // 逐个分片读取，避免一次 SMEMBERS 大 key 阻塞 Redis
+        Set<Long> followers = new HashSet<>();
+        for (String shardKey : followerShardKeys(userId, shardCount)) {
+            followers.addAll(boundUtil.sMembers(shardKey, Long.class));
+        }
+        return followers;
     }
 
     @Override
@@ -191,6 +240,12 @@ public class RelationServiceImpl implements RelationService {
         if (userId == null) {
             return 0L;
         }
+        Map<String, Long> meta = boundUtil.hEntries(followerShardMetaKey(userId), Long.class);
+        if (!meta.isEmpty()) {
+            // 已分片：总数由 Lua 脚本维护在元数据中
+            Long count = meta.get("count");
+            return count != null ? count : 0L;
+        }
         return boundUtil.sCard(USER_FOLLOWER_PREFIX + userId);
     }
 
@@ -199,11 +254,24 @@ public class RelationServiceImpl implements RelationService {
         if (userId1 == null || userId2 == null) {
             return Collections.emptySet();
         }
-        // 使用交集运算获取共同关注
-        return boundUtil.sIntersect(
-                USER_FOLLOW_PREFIX + userId1,
-                USER_FOLLOW_PREFIX + userId2,
-                Long.class);
+        return SortedLongArrays.toSet(SortedLongArrays.intersect(getFollowingIds(userId1), getFollowingIds(userId2)));
+    }
+
+    @Override
+    public List<Long> getMutualFollowing(Long userId1, Long userId2, int limit) {
+        if (userId1 == null || userId2 == null) {
+            return Collections.emptyList();
+        }
+        return SortedLongArrays.toList(
+                SortedLongArrays.intersect(getFollowingIds(userId1), getFollowingIds(userId2), limit));
+    }
+
+    @Override
+    public long getMutualFollowingCount(Long userId1, Long userId2) {
+        if (userId1 == null || userId2 == null) {
+            return 0L;
+        }
+        return SortedLongArrays.intersectCount(getFollowingIds(userId1), getFollowingIds(userId2));
     }
 
     @Override
@@ -217,12 +285,12 @@ public class RelationServiceImpl implements RelationService {
             return Collections.emptySet();
         }
 
-        // 使用 SINTER 获取多个用户的共同关注
-        List<String> keys = userIds.stream()
-                .map(userId -> USER_FOLLOW_PREFIX + userId)
-                .collect(Collectors.toList());
-
-        return boundUtil.sIntersect(keys, Long.class);
+        // 从最小的关注列表开始逐个求交集
+        List<long[]> arrays = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            arrays.add(getFollowingIds(userId));
+        }
+        return SortedLongArrays.toSet(SortedLongArrays.intersectAll(arrays));
     }
 
     @Override
@@ -231,11 +299,8 @@ public class RelationServiceImpl implements RelationService {
             return Collections.emptySet();
         }
 
-        // 使用 SDIFF 获取用户1关注但用户2未关注的用户
-        return boundUtil.sDifference(
-                USER_FOLLOW_PREFIX + userId1,
-                USER_FOLLOW_PREFIX + userId2,
-                Long.class);
+        // 用户1关注但用户2未关注的用户
+        return SortedLongArrays.toSet(SortedLongArrays.difference(getFollowingIds(userId1), getFollowingIds(userId2)));
     }
 
     @Override
@@ -243,12 +308,7 @@ public class RelationServiceImpl implements RelationService {
         if (userId1 == null || userId2 == null) {
             return Collections.emptySet();
         }
-
-        // 使用 SUNION 获取两个用户的所有关注
-        return boundUtil.sUnion(
-                USER_FOLLOW_PREFIX + userId1,
-                USER_FOLLOW_PREFIX + userId2,
-                Long.class);
+        return SortedLongArrays.toSet(SortedLongArrays.union(getFollowingIds(userId1), getFollowingIds(userId2)));
     }
 
     @Override
@@ -256,12 +316,244 @@ public class RelationServiceImpl implements RelationService {
         if (userId1 == null || userId2 == null) {
             return Collections.emptySet();
         }
+        return SortedLongArrays.toSet(SortedLongArrays.intersect(getFollowerIds(userId1), getFollowerIds(userId2)));
+    }
+
+    @Override
+    public long getMutualFollowerCount(Long userId1, Long userId2) {
+        if (userId1 == null || userId2 == null) {
+            return 0L;
+        }
+        return SortedLongArrays.intersectCount(getFollowerIds(userId1), getFollowerIds(userId2));
+    }
+
+    @Override
+    public long[] getFollowingIds(Long userId) {
+        if (userId == null) {
+            return SortedLongArrays.EMPTY;
+        }
+        return setArrayService.members(ARRAY_FOLLOWING + userId,
+                Collections.singletonList(USER_FOLLOW_PREFIX + userId));
+    }
+
+    @Override
+    public long[] getFollowerIds(Long userId) {
+        if (userId == null) {
+            return SortedLongArrays.EMPTY;
+        }
+        int shardCount = getFollowerShardCount(userId);
+        List<String> keys = shardCount == 0
+                ? Collections.singletonList(USER_FOLLOWER_PREFIX + userId)
+                : followerShardKeys(userId, shardCount);
+        return setArrayService.members(ARRAY_FOLLOWERS + userId, keys);
+    }
+
+    /**
+     * 拆分粉丝列表为分片 Set
+     * 拆分失败不影响关注结果，下次关注时会再次触发
+     */
+    private void splitFollowerSet(Long userId) {
+        try {
+            List<String> keys = new ArrayList<>();
+            keys.add(USER_FOLLOWER_PREFIX + userId);
+            keys.add(followerShardMetaKey(userId));
+            keys.addAll(followerShardKeys(userId, followerShardCount));
+
+            Long moved = relationScripts.executeScript(RelationScripts.SPLIT_FOLLOWER_SET, keys);
+            log.info("Split follower set of user {} into {} shards, moved: {}", userId, followerShardCount, moved);
+        } catch (Exception e) {
+            log.error("Failed to split follower set of user {}", userId, e);
+        }
+    }
+
+    /**
+     * 获取粉丝分片数，未分片返回0
+     */
+    private int getFollowerShardCount(Long userId) {
+        Map<String, Long> meta = boundUtil.hEntries(followerShardMetaKey(userId), Long.class);
+        Long shards = meta.get("shards");
+        return shards != null ? shards.intValue() : 0;
+    }
+
+    /**
+     * 拉黑关系变化后，双方首页收件箱中可能包含（或缺少）对方的帖子，使其失效后重建
+     */
+    private void invalidateTimelineInbox(Long userId, Long otherUserId) {
+        try {
+            timelineService.invalidateInbox(userId, otherUserId);
+        } catch (Exception e) {
+            log.error("Failed to invalidate timeline inboxes of user {} and {}", userId, otherUserId, e);
+        }
+    }
+
+    private String followerShardMetaKey(Long userId) {
+        return USER_FOLLOWER_PREFIX + userId + FOLLOWER_SHARD_META_SUFFIX;
+    }
+
+    /**
+     * 粉丝所在分片 key，分片规则与 Lua 脚本一致：followerId % shardCount
+     * 未分片时（shardCount 为0）按配置的分片数计算，仅作为脚本参数占位
+     */
+    private String followerShardKey(Long userId, Long followerId, int shardCount) {
+        int count = shardCount > 0 ? shardCount : followerShardCount;
+        return USER_FOLLOWER_PREFIX + userId + FOLLOWER_SHARD_INFIX + Math.floorMod(followerId, (long) count);
+    }
+
+    private List<String> followerShardKeys(Long userId, int shardCount) {
+        List<String> keys = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            keys.add(USER_FOLLOWER_PREFIX + userId + FOLLOWER_SHARD_INFIX + i);
+        }
+        return keys;
+    }
+
+    @Override
+    public CursorPage<Long> getFollowingPage(Long userId, String cursor, int pageSize) {
+        if (userId == null) {
+            return emptyPage();
+        }
+        return timeIndexedPage(USER_FOLLOW_TIME_PREFIX + userId, USER_FOLLOW_PREFIX + userId, cursor, pageSize);
+    }
 
-        // 使用 SINTER 获取两个用户的共同粉丝
-        return boundUtil.sIntersect(
-                USER_FOLLOWER_PREFIX + userId1,
-                USER_FOLLOWER_PREFIX + userId2,
-                Long.class);
+    @Override
+    public CursorPage<Long> getFollowersPage(Long userId, String cursor, int pageSize) {
+        if (userId == null) {
+            return emptyPage();
+        }
+        int shardCount = getFollowerShardCount(userId);
+        if (shardCount == 0 && (cursor == null || cursor.startsWith(CURSOR_SCAN))) {
+            return scanPage(USER_FOLLOWER_PREFIX + userId, cursor, pageSize);
+        }
+
+        // 已分片：游标格式 h:{分片编号}:{SSCAN游标}，依次遍历每个分片
+        int shard = 0;
+        String scanCursor = "0";
+        if (cursor != null && cursor.startsWith(CURSOR_SHARD)) {
+            String[] parts = cursor.substring(CURSOR_SHARD.length()).split(":", 2);
+            if (parts.length != 2 || !isUnsignedNumber(parts[0]) || !isUnsignedNumber(parts[1])
+                    || parts[0].length() > 9) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            shard = Integer.parseInt(parts[0]);
+            scanCursor = parts[1];
+        }
+        List<Long> items = new ArrayList<>();
+        while (shard < shardCount && items.size() < pageSize) {
+            String shardKey = USER_FOLLOWER_PREFIX + userId + FOLLOWER_SHARD_INFIX + shard;
+            scanCursor = sscan(shardKey, scanCursor, pageSize - items.size(), items);
+            if ("0".equals(scanCursor)) {
+                shard++;
+            }
+        }
+        String nextCursor = shard < shardCount ? CURSOR_SHARD + shard + ":" + scanCursor : null;
+        return CursorPage.<Long>builder().items(items).nextCursor(nextCursor).hasMore(nextCursor != null).build();
+    }
+
+    // ==================== 游标分页 ====================
+
+    /**
+     * 优先按时间索引倒序分页（seek 游标：z:{score}:{member}）
+     * 时间索引与 Set 数量不一致（历史数据尚未建立索引）时回退到 SSCAN 游标，顺序不保证
+     */
+    private CursorPage<Long> timeIndexedPage(String timeKey, String setKey, String cursor, int pageSize) {
+        boolean useTimeIndex;
+        if (cursor == null) {
+            Long indexed = boundUtil.zCard(timeKey);
+            Long total = boundUtil.sCard(setKey);
+            useTimeIndex = indexed != null && indexed > 0 && indexed.equals(total);
+        } else {
+            useTimeIndex = cursor.startsWith(CURSOR_TIME);
+        }
+        if (!useTimeIndex) {
+            return scanPage(setKey, cursor, pageSize);
+        }
+
+        ScoreCursor seek = cursor != null ? ScoreCursor.parse(cursor.substring(CURSOR_TIME.length())) : null;
+        Double cursorScore = seek != null ? seek.getScore() : null;
+        String cursorMember = seek != null ? seek.getMember() : null;
+        // 多取一个用于判断是否还有下一页
+        Map<Long, Double> entries = boundUtil.zRevRangeByScoreAfter(timeKey, cursorScore, cursorMember,
+                pageSize + 1, Long.class);
+        List<Long> items = new ArrayList<>(pageSize);
+        String nextCursor = null;
+        for (Map.Entry<Long, Double> entry : entries.entrySet()) {
+            if (items.size() == pageSize) {
+                Long last = items.get(items.size() - 1);
+                nextCursor = CURSOR_TIME + entries.get(last).longValue() + ":" + last;
+                break;
+            }
+            items.add(entry.getKey());
+        }
+        return CursorPage.<Long>builder().items(items).nextCursor(nextCursor).hasMore(nextCursor != null).build();
+    }
+
+    /**
+     * SSCAN 游标分页（游标：s:{SSCAN游标}），每页数量为近似值
+     */
+    private CursorPage<Long> scanPage(String setKey, String cursor, int pageSize) {
+        String scanCursor = cursor != null && cursor.startsWith(CURSOR_SCAN)
+                ? cursor.substring(CURSOR_SCAN.length())
+                : "0";
+        if (!isUnsignedNumber(scanCursor)) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        List<Long> items = new ArrayList<>();
+        String next = sscan(setKey, scanCursor, pageSize, items);
+        String nextCursor = "0".equals(next) ? null : CURSOR_SCAN + next;
+        return CursorPage.<Long>builder().items(items).nextCursor(nextCursor).hasMore(nextCursor != null).build();
+    }
+
+    /**
+     * 游标中的分片编号、SSCAN 游标和用户ID只能是非负十进制整数，格式错误时由调用方抛出 IllegalArgumentException（返回 400）
+     */
+    private static boolean isUnsignedNumber(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 执行一次 SSCAN 分页脚本，成员追加到 items，返回下一次的 SSCAN 游标
+     */
+    private String sscan(String setKey, String scanCursor, int count, List<Long> items) {
+        List<Object> reply = relationScripts.executeScript(RelationScripts.SSCAN_PAGE,
+                Collections.singletonList(setKey), scanCursor, count);
+        if (reply == null || reply.isEmpty()) {
+            return "0";
+        }
+        for (int i = 1; i < reply.size(); i++) {
+            items.add(Long.valueOf(String.valueOf(reply.get(i))));
+        }
+        return String.valueOf(reply.get(0));
+    }
+
+    /**
+     * 位图存储模式不经过集合写入脚本，单独维护摘要
+     * 失败只会导致摘要与数据库不一致，由校验任务全量比对后重建，不影响主流程
+     */
+    private void updateDigest(String digestKey, Long memberId, boolean add) {
+        try {
+            relationScripts.executeScript(RelationScripts.DIGEST_UPDATE, Collections.singletonList(digestKey),
+                    memberId, add ? 1 : -1);
+        } catch (Exception e) {
+            log.error("Failed to update relation digest {}", digestKey, e);
+        }
+    }
+
+    private RelationEvent event(RelationEventType type, Long actorId, Long targetId) {
+        return RelationEvent.builder().type(type).actorId(actorId).targetId(targetId)
+                .timestamp(System.currentTimeMillis()).build();
+    }
+
+    private CursorPage<Long> emptyPage() {
+        return CursorPage.<Long>builder().items(Collections.emptyList()).hasMore(false).build();
     }
 
     // ==================== 点赞相关 ====================
@@ -272,14 +564,26 @@ public class RelationServiceImpl implements RelationService {
             throw new IllegalArgumentException("user id or post id is null");
         }
 
-        // 使用 Lua 脚本原子性地执行点赞操作
-        // 存储帖子点赞用户是为了展示头像，提供朋友共同点赞功能
-        List<String> keys = new ArrayList<>();
-        keys.add(POST_LIKE_PREFIX + postId);
-        keys.add(USER_LIKE_PREFIX + userId);
-        keys.add(POST_LIKE_COUNT_PREFIX + postId);
-
-        Long added = relationScripts.executeScript(RelationScripts.LIKE_POST, keys, userId, postId);
+        Long added;
+        if (bitmapService.isEnabled()) {
+            // 位图模式：先惰性迁移旧版 Set，再原子地更新位图、用户点赞列表和计数
+            bitmapService.migrateIfPresent(POST_LIKE_PREFIX + postId, POST_LIKE_BITMAP_PREFIX + postId);
+            added = bitmapService.add(POST_LIKE_BITMAP_PREFIX + postId, userId,
+                    USER_LIKE_PREFIX + userId, postId, POST_LIKE_COUNT_PREFIX + postId) ? 1L : 0L;
+            if (added > 0) {
+                updateDigest(DIGEST_LIKE_PREFIX + postId, userId, true);
+            }
+        } else {
+            // 使用 Lua 脚本原子性地执行点赞操作
+            // 存储帖子点赞用户是为了展示头像，提供朋友共同点赞功能
+            List<String> keys = new ArrayList<>();
+            keys.add(POST_LIKE_PREFIX + postId);
+            keys.add(USER_LIKE_PREFIX + userId);
+            keys.add(POST_LIKE_COUNT_PREFIX + postId);
+            keys.add(DIGEST_LIKE_PREFIX + postId);
+
+            added = relationScripts.executeScript(RelationScripts.LIKE_POST, keys, userId, postId);
+        }
 
         if (added != null && added > 0) {
             log.info("user {} likes post {}", userId, postId);
@@ -291,45 +595,8 @@ public class RelationServiceImpl implements RelationService {
                         return null;
                     });
 
-            // 新增：更新排行榜和热度分数
-            try {
-                rankingService.onLike(postId);
-                hotRankingService.onLike(postId);
-                log.debug("Updated ranking and hot score for post {} due to like", postId);
-            } catch (Exception e) {
-                log.error("Failed to update ranking/hot score for post {}", postId, e);
-                // 不影响主流程，继续执行
-            }
-
-            // 记录点赞统计
-            try {
-                statisticsService.recordLike(postId, true);
-            } catch (Exception e) {
-                log.error("Failed to record like statistics: postId={}", postId, e);
-            }
-
-            // 异步发送点赞通知给帖子作者
-            try {
-                com.wait.entity.domain.Post post = postService.getPostById(postId);
-                if (post != null) {
-                    Long postAuthorId = post.getUserId();
-                    // 如果不是自己点赞的，发送通知
-                    if (!postAuthorId.equals(userId)) {
-                        com.wait.entity.domain.UserBase liker = userService.findById(userId);
-                        String likerName = liker != null && liker.getUsername() != null
-                                ? liker.getUsername()
-                                : "用户" + userId;
-                        notificationService.sendNotificationAsync(
-                                postAuthorId,
-                                "like",
-                                String.format("%s点赞了你的帖子", likerName),
-                                postId);
-                    }
-                }
-            } catch (Exception e) {
-                // 通知发送失败不影响主流程
-                log.error("Failed to send like notification: user={}, post={}", userId, postId, e);
-            }
+            // 排行榜、热度、统计和通知由事件管道异步合并批量处理
+            eventService.publish(event(RelationEventType.LIKE, userId, postId));
 
             return true;
         }
@@ -343,13 +610,24 @@ public class RelationServiceImpl implements RelationService {
             throw new IllegalArgumentException("user id or post id is null");
         }
 
-        // 使用 Lua 脚本原子性地执行取消点赞操作
-        List<String> keys = new ArrayList<>();
-        keys.add(POST_LIKE_PREFIX + postId);
-        keys.add(USER_LIKE_PREFIX + userId);
-        keys.add(POST_LIKE_COUNT_PREFIX + postId);
-
-        Long removed = relationScripts.executeScript(RelationScripts.UNLIKE_POST, keys, userId, postId);
+        Long removed;
+        if (bitmapService.isEnabled()) {
+            bitmapService.migrateIfPresent(POST_LIKE_PREFIX + postId, POST_LIKE_BITMAP_PREFIX + postId);
+            removed = bitmapService.remove(POST_LIKE_BITMAP_PREFIX + postId, userId,
+                    USER_LIKE_PREFIX + userId, postId, POST_LIKE_COUNT_PREFIX + postId) ? 1L : 0L;
+            if (removed > 0) {
+                updateDigest(DIGEST_LIKE_PREFIX + postId, userId, false);
+            }
+        } else {
+            // 使用 Lua 脚本原子性地执行取消点赞操作
+            List<String> keys = new ArrayList<>();
+            keys.add(POST_LIKE_PREFIX + postId);
+            keys.add(USER_LIKE_PREFIX + userId);
+            keys.add(POST_LIKE_COUNT_PREFIX + postId);
+            keys.add(DIGEST_LIKE_PREFIX + postId);
+
+            removed = relationScripts.executeScript(RelationScripts.UNLIKE_POST, keys, userId, postId);
+        }
 
         if (removed != null && removed > 0) {
             log.info("user {} unlikes post {}", userId, postId);
@@ -362,22 +640,8 @@ public class RelationServiceImpl implements RelationService {
                         return null;
                     });
 
-            // 新增：更新排行榜和热度分数
-            try {
-                rankingService.onUnlike(postId);
-                hotRankingService.onUnlike(postId);
-                log.debug("Updated ranking and hot score for post {} due to unlike", postId);
-            } catch (Exception e) {
-                log.error("Failed to update ranking/hot score for post {}", postId, e);
-                // 不影响主流程，继续执行
-            }
-
-            // 记录取消点赞统计
-            try {
-                statisticsService.recordLike(postId, false);
-            } catch (Exception e) {
-                log.error("Failed to record unlike statistics: postId={}", postId, e);
-            }
+            // 排行榜、热度和统计由事件管道异步合并批量处理
+            eventService.publish(event(RelationEventType.UNLIKE, userId, postId));
 
             return true;
         }
@@ -390,6 +654,9 @@ public class RelationServiceImpl implements RelationService {
         if (userId == null || postId == null) {
             return false;
         }
+        if (bitmapService.isEnabled()) {
+            return bitmapService.contains(POST_LIKE_BITMAP_PREFIX + postId, userId, POST_LIKE_PREFIX + postId);
+        }
         return Boolean.TRUE.equals(
                 boundUtil.sIsMember(POST_LIKE_PREFIX + postId, userId));
     }
@@ -399,29 +666,80 @@ public class RelationServiceImpl implements RelationService {
         if (postId == null) {
             return Collections.emptySet();
         }
+        if (bitmapService.isEnabled()) {
+            return bitmapService.members(POST_LIKE_BITMAP_PREFIX + postId, POST_LIKE_PREFIX + postId);
+        }
         return boundUtil.sMembers(POST_LIKE_PREFIX + postId, Long.class);
     }
 
+    @Override
+    public CursorPage<Long> getLikersPage(Long postId, String cursor, int pageSize) {
+        if (postId == null) {
+            return emptyPage();
+        }
+        String bitmapKey = POST_LIKE_BITMAP_PREFIX + postId;
+        boolean useBitmap = cursor != null
+                ? cursor.startsWith(CURSOR_BITMAP)
+                : bitmapService.isEnabled() && bitmapService.exists(bitmapKey);
+        if (!useBitmap) {
+            return scanPage(POST_LIKE_PREFIX + postId, cursor, pageSize);
+        }
+
+        // 位图按 id 有序，游标即上一页最后一个用户ID（b:{userId}）
+        Long afterId = null;
+        if (cursor != null) {
+            String value = cursor.substring(CURSOR_BITMAP.length());
+            try {
+                afterId = isUnsignedNumber(value) ? Long.valueOf(value) : null;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+            if (afterId == null) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+        List<Long> fetched = bitmapService.membersAfter(bitmapKey, afterId, pageSize + 1);
+        boolean hasMore = fetched.size() > pageSize;
+        List<Long> items = hasMore ? new ArrayList<>(fetched.subList(0, pageSize)) : fetched;
+        String nextCursor = hasMore ? CURSOR_BITMAP + items.get(items.size() - 1) : null;
+        return CursorPage.<Long>builder().items(items).nextCursor(nextCursor).hasMore(hasMore).build();
+    }
+
     @Override
     public Long getLikeCount(Long postId) {
         if (postId == null) {
             return 0L;
         }
+        if (bitmapService.isEnabled()) {
+            return bitmapService.cardinality(POST_LIKE_BITMAP_PREFIX + postId, POST_LIKE_PREFIX + postId);
+        }
         // 优先从 Set 获取准确计数
         return boundUtil.sCard(POST_LIKE_PREFIX + postId);
     }
 
+    @Override
+    public Map<Long, Long> batchGetLikeCounts(List<Long> postIds) {
+        return batchCounts(postIds, POST_LIKE_BITMAP_PREFIX, POST_LIKE_PREFIX);
+    }
+
     @Override
     public Map<Long, Boolean> batchCheckLiked(Long userId, List<Long> postIds) {
         if (userId == null || postIds == null || postIds.isEmpty()) {
             return Collections.emptyMap();
         }
-
-        Map<Long, Boolean> result = new HashMap<>();
-        for (Long postId : postIds) {
-            result.put(postId, isLiked(userId, postId));
+        List<Long> ids = distinctIds(postIds);
+        List<String> setKeys = prefixed(POST_LIKE_PREFIX, ids);
+        List<Boolean> flags;
+        if (bitmapService.isEnabled()) {
+            flags = bitmapService.batchContains(prefixed(POST_LIKE_BITMAP_PREFIX, ids), userId, setKeys);
+        } else {
+            flags = toBooleans(boundUtil.executePipelined(operations -> {
+                for (String setKey : setKeys) {
+                    operations.opsForSet().isMember(setKey, userId);
+                }
+            }));
         }
-        return result;
+        return zip(ids, flags);
     }
 
     @Override
@@ -432,6 +750,23 @@ public class RelationServiceImpl implements RelationService {
         return boundUtil.sMembers(USER_LIKE_PREFIX + userId, Long.class);
     }
 
+    @Override
+    public BitmapMemoryReport migrateLikersToBitmap(Long postId, boolean deleteSource) {
+        if (postId == null) {
+            throw new IllegalArgumentException("post id is null");
+        }
+        return bitmapService.migrateFromSet(POST_LIKE_PREFIX + postId, POST_LIKE_BITMAP_PREFIX + postId,
+                deleteSource);
+    }
+
+    @Override
+    public BitmapMemoryReport getLikersMemoryReport(Long postId) {
+        if (postId == null) {
+            throw new IllegalArgumentException("post id is null");
+        }
+        return bitmapService.memoryReport(POST_LIKE_PREFIX + postId, POST_LIKE_BITMAP_PREFIX + postId);
+    }
+
     // ==================== 收藏相关 ====================
 
     @Override
@@ -440,13 +775,16 @@ public class RelationServiceImpl implements RelationService {
             throw new IllegalArgumentException("user id or post id is null");
         }
 
-        // 使用 Lua 脚本原子性地执行收藏操作
+        // 使用 Lua 脚本原子性地执行收藏操作（收藏不区分存储模式，始终使用 Set）
         List<String> keys = new ArrayList<>();
         keys.add(USER_FAVORITE_PREFIX + userId);
         keys.add(POST_FAVORITED_BY_PREFIX + postId);
         keys.add(POST_FAVORITE_COUNT_PREFIX + postId);
+        keys.add(USER_FAVORITE_TIME_PREFIX + userId);
+        keys.add(DIGEST_FAVORITE_PREFIX + userId);
 
-        Long added = relationScripts.executeScript(RelationScripts.FAVORITE_POST, keys, userId, postId);
+        Long added = relationScripts.executeScript(RelationScripts.FAVORITE_POST, keys, userId, postId,
+                System.currentTimeMillis());
 
         if (added != null && added > 0) {
             log.info("user {} favorites post {}", userId, postId);
@@ -459,49 +797,8 @@ public class RelationServiceImpl implements RelationService {
                         return null;
                     });
 
-            // 新增：更新排行榜和热度分数
-            try {
-                rankingService.onFavorite(postId);
-                hotRankingService.onFavorite(postId);
-                log.debug("Updated ranking and hot score for post {} due to favorite", postId);
-            } catch (Exception e) {
-                log.error("Failed to update ranking/hot score for post {}", postId, e);
-                // 不影响主流程，继续执行
-            }
-
-            // 记录收藏统计
-            try {
-                statisticsService.recordFavorite(postId, true);
-            } catch (Exception e) {
-                log.error("Failed to record favorite statistics: postId={}", postId, e);
-            }
-
-            // 异步发送收藏通知给帖子作者（可选，通常收藏不发送通知，这里提供选项）
-            // 如果需要发送收藏通知，取消下面的注释
-            /*
-             * try {
-             * com.wait.entity.domain.Post post = postService.getPostById(postId);
-             * if (post != null) {
-             * Long postAuthorId = post.getUserId();
-             * // 如果不是自己收藏的，发送通知
-             * if (!postAuthorId.equals(userId)) {
-             * com.wait.entity.domain.UserBase favoriter = userService.findById(userId);
-             * String favoriterName = favoriter != null && favoriter.getUsername() != null
-             * ? favoriter.getUsername() : "用户" + userId;
-             * notificationService.sendNotificationAsync(
-             * postAuthorId,
-             * "favorite",
-             * String.format("%s收藏了你的帖子", favoriterName),
-             * postId
-             * );
-             * }
-             * }
-             * } catch (Exception e) {
-             * // 通知发送失败不影响主流程
-             * log.error("Failed to send favorite notification: user={}, post={}", userId,
-             * postId, e);
-             * }
-             */
+            // 排行榜、热度和统计由事件管道异步合并批量处理
+            eventService.publish(event(RelationEventType.FAVORITE, userId, postId));
 
             return true;
         }
@@ -520,6 +817,8 @@ public class RelationServiceImpl implements RelationService {
         keys.add(USER_FAVORITE_PREFIX + userId);
         keys.add(POST_FAVORITED_BY_PREFIX + postId);
         keys.add(POST_FAVORITE_COUNT_PREFIX + postId);
+        keys.add(USER_FAVORITE_TIME_PREFIX + userId);
+        keys.add(DIGEST_FAVORITE_PREFIX + userId);
 
         Long removed = relationScripts.executeScript(RelationScripts.UNFAVORITE_POST, keys, userId, postId);
 
@@ -534,22 +833,8 @@ public class RelationServiceImpl implements RelationService {
                         return null;
                     });
 
-            // 新增：更新排行榜和热度分数
-            try {
-                rankingService.onUnfavorite(postId);
-                hotRankingService.onUnfavorite(postId);
-                log.debug("Updated ranking and hot score for post {} due to unfavorite", postId);
-            } catch (Exception e) {
-                log.error("Failed to update ranking/hot score for post {}", postId, e);
-                // 不影响主流程，继续执行
-            }
-
-            // 记录取消收藏统计
-            try {
-                statisticsService.recordFavorite(postId, false);
-            } catch (Exception e) {
-                log.error("Failed to record unfavorite statistics: postId={}", postId, e);
-            }
+            // 排行榜、热度和统计由事件管道异步合并批量处理
+            eventService.publish(event(RelationEventType.UNFAVORITE, userId, postId));
 
             return true;
         }
@@ -574,6 +859,15 @@ public class RelationServiceImpl implements RelationService {
         return boundUtil.sMembers(USER_FAVORITE_PREFIX + userId, Long.class);
     }
 
+    @Override
+    public CursorPage<Long> getUserFavoritesPage(Long userId, String cursor, int pageSize) {
+        if (userId == null) {
+            return emptyPage();
+        }
+        return timeIndexedPage(USER_FAVORITE_TIME_PREFIX + userId, USER_FAVORITE_PREFIX + userId, cursor,
+                pageSize);
+    }
+
     @Override
     public Long getFavoriteCount(Long postId) {
         if (postId == null) {
@@ -583,15 +877,77 @@ public class RelationServiceImpl implements RelationService {
         return boundUtil.sCard(POST_FAVORITED_BY_PREFIX + postId);
     }
 
+    @Override
+    public Map<Long, Long> batchGetFavoriteCounts(List<Long> postIds) {
+        return batchCounts(postIds, null, POST_FAVORITED_BY_PREFIX);
+    }
+
     @Override
     public Map<Long, Boolean> batchCheckFavorited(Long userId, List<Long> postIds) {
         if (userId == null || postIds == null || postIds.isEmpty()) {
             return Collections.emptyMap();
         }
+        // 收藏状态以用户收藏 Set 为准，所有帖子查询同一个 key
+        List<Long> ids = distinctIds(postIds);
+        String favoriteKey = USER_FAVORITE_PREFIX + userId;
+        List<Boolean> flags = toBooleans(boundUtil.executePipelined(operations -> {
+            for (Long postId : ids) {
+                operations.opsForSet().isMember(favoriteKey, postId);
+            }
+        }));
+        return zip(ids, flags);
+    }
+
+    /**
+     * 一次管道批量读取帖子维度的计数：位图模式读取元数据总数（回退 SCARD），否则 SCARD
+     * bitmapPrefix 为 null 表示该关系不使用位图存储（如收藏），始终 SCARD
+     */
+    private Map<Long, Long> batchCounts(List<Long> postIds, String bitmapPrefix, String setPrefix) {
+        if (postIds == null || postIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> ids = distinctIds(postIds);
+        List<String> setKeys = prefixed(setPrefix, ids);
+        List<Long> counts = new ArrayList<>(ids.size());
+        if (bitmapPrefix != null && bitmapService.isEnabled()) {
+            counts.addAll(bitmapService.batchCardinality(prefixed(bitmapPrefix, ids), setKeys));
+        } else {
+            List<Object> replies = boundUtil.executePipelined(operations -> {
+                for (String setKey : setKeys) {
+                    operations.opsForSet().size(setKey);
+                }
+            });
+            for (Object reply : replies) {
+                counts.add(reply instanceof Number ? ((Number) reply).longValue() : 0L);
+            }
+        }
+        return zip(ids, counts);
+    }
+
+    private static List<Long> distinctIds(List<Long> ids) {
+        return ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+    }
 
-        Map<Long, Boolean> result = new HashMap<>();
-        for (Long postId : postIds) {
-            result.put(postId, isFavorited(userId, postId));
+    private static List<String> prefixed(String prefix, List<Long> ids) {
+        List<String> keys = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            keys.add(prefix + id);
+        }
+        return keys;
+    }
+
+    private static List<Boolean> toBooleans(List<Object> replies) {
+        List<Boolean> flags = new ArrayList<>(replies.size());
+        for (Object reply : replies) {
+            flags.add(Boolean.TRUE.equals(reply));
+        }
+        return flags;
+    }
+
+    private static <V> Map<Long, V> zip(List<Long> ids, List<V> values) {
+        Map<Long, V> result = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size() && i < values.size(); i++) {
+            result.put(ids.get(i), values.get(i));
         }
         return result;
     }
@@ -612,11 +968,14 @@ public class RelationServiceImpl implements RelationService {
         List<String> keys = new ArrayList<>();
         keys.add(USER_BLACKLIST_PREFIX + userId);
         keys.add(USER_BLOCKED_BY_PREFIX + blockedUserId);
+        keys.add(DIGEST_BLOCK_PREFIX + userId);
 
         Long added = relationScripts.executeScript(RelationScripts.BLOCK_USER, keys, blockedUserId, userId);
 
         if (added != null && added > 0) {
             log.info("user {} blocks user {}", userId, blockedUserId);
+            setArrayService.invalidate(ARRAY_BLOCK_RELATIONS + userId, ARRAY_BLOCK_RELATIONS + blockedUserId);
+            invalidateTimelineInbox(userId, blockedUserId);
 
             // Write-Through: 立即持久化到数据库
             try {
@@ -641,11 +1000,14 @@ public class RelationServiceImpl implements RelationService {
         List<String> keys = new ArrayList<>();
         keys.add(USER_BLACKLIST_PREFIX + userId);
         keys.add(USER_BLOCKED_BY_PREFIX + blockedUserId);
+        keys.add(DIGEST_BLOCK_PREFIX + userId);
 
         Long removed = relationScripts.executeScript(RelationScripts.UNBLOCK_USER, keys, blockedUserId, userId);
 
         if (removed != null && removed > 0) {
             log.info("user {} unblocks user {}", userId, blockedUserId);
+            setArrayService.invalidate(ARRAY_BLOCK_RELATIONS + userId, ARRAY_BLOCK_RELATIONS + blockedUserId);
+            invalidateTimelineInbox(userId, blockedUserId);
 
             // Write-Through: 立即持久化到数据库
             try {
@@ -692,4 +1054,34 @@ public class RelationServiceImpl implements RelationService {
                 .filter(id -> !blacklist.contains(id))
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public List<Long> filterBlocked(Long viewerId, List<Long> userIds) {
+        if (viewerId == null || userIds == null || userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        long[] blocked = getBlockRelationIds(viewerId);
+        if (blocked.length == 0) {
+            return new ArrayList<>(userIds);
+        }
+
+        List<Long> result = new ArrayList<>(userIds.size());
+        for (Long id : userIds) {
+            if (id != null && Arrays.binarySearch(blocked, id) < 0) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getBlockRelationIds(Long userId) {
+        if (userId == null) {
+            return SortedLongArrays.EMPTY;
+        }
+        // 我拉黑的用户与拉黑了我的用户合并为一个有序数组：一次管道读取两个 Set，按用户短暂缓存，翻页时复用
+        return setArrayService.members(ARRAY_BLOCK_RELATIONS + userId,
+                Arrays.asList(USER_BLACKLIST_PREFIX + userId, USER_BLOCKED_BY_PREFIX + userId));
+    }
 }
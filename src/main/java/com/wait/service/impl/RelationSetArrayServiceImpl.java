@@ -0,0 +1,113 @@
+package com.wait.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.wait.service.RelationSetArrayService;
+import com.wait.util.SortedLongArrays;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 关系集合数组服务实现
+ *
+ * 1. 直接用 StringRedisTemplate 读取 SMEMBERS（多个 key 时走管道），成员解析为 long 后排序去重
+ * 2. 进程内缓存按数组元素个数计权重，总元素数有上限，超出后按 LRU 淘汰；写入后短时间过期
+ * 3. 本节点的关注/取关会主动失效相关缓存，其他节点的变更最多延迟一个过期时间
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RelationSetArrayServiceImpl implements RelationSetArrayService {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /** 缓存过期时间 */
+    @Value("${relation.set-array.cache.ttl-ms:3000}")
+    private long cacheTtlMillis;
+
+    /** 缓存的元素总数上限（每个元素 8 字节） */
+    @Value("${relation.set-array.cache.max-elements:2000000}")
+    private long maxCachedElements;
+
+    private Cache<String, long[]> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxCachedElements)
+                .weigher((String key, long[] value) -> value.length + 1)
+                .expireAfterWrite(cacheTtlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public long[] members(String cacheKey, List<String> setKeys) {
+        if (setKeys == null || setKeys.isEmpty()) {
+            return SortedLongArrays.EMPTY;
+        }
+        try {
+            return cache.get(cacheKey, () -> load(setKeys));
+        } catch (ExecutionException e) {
+            log.error("Failed to load relation set array for {}", cacheKey, e.getCause());
+            return load(setKeys);
+        }
+    }
+
+    @Override
+    public void invalidate(String... cacheKeys) {
+        cache.invalidateAll(Arrays.asList(cacheKeys));
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", cache.size());
+        result.put("hitRate", stats.hitRate());
+        result.put("loadCount", stats.loadCount());
+        result.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private long[] load(List<String> setKeys) {
+        if (setKeys.size() == 1) {
+            return SortedLongArrays.fromStrings(stringRedisTemplate.opsForSet().members(setKeys.get(0)));
+        }
+        List<Object> results = stringRedisTemplate.executePipelined(
+                (RedisCallback<Object>) connection -> {
+                    for (String key : setKeys) {
+                        connection.sMembers(key.getBytes(StandardCharsets.UTF_8));
+                    }
+                    return null;
+                });
+        List<String> members = new ArrayList<>();
+        for (Object result : results) {
+            if (result instanceof Set) {
+                members.addAll((Set<String>) result);
+            }
+        }
+        return SortedLongArrays.fromStrings(members);
+    }
+}
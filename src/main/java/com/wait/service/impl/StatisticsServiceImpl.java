@@ -90,6 +90,25 @@ public class StatisticsServiceImpl implements StatisticsService {
         log.debug("Recorded favorite: postId={}, isFavorite={}", postId, isFavorite);
     }
 
+    @Override
+    public void recordLikes(Long postId, long delta) {
+        if (postId == null || delta == 0) {
+            return;
+        }
+        // 聚合时按数值累加，净增量可直接作为数据点的值
+        timeWindowStatisticsService.addDataPoint(METRIC_LIKE + ":" + postId, String.valueOf(delta));
+        log.debug("Recorded likes: postId={}, delta={}", postId, delta);
+    }
+
+    @Override
+    public void recordFavorites(Long postId, long delta) {
+        if (postId == null || delta == 0) {
+            return;
+        }
+        timeWindowStatisticsService.addDataPoint(METRIC_FAVORITE + ":" + postId, String.valueOf(delta));
+        log.debug("Recorded favorites: postId={}, delta={}", postId, delta);
+    }
+
     @Override
     public List<Map<String, Object>> getPostViewStatistics(Long postId, int hours) {
         if (postId == null) {
@@ -1,18 +1,39 @@
 package com.wait.service.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.wait.config.script.TimeLineScripts;
+import com.wait.entity.dto.CursorPage;
+import com.wait.entity.dto.RelationEvent;
 import com.wait.service.RelationService;
+import com.wait.service.RelationSetArrayService;
 import com.wait.service.TimelineSortedSetService;
 import com.wait.util.BoundUtil;
+import com.wait.util.ScoreCursor;
+import com.wait.util.SortedLongArrays;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,6 +41,16 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * 时间线排序服务实现
  * 使用 Sorted Set 实现按发布时间排序的时间线功能
+ *
+ * 首页时间线采用推拉结合：
+ * 1. 推：普通作者发帖后异步分块写入活跃粉丝的收件箱（timeline:inbox:{userId}），收件箱限制大小
+ * 2. 拉：粉丝数达到阈值的大V不推送，读取时从大V的用户时间线拉取，与收件箱归并
+ * 3. 收件箱只为活跃用户维护：长时间未读取的用户由定时任务清理，下次读取时从关注用户的时间线重建
+ * 4. 关注/取消关注由事件管道增量合并到收件箱，拉黑/取消拉黑使双方的收件箱失效
+ * 5. 拉黑不解除关注：写扩散跳过与作者存在拉黑关系的粉丝，读取收件箱时再按拉黑关系过滤一次
+ *
+ * 另提供纯拉模式的游标分页（getMyTimelinePage）：每页从各关注用户的时间线只读取游标之后的一页，
+ * 一次管道取回后在进程内多路归并，不做 ZUNIONSTORE，也不产生临时 key
  */
 @Slf4j
 @Service
@@ -29,11 +60,69 @@ public class TimelineSortedSetServiceImpl implements TimelineSortedSetService {
     private final BoundUtil boundUtil;
     private final TimeLineScripts timeLineScripts;
     private final RelationService relationService;
+    private final RelationSetArrayService setArrayService;
 
     private static final String TIMELINE_USER_POSTS_PREFIX = "timeline:posts:user:";
     private static final String TIMELINE_GLOBAL_PREFIX = "timeline:posts:global";
     private static final String TIMELINE_MY_PREFIX = "timeline:posts:my:"; // 我的时间线临时key
+    private static final String TIMELINE_INBOX_PREFIX = "timeline:inbox:"; // 首页收件箱
+    private static final String TIMELINE_INBOX_ACTIVE = "timeline:inbox:active"; // 收件箱活跃用户（score 为最近读取时间）
+    private static final String TIMELINE_CELEBRITIES = "timeline:celebrities"; // 只拉不推的大V
+    private static final String ARRAY_CELEBRITIES = "timeline-celebrities"; // 大V集合的进程内缓存 key
     private static final int MAX_CACHED_POSTS = 1000; // 最多缓存1000条
+    /** 活跃用户最近读取时间的刷新间隔，避免每次读取都写一次 */
+    private static final long ACTIVE_TOUCH_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+    /** 单个管道最多包含的命令数 */
+    private static final int PIPELINE_CHUNK = 500;
+
+    /** 是否启用收件箱（关闭后首页时间线每次读取用 ZUNIONSTORE 聚合） */
+    @Value("${timeline.inbox.enabled:true}")
+    private boolean inboxEnabled;
+
+    /** 粉丝数达到该值的作者只拉不推 */
+    @Value("${timeline.inbox.fanout-threshold:5000}")
+    private long fanoutThreshold;
+
+    /** 收件箱最多保留的帖子数 */
+    @Value("${timeline.inbox.max-size:800}")
+    private int inboxMaxSize;
+
+    /** 写扩散每次 Lua 调用覆盖的粉丝数 */
+    @Value("${timeline.inbox.fanout-chunk:500}")
+    private int fanoutChunk;
+
+    /** 写扩散线程数 */
+    @Value("${timeline.inbox.fanout-threads:2}")
+    private int fanoutThreads;
+
+    /** 超过该天数未读取首页的用户视为不活跃，不再推送并清理收件箱 */
+    @Value("${timeline.inbox.inactive-days:7}")
+    private int inactiveDays;
+
+    /** 重建收件箱或新关注时，从每个作者时间线读取的最新帖子数 */
+    @Value("${timeline.inbox.rebuild-per-author:100}")
+    private int rebuildPerAuthor;
+
+    private ExecutorService fanoutExecutor;
+
+    @PostConstruct
+    public void init() {
+        fanoutExecutor = Executors.newFixedThreadPool(Math.max(1, fanoutThreads),
+                new ThreadFactoryBuilder().setNameFormat("timeline-fanout-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanoutExecutor.shutdown();
+        try {
+            if (!fanoutExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                fanoutExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            fanoutExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
 
     @Override
     public void publishToTimeline(Long userId, Long postId, long publishTime) {
@@ -55,6 +144,16 @@ public class TimelineSortedSetServiceImpl implements TimelineSortedSetService {
         } else {
             log.debug("Published post {} to timeline for user {}, time: {}", postId, userId, publishTime);
         }
+
+        fanOutAsync(userId, postId, publishTime);
+    }
+
+    @Override
+    public void fanOutAsync(Long userId, Long postId, long publishTime) {
+        // 写扩散到粉丝收件箱（异步，不阻塞发帖）
+        if (inboxEnabled) {
+            fanoutExecutor.execute(() -> fanOut(userId, postId, publishTime));
+        }
     }
 
     @Override
@@ -78,6 +177,16 @@ public class TimelineSortedSetServiceImpl implements TimelineSortedSetService {
         return postIds != null ? postIds : new ArrayList<>();
     }
 
+    @Override
+    public CursorPage<Long> getUserTimelinePage(Long userId, String cursor, int pageSize) {
+        return boundUtil.zRevPage(TIMELINE_USER_POSTS_PREFIX + userId, cursor, pageSize, Long.class);
+    }
+
+    @Override
+    public CursorPage<Long> getGlobalTimelinePage(String cursor, int pageSize) {
+        return boundUtil.zRevPage(TIMELINE_GLOBAL_PREFIX, cursor, pageSize, Long.class);
+    }
+
     @Override
     public List<Long> getPostsByTimeRange(Long userId, long startTime, long endTime) {
         String key = userId != null
@@ -107,47 +216,481 @@ public class TimelineSortedSetServiceImpl implements TimelineSortedSetService {
         } else {
             log.debug("Post {} not found in timeline for user {}", postId, userId);
         }
+
+        // 从粉丝收件箱撤回（异步）
+        if (inboxEnabled) {
+            fanoutExecutor.execute(() -> retract(userId, Collections.singletonList(postId)));
+        }
+    }
+
+    @Override
+    public void removeFromTimelines(Map<Long, List<Long>> postIdsByAuthor) {
+        if (postIdsByAuthor == null || postIdsByAuthor.isEmpty()) {
+            return;
+        }
+        List<Object> allPostIds = new ArrayList<>();
+        for (List<Long> postIds : postIdsByAuthor.values()) {
+            allPostIds.addAll(postIds);
+        }
+        boundUtil.executePipelined(operations -> {
+            operations.opsForZSet().remove(TIMELINE_GLOBAL_PREFIX, allPostIds.toArray());
+            for (Map.Entry<Long, List<Long>> entry : postIdsByAuthor.entrySet()) {
+                operations.opsForZSet().remove(TIMELINE_USER_POSTS_PREFIX + entry.getKey(),
+                        entry.getValue().toArray());
+            }
+        });
+        log.debug("Removed {} posts of {} authors from timelines", allPostIds.size(), postIdsByAuthor.size());
+
+        if (inboxEnabled) {
+            for (Map.Entry<Long, List<Long>> entry : postIdsByAuthor.entrySet()) {
+                Long authorId = entry.getKey();
+                List<Long> postIds = new ArrayList<>(entry.getValue());
+                fanoutExecutor.execute(() -> retract(authorId, postIds));
+            }
+        }
     }
 
     @Override
     public List<Long> getMyTimeline(Long userId, int page, int pageSize) {
+        if (!inboxEnabled) {
+            return getUnionTimeline(userId, page, pageSize);
+        }
+
         // 1. 获取用户关注的所有用户ID
-        Set<Long> following = relationService.getFollowing(userId);
-        if (following == null || following.isEmpty()) {
+        long[] following = relationService.getFollowingIds(userId);
+        if (following.length == 0) {
             log.debug("User {} has no following, returning empty timeline", userId);
             return new ArrayList<>();
         }
+        long[] celebrities = SortedLongArrays.intersect(following, celebrities());
 
-        // 2. 获取用户的黑名单列表（我拉黑的用户，用于过滤）
-        Set<Long> blacklistSet = relationService.getBlacklist(userId);
-        if (blacklistSet == null) {
-            blacklistSet = new HashSet<>();
+        // 2. 确保收件箱可用（不活跃用户先重建）
+        try {
+            ensureInbox(userId, following, celebrities);
+        } catch (Exception e) {
+            log.error("Failed to rebuild timeline inbox for user {}, falling back to union read", userId, e);
+            return getUnionTimeline(userId, page, pageSize);
         }
-        final Set<Long> blacklist = blacklistSet;
 
-        // 3. 过滤掉黑名单用户和拉黑了我的用户
-        // 过滤掉我拉黑的用户（blacklist）
-        // 过滤掉拉黑了我的用户（使用 isBlocked 检查对方是否拉黑了我）
-        List<Long> validFollowing = following.stream()
-                .filter(id -> {
-                    // 排除我拉黑的用户
-                    if (blacklist.contains(id)) {
-                        return false;
-                    }
-                    // 排除拉黑了我的用户（对方拉黑了我，也看不到对方的帖子）
-                    if (relationService.isBlocked(id, userId)) {
-                        return false;
+        // 3. 关注的大V按拉黑关系过滤后拉取
+        long[] blocked = relationService.getBlockRelationIds(userId);
+        long[] pulled = SortedLongArrays.difference(celebrities, blocked);
+
+        // 4. 一次管道读取收件箱和大V时间线的前 page * pageSize 条，收件箱按拉黑关系过滤，多路归并后截取当前页
+        int start = (page - 1) * pageSize;
+        int end = start + pageSize;
+        List<String> keys = new ArrayList<>(pulled.length + 1);
+        keys.add(TIMELINE_INBOX_PREFIX + userId);
+        for (long authorId : pulled) {
+            keys.add(TIMELINE_USER_POSTS_PREFIX + authorId);
+        }
+        List<ScoredPosts> sources = readTimelines(keys, end);
+        if (blocked.length > 0) {
+            sources.set(0, withoutBlockedAuthors(userId, sources.get(0), blocked, end));
+        }
+        ScoredPosts merged = ScoredPosts.merge(sources, end);
+
+        List<Long> result = new ArrayList<>(Math.max(0, merged.size - start));
+        for (int i = start; i < merged.size; i++) {
+            result.add(merged.postIds[i]);
+        }
+        log.debug("User {} timeline: following={}, pulled celebrities={}, result={}",
+                userId, following.length, pulled.length, result.size());
+        return result;
+    }
+
+    @Override
+    public CursorPage<Long> getMyTimelinePage(Long userId, String cursor, int pageSize) {
+        pageSize = Math.max(1, pageSize);
+        // 1. 关注用户按拉黑关系过滤
+        List<Long> following = relationService.filterBlocked(userId,
+                SortedLongArrays.toList(relationService.getFollowingIds(userId)));
+        if (following.isEmpty()) {
+            return CursorPage.<Long>builder().items(new ArrayList<>()).hasMore(false).build();
+        }
+
+        // 2. 解析游标：上一页最后一条的 (score, postId)，本页只返回排在其后的帖子
+        double cursorScore = Double.POSITIVE_INFINITY;
+        long cursorPostId = Long.MAX_VALUE;
+        ScoreCursor position = ScoreCursor.parse(cursor);
+        if (position != null) {
+            cursorScore = position.getScore();
+            try {
+                cursorPostId = Long.parseLong(position.getMember());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+        }
+
+        // 3. 一次管道从每个作者时间线读取游标之后的 pageSize + 1 条（多取一条判断是否还有下一页）
+        int limit = pageSize + 1;
+        double maxScore = cursorScore;
+        List<String> keys = following.stream()
+                .map(authorId -> TIMELINE_USER_POSTS_PREFIX + authorId)
+                .collect(Collectors.toList());
+        List<ScoredPosts> sources = readTimelines(keys, (operations, key) -> operations.opsForZSet()
+                .reverseRangeByScoreWithScores(key, Double.NEGATIVE_INFINITY, maxScore, 0, limit));
+
+        // 4. 分数上界是闭区间，去掉与游标同分且已返回过的帖子；该来源因此可能不足一页，补读
+        for (int i = 0; i < sources.size(); i++) {
+            ScoredPosts source = sources.get(i);
+            ScoredPosts kept = source.after(cursorScore, cursorPostId);
+            if (kept.size < source.size && source.size == limit) {
+                kept = readAfterCursor(keys.get(i), cursorScore, cursorPostId, limit);
+            }
+            sources.set(i, kept);
+        }
+
+        // 5. 多路归并，最后一条作为下一页游标
+        ScoredPosts merged = ScoredPosts.merge(sources, limit);
+        int count = Math.min(pageSize, merged.size);
+        List<Long> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(merged.postIds[i]);
+        }
+        String nextCursor = merged.size > pageSize
+                ? ScoreCursor.encode(merged.scores[count - 1], merged.postIds[count - 1])
+                : null;
+        log.debug("User {} timeline page: following={}, items={}, hasMore={}",
+                userId, following.size(), items.size(), nextCursor != null);
+        return CursorPage.<Long>builder().items(items).nextCursor(nextCursor).hasMore(nextCursor != null).build();
+    }
+
+    @Override
+    public void onFollowEvents(List<RelationEvent> events) {
+        if (!inboxEnabled || events == null || events.isEmpty()) {
+            return;
+        }
+        // 1. 只处理收件箱活跃、且关注对象不是大V的事件
+        List<Object> lastActive = boundUtil.executePipelined(operations -> {
+            for (RelationEvent event : events) {
+                operations.opsForZSet().score(TIMELINE_INBOX_ACTIVE, event.getActorId());
+            }
+        });
+        long cutoff = activeCutoff();
+        long[] celebrities = celebrities();
+        List<RelationEvent> relevant = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            RelationEvent event = events.get(i);
+            Object score = lastActive.get(i);
+            if (score instanceof Number && ((Number) score).doubleValue() >= cutoff
+                    && Arrays.binarySearch(celebrities, event.getTargetId()) < 0) {
+                relevant.add(event);
+            }
+        }
+        if (relevant.isEmpty()) {
+            return;
+        }
+
+        // 2. 读取被关注者的时间线：关注时合并最新的帖子，取消关注时移除其全部帖子
+        List<String> keys = relevant.stream()
+                .map(event -> TIMELINE_USER_POSTS_PREFIX + event.getTargetId())
+                .collect(Collectors.toList());
+        List<ScoredPosts> timelines = readTimelines(keys, MAX_CACHED_POSTS);
+
+        // 3. 按事件顺序写回收件箱，同一对用户以最后一次操作为准
+        boundUtil.executePipelined(operations -> {
+            for (int i = 0; i < relevant.size(); i++) {
+                RelationEvent event = relevant.get(i);
+                ScoredPosts posts = timelines.get(i);
+                if (posts.size == 0) {
+                    continue;
+                }
+                String inboxKey = TIMELINE_INBOX_PREFIX + event.getActorId();
+                if (event.getType().isPositive()) {
+                    operations.opsForZSet().add(inboxKey, posts.toTuples(rebuildPerAuthor));
+                    operations.opsForZSet().removeRange(inboxKey, 0, -(inboxMaxSize + 1));
+                } else {
+                    operations.opsForZSet().remove(inboxKey, posts.toMembers());
+                }
+            }
+        });
+        log.debug("Applied {} of {} follow events to timeline inboxes", relevant.size(), events.size());
+    }
+
+    @Override
+    public void invalidateInbox(Long... userIds) {
+        if (!inboxEnabled || userIds == null || userIds.length == 0) {
+            return;
+        }
+        boundUtil.executePipelined(operations -> {
+            operations.opsForZSet().remove(TIMELINE_INBOX_ACTIVE, (Object[]) userIds);
+            for (Long userId : userIds) {
+                operations.delete(TIMELINE_INBOX_PREFIX + userId);
+            }
+        });
+    }
+
+    /**
+     * 清理不活跃用户的收件箱，这些用户不再接收写扩散，下次读取时重建
+     */
+    @Scheduled(fixedDelayString = "${timeline.inbox.trim-interval-ms:3600000}")
+    public void trimInactiveInboxes() {
+        if (!inboxEnabled) {
+            return;
+        }
+        long cutoff = activeCutoff();
+        int trimmed = 0;
+        while (true) {
+            Map<Long, Double> inactive = boundUtil.zRevRangeByScoreWithScores(TIMELINE_INBOX_ACTIVE,
+                    cutoff - 1, Double.NEGATIVE_INFINITY, 0, PIPELINE_CHUNK, Long.class);
+            if (inactive.isEmpty()) {
+                break;
+            }
+            Object[] users = inactive.keySet().toArray();
+            boundUtil.executePipelined(operations -> {
+                for (Object user : users) {
+                    operations.delete(TIMELINE_INBOX_PREFIX + user);
+                }
+                operations.opsForZSet().remove(TIMELINE_INBOX_ACTIVE, users);
+            });
+            trimmed += users.length;
+            if (users.length < PIPELINE_CHUNK) {
+                break;
+            }
+        }
+        if (trimmed > 0) {
+            log.info("Trimmed {} inactive timeline inboxes", trimmed);
+        }
+    }
+
+    // ==================== 写扩散 ====================
+
+    /**
+     * 写扩散：新帖子分块推送到活跃粉丝的收件箱，每块一次 Lua 调用
+     * 粉丝数达到阈值的作者标记为大V，只拉不推
+     */
+    private void fanOut(Long authorId, Long postId, long publishTime) {
+        try {
+            if (isCelebrity(authorId)) {
+                return;
+            }
+            Long followerCount = relationService.getFollowerCount(authorId);
+            if (followerCount != null && followerCount >= fanoutThreshold) {
+                // 大V标记只增不减：取消标记后，之前只拉不推的帖子将不在任何收件箱中
+                boundUtil.sAdd(TIMELINE_CELEBRITIES, authorId);
+                setArrayService.invalidate(ARRAY_CELEBRITIES);
+                log.info("User {} reached {} followers, timeline switched to pull mode", authorId, followerCount);
+                return;
+            }
+
+            // 拉黑不解除关注，与作者存在拉黑关系的粉丝不推送
+            long[] followers = SortedLongArrays.difference(relationService.getFollowerIds(authorId),
+                    relationService.getBlockRelationIds(authorId));
+            String cutoff = String.valueOf(activeCutoff());
+            long pushed = 0;
+            for (int from = 0; from < followers.length; from += fanoutChunk) {
+                int to = Math.min(followers.length, from + fanoutChunk);
+                List<String> keys = new ArrayList<>(to - from + 1);
+                Object[] args = new Object[to - from + 4];
+                keys.add(TIMELINE_INBOX_ACTIVE);
+                args[0] = String.valueOf(postId);
+                args[1] = String.valueOf(publishTime);
+                args[2] = String.valueOf(inboxMaxSize);
+                args[3] = cutoff;
+                for (int i = from; i < to; i++) {
+                    keys.add(TIMELINE_INBOX_PREFIX + followers[i]);
+                    args[i - from + 4] = String.valueOf(followers[i]);
+                }
+                Long count = timeLineScripts.executeScript(TimeLineScripts.INBOX_PUSH, keys, args);
+                pushed += count != null ? count : 0;
+            }
+            log.debug("Fanned out post {} of user {} to {}/{} follower inboxes",
+                    postId, authorId, pushed, followers.length);
+        } catch (Exception e) {
+            log.error("Failed to fan out post {} of user {} to follower inboxes", postId, authorId, e);
+        }
+    }
+
+    /**
+     * 从粉丝收件箱撤回已删除的帖子
+     * 不论作者当前是否为大V：成为大V之前推送的帖子仍在粉丝收件箱中
+     */
+    private void retract(Long authorId, List<Long> postIds) {
+        try {
+            long[] followers = relationService.getFollowerIds(authorId);
+            Object[] members = postIds.toArray();
+            for (int from = 0; from < followers.length; from += PIPELINE_CHUNK) {
+                int begin = from;
+                int to = Math.min(followers.length, from + PIPELINE_CHUNK);
+                boundUtil.executePipelined(operations -> {
+                    for (int i = begin; i < to; i++) {
+                        operations.opsForZSet().remove(TIMELINE_INBOX_PREFIX + followers[i], members);
                     }
-                    return true;
-                })
+                });
+            }
+        } catch (Exception e) {
+            log.error("Failed to retract posts {} of user {} from follower inboxes", postIds, authorId, e);
+        }
+    }
+
+    // ==================== 收件箱读取与重建 ====================
+
+    /**
+     * 确保收件箱可用：不活跃（或从未读取）的用户先重建；活跃用户定期刷新最近读取时间
+     */
+    private void ensureInbox(Long userId, long[] following, long[] celebrities) {
+        long now = System.currentTimeMillis();
+        Double lastActive = boundUtil.zScore(TIMELINE_INBOX_ACTIVE, userId);
+        if (lastActive != null && lastActive >= activeCutoff()) {
+            if (now - lastActive > ACTIVE_TOUCH_INTERVAL_MS) {
+                boundUtil.zAdd(TIMELINE_INBOX_ACTIVE, userId, now);
+            }
+            return;
+        }
+        try {
+            rebuildInbox(userId, following, celebrities, now);
+        } catch (RuntimeException e) {
+            boundUtil.zRem(TIMELINE_INBOX_ACTIVE, userId);
+            throw e;
+        }
+    }
+
+    /**
+     * 从关注的普通作者的时间线重建收件箱
+     */
+    private void rebuildInbox(Long userId, long[] following, long[] celebrities, long now) {
+        // 先标记为活跃再读取作者时间线：重建期间发布的帖子要么已在作者时间线中，要么会被写扩散推送进来
+        boundUtil.zAdd(TIMELINE_INBOX_ACTIVE, userId, now);
+        String inboxKey = TIMELINE_INBOX_PREFIX + userId;
+        boundUtil.del(inboxKey);
+
+        List<Long> authors = relationService.filterBlocked(userId,
+                SortedLongArrays.toList(SortedLongArrays.difference(following, celebrities)));
+        if (authors.isEmpty()) {
+            return;
+        }
+        List<String> keys = authors.stream()
+                .map(authorId -> TIMELINE_USER_POSTS_PREFIX + authorId)
                 .collect(Collectors.toList());
+        ScoredPosts merged = ScoredPosts.merge(readTimelines(keys, rebuildPerAuthor), inboxMaxSize);
+        if (merged.size > 0) {
+            boundUtil.executePipelined(operations -> {
+                operations.opsForZSet().add(inboxKey, merged.toTuples(merged.size));
+                operations.opsForZSet().removeRange(inboxKey, 0, -(inboxMaxSize + 1));
+            });
+        }
+        log.debug("Rebuilt timeline inbox for user {} from {} authors, {} posts", userId, authors.size(), merged.size);
+    }
+
+    /**
+     * 去掉收件箱中与读者存在拉黑关系的作者的帖子，并从收件箱中删除这些帖子
+     * 拉黑之后的写扩散已跳过这些作者，这里兜底处理拉黑前已推送、或拉黑关系缓存未刷新时推送的帖子。
+     * 只在收件箱本次读取的分数区间内查询被拉黑作者的时间线；删除后收件箱不足 limit 条时补读
+     */
+    private ScoredPosts withoutBlockedAuthors(Long userId, ScoredPosts inbox, long[] blocked, int limit) {
+        String inboxKey = TIMELINE_INBOX_PREFIX + userId;
+        List<String> authorKeys = new ArrayList<>(blocked.length);
+        for (long authorId : blocked) {
+            authorKeys.add(TIMELINE_USER_POSTS_PREFIX + authorId);
+        }
+        ScoredPosts current = inbox;
+        for (int attempt = 0; attempt < 3 && current.size > 0; attempt++) {
+            double max = current.scores[0];
+            double min = current.scores[current.size - 1];
+            Set<Long> hidden = new HashSet<>();
+            for (ScoredPosts authored : readTimelines(authorKeys, (operations, key) -> operations.opsForZSet()
+                    .reverseRangeByScoreWithScores(key, min, max))) {
+                for (int i = 0; i < authored.size; i++) {
+                    hidden.add(authored.postIds[i]);
+                }
+            }
+            ScoredPosts kept = current.without(hidden);
+            if (kept.size == current.size) {
+                return current;
+            }
+            boundUtil.zRem(inboxKey, current.membersIn(hidden));
+            log.debug("Removed {} posts of blocked authors from timeline inbox of user {}",
+                    current.size - kept.size, userId);
+            if (current.size < limit) {
+                // 收件箱已全部读出，无需补读
+                return kept;
+            }
+            current = readTimelines(Collections.singletonList(inboxKey), limit).get(0);
+        }
+        return current;
+    }
+
+    /**
+     * 管道读取多个时间线的前 limit 条（分数从高到低），结果与 keys 顺序一致
+     */
+    private List<ScoredPosts> readTimelines(List<String> keys, int limit) {
+        return readTimelines(keys, (operations, key) -> operations.opsForZSet()
+                .reverseRangeWithScores(key, 0, limit - 1));
+    }
+
+    /**
+     * 管道对每个时间线执行一条 WITHSCORES 读取命令，结果与 keys 顺序一致
+     */
+    private List<ScoredPosts> readTimelines(List<String> keys,
+            BiConsumer<RedisOperations<String, Object>, String> command) {
+        List<ScoredPosts> result = new ArrayList<>(keys.size());
+        for (int from = 0; from < keys.size(); from += PIPELINE_CHUNK) {
+            List<String> chunk = keys.subList(from, Math.min(keys.size(), from + PIPELINE_CHUNK));
+            List<Object> raw = boundUtil.executePipelined(operations -> {
+                for (String key : chunk) {
+                    command.accept(operations, key);
+                }
+            });
+            for (Object item : raw) {
+                result.add(ScoredPosts.of(item));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 读取单个时间线中排在游标之后的至少 limit 条（不足时为全部），
+     * 与游标同分的帖子较多时逐步扩大读取数量
+     */
+    private ScoredPosts readAfterCursor(String key, double cursorScore, long cursorPostId, int limit) {
+        int count = limit;
+        while (true) {
+            int fetch = count;
+            ScoredPosts fetched = readTimelines(Collections.singletonList(key), (operations, k) -> operations
+                    .opsForZSet().reverseRangeByScoreWithScores(k, Double.NEGATIVE_INFINITY, cursorScore, 0, fetch))
+                    .get(0);
+            ScoredPosts kept = fetched.after(cursorScore, cursorPostId);
+            if (kept.size >= limit || fetched.size < fetch) {
+                return kept;
+            }
+            count += fetched.size - kept.size;
+        }
+    }
+
+    private long[] celebrities() {
+        return setArrayService.members(ARRAY_CELEBRITIES, Collections.singletonList(TIMELINE_CELEBRITIES));
+    }
+
+    private boolean isCelebrity(Long userId) {
+        return Arrays.binarySearch(celebrities(), userId) >= 0;
+    }
+
+    private long activeCutoff() {
+        return System.currentTimeMillis() - TimeUnit.DAYS.toMillis(inactiveDays);
+    }
+
+    /**
+     * 聚合关注用户的时间线（ZUNIONSTORE），收件箱关闭或重建失败时使用
+     */
+    private List<Long> getUnionTimeline(Long userId, int page, int pageSize) {
+        // 1. 获取用户关注的所有用户ID
+        List<Long> following = SortedLongArrays.toList(relationService.getFollowingIds(userId));
+        if (following.isEmpty()) {
+            log.debug("User {} has no following, returning empty timeline", userId);
+            return new ArrayList<>();
+        }
+
+        // 2. 过滤掉我拉黑的用户和拉黑了我的用户（对方拉黑了我，也看不到对方的帖子）
+        // 两个方向的拉黑关系一次管道读取，按用户短暂缓存，翻页时不再逐个 SISMEMBER
+        List<Long> validFollowing = relationService.filterBlocked(userId, following);
 
         if (validFollowing.isEmpty()) {
             log.debug("User {} has no valid following after filtering blacklist", userId);
             return new ArrayList<>();
         }
 
-        // 4. 构建临时key用于聚合时间线
+        // 3. 构建临时key用于聚合时间线
         //
         // 【临时key的作用和逻辑说明】
         // Redis的ZUNIONSTORE命令需要将多个Sorted Set合并到一个目标key中，但该操作不能直接返回结果，
@@ -171,7 +714,7 @@ public class TimelineSortedSetServiceImpl implements TimelineSortedSetService {
         // - finally块确保临时key一定会被清理，不会造成内存泄漏
         String tempKey = TIMELINE_MY_PREFIX + userId + ":" + System.currentTimeMillis();
         try {
-            // 5. 聚合关注用户的时间线（使用ZUNIONSTORE）
+            // 4. 聚合关注用户的时间线（使用ZUNIONSTORE）
             List<String> sourceKeys = validFollowing.stream()
                     .map(id -> TIMELINE_USER_POSTS_PREFIX + id)
                     .collect(Collectors.toList());
@@ -180,24 +723,227 @@ public class TimelineSortedSetServiceImpl implements TimelineSortedSetService {
                 // 执行ZUNIONSTORE：聚合多个Sorted Set，取最大值（相同postId只保留最新的时间戳）
                 boundUtil.zUnionAndStore(tempKey, sourceKeys, RedisZSetCommands.Aggregate.MAX);
 
-                // 6. 从聚合结果中获取分页数据
+                // 5. 从聚合结果中获取分页数据
                 long start = (page - 1) * pageSize;
                 long end = start + pageSize - 1;
 
                 List<Long> postIds = boundUtil.zReverseRange(tempKey, start, end, Long.class);
                 List<Long> result = postIds != null ? postIds : new ArrayList<>();
 
-                log.debug("User {} timeline: following={}, blacklist={}, result={}",
-                        userId, validFollowing.size(), blacklist.size(), result.size());
+                log.debug("User {} timeline: following={}, valid following={}, result={}",
+                        userId, following.size(), validFollowing.size(), result.size());
 
                 return result;
             }
         } finally {
-            // 8. 删除临时key，避免内存泄漏
+            // 6. 删除临时key，避免内存泄漏
             boundUtil.del(tempKey);
         }
 
         return new ArrayList<>();
     }
 
+    /**
+     * 按 (score, postId) 降序排列的帖子序列，postIds[i] 与 scores[i] 对应
+     */
+    private static final class ScoredPosts {
+        private static final ScoredPosts EMPTY = new ScoredPosts(0);
+
+        private long[] postIds;
+        private double[] scores;
+        private int size;
+
+        ScoredPosts(int capacity) {
+            postIds = new long[capacity];
+            scores = new double[capacity];
+        }
+
+        void add(long postId, double score) {
+            if (size == postIds.length) {
+                int capacity = Math.max(8, size << 1);
+                postIds = Arrays.copyOf(postIds, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+            }
+            postIds[size] = postId;
+            scores[size] = score;
+            size++;
+        }
+
+        /**
+         * 从管道返回的 ZREVRANGE WITHSCORES 结果解析，无法解析的成员会被忽略
+         */
+        @SuppressWarnings("unchecked")
+        static ScoredPosts of(Object raw) {
+            if (!(raw instanceof Set) || ((Set<?>) raw).isEmpty()) {
+                return EMPTY;
+            }
+            Set<TypedTuple<Object>> tuples = (Set<TypedTuple<Object>>) raw;
+            ScoredPosts posts = new ScoredPosts(tuples.size());
+            for (TypedTuple<Object> tuple : tuples) {
+                Object value = tuple.getValue();
+                Double score = tuple.getScore();
+                if (value == null || score == null) {
+                    continue;
+                }
+                try {
+                    posts.add(value instanceof Number ? ((Number) value).longValue()
+                            : Long.parseLong(value.toString()), score);
+                } catch (NumberFormatException ignored) {
+                    // 非数值成员不参与归并
+                }
+            }
+            posts.sortTies();
+            return posts;
+        }
+
+        /**
+         * Redis 对同分成员按字典序排列，与归并时按数值比较的顺序不一致，把同分的连续段按 postId 降序重排
+         */
+        private void sortTies() {
+            for (int i = 1; i < size; i++) {
+                long postId = postIds[i];
+                double score = scores[i];
+                int j = i - 1;
+                while (j >= 0 && scores[j] == score && postIds[j] < postId) {
+                    postIds[j + 1] = postIds[j];
+                    j--;
+                }
+                postIds[j + 1] = postId;
+            }
+        }
+
+        /**
+         * 多路归并：各来源均已按 (score, postId) 降序，用大小为来源数的堆每次取出最大的队首，
+         * 同一帖子在不同来源中的分数相同（发布时间），归并后必然相邻，只保留一个，最多取 limit 条
+         */
+        static ScoredPosts merge(List<ScoredPosts> sources, int limit) {
+            int[] heap = new int[sources.size()];
+            int[] positions = new int[sources.size()];
+            int heapSize = 0;
+            for (int i = 0; i < sources.size(); i++) {
+                if (sources.get(i).size > 0) {
+                    heap[heapSize++] = i;
+                }
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(sources, positions, heap, heapSize, i);
+            }
+
+            ScoredPosts merged = new ScoredPosts(Math.max(0, Math.min(limit, 64)));
+            while (heapSize > 0 && merged.size < limit) {
+                int top = heap[0];
+                ScoredPosts source = sources.get(top);
+                int position = positions[top];
+                long postId = source.postIds[position];
+                double score = source.scores[position];
+                if (merged.size == 0 || merged.postIds[merged.size - 1] != postId) {
+                    merged.add(postId, score);
+                }
+                positions[top] = position + 1;
+                if (positions[top] == source.size) {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(sources, positions, heap, heapSize, 0);
+            }
+            return merged;
+        }
+
+        private static void siftDown(List<ScoredPosts> sources, int[] positions, int[] heap, int heapSize,
+                int index) {
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= heapSize) {
+                    return;
+                }
+                if (child + 1 < heapSize && before(sources, positions, heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(sources, positions, heap[child], heap[index])) {
+                    return;
+                }
+                int tmp = heap[index];
+                heap[index] = heap[child];
+                heap[child] = tmp;
+                index = child;
+            }
+        }
+
+        /**
+         * 来源 a 的队首是否排在来源 b 的队首之前
+         */
+        private static boolean before(List<ScoredPosts> sources, int[] positions, int a, int b) {
+            ScoredPosts x = sources.get(a);
+            ScoredPosts y = sources.get(b);
+            double scoreX = x.scores[positions[a]];
+            double scoreY = y.scores[positions[b]];
+            if (scoreX != scoreY) {
+                return scoreX > scoreY;
+            }
+            return x.postIds[positions[a]] > y.postIds[positions[b]];
+        }
+
+        /**
+         * 排在 (score, postId) 之后的部分。序列按 (score, postId) 降序，需要去掉的只可能是开头的一段
+         */
+        ScoredPosts after(double score, long postId) {
+            int from = 0;
+            while (from < size && (scores[from] > score || (scores[from] == score && postIds[from] >= postId))) {
+                from++;
+            }
+            if (from == 0) {
+                return this;
+            }
+            ScoredPosts tail = new ScoredPosts(size - from);
+            for (int i = from; i < size; i++) {
+                tail.add(postIds[i], scores[i]);
+            }
+            return tail;
+        }
+
+        /**
+         * 去掉指定帖子后的序列，顺序不变
+         */
+        ScoredPosts without(Set<Long> excluded) {
+            if (excluded.isEmpty()) {
+                return this;
+            }
+            ScoredPosts kept = new ScoredPosts(size);
+            for (int i = 0; i < size; i++) {
+                if (!excluded.contains(postIds[i])) {
+                    kept.add(postIds[i], scores[i]);
+                }
+            }
+            return kept;
+        }
+
+        /**
+         * 序列中属于指定集合的帖子
+         */
+        Object[] membersIn(Set<Long> included) {
+            List<Object> members = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (included.contains(postIds[i])) {
+                    members.add(postIds[i]);
+                }
+            }
+            return members.toArray();
+        }
+
+        Set<TypedTuple<Object>> toTuples(int limit) {
+            int count = Math.min(limit, size);
+            Set<TypedTuple<Object>> tuples = new HashSet<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                tuples.add(new DefaultTypedTuple<>((Object) postIds[i], scores[i]));
+            }
+            return tuples;
+        }
+
+        Object[] toMembers() {
+            Object[] members = new Object[size];
+            for (int i = 0; i < size; i++) {
+                members[i] = postIds[i];
+            }
+            return members;
+        }
+    }
 }
@@ -1,21 +1,41 @@
 package com.wait.service.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.wait.config.script.RecommendationScripts;
+import com.wait.entity.dto.RelationEvent;
+import com.wait.service.RelationService;
 import com.wait.service.UserRecommendationService;
 import com.wait.util.BoundUtil;
+import com.wait.util.LongIntHashMap;
+import com.wait.util.SortedLongArrays;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 用户推荐服务实现
- * 基于 Redis Set 实现随机用户推荐功能
+ * 基于二度关系的共同关注数推荐，候选不足时从 Redis Set 候选池随机补足
+ * 
+ * 二度关系候选（recommend:fof:{userId}，ZSet，score 为共同关注数）：
+ * - 首次推荐时全量生成：用原始类型哈希表统计关注的人的关注列表，最小堆取前 K 个
+ * - 之后由关注/取关事件增量维护（Lua 脚本 ZADD XX INCR），只调整已在候选中的用户，不再全量重算；
+ *   新出现的候选不写入只含部分增量的分数，而是按关注列表与候选粉丝列表的交集大小精确统计后补入
+ *   （每个用户每批最多补入 seed-limit 个，粉丝数超过 fanout-limit 的候选留给过期后的全量生成）
+ * - 全量生成结果为空时写入短期空标记（recommend:fof_empty:{userId}），避免每次推荐都重复全量生成
+ * - 推荐时由 Lua 脚本按分数从高到低读取并排除已推荐、已关注的用户，一次往返完成
  * 
  * Redis 命令使用：
  * - SADD: 添加候选用户
@@ -31,9 +51,42 @@ import lombok.extern.slf4j.Slf4j;
 public class UserRecommendationServiceImpl implements UserRecommendationService {
 
     private final BoundUtil boundUtil;
+    private final RecommendationScripts recommendationScripts;
+    private final RelationService relationService;
 
     private static final String CANDIDATE_PREFIX = "recommend:candidate:";
     private static final String RECOMMENDED_PREFIX = "recommend:shown:";
+    private static final String FOF_PREFIX = "recommend:fof:";
+    private static final String FOF_EMPTY_PREFIX = "recommend:fof_empty:";
+    private static final String USER_FOLLOW_PREFIX = "user:follow:";
+
+    /** 全量生成时最多统计的关注用户数（关注过多时均匀抽样） */
+    @Value("${recommendation.fof.max-followees:500}")
+    private int maxFollowees;
+
+    /** 每个用户保留的候选数上限 */
+    @Value("${recommendation.fof.max-candidates:200}")
+    private int maxCandidates;
+
+    /** 增量更新时粉丝数超过该值的用户不向粉丝扩散（大V的关注行为对其粉丝的推荐意义不大） */
+    @Value("${recommendation.fof.fanout-limit:5000}")
+    private int fanoutLimit;
+
+    /** 候选 ZSet 过期天数，不活跃用户的候选自动清理，下次推荐时重新生成 */
+    @Value("${recommendation.fof.ttl-days:7}")
+    private int ttlDays;
+
+    /** 全量生成结果为空时空标记的过期秒数 */
+    @Value("${recommendation.fof.empty-ttl-seconds:300}")
+    private long emptyTtlSeconds;
+
+    /** 增量更新时每次脚本调用处理的用户数 */
+    @Value("${recommendation.fof.apply-batch-size:100}")
+    private int applyBatchSize;
+
+    /** 增量更新时每个用户每批最多补入的新候选数（按增量从大到小） */
+    @Value("${recommendation.fof.seed-limit:20}")
+    private int seedLimit;
 
     @Override
     public Long addCandidates(Long userId, List<Long> candidateUserIds) {
@@ -58,33 +111,11 @@ public class UserRecommendationServiceImpl implements UserRecommendationService
             return new ArrayList<>();
         }
 
-        String candidateKey = CANDIDATE_PREFIX + userId;
-        String recommendedKey = RECOMMENDED_PREFIX + userId;
-
-        // 获取候选用户集合
-        Set<Long> candidates = boundUtil.sMembers(candidateKey, Long.class);
-        if (candidates == null || candidates.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        // 获取已推荐用户集合
-        Set<Long> recommended = boundUtil.sMembers(recommendedKey, Long.class);
-        if (recommended != null && !recommended.isEmpty()) {
-            // 过滤已推荐用户
-            candidates.removeAll(recommended);
-        }
-
-        if (candidates.isEmpty()) {
-            return new ArrayList<>();
+        List<Long> result = fofRecommend(userId, count, false);
+        if (result.size() < count) {
+            result.addAll(randomCandidates(userId, count - result.size(), result));
         }
 
-        // 随机选择用户
-        List<Long> candidateList = new ArrayList<>(candidates);
-        Collections.shuffle(candidateList);
-        
-        int actualCount = Math.min(count, candidateList.size());
-        List<Long> result = candidateList.subList(0, actualCount);
-        
         log.debug("Recommended {} users for user {}", result.size(), userId);
         return result;
     }
@@ -98,16 +129,19 @@ public class UserRecommendationServiceImpl implements UserRecommendationService
         String candidateKey = CANDIDATE_PREFIX + userId;
         String recommendedKey = RECOMMENDED_PREFIX + userId;
 
-        List<Long> recommended = new ArrayList<>();
-        
-        // 使用 SPOP 随机获取并删除（避免重复推荐）
-        for (int i = 0; i < count; i++) {
+        List<Long> recommended = fofRecommend(userId, count, true);
+
+        // 二度关系候选不足时，使用 SPOP 从候选池随机获取并删除（避免重复推荐）
+        while (recommended.size() < count) {
             Long userIdToRecommend = boundUtil.sPop(candidateKey, Long.class);
             if (userIdToRecommend == null) {
                 break; // 候选池已空
             }
+            if (recommended.contains(userIdToRecommend)) {
+                continue;
+            }
             recommended.add(userIdToRecommend);
-            
+
             // 标记为已推荐
             boundUtil.sAdd(recommendedKey, userIdToRecommend);
         }
@@ -115,7 +149,7 @@ public class UserRecommendationServiceImpl implements UserRecommendationService
         if (!recommended.isEmpty()) {
             log.debug("Recommended and marked {} users for user {}", recommended.size(), userId);
         }
-        
+
         return recommended;
     }
 
@@ -183,5 +217,240 @@ public class UserRecommendationServiceImpl implements UserRecommendationService
         Long count = boundUtil.sCard(key);
         return count != null ? count : 0L;
     }
-}
 
+    @Override
+    public int generateCandidates(Long userId) {
+        if (userId == null) {
+            return 0;
+        }
+        long self = userId;
+        long[] following = relationService.getFollowingIds(userId);
+        int step = Math.max(1, (following.length + maxFollowees - 1) / maxFollowees);
+        LongIntHashMap counts = new LongIntHashMap(Math.min(following.length, maxFollowees) * 32);
+        for (int i = 0; i < following.length; i += step) {
+            for (long candidate : relationService.getFollowingIds(following[i])) {
+                if (candidate != self && Arrays.binarySearch(following, candidate) < 0) {
+                    counts.addTo(candidate, 1);
+                }
+            }
+        }
+
+        long[] top = counts.topKeys(maxCandidates);
+        String key = FOF_PREFIX + userId;
+        boundUtil.executePipelined(operations -> {
+            operations.delete(key);
+            if (top.length == 0) {
+                // 没有二度候选时 ZSet 不会被创建，写入空标记，过期前推荐直接走候选池
+                operations.opsForValue().set(FOF_EMPTY_PREFIX + userId, 1, emptyTtlSeconds, TimeUnit.SECONDS);
+                return;
+            }
+            for (long candidate : top) {
+                operations.opsForZSet().add(key, candidate, counts.get(candidate));
+            }
+            operations.expire(key, ttlDays, TimeUnit.DAYS);
+        });
+        log.info("Generated {} friend-of-friend candidates for user {} from {} followees ({} distinct)",
+                top.length, userId, following.length, counts.size());
+        return top.length;
+    }
+
+    @Override
+    public void onFollowEvents(List<RelationEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        // 候选所属用户 -> (候选用户 -> 共同关注数增量)
+        Map<Long, LongIntHashMap> deltas = new HashMap<>();
+        // 候选所属用户 -> 本批新关注的用户（需要从候选中移除）
+        Map<Long, Set<Long>> newlyFollowed = new HashMap<>();
+        for (RelationEvent event : events) {
+            long actor = event.getActorId();
+            long target = event.getTargetId();
+            int sign = event.getType().isPositive() ? 1 : -1;
+
+            // 1. A 关注 B：B 关注的人成为 A 的二度候选（A 已关注的除外）
+            long[] actorFollowing = relationService.getFollowingIds(actor);
+            LongIntHashMap own = deltas.computeIfAbsent(actor, k -> new LongIntHashMap());
+            for (long candidate : relationService.getFollowingIds(target)) {
+                if (candidate != actor && Arrays.binarySearch(actorFollowing, candidate) < 0) {
+                    own.addTo(candidate, sign);
+                }
+            }
+            if (sign > 0) {
+                newlyFollowed.computeIfAbsent(actor, k -> new HashSet<>()).add(target);
+            }
+
+            // 2. A 关注 B：B 成为 A 的粉丝的二度候选
+            Long followerCount = relationService.getFollowerCount(actor);
+            if (followerCount == null || followerCount > fanoutLimit) {
+                continue;
+            }
+            for (long follower : relationService.getFollowerIds(actor)) {
+                if (follower != target) {
+                    deltas.computeIfAbsent(follower, k -> new LongIntHashMap()).addTo(target, sign);
+                }
+            }
+        }
+
+        // 关注了新用户的用户，之前为空的生成结果已失效，删除空标记使下次推荐重新生成
+        if (!newlyFollowed.isEmpty()) {
+            boundUtil.executePipelined(operations -> {
+                for (Long actor : newlyFollowed.keySet()) {
+                    operations.delete(FOF_EMPTY_PREFIX + actor);
+                }
+            });
+        }
+
+        // 只更新已生成过候选的用户（由脚本判断 key 是否存在），未生成的用户首次推荐时会全量生成；
+        // 脚本返回不在候选中的新用户，精确统计后再补入
+        List<Long> owners = new ArrayList<>(deltas.keySet());
+        long updated = 0;
+        long seeded = 0;
+        for (int from = 0; from < owners.size(); from += applyBatchSize) {
+            List<Long> batch = owners.subList(from, Math.min(from + applyBatchSize, owners.size()));
+            List<String> keys = new ArrayList<>(batch.size());
+            List<Object> args = new ArrayList<>();
+            args.add(maxCandidates);
+            for (Long owner : batch) {
+                keys.add(FOF_PREFIX + owner);
+                List<Object> pairs = new ArrayList<>();
+                deltas.get(owner).forEach((candidate, delta) -> {
+                    if (delta != 0) {
+                        pairs.add(candidate);
+                        pairs.add(delta);
+                    }
+                });
+                args.add(pairs.size() / 2);
+                args.addAll(pairs);
+                Set<Long> followed = newlyFollowed.getOrDefault(owner, Collections.emptySet());
+                args.add(followed.size());
+                args.addAll(followed);
+            }
+            List<Object> reply = recommendationScripts.executeScript(RecommendationScripts.FOF_APPLY_DELTAS, keys,
+                    args.toArray());
+            if (reply == null || reply.isEmpty()) {
+                continue;
+            }
+            updated += Long.parseLong(String.valueOf(reply.get(0)));
+            seeded += seedMissingCandidates(batch, deltas, reply);
+        }
+        log.debug("Applied {} follow events to friend-of-friend candidates of {} users, {} new candidates seeded",
+                events.size(), updated, seeded);
+    }
+
+    /**
+     * 补入增量为正但不在候选中的用户
+     * 脚本返回 {updated, key下标, 数量, 用户ID...}，分数为候选所属用户的关注列表与候选粉丝列表的交集大小，
+     * 按当前关系精确统计（与全量生成一致），不使用只含本批增量的部分分数
+     */
+    private long seedMissingCandidates(List<Long> batch, Map<Long, LongIntHashMap> deltas, List<Object> reply) {
+        List<String> keys = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        args.add(maxCandidates);
+        Map<Long, long[]> followers = new HashMap<>();
+        int i = 1;
+        while (i + 1 < reply.size()) {
+            Long owner = batch.get(Integer.parseInt(String.valueOf(reply.get(i))) - 1);
+            int n = Integer.parseInt(String.valueOf(reply.get(i + 1)));
+            List<Long> missing = new ArrayList<>(n);
+            for (Object member : reply.subList(i + 2, Math.min(i + 2 + n, reply.size()))) {
+                missing.add(Long.valueOf(String.valueOf(member)));
+            }
+            i += 2 + n;
+
+            // 增量大的候选共同关注数更可能进入前 maxCandidates，优先统计
+            LongIntHashMap ownerDeltas = deltas.get(owner);
+            missing.sort((a, b) -> Integer.compare(ownerDeltas.get(b), ownerDeltas.get(a)));
+            long[] following = relationService.getFollowingIds(owner);
+            List<Object> pairs = new ArrayList<>();
+            int limit = Math.min(seedLimit, missing.size());
+            for (Long candidate : missing.subList(0, limit)) {
+                // 粉丝侧的增量不排除已关注的用户，补入前排除
+                if (candidate.equals(owner) || Arrays.binarySearch(following, candidate) >= 0) {
+                    continue;
+                }
+                int common = SortedLongArrays.intersectCount(following,
+                        followers.computeIfAbsent(candidate, this::seedFollowerIds));
+                if (common > 0) {
+                    pairs.add(candidate);
+                    pairs.add(common);
+                }
+            }
+            if (!pairs.isEmpty()) {
+                keys.add(FOF_PREFIX + owner);
+                args.add(pairs.size() / 2);
+                args.addAll(pairs);
+            }
+        }
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long added = recommendationScripts.executeScript(RecommendationScripts.FOF_SEED_CANDIDATES, keys,
+                args.toArray());
+        return added != null ? added : 0;
+    }
+
+    /**
+     * 补入候选时统计共同关注数用的粉丝列表，粉丝数超过 fanoutLimit 时不读取（返回空数组，不补入）
+     */
+    private long[] seedFollowerIds(Long candidate) {
+        Long followerCount = relationService.getFollowerCount(candidate);
+        if (followerCount == null || followerCount > fanoutLimit) {
+            return SortedLongArrays.EMPTY;
+        }
+        return relationService.getFollowerIds(candidate);
+    }
+
+    /**
+     * 从二度关系候选中按共同关注数推荐，候选尚未生成时先全量生成
+     */
+    private List<Long> fofRecommend(Long userId, int count, boolean mark) {
+        String fofKey = FOF_PREFIX + userId;
+        List<Object> exists = boundUtil.executePipelined(operations -> {
+            operations.hasKey(fofKey);
+            operations.hasKey(FOF_EMPTY_PREFIX + userId);
+        });
+        if (!Boolean.TRUE.equals(exists.get(0))
+                && (Boolean.TRUE.equals(exists.get(1)) || generateCandidates(userId) == 0)) {
+            return new ArrayList<>();
+        }
+        List<String> members = recommendationScripts.executeScript(RecommendationScripts.FOF_RECOMMEND,
+                Arrays.asList(fofKey, RECOMMENDED_PREFIX + userId, USER_FOLLOW_PREFIX + userId),
+                count, mark ? 1 : 0, userId);
+        List<Long> result = new ArrayList<>();
+        if (members != null) {
+            for (String member : members) {
+                result.add(Long.parseLong(member));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 从候选池随机选择用户（排除已推荐和 exclude 中的用户）
+     */
+    private List<Long> randomCandidates(Long userId, int count, Collection<Long> exclude) {
+        // 获取候选用户集合
+        Set<Long> candidates = boundUtil.sMembers(CANDIDATE_PREFIX + userId, Long.class);
+        if (candidates == null || candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 获取已推荐用户集合
+        Set<Long> recommended = boundUtil.sMembers(RECOMMENDED_PREFIX + userId, Long.class);
+        if (recommended != null && !recommended.isEmpty()) {
+            // 过滤已推荐用户
+            candidates.removeAll(recommended);
+        }
+        candidates.removeAll(exclude);
+
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 随机选择用户
+        List<Long> candidateList = new ArrayList<>(candidates);
+        Collections.shuffle(candidateList);
+        return new ArrayList<>(candidateList.subList(0, Math.min(count, candidateList.size())));
+    }
+}
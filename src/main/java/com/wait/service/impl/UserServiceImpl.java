@@ -55,6 +55,20 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    @Override
+    public List<UserBase> findByIds(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            return userBaseMapper.selectByIds(userIds);
+        } catch (Exception e) {
+            log.error("批量查询用户失败: userIds={}", userIds, e);
+            return new ArrayList<>();
+        }
+    }
+
     @Override
     public UserBase findByUsername(String username) {
         if (!StringUtils.hasText(username)) {
@@ -3,14 +3,19 @@ package com.wait.sync.write;
 import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Component;
 
+import com.wait.util.LongPairStateBuffer;
+
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,6 +30,8 @@ import lombok.extern.slf4j.Slf4j;
  * 2. 定量批量写入：当缓冲达到M条时立即写入
  * 3. 混合触发：定时 + 定量双重触发，兼顾性能和实时性
  * 4. 去重合并：同一key的多次操作只保留最新状态
+ * 5. 点赞/收藏这类 (long, long) 键使用 PairBatchTaskManager，缓冲不产生字符串和装箱对象
+ * 6. PairBatchTaskManager 可指定刷库执行器：定量、定时触发都只提交刷库任务，请求线程不执行数据库写入
  * 
  * 复用IncrementalWriteStrategy的核心思路，但针对关系数据（Set操作）进行优化
  */
@@ -204,6 +211,169 @@ public class RelationWriteBehindStrategy {
         }
     }
 
+    /**
+     * (long, long) 键的批量任务管理器
+     *
+     * 与 BatchTaskManager 的触发方式相同，操作直接写入 LongPairStateBuffer（如 postId、userId 两个 long），
+     * 不再拼接 "postId:userId" 字符串，刷库回调拿到的快照也无需拆分解析。
+     * 回调返回后快照会被归还复用，回调内不能保留快照的引用
+     */
+    @Data
+    public static class PairBatchTaskManager {
+        /** 操作缓冲 */
+        private final LongPairStateBuffer buffer = new LongPairStateBuffer();
+
+        /** 定时刷库任务 */
+        private volatile ScheduledFuture<?> scheduledFlushTask;
+
+        /** 定时批量写入延迟时间 */
+        private final long flushDelayMs;
+
+        /** 定量批量写入阈值 */
+        private final int batchSizeThreshold;
+
+        /** 批量写入回调 */
+        private final Consumer<LongPairStateBuffer.Snapshot> flushCallback;
+
+        /** 任务调度器 */
+        private final ThreadPoolTaskScheduler taskScheduler;
+
+        /** 刷库执行器，为 null 时在触发线程上同步刷库 */
+        private final Executor flushExecutor;
+
+        /** 是否已有提交到刷库执行器、尚未执行完毕的刷库任务，保证同一管理器的刷库串行执行 */
+        private final AtomicBoolean flushActive = new AtomicBoolean();
+
+        /** 刷库锁：执行器上的刷库任务与直接调用 flushBatchToDatabase（如关闭时）之间也互斥 */
+        private final Object flushLock = new Object();
+
+        public PairBatchTaskManager(long flushDelayMs, int batchSizeThreshold,
+                Consumer<LongPairStateBuffer.Snapshot> flushCallback, ThreadPoolTaskScheduler taskScheduler) {
+            this(flushDelayMs, batchSizeThreshold, flushCallback, taskScheduler, null);
+        }
+
+        public PairBatchTaskManager(long flushDelayMs, int batchSizeThreshold,
+                Consumer<LongPairStateBuffer.Snapshot> flushCallback, ThreadPoolTaskScheduler taskScheduler,
+                Executor flushExecutor) {
+            this.flushDelayMs = flushDelayMs;
+            this.batchSizeThreshold = batchSizeThreshold;
+            this.flushCallback = flushCallback;
+            this.taskScheduler = taskScheduler;
+            this.flushExecutor = flushExecutor;
+        }
+
+        /**
+         * 添加操作并检查是否需要立即刷库（同一键只保留最新状态）
+         */
+        public void addOperation(long first, long second, boolean value) {
+            buffer.put(first, second, value);
+
+            if (buffer.size() >= batchSizeThreshold) {
+                log.debug("Batch size threshold reached ({}), triggering immediate flush", buffer.size());
+                requestFlush();
+            } else {
+                scheduleBatchFlushTask();
+            }
+        }
+
+        /**
+         * 触发刷库：有刷库执行器时提交任务后立即返回。
+         * 任务从提交到执行完毕期间不再提交新任务，同一管理器的两个快照不会在不同线程上并发写库，
+         * 同一 (postId, userId) 的先后操作（如点赞后取消）按顺序落库
+         */
+        private void requestFlush() {
+            if (flushExecutor == null) {
+                flushBatchToDatabase();
+                return;
+            }
+            if (!flushActive.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                flushExecutor.execute(this::runFlushTask);
+            } catch (RejectedExecutionException e) {
+                flushActive.set(false);
+                log.warn("Flush executor rejected the task, retrying on schedule", e);
+                scheduleBatchFlushTask();
+            }
+        }
+
+        private void runFlushTask() {
+            boolean failed = false;
+            try {
+                flushBatchToDatabase();
+            } catch (Exception e) {
+                // 失败的操作已放回缓冲，由定时任务延迟重试
+                failed = true;
+            } finally {
+                flushActive.set(false);
+            }
+            // 执行期间到达的操作不会再提交任务，退出前重新检查缓冲
+            if (!failed && buffer.size() >= batchSizeThreshold) {
+                requestFlush();
+            } else if (!buffer.isEmpty()) {
+                scheduleBatchFlushTask();
+            }
+        }
+
+        /**
+         * 获取待刷库的操作数量
+         */
+        public int getPendingCount() {
+            return buffer.size();
+        }
+
+        private void scheduleBatchFlushTask() {
+            ScheduledFuture<?> task = scheduledFlushTask;
+            if (task != null && !task.isDone() && !task.isCancelled()) {
+                return;
+            }
+            scheduledFlushTask = taskScheduler.schedule(
+                    this::requestFlush,
+                    new Date(System.currentTimeMillis() + flushDelayMs));
+
+            log.debug("Scheduled pair batch flush task, delay: {}ms", flushDelayMs);
+        }
+
+        /**
+         * 批量刷写到数据库：换出快照后执行回调，失败时把快照中的操作放回缓冲（不覆盖期间的新操作）
+         */
+        public void flushBatchToDatabase() {
+            synchronized (flushLock) {
+                doFlushBatchToDatabase();
+            }
+        }
+
+        private void doFlushBatchToDatabase() {
+            if (buffer.isEmpty()) {
+                log.debug("No pending operations to flush");
+                return;
+            }
+            LongPairStateBuffer.Snapshot snapshot = buffer.drain();
+            if (snapshot.isEmpty()) {
+                // 检查之后缓冲已被清空
+                return;
+            }
+
+            ScheduledFuture<?> task = scheduledFlushTask;
+            if (task != null && !task.isDone()) {
+                task.cancel(false);
+                scheduledFlushTask = null;
+            }
+
+            try {
+                flushCallback.accept(snapshot);
+                log.info("Batch flush completed: {} operations", snapshot.size());
+            } catch (Exception e) {
+                log.error("Failed to flush batch to database", e);
+                buffer.requeue(snapshot);
+                throw e;
+            } finally {
+                buffer.release(snapshot);
+            }
+        }
+    }
+
     /**
      * 创建批量任务管理器
      * 
@@ -217,6 +387,34 @@ public class RelationWriteBehindStrategy {
         return new BatchTaskManager<>(flushDelayMs, batchSizeThreshold, flushCallback, taskScheduler);
     }
 
+    /**
+     * 创建 (long, long) 键的批量任务管理器
+     *
+     * @param flushDelayMs 定时批量写入延迟时间（毫秒）
+     * @param batchSizeThreshold 定量批量写入阈值
+     * @param flushCallback 批量写入回调
+     * @return 批量任务管理器
+     */
+    public PairBatchTaskManager createPairBatchTaskManager(long flushDelayMs, int batchSizeThreshold,
+            Consumer<LongPairStateBuffer.Snapshot> flushCallback) {
+        return new PairBatchTaskManager(flushDelayMs, batchSizeThreshold, flushCallback, taskScheduler);
+    }
+
+    /**
+     * 创建 (long, long) 键的批量任务管理器，刷库在指定执行器上异步执行
+     *
+     * @param flushDelayMs 定时批量写入延迟时间（毫秒）
+     * @param batchSizeThreshold 定量批量写入阈值
+     * @param flushCallback 批量写入回调
+     * @param flushExecutor 刷库执行器
+     * @return 批量任务管理器
+     */
+    public PairBatchTaskManager createPairBatchTaskManager(long flushDelayMs, int batchSizeThreshold,
+            Consumer<LongPairStateBuffer.Snapshot> flushCallback, Executor flushExecutor) {
+        return new PairBatchTaskManager(flushDelayMs, batchSizeThreshold, flushCallback, taskScheduler,
+                flushExecutor);
+    }
+
     /**
      * 创建批量任务管理器（使用默认配置）
      * 
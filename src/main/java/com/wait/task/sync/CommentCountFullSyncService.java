@@ -0,0 +1,54 @@
+package com.wait.task.sync;
+
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.wait.entity.domain.Comment;
+import com.wait.mapper.CommentMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 评论数全量校对服务实现
+ * 
+ * 增量校对只覆盖记入过待校对 Set 的帖子，标记丢失（Redis 故障、数据修复直接改库）时无法自愈，
+ * 因此低峰期再按数据库全量覆盖一次评论排行榜。评论数 Hash 不在这里覆盖：
+ * 全量查询耗时较长，期间的增量已写入 Hash，覆盖反而会写回旧值
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CommentCountFullSyncService implements DataSyncService<Comment> {
+
+    private final CommentMapper commentMapper;
+
+    private static final String RANKING_COMMENTS = "post:ranking:comments";
+
+    @Override
+    public String getRedisKey() {
+        return RANKING_COMMENTS;
+    }
+
+    @Override
+    public List<Comment> queryDataFromDatabase() {
+        return commentMapper.selectAllPostCommentCounts();
+    }
+
+    @Override
+    public Long extractResourceId(Comment data) {
+        return data.getPostId();
+    }
+
+    @Override
+    public Integer extractCount(Comment data) {
+        // 注意：selectAllPostCommentCounts返回的Comment对象中，likeCount字段存储评论数（SQL中COUNT(*)映射到likeCount）
+        return data.getLikeCount() != null ? data.getLikeCount() : 0;
+    }
+
+    @Override
+    public String getTaskName() {
+        return "Comment Count Full Sync";
+    }
+}
@@ -1,17 +1,29 @@
 package com.wait.task.sync;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.wait.entity.domain.Comment;
 import com.wait.mapper.CommentMapper;
+import com.wait.util.BoundUtil;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 评论数同步服务实现
+ * 
+ * 只校对评论数变化过的帖子：发表/删除评论时帖子ID被记入待校对 Set，
+ * 同步时分批把帖子从待校对 Set SMOVE 到处理中 Set，每批一条 GROUP BY 查询取回真实评论数，
+ * 写回评论排行榜（由执行器完成）和评论数 Hash 分片（onSynced），写回成功后才从处理中 Set 移除。
+ * 查询或写回失败、进程崩溃时帖子留在处理中 Set，下次同步开始时放回待校对 Set 重试。
+ * 全量校对见 CommentCountFullSyncService
  */
 @Slf4j
 @Service
@@ -19,8 +31,18 @@ import lombok.extern.slf4j.Slf4j;
 public class CommentCountSyncService implements DataSyncService<Comment> {
 
     private final CommentMapper commentMapper;
+    private final BoundUtil boundUtil;
 
     private static final String RANKING_COMMENTS = "post:ranking:comments";
+    private static final String COMMENT_COUNT_PREFIX = "post:comment:count:";
+    private static final String COMMENT_COUNT_DIRTY_KEY = "post:comment:count:dirty";
+    private static final String COMMENT_COUNT_PROCESSING_KEY = "post:comment:count:processing";
+    /** 单次同步最多处理的批次数，剩余的帖子留给下一次同步 */
+    private static final int MAX_BATCHES_PER_RUN = 100;
+
+    /** 评论数 Hash 分片数，与 CommentServiceImpl 保持一致 */
+    @Value("${comment.count.shards:64}")
+    private int countShards;
 
     @Override
     public String getRedisKey() {
@@ -29,7 +51,20 @@ public class CommentCountSyncService implements DataSyncService<Comment> {
 
     @Override
     public List<Comment> queryDataFromDatabase() {
-        return commentMapper.selectAllPostCommentCounts();
+        requeueProcessing();
+        List<Comment> result = new ArrayList<>();
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            List<Long> candidates = boundUtil.sRandMembers(COMMENT_COUNT_DIRTY_KEY, getBatchSize(), Long.class);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            List<Long> postIds = claim(candidates);
+            if (!postIds.isEmpty()) {
+                // 查询失败时帖子留在处理中 Set，下次同步开始时放回待校对 Set
+                result.addAll(countByPostIds(postIds));
+            }
+        }
+        return result;
     }
 
     @Override
@@ -39,7 +74,7 @@ public class CommentCountSyncService implements DataSyncService<Comment> {
 
     @Override
     public Integer extractCount(Comment data) {
-        // 注意：selectAllPostCommentCounts返回的Comment对象中，likeCount字段存储评论数（SQL中COUNT(*)映射到likeCount）
+        // 注意：countByPostIds返回的Comment对象中，likeCount字段存储评论数（SQL中COUNT(*)映射到likeCount）
         return data.getLikeCount() != null ? data.getLikeCount() : 0;
     }
 
@@ -47,4 +82,86 @@ public class CommentCountSyncService implements DataSyncService<Comment> {
     public String getTaskName() {
         return "Comment Count Sync";
     }
+
+    /**
+     * 以数据库为准覆盖评论数 Hash 分片，并把帖子移出处理中 Set；
+     * 同步期间又有新评论的帖子已重新记入待校对 Set，下次同步修正
+     */
+    @Override
+    public void onSynced(Map<Long, Integer> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Object>> fieldsByShard = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            fieldsByShard.computeIfAbsent(countKey(entry.getKey()), k -> new HashMap<>())
+                    .put(String.valueOf(entry.getKey()), entry.getValue());
+        }
+        Object[] postIds = counts.keySet().toArray();
+        boundUtil.executePipelined(operations -> {
+            for (Map.Entry<String, Map<String, Object>> shard : fieldsByShard.entrySet()) {
+                operations.opsForHash().putAll(shard.getKey(), shard.getValue());
+            }
+            operations.opsForSet().remove(COMMENT_COUNT_PROCESSING_KEY, postIds);
+        });
+    }
+
+    /**
+     * 逐个 SMOVE 到处理中 Set 认领帖子，SMOVE 原子，多个节点并发同步时每个帖子只被一个节点认领
+     */
+    private List<Long> claim(List<Long> candidates) {
+        List<Object> moved = boundUtil.executePipelined(operations -> {
+            for (Long postId : candidates) {
+                operations.opsForSet().move(COMMENT_COUNT_DIRTY_KEY, postId, COMMENT_COUNT_PROCESSING_KEY);
+            }
+        });
+        List<Long> claimed = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size() && i < moved.size(); i++) {
+            if (Boolean.TRUE.equals(moved.get(i))) {
+                claimed.add(candidates.get(i));
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * 把上次同步遗留在处理中 Set 的帖子放回待校对 Set（查询、写回失败或进程崩溃）
+     * 其他节点正在处理的帖子也可能被放回，最多多校对一次，校对本身幂等
+     */
+    private void requeueProcessing() {
+        Set<Long> pending = boundUtil.sMembers(COMMENT_COUNT_PROCESSING_KEY, Long.class);
+        if (pending.isEmpty()) {
+            return;
+        }
+        boundUtil.executePipelined(operations -> {
+            for (Long postId : pending) {
+                operations.opsForSet().move(COMMENT_COUNT_PROCESSING_KEY, postId, COMMENT_COUNT_DIRTY_KEY);
+            }
+        });
+        log.info("Requeued {} posts left in comment count processing set", pending.size());
+    }
+
+    private String countKey(Long postId) {
+        return COMMENT_COUNT_PREFIX + Math.floorMod(postId, (long) Math.max(1, countShards));
+    }
+
+    /**
+     * 一批帖子的评论数，没有评论的帖子补一条计数为 0 的记录（同样需要校对为 0）
+     */
+    private List<Comment> countByPostIds(List<Long> postIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Long postId : postIds) {
+            counts.put(postId, 0);
+        }
+        for (Comment row : commentMapper.countByPostIds(postIds)) {
+            if (row.getPostId() != null && row.getLikeCount() != null) {
+                counts.put(row.getPostId(), row.getLikeCount());
+            }
+        }
+        List<Comment> rows = new ArrayList<>(counts.size());
+        for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            rows.add(Comment.builder().postId(entry.getKey()).likeCount(entry.getValue()).build());
+        }
+        return rows;
+    }
 }
@@ -1,6 +1,7 @@
 package com.wait.task.sync;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 数据同步服务接口
@@ -62,5 +63,13 @@ public interface DataSyncService<T> {
     default int getBatchSize() {
         return 1000;
     }
+
+    /**
+     * 同步写入 Sorted Set 之后的回调，用于同步其他依赖同一批数据的缓存
+     * 
+     * @param counts 本次同步的 resourceId -> count
+     */
+    default void onSynced(Map<Long, Integer> counts) {
+    }
 }
 
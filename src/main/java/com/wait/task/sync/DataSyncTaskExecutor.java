@@ -91,6 +91,8 @@ public class DataSyncTaskExecutor {
                 }
             }
 
+            service.onSynced(countMap);
+
             long duration = System.currentTimeMillis() - startTime;
             log.info("Sync task completed: {} - updated {} records, took {}ms", taskName, updatedCount, duration);
 
@@ -125,13 +127,25 @@ public class DataSyncTaskExecutor {
 
     /**
      * 评论数同步任务
-     * 每天凌晨2点40分执行
+     * 只校对评论数变化过的帖子，开销与变化量成正比，因此按固定间隔执行
      */
-    @Scheduled(cron = "0 40 2 * * ?")
+    @Scheduled(fixedDelayString = "${comment.count.sync-interval-ms:300000}")
     public void syncCommentCounts() {
         syncServices.stream()
                 .filter(service -> "Comment Count Sync".equals(service.getTaskName()))
                 .findFirst()
                 .ifPresent(this::executeSyncTask);
     }
+
+    /**
+     * 评论数全量校对任务
+     * 每天凌晨2点40分执行，兜底修正增量校对漏掉的帖子
+     */
+    @Scheduled(cron = "${comment.count.full-sync-cron:0 40 2 * * ?}")
+    public void fullSyncCommentCounts() {
+        syncServices.stream()
+                .filter(service -> "Comment Count Full Sync".equals(service.getTaskName()))
+                .findFirst()
+                .ifPresent(this::executeSyncTask);
+    }
 }
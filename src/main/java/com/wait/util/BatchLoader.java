@@ -0,0 +1,111 @@
+package com.wait.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * 批量加载器（DataLoader 模式）：先登记要加载的键，再一次性批量加载
+ *
+ * 同一加载器内相同的键只加载一次（返回同一个 Future），dispatch 把登记的键作为一个批次交给批量函数
+ * （一次管道或一条 IN 查询）。多个加载器分别 dispatch 到线程池即可并发执行彼此独立的批次。
+ * 加载器实例只在一次请求内使用，结果不做跨请求缓存
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型，批量函数结果中不存在的键对应 null
+ */
+public final class BatchLoader<K, V> {
+
+    private final String name;
+    private final Function<List<K>, Map<K, V>> batchFunction;
+    private final Map<K, CompletableFuture<V>> futures = new HashMap<>();
+    private List<K> pending = new ArrayList<>();
+
+    /**
+     * @param name          名称（用于日志）
+     * @param batchFunction 批量加载函数，入参为去重后的键
+     */
+    public BatchLoader(String name, Function<List<K>, Map<K, V>> batchFunction) {
+        this.name = name;
+        this.batchFunction = batchFunction;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 登记一个键，返回其结果 Future（在 dispatch 的批次完成后完成）
+     */
+    public synchronized CompletableFuture<V> load(K key) {
+        CompletableFuture<V> future = futures.get(key);
+        if (future == null) {
+            future = new CompletableFuture<>();
+            futures.put(key, future);
+            pending.add(key);
+        }
+        return future;
+    }
+
+    /**
+     * 批量登记
+     */
+    public void loadMany(Iterable<K> keys) {
+        for (K key : keys) {
+            if (key != null) {
+                load(key);
+            }
+        }
+    }
+
+    /**
+     * 把已登记但尚未加载的键作为一个批次异步加载
+     *
+     * @return 批次完成时完成的 Future；批量函数抛出异常时，该 Future 和本批次各个键的 Future 都以该异常完成
+     */
+    public CompletableFuture<Void> dispatch(Executor executor) {
+        List<K> keys;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            keys = pending;
+            pending = new ArrayList<>();
+        }
+        return CompletableFuture.runAsync(() -> loadBatch(keys), executor);
+    }
+
+    /**
+     * 获取已完成的结果；尚未完成、加载失败或未登记时返回 null
+     */
+    public synchronized V getIfLoaded(K key) {
+        CompletableFuture<V> future = futures.get(key);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join();
+    }
+
+    private void loadBatch(List<K> keys) {
+        Map<K, V> values;
+        try {
+            values = batchFunction.apply(keys);
+        } catch (RuntimeException e) {
+            for (K key : keys) {
+                futureOf(key).completeExceptionally(e);
+            }
+            throw e;
+        }
+        for (K key : keys) {
+            futureOf(key).complete(values != null ? values.get(key) : null);
+        }
+    }
+
+    private synchronized CompletableFuture<V> futureOf(K key) {
+        return futures.get(key);
+    }
+}
@@ -1,6 +1,7 @@
 package com.wait.util;
 
 import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,6 +17,7 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -23,6 +25,7 @@ import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.DataType;
 import org.springframework.data.redis.connection.RedisZSetCommands;
 import org.springframework.data.redis.core.BoundHashOperations;
 import org.springframework.data.redis.core.BoundListOperations;
@@ -30,8 +33,11 @@ import org.springframework.data.redis.core.BoundSetOperations;
 import org.springframework.data.redis.core.BoundValueOperations;
 import org.springframework.data.redis.core.BoundZSetOperations;
 import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -41,6 +47,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wait.entity.CacheResult;
 import com.wait.entity.CacheSyncParam;
 import com.wait.entity.NullObject;
+import com.wait.entity.dto.CursorPage;
 import com.wait.entity.type.CacheType;
 import com.wait.exception.CacheOperationException;
 import com.wait.util.instance.HashMappingUtil;
@@ -556,6 +563,18 @@ public class BoundUtil {
         return old != null ? safeCast(old, clazz) : null;
     }
 
+    /**
+     * 读取字符串原始字节（GET，不经过值序列化器）
+     * 用于读取位图等二进制值，RedisTemplate 的 Jackson 序列化器无法反序列化这类数据
+     * 
+     * @param key 键
+     * @return 原始字节，不存在返回null
+     */
+    public byte[] getBytes(String key) {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey));
+    }
+
     /* ========== List（BoundListOperations） ========== */
     private BoundListOperations<String, Object> boundList(String key) {
         return redisTemplate.boundListOps(key);
@@ -770,6 +789,72 @@ public class BoundUtil {
         return value != null ? safeCast(value, clazz) : null;
     }
 
+    /**
+     * 随机返回最多 count 个不重复成员（SRANDMEMBER key count），不移除，Set 为空时返回空列表
+     */
+    public <T> List<T> sRandMembers(String key, long count, Class<T> clazz) {
+        Set<Object> values = redisTemplate.opsForSet().distinctRandomMembers(key, count);
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> result = new ArrayList<>(values.size());
+        for (Object value : values) {
+            T member = safeCast(value, clazz);
+            if (member != null) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 随机弹出最多 count 个成员（SPOP key count），Set 为空时返回空列表
+     */
+    public <T> List<T> sPop(String key, long count, Class<T> clazz) {
+        List<Object> values = redisTemplate.opsForSet().pop(key, count);
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> result = new ArrayList<>(values.size());
+        for (Object value : values) {
+            T member = safeCast(value, clazz);
+            if (member != null) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 使用 SSCAN 增量遍历 Set 成员，并通过回调分批处理（适合大 Set，避免 SMEMBERS 阻塞）
+     * 
+     * @param key      Set key
+     * @param count    每次扫描的建议数量
+     * @param clazz    成员类型
+     * @param callback 处理每批成员的回调函数
+     */
+    public <T> void sScanWithCallback(String key, int count, Class<T> clazz,
+            java.util.function.Consumer<List<T>> callback) {
+        ScanOptions options = ScanOptions.scanOptions().count(count).build();
+
+        List<T> batch = new ArrayList<>();
+        try (Cursor<Object> cursor = boundSet(key).scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(safeCast(cursor.next(), clazz));
+                if (batch.size() >= count) {
+                    callback.accept(new ArrayList<>(batch));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                callback.accept(batch);
+            }
+        } catch (Exception e) {
+            log.error("Failed to sscan set, key: {}, count: {}", key, count, e);
+            throw new CacheOperationException("Failed to sscan set", e);
+        }
+    }
+
     /**
      * 计算多个Set的交集（SINTER）
      * 返回同时存在于所有指定Set中的成员
@@ -1096,6 +1181,104 @@ public class BoundUtil {
         return result;
     }
 
+    /**
+     * 按分数范围分页查询Sorted Set中的成员及其分数（ZREVRANGEBYSCORE WITHSCORES LIMIT，按分数从高到低）
+     * 
+     * @param key      Sorted Set的key
+     * @param maxScore 最大分数（包含）
+     * @param minScore 最小分数（包含）
+     * @param offset   偏移量
+     * @param count    数量
+     * @param clazz    成员类型
+     * @return Map，key为成员，value为分数（按分数从高到低排序）
+     */
+    public <T> Map<T, Double> zRevRangeByScoreWithScores(String key, double maxScore, double minScore,
+            long offset, long count, Class<T> clazz) {
+        Set<TypedTuple<Object>> tuples = boundZSet(key)
+                .reverseRangeByScoreWithScores(minScore, maxScore, offset, count);
+        if (tuples == null)
+            return Collections.emptyMap();
+
+        Map<T, Double> result = new LinkedHashMap<>();
+        for (TypedTuple<Object> tuple : tuples) {
+            T member = safeCast(tuple.getValue(), clazz);
+            Double score = tuple.getScore();
+            if (member != null && score != null) {
+                result.put(member, score);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 键集（seek）分页：按 (score, member) 从高到低，返回位于游标之后的最多 limit 个成员
+     * 
+     * 与 ZREVRANGE start end 的偏移分页不同，seek 分页不受翻页期间新增成员影响，也不需要跳过前面的 offset 个元素
+     * 同分数的成员 Redis 按字典序逆序返回，因此游标之后 = 分数更低，或分数相同且成员字典序更小
+     * 
+     * @param key          Sorted Set的key
+     * @param cursorScore  游标分数（上一页最后一个成员的分数），null 表示第一页
+     * @param cursorMember 游标成员（上一页最后一个成员），null 表示第一页
+     * @param limit        数量
+     * @param clazz        成员类型
+     * @return Map，key为成员，value为分数（按分数从高到低排序）
+     */
+    public <T> Map<T, Double> zRevRangeByScoreAfter(String key, Double cursorScore, String cursorMember,
+            int limit, Class<T> clazz) {
+        Map<T, Double> result = new LinkedHashMap<>();
+        double max = cursorScore != null ? cursorScore : Double.POSITIVE_INFINITY;
+        int fetch = limit + 1;
+        long offset = 0;
+
+        while (result.size() < limit) {
+            Set<TypedTuple<Object>> tuples = boundZSet(key)
+                    .reverseRangeByScoreWithScores(Double.NEGATIVE_INFINITY, max, offset, fetch);
+            if (tuples == null || tuples.isEmpty()) {
+                break;
+            }
+            for (TypedTuple<Object> tuple : tuples) {
+                Double score = tuple.getScore();
+                Object value = tuple.getValue();
+                if (score == null || value == null) {
+                    continue;
+                }
+                // 跳过与游标同分数且已经返回过的成员
+                if (cursorScore != null && cursorMember != null && Double.compare(score, cursorScore) == 0
+                        && String.valueOf(value).compareTo(cursorMember) >= 0) {
+                    continue;
+                }
+                result.put(safeCast(value, clazz), score);
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+            if (tuples.size() < fetch) {
+                break;
+            }
+            offset += tuples.size();
+        }
+        return result;
+    }
+
+    /**
+     * Sorted Set 游标分页（按分数从高到低），游标为上一页返回的 nextCursor（见 {@link ScoreCursor}）
+     * 
+     * @param key      Sorted Set的key
+     * @param cursor   游标，null 或空串表示第一页
+     * @param pageSize 每页数量
+     * @param clazz    成员类型
+     * @return 当前页成员和下一页游标
+     */
+    public <T> CursorPage<T> zRevPage(String key, String cursor, int pageSize, Class<T> clazz) {
+        ScoreCursor seek = ScoreCursor.parse(cursor);
+        int size = Math.max(1, pageSize);
+        Map<T, Double> entries = zRevRangeByScoreAfter(key,
+                seek != null ? seek.getScore() : null,
+                seek != null ? seek.getMember() : null,
+                size + 1, clazz);
+        return ScoreCursor.toPage(entries, size);
+    }
+
     /**
      * 按分数范围查询Sorted Set中的成员及其分数（ZRANGEBYSCORE WITHSCORES）
      * 返回包含成员和分数的Map，保持Redis返回的顺序（按分数从低到高）
@@ -1427,11 +1610,59 @@ public class BoundUtil {
         return boundHash(key).size();
     }
 
+    /* ========== Pipeline ========== */
+    /**
+     * 管道批量执行命令：回调中通过 operations 发出的命令一次性发送，减少网络往返
+     * 回调内的命令返回值均为 null，真实结果按命令顺序（经模板的序列化器反序列化）在返回的列表中
+     * 
+     * @param commands 在管道中执行的命令
+     * @return 每条命令的结果
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> executePipelined(Consumer<RedisOperations<String, Object>> commands) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                commands.accept((RedisOperations<String, Object>) operations);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 管道批量读取多个 Hash（HGETALL），结果与 keys 顺序一致，不存在的 key 返回空 Map
+     */
+    public <V> List<Map<String, V>> hEntriesPipelined(List<String> keys, Class<V> clazz) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> raw = executePipelined(operations -> {
+            for (String key : keys) {
+                operations.opsForHash().entries(key);
+            }
+        });
+        List<Map<String, V>> result = new ArrayList<>(keys.size());
+        for (Object item : raw) {
+            Map<String, V> entries = new HashMap<>();
+            if (item instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) item).entrySet()) {
+                    entries.put(String.valueOf(entry.getKey()), safeCast(entry.getValue(), clazz));
+                }
+            }
+            result.add(entries);
+        }
+        return result;
+    }
+
     /* ========== 通用 key 管理 ========== */
     public Boolean exists(String key) {
         return redisTemplate.hasKey(key);
     }
 
+    public DataType type(String key) {
+        return redisTemplate.type(key);
+    }
+
     public Boolean expire(String key, long timeout, TimeUnit unit) {
         return redisTemplate.expire(key, timeout, unit);
     }
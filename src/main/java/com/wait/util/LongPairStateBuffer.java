@@ -0,0 +1,320 @@
+package com.wait.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * (long, long) -> boolean 并发写缓冲，用于点赞/收藏等关系操作的写回合并
+ *
+ * 两个 long 原样存放（128 位键，不拼接字符串、不装箱），按哈希分段，每段是一张带锁的开放寻址表，
+ * 同一键的多次写入只保留最新状态。drain 逐段把当前表整体换出作为快照，后续写入进入空表；
+ * 快照处理完后通过 release 归还，作为下一轮的空表复用，稳定状态下每次写入不产生对象分配
+ *
+ * 每个键同时记录本轮第一次写入的状态。写入方只在状态确实发生变化时写入（如点赞脚本返回生效）时，
+ * 同一键的写入状态交替出现，第一次写入的状态与最新状态相同即表示相对本轮之前发生了净变化，
+ * 刷库时据此得到增量（如关系摘要），无需查询数据库中的原有状态
+ */
+public final class LongPairStateBuffer {
+
+    /** 槽位状态：0 为空槽，否则 OCCUPIED 位置位，LATEST 位为最新状态，FIRST 位为本轮第一次写入的状态 */
+    private static final byte EMPTY = 0;
+    private static final byte OCCUPIED = 1;
+    private static final byte LATEST = 2;
+    private static final byte FIRST = 4;
+
+    /** 写入方式：覆盖最新状态 / 仅在键不存在时写入 / 合并更早的一轮（保留最新状态，取更早的第一次状态） */
+    private static final int OVERWRITE = 0;
+    private static final int IF_ABSENT = 1;
+    private static final int MERGE_OLDER = 2;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int initialCapacity;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * 键值回调
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long first, long second, boolean state);
+    }
+
+    /**
+     * 键值及净变化回调
+     */
+    @FunctionalInterface
+    public interface ChangeConsumer {
+        /**
+         * @param state   最新状态
+         * @param changed 相对本轮之前是否发生了净变化（本轮第一次写入的状态与最新状态相同）
+         */
+        void accept(long first, long second, boolean state, boolean changed);
+    }
+
+    public LongPairStateBuffer() {
+        this(8, 64);
+    }
+
+    /**
+     * @param stripeCount 分段数（向上取 2 的幂），决定可并行写入的线程数
+     * @param initialCapacity 每段初始容量
+     */
+    public LongPairStateBuffer(int stripeCount, int initialCapacity) {
+        int count = Integer.highestOneBit(Math.max(stripeCount - 1, 1)) << 1;
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        this.initialCapacity = Math.max(8, Integer.highestOneBit(Math.max(initialCapacity - 1, 1)) << 1);
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(new Table(this.initialCapacity));
+        }
+    }
+
+    /**
+     * 写入（覆盖已有状态）
+     */
+    public void put(long first, long second, boolean state) {
+        write(first, second, encode(state, state), OVERWRITE);
+    }
+
+    /**
+     * 仅在键不存在时写入，用于失败重放：不覆盖重放期间写入的更新状态
+     *
+     * @return 是否写入
+     */
+    public boolean putIfAbsent(long first, long second, boolean state) {
+        return write(first, second, encode(state, state), IF_ABSENT);
+    }
+
+    /**
+     * 刷库失败时把快照放回缓冲：快照比缓冲中的数据更早，键已存在时保留缓冲中的最新状态，
+     * 第一次写入的状态取快照中的，净变化按两轮合并计算。调用后仍需 release 快照
+     */
+    public void requeue(Snapshot snapshot) {
+        for (Table table : snapshot.tables) {
+            if (table == null) {
+                continue;
+            }
+            for (int i = 0; i < table.states.length; i++) {
+                if (table.states[i] != EMPTY) {
+                    write(table.firsts[i], table.seconds[i], table.states[i], MERGE_OLDER);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    /**
+     * 换出全部数据作为快照，每段在各自的锁内整体交换，换出后的写入进入新表
+     */
+    public Snapshot drain() {
+        Table[] drained = new Table[stripes.length];
+        int count = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+            synchronized (stripe) {
+                if (stripe.table.size == 0) {
+                    continue;
+                }
+                drained[i] = stripe.table;
+                stripe.table = stripe.spare != null ? stripe.spare : new Table(initialCapacity);
+                stripe.spare = null;
+            }
+            count += drained[i].size;
+        }
+        size.addAndGet(-count);
+        return new Snapshot(drained, count);
+    }
+
+    /**
+     * 归还处理完的快照，表被清空后留作对应分段的备用表。归还后快照不可再使用
+     */
+    public void release(Snapshot snapshot) {
+        for (int i = 0; i < snapshot.tables.length; i++) {
+            Table table = snapshot.tables[i];
+            if (table == null) {
+                continue;
+            }
+            table.clear();
+            snapshot.tables[i] = null;
+            Stripe stripe = stripes[i];
+            synchronized (stripe) {
+                if (stripe.spare == null) {
+                    stripe.spare = table;
+                }
+            }
+        }
+    }
+
+    /**
+     * 丢弃全部数据
+     */
+    public void clear() {
+        release(drain());
+    }
+
+    private boolean write(long first, long second, byte state, int mode) {
+        long hash = hash(first, second);
+        Stripe stripe = stripes[(int) (hash >>> 40) & stripeMask];
+        boolean added;
+        synchronized (stripe) {
+            added = stripe.table.put(first, second, (int) hash, state, mode);
+        }
+        if (added) {
+            size.incrementAndGet();
+        }
+        return added || mode != IF_ABSENT;
+    }
+
+    private static byte encode(boolean firstState, boolean latestState) {
+        return (byte) (OCCUPIED | (latestState ? LATEST : 0) | (firstState ? FIRST : 0));
+    }
+
+    private static long hash(long first, long second) {
+        long h = first * 0x9E3779B97F4A7C15L ^ second * 0xC2B2AE3D27D4EB4FL;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * drain 换出的快照，只读
+     */
+    public static final class Snapshot {
+        private final Table[] tables;
+        private final int size;
+
+        private Snapshot(Table[] tables, int size) {
+            this.tables = tables;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public void forEach(EntryConsumer consumer) {
+            for (Table table : tables) {
+                if (table == null) {
+                    continue;
+                }
+                for (int i = 0; i < table.states.length; i++) {
+                    if (table.states[i] != EMPTY) {
+                        consumer.accept(table.firsts[i], table.seconds[i], (table.states[i] & LATEST) != 0);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 遍历键值及相对本轮之前的净变化
+         */
+        public void forEachChange(ChangeConsumer consumer) {
+            for (Table table : tables) {
+                if (table == null) {
+                    continue;
+                }
+                for (int i = 0; i < table.states.length; i++) {
+                    byte state = table.states[i];
+                    if (state != EMPTY) {
+                        boolean latest = (state & LATEST) != 0;
+                        consumer.accept(table.firsts[i], table.seconds[i], latest, latest == ((state & FIRST) != 0));
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Stripe {
+        private Table table;
+        private Table spare;
+
+        Stripe(Table table) {
+            this.table = table;
+        }
+    }
+
+    /**
+     * 单段开放寻址表（线性探测），状态 EMPTY 表示空槽，因此键可以取任意 long 值
+     */
+    private static final class Table {
+        private long[] firsts;
+        private long[] seconds;
+        private byte[] states;
+        private int size;
+        private int mask;
+        private int resizeAt;
+
+        Table(int capacity) {
+            allocate(capacity);
+        }
+
+        /**
+         * @return 是否新增了键
+         */
+        boolean put(long first, long second, int hash, byte state, int mode) {
+            int slot = hash & mask;
+            while (states[slot] != EMPTY) {
+                if (firsts[slot] == first && seconds[slot] == second) {
+                    if (mode == OVERWRITE) {
+                        states[slot] = (byte) ((states[slot] & ~LATEST) | (state & LATEST));
+                    } else if (mode == MERGE_OLDER) {
+                        states[slot] = (byte) ((states[slot] & ~FIRST) | (state & FIRST));
+                    }
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            firsts[slot] = first;
+            seconds[slot] = second;
+            states[slot] = state;
+            if (++size >= resizeAt) {
+                rehash();
+            }
+            return true;
+        }
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(states, EMPTY);
+                size = 0;
+            }
+        }
+
+        private void rehash() {
+            long[] oldFirsts = firsts;
+            long[] oldSeconds = seconds;
+            byte[] oldStates = states;
+            allocate(states.length << 1);
+            for (int i = 0; i < oldStates.length; i++) {
+                if (oldStates[i] != EMPTY) {
+                    int slot = (int) hash(oldFirsts[i], oldSeconds[i]) & mask;
+                    while (states[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    firsts[slot] = oldFirsts[i];
+                    seconds[slot] = oldSeconds[i];
+                    states[slot] = oldStates[i];
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            firsts = new long[capacity];
+            seconds = new long[capacity];
+            states = new byte[capacity];
+            mask = capacity - 1;
+            resizeAt = (int) (capacity * LOAD_FACTOR);
+        }
+    }
+}
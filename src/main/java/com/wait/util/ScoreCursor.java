@@ -0,0 +1,87 @@
+package com.wait.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.wait.entity.dto.CursorPage;
+
+/**
+ * Sorted Set seek 分页游标，格式为 {score}:{member}，记录上一页最后一个成员
+ *
+ * 整数分数（时间戳、计数）按整数书写，其余分数使用 Double.toString，解析后与原值完全相等，
+ * 保证下一页 ZREVRANGEBYSCORE 的闭区间上界恰好落在游标成员所在的分数上
+ */
+public final class ScoreCursor {
+
+    /** 低于该绝对值的整数分数可以无损地按 long 书写 */
+    private static final double EXACT_LONG_LIMIT = 1e15;
+
+    private final double score;
+    private final String member;
+
+    private ScoreCursor(double score, String member) {
+        this.score = score;
+        this.member = member;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public String getMember() {
+        return member;
+    }
+
+    /**
+     * 解析游标
+     *
+     * @return 游标为空时返回 null（第一页）
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    public static ScoreCursor parse(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        int separator = cursor.indexOf(':');
+        if (separator <= 0 || separator == cursor.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        double score;
+        try {
+            score = Double.parseDouble(cursor.substring(0, separator));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (Double.isNaN(score)) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new ScoreCursor(score, cursor.substring(separator + 1));
+    }
+
+    public static String encode(double score, Object member) {
+        String scoreText = score == Math.rint(score) && Math.abs(score) < EXACT_LONG_LIMIT
+                ? Long.toString((long) score)
+                : Double.toString(score);
+        return scoreText + ":" + member;
+    }
+
+    /**
+     * 把按 (score, member) 倒序读取的 pageSize + 1 个成员组装为一页，多出的一个只用于判断是否还有下一页
+     */
+    public static <T> CursorPage<T> toPage(Map<T, Double> entries, int pageSize) {
+        List<T> items = new ArrayList<>(Math.min(entries.size(), pageSize));
+        double lastScore = 0;
+        for (Map.Entry<T, Double> entry : entries.entrySet()) {
+            if (items.size() == pageSize) {
+                break;
+            }
+            items.add(entry.getKey());
+            lastScore = entry.getValue();
+        }
+        String nextCursor = entries.size() > pageSize && !items.isEmpty()
+                ? encode(lastScore, items.get(items.size() - 1))
+                : null;
+        return CursorPage.<T>builder().items(items).nextCursor(nextCursor).hasMore(nextCursor != null).build();
+    }
+}
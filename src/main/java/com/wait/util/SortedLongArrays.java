@@ -0,0 +1,275 @@
+package com.wait.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 有序 long[] 集合运算工具
+ *
+ * 数组均为升序且无重复元素。两个数组大小接近时使用线性归并（分支简单，便于 JIT 优化），
+ * 大小相差悬殊时对大数组做倍增（galloping）查找，复杂度为 O(m·log(n/m))
+ */
+public final class SortedLongArrays {
+
+    public static final long[] EMPTY = new long[0];
+
+    /** 两个数组大小之比超过该值时改用倍增查找 */
+    private static final int GALLOP_RATIO = 32;
+
+    private SortedLongArrays() {
+    }
+
+    /**
+     * 将 Redis 返回的字符串成员解析为有序去重数组，无法解析的成员会被忽略
+     */
+    public static long[] fromStrings(Collection<String> members) {
+        if (members == null || members.isEmpty()) {
+            return EMPTY;
+        }
+        long[] values = new long[members.size()];
+        int size = 0;
+        for (String member : members) {
+            try {
+                long value = Long.parseLong(member);
+                values[size++] = value;
+            } catch (NumberFormatException ignored) {
+                // 非数值成员不参与集合运算
+            }
+        }
+        return sortDistinct(values, size);
+    }
+
+    /**
+     * 对数组前 size 个元素排序并去重
+     */
+    public static long[] sortDistinct(long[] values, int size) {
+        if (size == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(values, 0, size);
+        int distinct = 1;
+        for (int i = 1; i < size; i++) {
+            if (values[i] != values[distinct - 1]) {
+                values[distinct++] = values[i];
+            }
+        }
+        return distinct == values.length ? values : Arrays.copyOf(values, distinct);
+    }
+
+    /**
+     * 交集
+     */
+    public static long[] intersect(long[] a, long[] b) {
+        return intersect(a, b, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 交集，最多返回前 limit 个（升序）
+     */
+    public static long[] intersect(long[] a, long[] b, int limit) {
+        if (a.length > b.length) {
+            long[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (a.length == 0 || limit <= 0) {
+            return EMPTY;
+        }
+        long[] out = new long[Math.min(a.length, limit)];
+        int size = 0;
+        if (b.length / a.length >= GALLOP_RATIO) {
+            int from = 0;
+            for (int i = 0; i < a.length && size < limit; i++) {
+                from = gallop(b, from, a[i]);
+                if (from == b.length) {
+                    break;
+                }
+                if (b[from] == a[i]) {
+                    out[size++] = a[i];
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length && size < limit) {
+                long x = a[i];
+                long y = b[j];
+                if (x == y) {
+                    out[size++] = x;
+                    i++;
+                    j++;
+                } else if (x < y) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * 交集大小，不分配结果数组
+     */
+    public static int intersectCount(long[] a, long[] b) {
+        if (a.length > b.length) {
+            long[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (a.length == 0) {
+            return 0;
+        }
+        int count = 0;
+        if (b.length / a.length >= GALLOP_RATIO) {
+            int from = 0;
+            for (int i = 0; i < a.length; i++) {
+                from = gallop(b, from, a[i]);
+                if (from == b.length) {
+                    break;
+                }
+                if (b[from] == a[i]) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            long x = a[i];
+            long y = b[j];
+            // 无分支推进：相等时两边同时前进
+            count += x == y ? 1 : 0;
+            i += x <= y ? 1 : 0;
+            j += y <= x ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * 多个数组的交集，从最小的数组开始逐个求交，结果为空时提前结束
+     */
+    public static long[] intersectAll(List<long[]> arrays) {
+        if (arrays == null || arrays.isEmpty()) {
+            return EMPTY;
+        }
+        List<long[]> sorted = new ArrayList<>(arrays);
+        sorted.sort((x, y) -> Integer.compare(x.length, y.length));
+        long[] result = sorted.get(0);
+        for (int i = 1; i < sorted.size() && result.length > 0; i++) {
+            result = intersect(result, sorted.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 差集：a 中存在而 b 中不存在的元素
+     */
+    public static long[] difference(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return a;
+        }
+        long[] out = new long[a.length];
+        int size = 0;
+        int j = 0;
+        for (int i = 0; i < a.length; i++) {
+            long x = a[i];
+            j = b.length / a.length >= GALLOP_RATIO ? gallop(b, j, x) : advance(b, j, x);
+            if (j == b.length || b[j] != x) {
+                out[size++] = x;
+            }
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * 并集
+     */
+    public static long[] union(long[] a, long[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        long[] out = new long[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            long x = a[i];
+            long y = b[j];
+            out[size++] = x <= y ? x : y;
+            i += x <= y ? 1 : 0;
+            j += y <= x ? 1 : 0;
+        }
+        while (i < a.length) {
+            out[size++] = a[i++];
+        }
+        while (j < b.length) {
+            out[size++] = b[j++];
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    public static Set<Long> toSet(long[] values) {
+        Set<Long> set = new LinkedHashSet<>(values.length * 4 / 3 + 1);
+        for (long value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    public static List<Long> toList(long[] values) {
+        List<Long> list = new ArrayList<>(values.length);
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    /**
+     * 从 from 开始线性查找第一个不小于 target 的位置
+     */
+    private static int advance(long[] values, int from, long target) {
+        while (from < values.length && values[from] < target) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * 从 from 开始倍增查找第一个不小于 target 的位置，找不到返回 values.length
+     */
+    private static int gallop(long[] values, int from, long target) {
+        if (from >= values.length || values[from] >= target) {
+            return from;
+        }
+        int step = 1;
+        int low = from;
+        int high = from + step;
+        while (high < values.length && values[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, values.length);
+        // 在 (low, high] 中二分：values[low] < target
+        int lo = low + 1;
+        int hi = high;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
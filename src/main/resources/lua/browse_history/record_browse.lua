@@ -1,11 +1,15 @@
 -- record_browse.lua
 -- KEYS[1]: 浏览记录 key (browse:history:user:{userId})
+-- KEYS[2]: 帖子浏览者 key (browse:history:post:{postId})，删帖时据此清理浏览记录
 -- ARGV[1]: postId (帖子ID)
 -- ARGV[2]: currentTime (当前时间戳，毫秒)
 -- ARGV[3]: maxRecords (最大记录数，默认1000)
+-- ARGV[4]: userId (用户ID)
+-- ARGV[5]: keepMillis (Redis 中浏览记录的保留时长，毫秒)
 --
 -- 原子性地执行：
--- 1. 添加浏览记录（ZADD，如果已存在则更新时间）
+-- 1. 添加浏览记录（ZADD，如果已存在则更新时间），同时记入帖子浏览者，
+--    帖子浏览者只保留保留时长内的记录（更早的浏览记录已持久化到数据库，可按 post_id 查询）
 -- 2. 检查记录数量（ZCARD）
 -- 3. 如果超过限制，删除最旧的记录（ZREMRANGEBYRANK）
 --
@@ -13,6 +17,10 @@
 
 -- 1. 添加浏览记录（如果已存在则更新时间）
 redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+local keepMillis = tonumber(ARGV[5])
+redis.call('ZADD', KEYS[2], ARGV[2], ARGV[4])
+redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', tonumber(ARGV[2]) - keepMillis)
+redis.call('PEXPIRE', KEYS[2], keepMillis)
 
 -- 2. 检查记录数量
 local size = redis.call('ZCARD', KEYS[1])
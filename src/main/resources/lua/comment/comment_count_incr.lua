@@ -0,0 +1,25 @@
+-- comment_count_incr.lua
+-- KEYS[1]: 评论数 Hash 分片（post:comment:count:{postId % N}，field 为 postId）
+-- KEYS[2]: 待校对帖子 Set（post:comment:count:dirty）
+-- ARGV[1]: postId（帖子ID）
+-- ARGV[2]: delta（增量，发表评论为 1，删除评论为 -1）
+--
+-- 原子性地执行：
+-- 1. 把帖子记入待校对 Set（定时任务只校对变化过的帖子）
+-- 2. 计数已缓存时 HINCRBY，结果不小于 0
+-- 3. 计数未缓存时不创建字段，避免用增量冒充总数，下次读取时从数据库加载
+--
+-- 返回：更新后的评论数，计数未缓存时返回 -1
+
+redis.call('SADD', KEYS[2], ARGV[1])
+
+if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then
+    return -1
+end
+
+local count = redis.call('HINCRBY', KEYS[1], ARGV[1], tonumber(ARGV[2]))
+if count < 0 then
+    redis.call('HSET', KEYS[1], ARGV[1], 0)
+    count = 0
+end
+return count
@@ -0,0 +1,35 @@
+-- post_stats_incr.lua
+-- KEYS[1]: 帖子计数 Hash（post:stats:{postId}）
+-- ARGV[1]: field（like/fav/cmt）
+-- ARGV[2..]: 依次为 timestamp, delta（源数据变化之后取的时间戳（毫秒）与增量）
+--
+-- 原子性地执行：
+-- 1. 计数未建立（没有 ver 字段）时不写入，避免用增量冒充总数，下次读取时按源数据建立
+-- 2. ver 为建立计数前读取源数据的时间，早于 ver 的变化已包含在建立时的源数据中，只累加不早于 ver 的增量，
+--    事件管道中排队的点赞/收藏在计数建立后才处理时不会重复计入
+-- 3. HINCRBY，结果不小于 0
+--
+-- 返回：更新后的计数，计数未建立时返回 -1
+
+local version = redis.call('HGET', KEYS[1], 'ver')
+if not version then
+    return -1
+end
+version = tonumber(version)
+
+local delta = 0
+for i = 2, #ARGV, 2 do
+    if tonumber(ARGV[i]) >= version then
+        delta = delta + tonumber(ARGV[i + 1])
+    end
+end
+if delta == 0 then
+    return tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0')
+end
+
+local count = redis.call('HINCRBY', KEYS[1], ARGV[1], delta)
+if count < 0 then
+    redis.call('HSET', KEYS[1], ARGV[1], 0)
+    count = 0
+end
+return count
@@ -0,0 +1,34 @@
+-- post_stats_init.lua
+-- KEYS: 每个帖子两个 key，依次为计数 Hash（post:stats:{postId}）和正文（post:{postId}）
+-- ARGV[1]: 计数 Hash 的过期秒数
+-- ARGV[2]: 版本戳（读取源数据之前的毫秒时间）
+-- ARGV[3..]: 每个帖子依次为 like, fav, cmt（按源数据计算的计数）
+--
+-- 原子性地对每个帖子执行：
+-- 1. 计数 Hash 没有 ver 字段（未建立、已过期或只残留部分字段）时，清空后写入源数据计数和版本戳并设置过期时间
+-- 2. 已有 ver 时不覆盖（以并发建立和增量维护的为准）
+-- 3. 读取生效的计数和当前正文，正文与版本戳在同一个脚本中读取，不会把更新前的正文记到新版本戳下
+--
+-- 返回：每个帖子 5 个元素 like, fav, cmt, ver, body（正文未缓存时为空字符串）
+
+local ttl = tonumber(ARGV[1])
+local version = ARGV[2]
+local result = {}
+
+for i = 1, #KEYS, 2 do
+    local statsKey = KEYS[i]
+    local base = 3 + (i - 1) / 2 * 3
+    if redis.call('HEXISTS', statsKey, 'ver') == 0 then
+        redis.call('DEL', statsKey)
+        redis.call('HSET', statsKey, 'like', ARGV[base], 'fav', ARGV[base + 1], 'cmt', ARGV[base + 2],
+                'ver', version)
+        redis.call('EXPIRE', statsKey, ttl)
+    end
+    local stats = redis.call('HMGET', statsKey, 'like', 'fav', 'cmt', 'ver')
+    for j = 1, 4 do
+        table.insert(result, stats[j] or '0')
+    end
+    table.insert(result, redis.call('GET', KEYS[i + 1]) or '')
+end
+
+return result
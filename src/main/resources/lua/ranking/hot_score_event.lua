@@ -0,0 +1,61 @@
+-- hot_score_event.lua
+-- KEYS[1]: 当前小时热度分桶（post:ranking:hot:bucket:{小时序号}）
+-- KEYS[2]: 时间衰减热度排行榜（post:ranking:hot:trending）
+-- KEYS[3]: 衰减基准时间（post:ranking:hot:trending:epoch）
+-- ARGV[1]: postId
+-- ARGV[2]: 热度增量（可为负）
+-- ARGV[3]: 当前时间戳（毫秒）
+-- ARGV[4]: 衰减时间常数 τ（毫秒）
+-- ARGV[5]: 分桶过期时间（秒）
+--
+-- 衰减排行榜的分数为 log(Σ 权重 × e^((事件时间 - 基准时间) / τ))，
+-- 新事件只需把 log(|增量|) + (当前时间 - 基准时间) / τ 按 log-sum-exp 合入，旧帖子自然下沉，无需全量重算
+--
+-- 原子性地执行：
+-- 1. 把增量累加到当前小时分桶并设置过期时间
+-- 2. 基准时间不存在时以当前时间初始化
+-- 3. 正增量按 log-sum-exp 合入衰减分数；负增量按 log-diff-exp 扣除，净值不足以扣除时保持不变
+--
+-- 返回：衰减分数是否更新（1/0）
+
+local delta = tonumber(ARGV[2])
+if delta == 0 then
+    return 0
+end
+
+-- 1. 小时分桶
+redis.call('ZINCRBY', KEYS[1], delta, ARGV[1])
+redis.call('EXPIRE', KEYS[1], ARGV[5])
+
+-- 2. 基准时间
+local now = tonumber(ARGV[3])
+local epoch = tonumber(redis.call('GET', KEYS[3]))
+if not epoch then
+    epoch = now
+    redis.call('SET', KEYS[3], ARGV[3])
+end
+
+-- 3. 衰减分数
+local x = math.log(math.abs(delta)) + (now - epoch) / tonumber(ARGV[4])
+local current = redis.call('ZSCORE', KEYS[2], ARGV[1])
+if delta > 0 then
+    if not current then
+        redis.call('ZADD', KEYS[2], x, ARGV[1])
+    else
+        local c = tonumber(current)
+        local hi = math.max(c, x)
+        local lo = math.min(c, x)
+        redis.call('ZADD', KEYS[2], hi + math.log(1 + math.exp(lo - hi)), ARGV[1])
+    end
+    return 1
+end
+
+if not current then
+    return 0
+end
+local c = tonumber(current)
+if x >= c then
+    return 0
+end
+redis.call('ZADD', KEYS[2], c + math.log(1 - math.exp(x - c)), ARGV[1])
+return 1
@@ -0,0 +1,37 @@
+-- hot_trending_rebase.lua
+-- KEYS[1]: 时间衰减热度排行榜（post:ranking:hot:trending）
+-- KEYS[2]: 衰减基准时间（post:ranking:hot:trending:epoch）
+-- ARGV[1]: 当前时间戳（毫秒）
+-- ARGV[2]: 衰减时间常数 τ（毫秒）
+-- ARGV[3]: 排行榜保留的帖子数上限
+-- ARGV[4]: 基准时间的最大距今时长（毫秒），超过时前移基准时间
+--
+-- 原子性地执行：
+-- 1. 只保留分数最高的 N 个帖子，排名靠后的帖子已衰减到无关紧要
+-- 2. 基准时间过旧时把它前移到当前时间，所有分数同时减去 (当前时间 - 基准时间) / τ，
+--    排名不变，分数量级保持在有限范围内，浮点精度不随时间流逝而下降
+--
+-- 返回：重新计算分数的帖子数量，未前移基准时间时返回 0
+
+local maxSize = tonumber(ARGV[3])
+if redis.call('ZCARD', KEYS[1]) > maxSize then
+    redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(maxSize + 1))
+end
+
+local now = tonumber(ARGV[1])
+local epoch = tonumber(redis.call('GET', KEYS[2]))
+if not epoch then
+    redis.call('SET', KEYS[2], ARGV[1])
+    return 0
+end
+if now - epoch < tonumber(ARGV[4]) then
+    return 0
+end
+
+local shift = (now - epoch) / tonumber(ARGV[2])
+local entries = redis.call('ZRANGE', KEYS[1], 0, -1, 'WITHSCORES')
+for i = 1, #entries, 2 do
+    redis.call('ZADD', KEYS[1], tonumber(entries[i + 1]) - shift, entries[i])
+end
+redis.call('SET', KEYS[2], ARGV[1])
+return #entries / 2
@@ -0,0 +1,68 @@
+-- fof_apply_deltas.lua
+-- KEYS[i]: 二度关系候选 ZSet key (recommend:fof:{userId})，score 为共同关注数
+-- ARGV[1]: maxCandidates (每个用户保留的候选数上限)
+-- 之后按 KEYS 顺序依次为每个 key 的参数：
+--   n, member1, delta1, ..., memberN, deltaN (共同关注数增量)
+--   m, removed1, ..., removedM (本批新关注、需要从候选中移除的用户)
+--
+-- 原子性地对每个 key 执行：
+-- 1. key 不存在（尚未生成或已过期）时跳过，下次推荐时全量生成
+-- 2. ZADD XX INCR 调整已在候选中的用户；增量为正但不在候选中的用户记录下来，
+--    由调用方按精确的共同关注数补入（见 fof_seed_candidates.lua），不写入只含部分增量的分数
+-- 3. 移除新关注的用户、共同关注数降为0的候选，只保留分数最高的 maxCandidates 个
+--
+-- 返回：{updated, i1, k1, missing..., i2, k2, missing..., ...}
+--   updated 为实际更新的 key 数量，之后依次为有待补入候选的 key 下标（从1开始）、数量和用户ID
+
+local maxCandidates = tonumber(ARGV[1])
+local idx = 2
+local updated = 0
+local result = {0}
+
+for k, key in ipairs(KEYS) do
+    local exists = redis.call('EXISTS', key) == 1
+
+    local n = tonumber(ARGV[idx])
+    idx = idx + 1
+    local missing = {}
+    if exists then
+        for i = 0, n - 1 do
+            local member = ARGV[idx + 2 * i]
+            local delta = ARGV[idx + 2 * i + 1]
+            if redis.call('ZADD', key, 'XX', 'INCR', delta, member) == false and tonumber(delta) > 0 then
+                missing[#missing + 1] = member
+            end
+        end
+    end
+    idx = idx + 2 * n
+
+    local m = tonumber(ARGV[idx])
+    idx = idx + 1
+    if exists then
+        local removed = {}
+        for i = 0, m - 1 do
+            redis.call('ZREM', key, ARGV[idx + i])
+            removed[ARGV[idx + i]] = true
+        end
+        redis.call('ZREMRANGEBYSCORE', key, '-inf', 0)
+        redis.call('ZREMRANGEBYRANK', key, 0, -(maxCandidates + 1))
+        updated = updated + 1
+
+        local count = 0
+        local at = #result + 1
+        for _, member in ipairs(missing) do
+            if not removed[member] then
+                count = count + 1
+                result[at + 1 + count] = member
+            end
+        end
+        if count > 0 then
+            result[at] = k
+            result[at + 1] = count
+        end
+    end
+    idx = idx + m
+end
+
+result[1] = updated
+return result
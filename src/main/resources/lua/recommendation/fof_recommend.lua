@@ -0,0 +1,47 @@
+-- fof_recommend.lua
+-- KEYS[1]: 二度关系候选 ZSet key (recommend:fof:{userId})，score 为共同关注数
+-- KEYS[2]: 已推荐用户集合 key (recommend:shown:{userId})
+-- KEYS[3]: 关注列表 key (user:follow:{userId})
+-- ARGV[1]: count (需要推荐的数量)
+-- ARGV[2]: mark (1 表示把返回的用户标记为已推荐)
+-- ARGV[3]: userId (推荐对象自身，需要排除)
+--
+-- 原子性地执行：
+-- 1. 按 score 从高到低分段 ZREVRANGE 候选用户
+-- 2. 跳过已推荐、已关注和自身，直到凑够 count 个或候选遍历完
+-- 3. mark 为 1 时将返回的用户加入已推荐集合
+--
+-- 返回：推荐的用户ID列表（按共同关注数降序）
+
+local count = tonumber(ARGV[1])
+local mark = ARGV[2] == '1'
+local self = ARGV[3]
+local result = {}
+if count <= 0 then
+    return result
+end
+
+local chunk = count * 2
+local start = 0
+while #result < count do
+    local members = redis.call('ZREVRANGE', KEYS[1], start, start + chunk - 1)
+    if #members == 0 then
+        break
+    end
+    for _, member in ipairs(members) do
+        if member ~= self
+                and redis.call('SISMEMBER', KEYS[2], member) == 0
+                and redis.call('SISMEMBER', KEYS[3], member) == 0 then
+            table.insert(result, member)
+            if #result >= count then
+                break
+            end
+        end
+    end
+    start = start + chunk
+end
+
+if mark and #result > 0 then
+    redis.call('SADD', KEYS[2], unpack(result))
+end
+return result
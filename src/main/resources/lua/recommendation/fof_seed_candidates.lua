@@ -0,0 +1,30 @@
+-- fof_seed_candidates.lua
+-- KEYS[i]: 二度关系候选 ZSet key (recommend:fof:{userId})，score 为共同关注数
+-- ARGV[1]: maxCandidates (每个用户保留的候选数上限)
+-- 之后按 KEYS 顺序依次为每个 key 的参数：
+--   n, member1, count1, ..., memberN, countN (按当前关系精确统计的共同关注数)
+--
+-- 原子性地对每个 key 执行：
+-- 1. key 不存在（期间过期或被重新生成前删除）时跳过
+-- 2. ZADD NX 补入新出现的候选，期间已被其他批次补入的候选保持不变
+-- 3. 只保留分数最高的 maxCandidates 个
+--
+-- 返回：实际补入的候选数量
+
+local maxCandidates = tonumber(ARGV[1])
+local idx = 2
+local added = 0
+
+for _, key in ipairs(KEYS) do
+    local n = tonumber(ARGV[idx])
+    idx = idx + 1
+    if n > 0 and redis.call('EXISTS', key) == 1 then
+        for i = 0, n - 1 do
+            added = added + redis.call('ZADD', key, 'NX', ARGV[idx + 2 * i + 1], ARGV[idx + 2 * i])
+        end
+        redis.call('ZREMRANGEBYRANK', key, 0, -(maxCandidates + 1))
+    end
+    idx = idx + 2 * n
+end
+
+return added
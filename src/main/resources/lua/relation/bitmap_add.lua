@@ -0,0 +1,58 @@
+-- bitmap_add.lua
+-- KEYS[1]: 容器 key ({base}:c:{high})
+-- KEYS[2]: 元数据 hash key ({base}:meta)，字段 {high} 为容器基数，字段 total 为总基数
+-- KEYS[3]: 反向集合 key（可选，如 user:like:{userId}）
+-- KEYS[4]: 计数 key（可选，如 post:like_count:{postId}）
+-- ARGV[1]: low（id 低16位，容器内偏移）
+-- ARGV[2]: high（id 高位，容器编号）
+-- ARGV[3]: 数组容器升级为位图容器的阈值（默认4096）
+-- ARGV[4]: 反向集合成员（可选，如 postId）
+--
+-- 类 Roaring Bitmap 的分桶存储：id 按高位分到不同容器，每个容器覆盖 65536 个 id
+-- 稀疏容器使用 Set（Redis 对小整数集合使用 intset 编码，非常紧凑），稠密容器使用 8KB 的位图
+--
+-- 原子性地执行：
+-- 1. 根据容器类型执行 SETBIT 或 SADD
+-- 2. 更新容器基数和总基数
+-- 3. 数组容器超过阈值时升级为位图容器
+-- 4. 维护反向集合和计数（如果传入）
+
+local low = tonumber(ARGV[1])
+local threshold = tonumber(ARGV[3])
+local containerType = redis.call('TYPE', KEYS[1])['ok']
+
+-- 1. 添加到容器
+local added = 0
+if containerType == 'string' then
+    if redis.call('SETBIT', KEYS[1], low, 1) == 0 then
+        added = 1
+    end
+else
+    added = redis.call('SADD', KEYS[1], ARGV[1])
+end
+
+if added == 0 then
+    -- 已存在，返回0表示未添加
+    return 0
+end
+
+-- 2. 更新基数
+local card = redis.call('HINCRBY', KEYS[2], ARGV[2], 1)
+redis.call('HINCRBY', KEYS[2], 'total', 1)
+
+-- 3. 数组容器升级为位图容器
+if containerType ~= 'string' and card > threshold then
+    local members = redis.call('SMEMBERS', KEYS[1])
+    redis.call('DEL', KEYS[1])
+    for _, member in ipairs(members) do
+        redis.call('SETBIT', KEYS[1], tonumber(member), 1)
+    end
+end
+
+-- 4. 维护反向集合和计数
+if #KEYS >= 4 then
+    redis.call('SADD', KEYS[3], ARGV[4])
+    redis.call('INCR', KEYS[4])
+end
+
+return 1
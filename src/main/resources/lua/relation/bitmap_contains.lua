@@ -0,0 +1,21 @@
+-- bitmap_contains.lua
+-- KEYS[1]: 容器 key ({base}:c:{high})
+-- KEYS[2]: 旧版 Set key（可选，尚未迁移时回退查询，如 post:like:{postId}）
+-- ARGV[1]: low（id 低16位，容器内偏移）
+-- ARGV[2]: 原始 id（回退查询旧版 Set 时使用）
+--
+-- 原子性地执行：
+-- 1. 位图容器使用 GETBIT，数组容器使用 SISMEMBER
+-- 2. 容器不存在时回退到旧版 Set（迁移过渡期）
+
+local containerType = redis.call('TYPE', KEYS[1])['ok']
+if containerType == 'string' then
+    return redis.call('GETBIT', KEYS[1], tonumber(ARGV[1]))
+elseif containerType == 'set' then
+    return redis.call('SISMEMBER', KEYS[1], ARGV[1])
+end
+
+if #KEYS >= 2 then
+    return redis.call('SISMEMBER', KEYS[2], ARGV[2])
+end
+return 0
@@ -0,0 +1,48 @@
+-- bitmap_import.lua
+-- KEYS[1]: 容器 key ({base}:c:{high})
+-- KEYS[2]: 元数据 hash key ({base}:meta)
+-- ARGV[1]: high（容器编号）
+-- ARGV[2]: 数组容器升级为位图容器的阈值
+-- ARGV[3...]: low 列表（同一容器内的偏移）
+--
+-- 用于从旧版 Set 迁移，一次导入同一容器内的一批 id
+-- 原子性地执行：
+-- 1. 批量 SETBIT 或 SADD
+-- 2. 更新容器基数和总基数
+-- 3. 数组容器超过阈值时升级为位图容器
+--
+-- 返回：实际新增的数量
+
+local threshold = tonumber(ARGV[2])
+local containerType = redis.call('TYPE', KEYS[1])['ok']
+
+-- 1. 批量添加
+local added = 0
+for i = 3, #ARGV do
+    if containerType == 'string' then
+        if redis.call('SETBIT', KEYS[1], tonumber(ARGV[i]), 1) == 0 then
+            added = added + 1
+        end
+    else
+        added = added + redis.call('SADD', KEYS[1], ARGV[i])
+    end
+end
+
+if added == 0 then
+    return 0
+end
+
+-- 2. 更新基数
+local card = redis.call('HINCRBY', KEYS[2], ARGV[1], added)
+redis.call('HINCRBY', KEYS[2], 'total', added)
+
+-- 3. 数组容器升级为位图容器
+if containerType ~= 'string' and card > threshold then
+    local members = redis.call('SMEMBERS', KEYS[1])
+    redis.call('DEL', KEYS[1])
+    for _, member in ipairs(members) do
+        redis.call('SETBIT', KEYS[1], tonumber(member), 1)
+    end
+end
+
+return added
@@ -0,0 +1,72 @@
+-- bitmap_migrate.lua
+-- KEYS[1]: 旧版 Set key（如 post:like:{postId}）
+-- KEYS[2]: 元数据 hash key ({base}:meta)
+-- ARGV[1]: 位图 key 前缀 base（容器 key 为 {base}:c:{high}）
+-- ARGV[2]: 数组容器升级为位图容器的阈值
+-- ARGV[3]: 单次迁移的最大成员数
+--
+-- 写路径上的惰性迁移，调用方循环执行直到返回0
+-- 原子性地执行：
+-- 1. 从旧版 Set 中 SPOP 一批成员（Set 不存在时直接返回0）
+-- 2. 按 id 高位分组写入容器（SETBIT 或 SADD），更新容器基数和总基数
+-- 3. 数组容器超过阈值时升级为位图容器
+--
+-- 成员在同一个脚本内从 Set 移入位图，任意时刻一个 id 只在其中一处：
+-- 并发的迁移不会重复导入，迁移完成后的取消操作也不会被迁移重新导回
+-- 注意：容器 key 由脚本根据 id 计算，要求位图相关 key 位于同一个 Redis 实例
+--
+-- 返回：本批从 Set 中取出的成员数量
+
+-- 1. 取出一批成员
+local members = redis.call('SPOP', KEYS[1], tonumber(ARGV[3]))
+if #members == 0 then
+    return 0
+end
+
+local threshold = tonumber(ARGV[2])
+local groups = {}
+for _, member in ipairs(members) do
+    local id = tonumber(member)
+    if id ~= nil and id >= 0 then
+        local high = math.floor(id / 65536)
+        local lows = groups[high]
+        if lows == nil then
+            lows = {}
+            groups[high] = lows
+        end
+        table.insert(lows, id % 65536)
+    end
+end
+
+for high, lows in pairs(groups) do
+    local containerKey = ARGV[1] .. ':c:' .. high
+    local containerType = redis.call('TYPE', containerKey)['ok']
+
+    -- 2. 写入容器并更新基数
+    local added = 0
+    for _, low in ipairs(lows) do
+        if containerType == 'string' then
+            if redis.call('SETBIT', containerKey, low, 1) == 0 then
+                added = added + 1
+            end
+        else
+            added = added + redis.call('SADD', containerKey, low)
+        end
+    end
+
+    if added > 0 then
+        local card = redis.call('HINCRBY', KEYS[2], high, added)
+        redis.call('HINCRBY', KEYS[2], 'total', added)
+
+        -- 3. 数组容器升级为位图容器
+        if containerType ~= 'string' and card > threshold then
+            local existing = redis.call('SMEMBERS', containerKey)
+            redis.call('DEL', containerKey)
+            for _, member in ipairs(existing) do
+                redis.call('SETBIT', containerKey, tonumber(member), 1)
+            end
+        end
+    end
+end
+
+return #members
@@ -0,0 +1,65 @@
+-- bitmap_remove.lua
+-- KEYS[1]: 容器 key ({base}:c:{high})
+-- KEYS[2]: 元数据 hash key ({base}:meta)
+-- KEYS[3]: 反向集合 key（可选，如 user:like:{userId}）
+-- KEYS[4]: 计数 key（可选，如 post:like_count:{postId}）
+-- ARGV[1]: low（id 低16位，容器内偏移）
+-- ARGV[2]: high（id 高位，容器编号）
+-- ARGV[3]: 数组容器升级为位图容器的阈值（默认4096）
+-- ARGV[4]: 反向集合成员（可选，如 postId）
+--
+-- 原子性地执行：
+-- 1. 根据容器类型执行 SETBIT 0 或 SREM
+-- 2. 更新容器基数和总基数，容器为空时删除容器
+-- 3. 位图容器基数低于阈值一半时降级为数组容器（滞后区间避免频繁来回转换）
+-- 4. 维护反向集合和计数（如果传入）
+
+local low = tonumber(ARGV[1])
+local threshold = tonumber(ARGV[3])
+local containerType = redis.call('TYPE', KEYS[1])['ok']
+
+-- 1. 从容器移除
+local removed = 0
+if containerType == 'string' then
+    removed = redis.call('SETBIT', KEYS[1], low, 0)
+elseif containerType == 'set' then
+    removed = redis.call('SREM', KEYS[1], ARGV[1])
+end
+
+if removed == 0 then
+    return 0
+end
+
+-- 2. 更新基数
+local card = redis.call('HINCRBY', KEYS[2], ARGV[2], -1)
+local total = redis.call('HINCRBY', KEYS[2], 'total', -1)
+if card <= 0 then
+    redis.call('DEL', KEYS[1])
+    redis.call('HDEL', KEYS[2], ARGV[2])
+elseif containerType == 'string' and card < threshold / 2 then
+    -- 3. 位图容器降级为数组容器
+    -- Redis 位图按大端位序存储：字节内最高位对应最小偏移
+    local bytes = redis.call('GET', KEYS[1])
+    redis.call('DEL', KEYS[1])
+    for i = 1, #bytes do
+        local b = string.byte(bytes, i)
+        if b ~= 0 then
+            for j = 0, 7 do
+                if bit.band(b, bit.lshift(1, 7 - j)) ~= 0 then
+                    redis.call('SADD', KEYS[1], (i - 1) * 8 + j)
+                end
+            end
+        end
+    end
+end
+if total <= 0 then
+    redis.call('DEL', KEYS[2])
+end
+
+-- 4. 维护反向集合和计数
+if #KEYS >= 4 then
+    redis.call('SREM', KEYS[3], ARGV[4])
+    redis.call('DECR', KEYS[4])
+end
+
+return 1
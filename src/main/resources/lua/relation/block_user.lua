@@ -1,6 +1,7 @@
 -- block_user.lua
 -- KEYS[1]: 黑名单 key (user:blacklist:{userId})
 -- KEYS[2]: 被拉黑列表 key (user:blocked_by:{blockedUserId})
+-- KEYS[3]: 黑名单摘要 key (relation:digest:block:{userId})
 -- ARGV[1]: blockedUserId (被拉黑的用户ID)
 -- ARGV[2]: userId (拉黑的用户ID)
 --
@@ -8,6 +9,7 @@
 -- 1. 检查是否已拉黑
 -- 2. 添加到黑名单
 -- 3. 添加到被拉黑列表
+-- 4. 更新黑名单摘要（摘要已初始化时）
 
 -- 1. 检查是否已拉黑
 local isMember = redis.call('SISMEMBER', KEYS[1], ARGV[1])
@@ -21,6 +23,14 @@ local added1 = redis.call('SADD', KEYS[1], ARGV[1])
 -- 3. 添加到被拉黑列表
 local added2 = redis.call('SADD', KEYS[2], ARGV[2])
 
+-- 4. 更新黑名单摘要
+if redis.call('EXISTS', KEYS[3]) == 1 then
+    redis.call('HINCRBY', KEYS[3], 'count', 1)
+    redis.call('HINCRBY', KEYS[3], 'sum', ARGV[1])
+    local xor = tonumber(redis.call('HGET', KEYS[3], 'xor') or '0')
+    redis.call('HSET', KEYS[3], 'xor', bit.bxor(xor, bit.tobit(tonumber(ARGV[1]) % 4294967296)))
+end
+
 -- 返回实际添加的成员数量（通常是1）
 return added1
 
@@ -0,0 +1,22 @@
+-- digest_init.lua
+-- KEYS[1]: 摘要 key (relation:digest:{type}:{entityId})
+-- KEYS[2]: 关系集合 key（如 user:follow:{userId}）
+--
+-- 根据集合全量成员原子地重建摘要：
+-- count 成员数，sum 成员 id 之和，xor 成员 id 低32位的异或（有符号32位整数）
+-- 与数据库侧 COUNT(*)、SUM(id)、BIT_XOR(id & 0xFFFFFFFF) 对应，用于快速比对两边数据是否一致
+--
+-- 返回：成员数
+
+local members = redis.call('SMEMBERS', KEYS[2])
+local sum = 0
+local xor = 0
+for _, member in ipairs(members) do
+    local id = tonumber(member)
+    sum = sum + id
+    xor = bit.bxor(xor, bit.tobit(id % 4294967296))
+end
+
+redis.call('DEL', KEYS[1])
+redis.call('HSET', KEYS[1], 'count', #members, 'sum', string.format('%.0f', sum), 'xor', xor)
+return #members
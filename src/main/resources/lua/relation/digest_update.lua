@@ -0,0 +1,18 @@
+-- digest_update.lua
+-- KEYS[1]: 摘要 key (relation:digest:{type}:{entityId})
+-- ARGV[1]: 成员 id
+-- ARGV[2]: 1 添加成员，-1 移除成员
+--
+-- 供不经过集合写入脚本的路径（如位图存储模式）维护摘要，摘要字段含义同 digest_init.lua
+-- 摘要未初始化时不做任何处理，返回0
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+
+local delta = tonumber(ARGV[2])
+redis.call('HINCRBY', KEYS[1], 'count', delta)
+redis.call('HINCRBY', KEYS[1], 'sum', string.format('%.0f', delta * tonumber(ARGV[1])))
+local xor = tonumber(redis.call('HGET', KEYS[1], 'xor') or '0')
+redis.call('HSET', KEYS[1], 'xor', bit.bxor(xor, bit.tobit(tonumber(ARGV[1]) % 4294967296)))
+return 1
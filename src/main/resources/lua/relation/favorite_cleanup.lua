@@ -0,0 +1,33 @@
+-- favorite_cleanup.lua
+-- KEYS[3i-2]: 用户收藏列表 key (user:favorite:{userId})
+-- KEYS[3i-1]: 收藏时间索引 key (user:favorite:time:{userId})
+-- KEYS[3i]:   收藏摘要 key (relation:digest:favorite:{userId})
+-- ARGV[1]: postId（已删除的帖子ID）
+--
+-- 帖子删除后批量移除收藏过它的用户的反向索引，每个用户三个 key
+-- 对每个用户原子性地执行：
+-- 1. 从用户收藏列表和收藏时间索引移除
+-- 2. 确实移除时更新收藏摘要（摘要已初始化时），与 unfavorite_post.lua 一致
+--
+-- 返回：实际移除的用户数量
+
+local postId = ARGV[1]
+local low = bit.tobit(tonumber(postId) % 4294967296)
+local removed = 0
+for i = 1, #KEYS, 3 do
+    if redis.call('SREM', KEYS[i], postId) > 0 then
+        removed = removed + 1
+        redis.call('ZREM', KEYS[i + 1], postId)
+        if redis.call('EXISTS', KEYS[i + 2]) == 1 then
+            redis.call('HINCRBY', KEYS[i + 2], 'count', -1)
+            redis.call('HINCRBY', KEYS[i + 2], 'sum', '-' .. postId)
+            local xor = tonumber(redis.call('HGET', KEYS[i + 2], 'xor') or '0')
+            redis.call('HSET', KEYS[i + 2], 'xor', bit.bxor(xor, low))
+        end
+    else
+        -- 收藏列表中已不存在（重复清理）时只清理时间索引，摘要保持不变
+        redis.call('ZREM', KEYS[i + 1], postId)
+    end
+end
+
+return removed
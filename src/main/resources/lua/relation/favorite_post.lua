@@ -2,14 +2,18 @@
 -- KEYS[1]: 用户收藏列表 key (user:favorite:{userId})
 -- KEYS[2]: 帖子收藏列表 key (post:favorited_by:{postId})
 -- KEYS[3]: 收藏计数 key (post:favorite_count:{postId})
+-- KEYS[4]: 收藏时间索引 key (user:favorite:time:{userId})，score 为收藏时间，用于游标分页
+-- KEYS[5]: 收藏摘要 key (relation:digest:favorite:{userId})
 -- ARGV[1]: userId (用户ID)
 -- ARGV[2]: postId (帖子ID)
+-- ARGV[3]: 收藏时间戳（毫秒）
 --
 -- 原子性地执行：
 -- 1. 检查是否已收藏
 -- 2. 添加到用户收藏列表
 -- 3. 添加到帖子收藏列表
 -- 4. 更新收藏计数
+-- 5. 更新收藏摘要（摘要已初始化时）
 
 -- 1. 检查是否已收藏
 local isMember = redis.call('SISMEMBER', KEYS[1], ARGV[2])
@@ -18,13 +22,22 @@ if isMember == 1 then
     return 0
 end
 
--- 2. 添加到用户收藏列表
+-- 2. 添加到用户收藏列表和收藏时间索引
 local added1 = redis.call('SADD', KEYS[1], ARGV[2])
+redis.call('ZADD', KEYS[4], ARGV[3], ARGV[2])
 -- 3. 添加到帖子收藏列表
 local added2 = redis.call('SADD', KEYS[2], ARGV[1])
 -- 4. 更新收藏计数
 local count = redis.call('INCR', KEYS[3])
 
+-- 5. 更新收藏摘要
+if redis.call('EXISTS', KEYS[5]) == 1 then
+    redis.call('HINCRBY', KEYS[5], 'count', 1)
+    redis.call('HINCRBY', KEYS[5], 'sum', ARGV[2])
+    local xor = tonumber(redis.call('HGET', KEYS[5], 'xor') or '0')
+    redis.call('HSET', KEYS[5], 'xor', bit.bxor(xor, bit.tobit(tonumber(ARGV[2]) % 4294967296)))
+end
+
 -- 返回实际添加的成员数量（通常是1）
 return added1
 
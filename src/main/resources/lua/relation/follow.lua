@@ -1,13 +1,21 @@
 -- follow.lua
 -- KEYS[1]: 关注列表 key (user:follow:{followerId})
 -- KEYS[2]: 粉丝列表 key (user:follower:{followedId})
+-- KEYS[3]: 粉丝分片元数据 key (user:follower:{followedId}:meta)
+-- KEYS[4]: 粉丝分片 key (user:follower:{followedId}:s:{followerId % shardCount})
+-- KEYS[5]: 关注时间索引 key (user:follow:time:{followerId})，score 为关注时间，用于游标分页
+-- KEYS[6]: 关注摘要 key (relation:digest:follow:{followerId})
 -- ARGV[1]: followedId (被关注者ID)
 -- ARGV[2]: followerId (关注者ID)
+-- ARGV[3]: 分片阈值（未分片的粉丝列表超过该数量时需要拆分）
+-- ARGV[4]: 关注时间戳（毫秒）
 --
 -- 原子性地执行：
 -- 1. 检查是否已关注（防止重复关注）
--- 2. 添加到关注列表
--- 3. 添加到对方的粉丝列表
+-- 2. 添加到关注列表（摘要已初始化时同时更新关注摘要）
+-- 3. 添加到对方的粉丝列表（已分片则写入对应分片并更新总数）
+--
+-- 返回：0 未添加，1 已添加，2 已添加且粉丝列表超过阈值需要拆分
 
 -- 1. 检查是否已关注
 local isMember = redis.call('SISMEMBER', KEYS[1], ARGV[1])
@@ -16,11 +24,28 @@ if isMember == 1 then
     return 0
 end
 
--- 2. 添加到关注列表
+-- 2. 添加到关注列表和关注时间索引
 local added1 = redis.call('SADD', KEYS[1], ARGV[1])
+redis.call('ZADD', KEYS[5], ARGV[4], ARGV[1])
+if redis.call('EXISTS', KEYS[6]) == 1 then
+    redis.call('HINCRBY', KEYS[6], 'count', 1)
+    redis.call('HINCRBY', KEYS[6], 'sum', ARGV[1])
+    local xor = tonumber(redis.call('HGET', KEYS[6], 'xor') or '0')
+    redis.call('HSET', KEYS[6], 'xor', bit.bxor(xor, bit.tobit(tonumber(ARGV[1]) % 4294967296)))
+end
+
 -- 3. 添加到对方的粉丝列表
-local added2 = redis.call('SADD', KEYS[2], ARGV[2])
+if redis.call('EXISTS', KEYS[3]) == 1 then
+    if redis.call('SADD', KEYS[4], ARGV[2]) == 1 then
+        redis.call('HINCRBY', KEYS[3], 'count', 1)
+    end
+    return added1
+end
+
+redis.call('SADD', KEYS[2], ARGV[2])
+if redis.call('SCARD', KEYS[2]) > tonumber(ARGV[3]) then
+    return 2
+end
 
 -- 返回实际添加的成员数量（通常是1）
 return added1
-
@@ -2,6 +2,7 @@
 -- KEYS[1]: 帖子点赞列表 key (post:like:{postId})
 -- KEYS[2]: 用户点赞列表 key (user:like:{userId})
 -- KEYS[3]: 点赞计数 key (post:like_count:{postId})
+-- KEYS[4]: 点赞摘要 key (relation:digest:like:{postId})
 -- ARGV[1]: userId (用户ID)
 -- ARGV[2]: postId (帖子ID)
 --
@@ -10,6 +11,7 @@
 -- 2. 添加到帖子点赞列表
 -- 3. 添加到用户点赞列表
 -- 4. 更新点赞计数
+-- 5. 更新点赞摘要
 
 -- 1. 检查是否已点赞
 local isMember = redis.call('SISMEMBER', KEYS[1], ARGV[1])
@@ -25,6 +27,14 @@ local added2 = redis.call('SADD', KEYS[2], ARGV[2])
 -- 4. 更新点赞计数
 local count = redis.call('INCR', KEYS[3])
 
+-- 5. 更新摘要（count/sum/xor，仅在摘要已初始化时维护，未初始化的摘要由校验任务重建）
+if redis.call('EXISTS', KEYS[4]) == 1 then
+    redis.call('HINCRBY', KEYS[4], 'count', 1)
+    redis.call('HINCRBY', KEYS[4], 'sum', ARGV[1])
+    local xor = tonumber(redis.call('HGET', KEYS[4], 'xor') or '0')
+    redis.call('HSET', KEYS[4], 'xor', bit.bxor(xor, bit.tobit(tonumber(ARGV[1]) % 4294967296)))
+end
+
 -- 返回实际添加的成员数量（通常是1）
 return added1
 
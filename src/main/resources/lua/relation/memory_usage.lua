@@ -0,0 +1,14 @@
+-- memory_usage.lua
+-- KEYS[1...]: 需要统计内存占用的 key 列表
+--
+-- 返回：所有 key 的 MEMORY USAGE 之和（字节），不存在的 key 计为0
+-- SAMPLES 0 表示采样全部嵌套元素，结果精确但对超大 key 较慢，仅用于运维报告
+
+local total = 0
+for _, key in ipairs(KEYS) do
+    local usage = redis.call('MEMORY', 'USAGE', key, 'SAMPLES', 0)
+    if usage then
+        total = total + usage
+    end
+end
+return total
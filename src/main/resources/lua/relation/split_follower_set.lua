@@ -0,0 +1,30 @@
+-- split_follower_set.lua
+-- KEYS[1]: 粉丝列表 key (user:follower:{userId})
+-- KEYS[2]: 粉丝分片元数据 key (user:follower:{userId}:meta)
+-- KEYS[3...]: 粉丝分片 key 列表 (user:follower:{userId}:s:0 ... s:{N-1})
+--
+-- 原子性地执行：
+-- 1. 检查是否已拆分（并发触发时只执行一次）
+-- 2. 按 followerId % N 将成员分配到各分片
+-- 3. 写入元数据（分片数、总数）并删除原粉丝列表
+--
+-- 返回：迁移的成员数量，已拆分返回0
+
+-- 1. 检查是否已拆分
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    return 0
+end
+
+-- 2. 分配到各分片
+local shardCount = #KEYS - 2
+local members = redis.call('SMEMBERS', KEYS[1])
+for _, member in ipairs(members) do
+    local index = tonumber(member) % shardCount
+    redis.call('SADD', KEYS[3 + index], member)
+end
+
+-- 3. 写入元数据并删除原粉丝列表
+redis.call('HSET', KEYS[2], 'shards', shardCount, 'count', #members)
+redis.call('DEL', KEYS[1])
+
+return #members
@@ -0,0 +1,26 @@
+-- sscan_page.lua
+-- KEYS[1]: Set key
+-- ARGV[1]: SSCAN 游标（第一页为0）
+-- ARGV[2]: 期望数量（同时作为 SSCAN 的 COUNT 提示）
+--
+-- 原子性地执行：
+-- 1. 从游标处循环 SSCAN，直到凑够期望数量或遍历结束
+-- 2. 返回下一页游标和本页成员
+--
+-- 注意：SSCAN 每次返回的数量只是近似值，本页数量可能略多于期望数量；小 Set（intset 编码）会一次返回全部成员
+-- 返回：{nextCursor, member1, member2, ...}，nextCursor 为 "0" 表示遍历结束
+
+local cursor = ARGV[1]
+local limit = tonumber(ARGV[2])
+local result = {}
+
+repeat
+    local reply = redis.call('SSCAN', KEYS[1], cursor, 'COUNT', limit)
+    cursor = reply[1]
+    for _, member in ipairs(reply[2]) do
+        table.insert(result, member)
+    end
+until cursor == '0' or #result >= limit
+
+table.insert(result, 1, cursor)
+return result
@@ -1,12 +1,14 @@
 -- unblock_user.lua
 -- KEYS[1]: 黑名单 key (user:blacklist:{userId})
 -- KEYS[2]: 被拉黑列表 key (user:blocked_by:{blockedUserId})
+-- KEYS[3]: 黑名单摘要 key (relation:digest:block:{userId})
 -- ARGV[1]: blockedUserId (被拉黑的用户ID)
 -- ARGV[2]: userId (拉黑的用户ID)
 --
 -- 原子性地执行：
 -- 1. 从黑名单移除
 -- 2. 从被拉黑列表移除
+-- 3. 更新黑名单摘要（摘要已初始化时）
 
 -- 1. 从黑名单移除
 local removed1 = redis.call('SREM', KEYS[1], ARGV[1])
@@ -15,6 +17,14 @@ if removed1 > 0 then
     redis.call('SREM', KEYS[2], ARGV[2])
 end
 
+-- 3. 更新黑名单摘要
+if removed1 > 0 and redis.call('EXISTS', KEYS[3]) == 1 then
+    redis.call('HINCRBY', KEYS[3], 'count', -1)
+    redis.call('HINCRBY', KEYS[3], 'sum', '-' .. ARGV[1])
+    local xor = tonumber(redis.call('HGET', KEYS[3], 'xor') or '0')
+    redis.call('HSET', KEYS[3], 'xor', bit.bxor(xor, bit.tobit(tonumber(ARGV[1]) % 4294967296)))
+end
+
 -- 返回移除的成员数量
 return removed1
 
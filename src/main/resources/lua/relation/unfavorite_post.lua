@@ -2,6 +2,8 @@
 -- KEYS[1]: 用户收藏列表 key (user:favorite:{userId})
 -- KEYS[2]: 帖子收藏列表 key (post:favorited_by:{postId})
 -- KEYS[3]: 收藏计数 key (post:favorite_count:{postId})
+-- KEYS[4]: 收藏时间索引 key (user:favorite:time:{userId})
+-- KEYS[5]: 收藏摘要 key (relation:digest:favorite:{userId})
 -- ARGV[1]: userId (用户ID)
 -- ARGV[2]: postId (帖子ID)
 --
@@ -9,16 +11,26 @@
 -- 1. 从用户收藏列表移除
 -- 2. 从帖子收藏列表移除
 -- 3. 更新收藏计数
+-- 4. 更新收藏摘要（摘要已初始化时）
 
 -- 1. 从用户收藏列表移除
 local removed1 = redis.call('SREM', KEYS[1], ARGV[2])
 -- 2. 从帖子收藏列表移除并更新计数
 if removed1 > 0 then
     redis.call('SREM', KEYS[2], ARGV[1])
+    redis.call('ZREM', KEYS[4], ARGV[2])
     -- 3. 更新收藏计数（减1）
     redis.call('DECR', KEYS[3])
 end
 
+-- 4. 更新收藏摘要
+if removed1 > 0 and redis.call('EXISTS', KEYS[5]) == 1 then
+    redis.call('HINCRBY', KEYS[5], 'count', -1)
+    redis.call('HINCRBY', KEYS[5], 'sum', '-' .. ARGV[2])
+    local xor = tonumber(redis.call('HGET', KEYS[5], 'xor') or '0')
+    redis.call('HSET', KEYS[5], 'xor', bit.bxor(xor, bit.tobit(tonumber(ARGV[2]) % 4294967296)))
+end
+
 -- 返回移除的成员数量
 return removed1
 
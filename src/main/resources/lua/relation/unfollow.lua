@@ -1,20 +1,36 @@
 -- unfollow.lua
 -- KEYS[1]: 关注列表 key (user:follow:{followerId})
 -- KEYS[2]: 粉丝列表 key (user:follower:{followedId})
+-- KEYS[3]: 粉丝分片元数据 key (user:follower:{followedId}:meta)
+-- KEYS[4]: 粉丝分片 key (user:follower:{followedId}:s:{followerId % shardCount})
+-- KEYS[5]: 关注时间索引 key (user:follow:time:{followerId})
+-- KEYS[6]: 关注摘要 key (relation:digest:follow:{followerId})
 -- ARGV[1]: followedId (被关注者ID)
 -- ARGV[2]: followerId (关注者ID)
 --
 -- 原子性地执行：
--- 1. 从关注列表移除
--- 2. 从对方粉丝列表移除
+-- 1. 从关注列表移除（摘要已初始化时同时更新关注摘要）
+-- 2. 从对方粉丝列表移除（已分片则从对应分片移除并更新总数）
 
 -- 1. 从关注列表移除
 local removed1 = redis.call('SREM', KEYS[1], ARGV[1])
+if removed1 > 0 and redis.call('EXISTS', KEYS[6]) == 1 then
+    redis.call('HINCRBY', KEYS[6], 'count', -1)
+    redis.call('HINCRBY', KEYS[6], 'sum', '-' .. ARGV[1])
+    local xor = tonumber(redis.call('HGET', KEYS[6], 'xor') or '0')
+    redis.call('HSET', KEYS[6], 'xor', bit.bxor(xor, bit.tobit(tonumber(ARGV[1]) % 4294967296)))
+end
 -- 2. 从对方粉丝列表移除
 if removed1 > 0 then
-    redis.call('SREM', KEYS[2], ARGV[2])
+    redis.call('ZREM', KEYS[5], ARGV[1])
+    if redis.call('EXISTS', KEYS[3]) == 1 then
+        if redis.call('SREM', KEYS[4], ARGV[2]) == 1 then
+            redis.call('HINCRBY', KEYS[3], 'count', -1)
+        end
+    else
+        redis.call('SREM', KEYS[2], ARGV[2])
+    end
 end
 
 -- 返回移除的成员数量
 return removed1
-
@@ -2,6 +2,7 @@
 -- KEYS[1]: 帖子点赞列表 key (post:like:{postId})
 -- KEYS[2]: 用户点赞列表 key (user:like:{userId})
 -- KEYS[3]: 点赞计数 key (post:like_count:{postId})
+-- KEYS[4]: 点赞摘要 key (relation:digest:like:{postId})
 -- ARGV[1]: userId (用户ID)
 -- ARGV[2]: postId (帖子ID)
 --
@@ -9,6 +10,7 @@
 -- 1. 从帖子点赞列表移除
 -- 2. 从用户点赞列表移除
 -- 3. 更新点赞计数
+-- 4. 更新点赞摘要
 
 -- 1. 从帖子点赞列表移除
 local removed1 = redis.call('SREM', KEYS[1], ARGV[1])
@@ -19,6 +21,14 @@ if removed1 > 0 then
     redis.call('DECR', KEYS[3])
 end
 
+-- 4. 更新摘要（异或自反，移除时再异或一次即可抵消）
+if removed1 > 0 and redis.call('EXISTS', KEYS[4]) == 1 then
+    redis.call('HINCRBY', KEYS[4], 'count', -1)
+    redis.call('HINCRBY', KEYS[4], 'sum', '-' .. ARGV[1])
+    local xor = tonumber(redis.call('HGET', KEYS[4], 'xor') or '0')
+    redis.call('HSET', KEYS[4], 'xor', bit.bxor(xor, bit.tobit(tonumber(ARGV[1]) % 4294967296)))
+end
+
 -- 返回移除的成员数量
 return removed1
 
@@ -0,0 +1,35 @@
+-- inbox_push.lua
+-- KEYS[1]: active inbox zset key (timeline:inbox:active，member 为用户ID，score 为最近读取时间)
+-- KEYS[2..n]: follower inbox keys (timeline:inbox:{followerId})
+-- ARGV[1]: postId
+-- ARGV[2]: publishTime (时间戳，毫秒)
+-- ARGV[3]: maxInboxSize (收件箱最多保留的帖子数)
+-- ARGV[4]: activeCutoff (最近读取时间早于该值的用户视为不活跃，毫秒)
+-- ARGV[5..m]: followerIds（与 KEYS[2..n] 一一对应）
+--
+-- 原子性地执行：
+-- 1. 跳过不活跃用户（收件箱已被清理，下次读取时重建）
+-- 2. 添加帖子到活跃用户的收件箱
+-- 3. 限制收件箱大小（只保留最新的N条）
+--
+-- 返回：写入的收件箱数量
+
+local maxSize = tonumber(ARGV[3])
+local cutoff = tonumber(ARGV[4])
+local pushed = 0
+
+for i = 2, #KEYS do
+    -- 1. 只推送给活跃用户
+    local lastActive = redis.call('ZSCORE', KEYS[1], ARGV[i + 3])
+    if lastActive and tonumber(lastActive) >= cutoff then
+        -- 2. 添加到收件箱
+        redis.call('ZADD', KEYS[i], ARGV[2], ARGV[1])
+        -- 3. 限制收件箱大小，删除最旧的帖子
+        if redis.call('ZCARD', KEYS[i]) > maxSize then
+            redis.call('ZREMRANGEBYRANK', KEYS[i], 0, -(maxSize + 1))
+        end
+        pushed = pushed + 1
+    end
+end
+
+return pushed
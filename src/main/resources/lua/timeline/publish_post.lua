@@ -1,31 +1,73 @@
 -- publish_post.lua
 -- KEYS[1]: post key (post:{postId})
 -- KEYS[2]: user post list key (user:post:rel:{userId})
+-- KEYS[3]: empty set key (user:post:empty:set)
+-- KEYS[4]: user timeline key (timeline:posts:user:{userId})
+-- KEYS[5]: global timeline key (timeline:posts:global)
+-- KEYS[6]: trending ranking key (post:ranking:hot:trending)
+-- KEYS[7]: trending epoch key (post:ranking:hot:trending:epoch)
+-- KEYS[8..N]: hot ranking keys (post:ranking:hot:{period})
 -- ARGV[1]: post data (JSON字符串，已在Java代码中使用ObjectMapper序列化)
 -- ARGV[2]: postId
 -- ARGV[3]: post expire time (秒)
 -- ARGV[4]: max list size (用户帖子列表上限)
-
+-- ARGV[5]: userId
+-- ARGV[6]: publishTime (时间戳，毫秒)
+-- ARGV[7]: max timeline size (用户时间线上限)
+-- ARGV[8]: initial hot score (初始热度分数)
+-- ARGV[9]: trending tau (趋势榜衰减时间常数，毫秒)
+-- ARGV[10]: trending publish weight (新帖子在趋势榜的初始热度)
+--
 -- 注意：ARGV[1] 是已经序列化好的 JSON 字符串，直接使用，不再序列化
 -- 这样可以避免多重转义问题，同时保持操作的原子性
+--
+-- 原子性地执行（发帖后的全部缓存写入，一次往返）：
+-- 1. 把用户从空用户Set中移除（用户现在有帖子了）
+-- 2. 设置帖子缓存，添加到用户帖子列表头部并限制列表大小
+-- 3. 添加到用户时间线和全局时间线，限制用户时间线大小
+-- 4. 初始化各时间段热度排行榜的分数
+-- 5. 写入趋势榜衰减分数 log(初始热度) + (发帖时间 - 基准时间) / τ，基准时间不存在时以发帖时间初始化
+--
+-- 返回：用户帖子列表因超限删除的元素数量
 
--- 1. 设置帖子缓存（直接使用已序列化的 JSON 字符串）
-redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[3])
+-- 1. 移出空用户Set
+redis.call('SREM', KEYS[3], ARGV[5])
 
--- 2. 将帖子ID添加到用户帖子列表头部
+-- 2. 帖子缓存和用户帖子列表
+redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[3])
 redis.call('LPUSH', KEYS[2], ARGV[2])
 
--- 3. 检查列表大小，如果超过上限，删除尾部元素（最旧的帖子）
+local removedCount = 0
 local listSize = redis.call('LLEN', KEYS[2])
 local maxSize = tonumber(ARGV[4])
 if listSize > maxSize then
-    -- 保留前maxSize个元素，删除后面的元素
-    -- LTRIM key start end: 保留索引从start到end的元素（包含两端）
-    -- 索引从0开始，所以保留0到maxSize-1
+    -- 保留前maxSize个元素（索引0到maxSize-1），删除尾部最旧的帖子
     redis.call('LTRIM', KEYS[2], 0, maxSize - 1)
-    local removedCount = listSize - maxSize
-    return removedCount
+    removedCount = listSize - maxSize
+end
+
+-- 3. 用户时间线和全局时间线
+redis.call('ZADD', KEYS[4], ARGV[6], ARGV[2])
+redis.call('ZADD', KEYS[5], ARGV[6], ARGV[2])
+
+local maxTimelineSize = tonumber(ARGV[7])
+if redis.call('ZCARD', KEYS[4]) > maxTimelineSize then
+    -- 删除排名 maxTimelineSize 之后的所有帖子
+    redis.call('ZREMRANGEBYRANK', KEYS[4], 0, -(maxTimelineSize + 1))
+end
+
+-- 4. 热度排行榜初始分数
+for i = 8, #KEYS do
+    redis.call('ZADD', KEYS[i], ARGV[8], ARGV[2])
+end
+
+-- 5. 趋势榜衰减分数
+local publishTime = tonumber(ARGV[6])
+local epoch = tonumber(redis.call('GET', KEYS[7]))
+if not epoch then
+    epoch = publishTime
+    redis.call('SET', KEYS[7], ARGV[6])
 end
+redis.call('ZADD', KEYS[6], math.log(tonumber(ARGV[10])) + (publishTime - epoch) / tonumber(ARGV[9]), ARGV[2])
 
--- 4. 返回成功（没有删除元素）
-return 0
+return removedCount
@@ -20,8 +20,8 @@ redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])
 local maxSize = tonumber(ARGV[3])
 local userTimelineSize = redis.call('ZCARD', KEYS[1])
 if userTimelineSize > maxSize then
-    -- 删除排名 maxSize 之后的所有帖子（从索引 maxSize 到末尾）
-    redis.call('ZREMRANGEBYRANK', KEYS[1], maxSize, -1)
+    -- 删除排名 maxSize 之后的所有帖子（分数升序排列，最旧的在前，保留末尾最新的 maxSize 条）
+    redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(maxSize + 1))
     local removedCount = userTimelineSize - maxSize
     return removedCount
 end
@@ -10,7 +10,7 @@ CREATE TABLE IF NOT EXISTS `browse_history` (
     PRIMARY KEY (`id`),
     UNIQUE KEY `uk_user_post` (`user_id`, `post_id`, `browse_time`),
     KEY `idx_user_id` (`user_id`),
-    KEY `idx_user_browse_time` (`user_id`, `browse_time`),
+    KEY `idx_user_browse_post` (`user_id`, `browse_time`, `post_id`),
     KEY `idx_post_id` (`post_id`),
     KEY `idx_browse_time` (`browse_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='浏览记录表';
@@ -18,7 +18,7 @@ CREATE TABLE IF NOT EXISTS `browse_history` (
 -- 索引说明：
 -- uk_user_post: 唯一索引，防止同一用户在同一时间点重复记录同一帖子（虽然业务上不太可能，但作为数据完整性保障）
 -- idx_user_id: 用于按用户查询浏览记录
--- idx_user_browse_time: 用于按用户和时间范围查询（复合索引，优化查询性能）
+-- idx_user_browse_post: 用于按用户和时间范围查询，以及按 (browse_time, post_id) 键集分页（索引顺序即分页顺序，无需排序）
 -- idx_post_id: 用于按帖子查询浏览记录（可用于统计帖子被浏览次数）
 -- idx_browse_time: 用于按时间范围查询和清理过期数据
 
@@ -0,0 +1,16 @@
+-- 关系摘要表
+-- 数据库侧的关系集合摘要（成员数、成员ID之和、成员ID低32位异或），与 Redis 摘要 relation:digest:{type}:{entityId} 比对
+-- 点赞/收藏由 Write-Behind 刷库在同一事务内增量维护，关注/拉黑由写透持久化增量维护；
+-- 定时校验发现不一致并全量比对后，按关系表重新聚合覆盖对应实体的摘要
+CREATE TABLE IF NOT EXISTS `relation_digest` (
+    `type` VARCHAR(16) NOT NULL COMMENT '关系类型（like, favorite, follow, block）',
+    `entity_id` BIGINT NOT NULL COMMENT '实体ID（点赞为帖子ID，其余为用户ID）',
+    `member_count` BIGINT NOT NULL DEFAULT 0 COMMENT '成员数',
+    `member_sum` BIGINT NOT NULL DEFAULT 0 COMMENT '成员ID之和',
+    `member_xor` BIGINT NOT NULL DEFAULT 0 COMMENT '成员ID低32位异或（无符号）',
+    `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`type`, `entity_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='关系摘要表';
+
+-- 索引说明：
+-- PRIMARY KEY (type, entity_id): 校验时按类型和一页实体ID点查摘要，刷库时按主键 upsert 增量
@@ -0,0 +1,172 @@
+package com.wait;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.wait.util.BatchLoader;
+
+/**
+ * 批量加载器测试
+ * 覆盖键去重、空批次、缺失键、批量函数异常以及多个加载器并发 dispatch
+ */
+public class BatchLoaderTest {
+
+    /** 在调用线程上直接执行，dispatch 返回时批次已完成 */
+    private static final Executor DIRECT = Runnable::run;
+
+    @Test
+    void testLoadDeduplicatesKeys() {
+        List<List<Long>> batches = new ArrayList<>();
+        BatchLoader<Long, String> loader = new BatchLoader<>("post", keys -> {
+            batches.add(new ArrayList<>(keys));
+            Map<Long, String> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, "post-" + key));
+            return values;
+        });
+
+        CompletableFuture<String> first = loader.load(1L);
+        assertSame(first, loader.load(1L));
+        loader.loadMany(Arrays.asList(2L, null, 1L, 3L, 2L));
+        assertFalse(first.isDone());
+        assertNull(loader.getIfLoaded(1L));
+
+        CompletableFuture<Void> dispatched = loader.dispatch(DIRECT);
+        assertTrue(dispatched.isDone());
+        assertFalse(dispatched.isCompletedExceptionally());
+        assertEquals(Collections.singletonList(Arrays.asList(1L, 2L, 3L)), batches);
+        assertEquals("post-1", first.join());
+        assertEquals("post-2", loader.getIfLoaded(2L));
+        assertEquals("post-3", loader.getIfLoaded(3L));
+        assertEquals("post", loader.getName());
+    }
+
+    @Test
+    void testDispatchOnlyPendingKeys() {
+        List<List<Long>> batches = new ArrayList<>();
+        BatchLoader<Long, Long> loader = new BatchLoader<>("count", keys -> {
+            batches.add(new ArrayList<>(keys));
+            Map<Long, Long> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, key * 10));
+            return values;
+        });
+
+        // 没有登记的键时不调用批量函数
+        CompletableFuture<Void> empty = loader.dispatch(DIRECT);
+        assertTrue(empty.isDone());
+        assertTrue(batches.isEmpty());
+
+        loader.loadMany(Arrays.asList(1L, 2L));
+        loader.dispatch(DIRECT);
+        // 已加载的键不会再次进入批次
+        loader.loadMany(Arrays.asList(2L, 3L));
+        loader.dispatch(DIRECT);
+        loader.dispatch(DIRECT);
+
+        assertEquals(Arrays.asList(Arrays.asList(1L, 2L), Collections.singletonList(3L)), batches);
+        assertEquals(Long.valueOf(20L), loader.getIfLoaded(2L));
+        assertEquals(Long.valueOf(30L), loader.getIfLoaded(3L));
+    }
+
+    @Test
+    void testMissingKeysAndUnregisteredKeys() {
+        BatchLoader<Long, String> loader = new BatchLoader<>("user",
+                keys -> Collections.singletonMap(1L, "user-1"));
+        CompletableFuture<String> missing = loader.load(2L);
+        loader.load(1L);
+        loader.dispatch(DIRECT);
+
+        assertTrue(missing.isDone());
+        assertNull(missing.join());
+        assertNull(loader.getIfLoaded(2L));
+        assertEquals("user-1", loader.getIfLoaded(1L));
+        assertNull(loader.getIfLoaded(99L));
+
+        // 批量函数返回 null 时所有键都视为不存在
+        BatchLoader<Long, String> nullLoader = new BatchLoader<>("null", keys -> null);
+        CompletableFuture<String> future = nullLoader.load(1L);
+        nullLoader.dispatch(DIRECT);
+        assertTrue(future.isDone());
+        assertNull(future.join());
+    }
+
+    @Test
+    void testBatchFunctionFailure() {
+        IllegalStateException failure = new IllegalStateException("redis down");
+        BatchLoader<Long, String> loader = new BatchLoader<>("failing", keys -> {
+            throw failure;
+        });
+        CompletableFuture<String> first = loader.load(1L);
+        CompletableFuture<String> second = loader.load(2L);
+
+        CompletableFuture<Void> dispatched = loader.dispatch(DIRECT);
+        assertTrue(dispatched.isCompletedExceptionally());
+        ExecutionException batchError = assertThrows(ExecutionException.class, dispatched::get);
+        assertSame(failure, batchError.getCause());
+
+        // 本批次每个键都以同一个异常完成
+        for (CompletableFuture<String> future : Arrays.asList(first, second)) {
+            assertTrue(future.isCompletedExceptionally());
+            ExecutionException keyError = assertThrows(ExecutionException.class, future::get);
+            assertSame(failure, keyError.getCause());
+        }
+        assertNull(loader.getIfLoaded(1L));
+        assertNull(loader.getIfLoaded(2L));
+    }
+
+    @Test
+    void testConcurrentDispatch() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // 两个批量函数互相等待，只有并发执行时才能都完成
+            CountDownLatch bothStarted = new CountDownLatch(2);
+            BatchLoader<Long, String> posts = new BatchLoader<>("post", keys -> {
+                awaitQuietly(bothStarted);
+                return Collections.singletonMap(1L, "post-1");
+            });
+            BatchLoader<Long, Long> counts = new BatchLoader<>("count", keys -> {
+                awaitQuietly(bothStarted);
+                return Collections.singletonMap(1L, 7L);
+            });
+            posts.load(1L);
+            counts.load(1L);
+
+            CompletableFuture.allOf(posts.dispatch(executor), counts.dispatch(executor)).get(10, TimeUnit.SECONDS);
+            assertEquals("post-1", posts.getIfLoaded(1L));
+            assertEquals(Long.valueOf(7L), counts.getIfLoaded(1L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("batches did not run concurrently");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.wait;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.wait.config.script.RankingScripts;
+
+/**
+ * 时间衰减热度 Lua 脚本测试
+ * 校验 log-sum-exp 合入、负增量的 log-diff-exp 扣除、基准时间偏移以及 rebase 前后分数的等价性
+ */
+@SpringBootTest
+public class HotScoreLuaTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final long TAU = 3_600_000L;
+    private static final long EPOCH = 1_700_000_000_000L;
+    private static final long BUCKET_TTL_SECONDS = 600;
+
+    @Autowired
+    private RankingScripts rankingScripts;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private String bucketKey;
+    private String trendingKey;
+    private String epochKey;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString();
+        bucketKey = "test:hot:bucket:" + suffix;
+        trendingKey = "test:hot:trending:" + suffix;
+        epochKey = "test:hot:trending:epoch:" + suffix;
+    }
+
+    @AfterEach
+    void tearDown() {
+        stringRedisTemplate.delete(Arrays.asList(bucketKey, trendingKey, epochKey));
+    }
+
+    @Test
+    void testPositiveDeltasMergeByLogSumExp() {
+        assertEquals(1L, event(1L, 3, EPOCH));
+        // 基准时间不存在时以首个事件时间初始化
+        assertEquals(String.valueOf(EPOCH), stringRedisTemplate.opsForValue().get(epochKey));
+        assertEquals(Math.log(3), trending(1L), EPSILON);
+
+        assertEquals(1L, event(1L, 5, EPOCH));
+        assertEquals(Math.log(8), trending(1L), EPSILON);
+
+        // 两个 τ 之后的事件权重为 e^2
+        assertEquals(1L, event(1L, 1, EPOCH + 2 * TAU));
+        assertEquals(Math.log(8 + Math.exp(2)), trending(1L), EPSILON);
+        assertEquals(9.0, bucket(1L), EPSILON);
+
+        // 小数增量
+        assertEquals(1L, event(2L, 0.5, EPOCH + TAU / 2));
+        assertEquals(Math.log(0.5) + 0.5, trending(2L), EPSILON);
+    }
+
+    @Test
+    void testNegativeDeltaByLogDiffExp() {
+        event(1L, 10, EPOCH);
+        event(1L, 4, EPOCH + TAU);
+
+        assertEquals(1L, event(1L, -2, EPOCH));
+        assertEquals(Math.log(8 + 4 * Math.E), trending(1L), EPSILON);
+
+        assertEquals(1L, event(1L, -3, EPOCH + TAU));
+        assertEquals(Math.log(8 + Math.E), trending(1L), EPSILON);
+        assertEquals(9.0, bucket(1L), EPSILON);
+    }
+
+    @Test
+    void testNegativeDeltaWithoutEnoughScore() {
+        event(1L, 2, EPOCH);
+        double before = trending(1L);
+
+        // 扣除量超过当前值时保持不变
+        assertEquals(0L, event(1L, -3, EPOCH));
+        assertEquals(before, trending(1L), 0);
+        assertEquals(0L, event(1L, -1, EPOCH + TAU));
+        assertEquals(before, trending(1L), 0);
+        // 分桶仍然记录净增量
+        assertEquals(-2.0, bucket(1L), EPSILON);
+
+        // 不在排行榜中的帖子不会因负增量被写入
+        assertEquals(0L, event(2L, -1, EPOCH));
+        assertNull(stringRedisTemplate.opsForZSet().score(trendingKey, "2"));
+    }
+
+    @Test
+    void testZeroDeltaIsIgnored() {
+        assertEquals(0L, event(1L, 0, EPOCH));
+        assertNull(stringRedisTemplate.opsForZSet().score(bucketKey, "1"));
+        assertNull(stringRedisTemplate.opsForValue().get(epochKey));
+    }
+
+    @Test
+    void testLargeExponentsStayFinite() {
+        // e^1000 超出 double 范围，按 max + log(1 + e^(min - max)) 合入不会溢出
+        event(1L, 1, EPOCH);
+        event(1L, 1, EPOCH + 1000 * TAU);
+        assertEquals(1000.0, trending(1L), EPSILON);
+        event(1L, 1, EPOCH + 1000 * TAU);
+        assertEquals(1000 + Math.log(2), trending(1L), EPSILON);
+        event(1L, -1, EPOCH + 1000 * TAU);
+        assertEquals(1000.0, trending(1L), 1e-6);
+    }
+
+    @Test
+    void testRebaseShiftsScoresAndKeepsEquivalence() {
+        event(1L, 10, EPOCH);
+        event(2L, 3, EPOCH + TAU);
+        event(3L, 1, EPOCH);
+        double score1 = trending(1L);
+        double score2 = trending(2L);
+
+        // 距基准时间不足 maxAge 时不前移
+        assertEquals(0L, rebase(EPOCH + TAU, 10, 2 * TAU));
+        assertEquals(score1, trending(1L), 0);
+
+        // 前移 3τ：所有分数减 3，只保留前两名
+        long now = EPOCH + 3 * TAU;
+        assertEquals(2L, rebase(now, 2, 2 * TAU));
+        assertEquals(String.valueOf(now), stringRedisTemplate.opsForValue().get(epochKey));
+        assertEquals(score1 - 3, trending(1L), EPSILON);
+        assertEquals(score2 - 3, trending(2L), EPSILON);
+        assertNull(stringRedisTemplate.opsForZSet().score(trendingKey, "3"));
+
+        // rebase 后合入的事件与不 rebase 时的结果只差一个常数偏移
+        event(1L, 5, now);
+        assertEquals(Math.log(Math.exp(score1) + 5 * Math.exp(3)) - 3, trending(1L), EPSILON);
+        event(2L, -0.25, now);
+        assertEquals(Math.log(Math.exp(score2) - 0.25 * Math.exp(3)) - 3, trending(2L), EPSILON);
+    }
+
+    @Test
+    void testRebaseInitializesMissingEpoch() {
+        stringRedisTemplate.opsForZSet().add(trendingKey, "1", 1.5);
+        assertEquals(0L, rebase(EPOCH, 10, TAU));
+        assertEquals(String.valueOf(EPOCH), stringRedisTemplate.opsForValue().get(epochKey));
+        assertEquals(1.5, trending(1L), 0);
+    }
+
+    private Long event(Long postId, double delta, long now) {
+        return rankingScripts.executeScript(RankingScripts.HOT_SCORE_EVENT,
+                Arrays.asList(bucketKey, trendingKey, epochKey), postId, delta, now, TAU, BUCKET_TTL_SECONDS);
+    }
+
+    private Long rebase(long now, int maxSize, long maxAge) {
+        List<String> keys = Arrays.asList(trendingKey, epochKey);
+        return rankingScripts.executeScript(RankingScripts.HOT_TRENDING_REBASE, keys, now, TAU, maxSize, maxAge);
+    }
+
+    private double trending(Long postId) {
+        Double score = stringRedisTemplate.opsForZSet().score(trendingKey, String.valueOf(postId));
+        assertNotNull(score, "post " + postId + " is not in the trending ranking");
+        assertTrue(Double.isFinite(score));
+        return score;
+    }
+
+    private double bucket(Long postId) {
+        Double score = stringRedisTemplate.opsForZSet().score(bucketKey, String.valueOf(postId));
+        assertNotNull(score);
+        return score;
+    }
+}
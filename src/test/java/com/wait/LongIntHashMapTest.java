@@ -0,0 +1,169 @@
+package com.wait;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.wait.util.LongIntHashMap;
+import com.wait.util.SortedLongArrays;
+
+/**
+ * long -> int 开放寻址哈希表测试
+ * 覆盖累加、探测冲突、扩容、极端键以及 topKeys 的排序规则
+ */
+public class LongIntHashMapTest {
+
+    @Test
+    void testAddToAndGet() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.get(42L));
+
+        assertEquals(3, map.addTo(42L, 3));
+        assertEquals(5, map.addTo(42L, 2));
+        assertEquals(1, map.addTo(7L, 1));
+        // 负增量允许把计数减到 0 或负数，键仍然保留
+        assertEquals(0, map.addTo(7L, -1));
+        assertEquals(-2, map.addTo(8L, -2));
+
+        assertEquals(5, map.get(42L));
+        assertEquals(0, map.get(7L));
+        assertEquals(-2, map.get(8L));
+        assertEquals(0, map.get(9L));
+        assertEquals(3, map.size());
+        assertFalse(map.isEmpty());
+    }
+
+    @Test
+    void testExtremeKeys() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        long[] keys = {0L, -1L, 1L, Long.MAX_VALUE, Long.MIN_VALUE + 1};
+        for (int i = 0; i < keys.length; i++) {
+            map.addTo(keys[i], i + 1);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i + 1, map.get(keys[i]));
+        }
+        assertEquals(keys.length, map.size());
+
+        // Long.MIN_VALUE 是空槽标记，不能写入，读取视为不存在
+        assertThrows(IllegalArgumentException.class, () -> map.addTo(Long.MIN_VALUE, 1));
+        assertEquals(0, map.get(Long.MIN_VALUE));
+        assertEquals(keys.length, map.size());
+    }
+
+    @Test
+    void testCollidingKeysAcrossResizes() {
+        // 低 32 位完全相同、只有高位不同的键，以及连续 id，从最小容量开始写入，多次触发扩容
+        LongIntHashMap map = new LongIntHashMap(1);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (long i = 1; i <= 2000; i++) {
+            long[] keys = {i << 32, i << 48, -(i << 32), i, i * 1024};
+            for (long key : keys) {
+                int delta = (int) (i % 7) - 3;
+                map.addTo(key, delta);
+                expected.merge(key, delta, Integer::sum);
+            }
+            if (i % 250 == 0) {
+                assertMatches(expected, map);
+            }
+        }
+        assertMatches(expected, map);
+    }
+
+    @Test
+    void testRandomAgainstHashMap() {
+        Random random = new Random(20240602L);
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            // 取值范围较小，保证大量重复键
+            long key = random.nextInt(20_000) - 10_000L;
+            int delta = random.nextInt(10) + 1;
+            assertEquals(expected.merge(key, delta, Integer::sum).intValue(), map.addTo(key, delta));
+        }
+        assertMatches(expected, map);
+    }
+
+    @Test
+    void testForEach() {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (long key = -50; key < 50; key++) {
+            map.addTo(key, (int) key * 2);
+            expected.put(key, (int) key * 2);
+        }
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach((key, value) -> assertNull(visited.put(key, value)));
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void testTopKeysOrdering() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.addTo(10L, 5);
+        map.addTo(20L, 9);
+        map.addTo(30L, 5);
+        map.addTo(5L, 5);
+        map.addTo(40L, 1);
+        // 计数不大于 0 的键不参与
+        map.addTo(50L, 0);
+        map.addTo(60L, -3);
+
+        // 计数降序，计数相同时键小的优先
+        assertArrayEquals(new long[]{20L, 5L, 10L, 30L, 40L}, map.topKeys(10));
+        assertArrayEquals(new long[]{20L, 5L, 10L}, map.topKeys(3));
+        assertArrayEquals(new long[]{20L}, map.topKeys(1));
+        assertArrayEquals(SortedLongArrays.EMPTY, map.topKeys(0));
+        assertArrayEquals(SortedLongArrays.EMPTY, map.topKeys(-1));
+        assertArrayEquals(SortedLongArrays.EMPTY, new LongIntHashMap().topKeys(5));
+
+        LongIntHashMap nonPositive = new LongIntHashMap();
+        nonPositive.addTo(1L, 0);
+        nonPositive.addTo(2L, -1);
+        assertArrayEquals(SortedLongArrays.EMPTY, nonPositive.topKeys(5));
+    }
+
+    @Test
+    void testTopKeysRandomAgainstSort() {
+        Random random = new Random(20240603L);
+        LongIntHashMap map = new LongIntHashMap();
+        for (int i = 0; i < 20_000; i++) {
+            map.addTo(random.nextInt(5000), random.nextInt(7) - 1);
+        }
+        List<long[]> entries = new ArrayList<>();
+        map.forEach((key, value) -> {
+            if (value > 0) {
+                entries.add(new long[]{key, value});
+            }
+        });
+        entries.sort((x, y) -> x[1] != y[1] ? Long.compare(y[1], x[1]) : Long.compare(x[0], y[0]));
+
+        for (int k : new int[]{1, 7, 100, 1000, entries.size(), entries.size() + 10}) {
+            int n = Math.min(k, entries.size());
+            long[] expected = new long[n];
+            for (int i = 0; i < n; i++) {
+                expected[i] = entries.get(i)[0];
+            }
+            assertArrayEquals(expected, map.topKeys(k), "k = " + k);
+        }
+    }
+
+    private static void assertMatches(Map<Long, Integer> expected, LongIntHashMap map) {
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().intValue(), map.get(entry.getKey()), "key " + entry.getKey());
+        }
+    }
+}
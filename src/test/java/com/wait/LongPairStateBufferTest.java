@@ -0,0 +1,268 @@
+package com.wait;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.wait.util.LongPairStateBuffer;
+
+/**
+ * (long, long) -> boolean 并发写缓冲测试
+ * 覆盖覆盖写、putIfAbsent、净变化、失败快照放回、极端键、分段表扩容、drain/release 复用以及并发写入与换出
+ */
+public class LongPairStateBufferTest {
+
+    @Test
+    void testPutOverwritesWithLatestState() {
+        LongPairStateBuffer buffer = new LongPairStateBuffer();
+        assertTrue(buffer.isEmpty());
+
+        buffer.put(1L, 2L, true);
+        buffer.put(1L, 2L, false);
+        buffer.put(1L, 2L, true);
+        // (2, 1) 与 (1, 2) 是不同的键
+        buffer.put(2L, 1L, false);
+        assertEquals(2, buffer.size());
+
+        Map<String, Boolean> drained = drainToMap(buffer);
+        assertEquals(2, drained.size());
+        assertEquals(Boolean.TRUE, drained.get("1:2"));
+        assertEquals(Boolean.FALSE, drained.get("2:1"));
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void testPutIfAbsent() {
+        LongPairStateBuffer buffer = new LongPairStateBuffer();
+        assertTrue(buffer.putIfAbsent(1L, 2L, false));
+        // 已存在时不覆盖
+        assertFalse(buffer.putIfAbsent(1L, 2L, true));
+        buffer.put(3L, 4L, true);
+        assertFalse(buffer.putIfAbsent(3L, 4L, false));
+        assertEquals(2, buffer.size());
+
+        Map<String, Boolean> drained = drainToMap(buffer);
+        assertEquals(Boolean.FALSE, drained.get("1:2"));
+        assertEquals(Boolean.TRUE, drained.get("3:4"));
+    }
+
+    @Test
+    void testNetChange() {
+        LongPairStateBuffer buffer = new LongPairStateBuffer();
+        // 写入方只写入生效的操作，同一键的状态交替出现
+        buffer.put(1L, 1L, true);
+        buffer.put(1L, 2L, true);
+        buffer.put(1L, 2L, false);
+        buffer.put(1L, 3L, false);
+        buffer.put(1L, 4L, false);
+        buffer.put(1L, 4L, true);
+        buffer.put(1L, 4L, false);
+
+        Map<String, Boolean> changed = drainChanges(buffer);
+        assertEquals(4, changed.size());
+        // 新增后保持：净变化；新增后取消：无净变化；取消：净变化；取消、新增、再取消：净变化
+        assertEquals(Boolean.TRUE, changed.get("1:1:true"));
+        assertEquals(Boolean.FALSE, changed.get("1:2:false"));
+        assertEquals(Boolean.TRUE, changed.get("1:3:false"));
+        assertEquals(Boolean.TRUE, changed.get("1:4:false"));
+
+        // 新一轮从空白开始
+        buffer.put(1L, 2L, true);
+        assertEquals(Boolean.TRUE, drainChanges(buffer).get("1:2:true"));
+    }
+
+    @Test
+    void testRequeueMergesWithNewerWrites() {
+        LongPairStateBuffer buffer = new LongPairStateBuffer();
+        buffer.put(1L, 1L, true);
+        buffer.put(1L, 2L, true);
+        buffer.put(1L, 3L, false);
+        LongPairStateBuffer.Snapshot failed = buffer.drain();
+
+        // 刷库期间的新操作
+        buffer.put(1L, 2L, false);
+        buffer.put(1L, 3L, true);
+        buffer.put(1L, 4L, true);
+
+        buffer.requeue(failed);
+        buffer.release(failed);
+        assertEquals(4, buffer.size());
+
+        Map<String, Boolean> changed = drainChanges(buffer);
+        // 只在失败的快照中：原样放回
+        assertEquals(Boolean.TRUE, changed.get("1:1:true"));
+        // 两轮合并：新增后取消、取消后新增都没有净变化，最新状态以新一轮为准
+        assertEquals(Boolean.FALSE, changed.get("1:2:false"));
+        assertEquals(Boolean.FALSE, changed.get("1:3:true"));
+        assertEquals(Boolean.TRUE, changed.get("1:4:true"));
+    }
+
+    @Test
+    void testExtremeKeys() {
+        LongPairStateBuffer buffer = new LongPairStateBuffer(2, 8);
+        long[] values = {0L, -1L, 1L, Long.MIN_VALUE, Long.MAX_VALUE};
+        Map<String, Boolean> expected = new HashMap<>();
+        for (long first : values) {
+            for (long second : values) {
+                boolean state = (first ^ second) % 2 == 0;
+                buffer.put(first, second, state);
+                expected.put(first + ":" + second, state);
+            }
+        }
+        assertEquals(expected.size(), buffer.size());
+        assertEquals(expected, drainToMap(buffer));
+    }
+
+    @Test
+    void testResizeWithManyEntries() {
+        // 单段、最小容量，写入过程中多次扩容
+        LongPairStateBuffer buffer = new LongPairStateBuffer(1, 8);
+        Map<String, Boolean> expected = new HashMap<>();
+        for (long i = 0; i < 20_000; i++) {
+            long first = i % 97;
+            long second = i << 20;
+            buffer.put(first, second, i % 3 == 0);
+            expected.put(first + ":" + second, i % 3 == 0);
+        }
+        // 再覆盖一半的键
+        for (long i = 0; i < 20_000; i += 2) {
+            long first = i % 97;
+            long second = i << 20;
+            buffer.put(first, second, false);
+            expected.put(first + ":" + second, false);
+        }
+        assertEquals(expected.size(), buffer.size());
+        assertEquals(expected, drainToMap(buffer));
+    }
+
+    @Test
+    void testDrainAndReleaseReuse() {
+        LongPairStateBuffer buffer = new LongPairStateBuffer(4, 8);
+        for (long i = 0; i < 100; i++) {
+            buffer.put(i, i + 1, true);
+        }
+        LongPairStateBuffer.Snapshot first = buffer.drain();
+        assertEquals(100, first.size());
+        assertTrue(buffer.isEmpty());
+
+        // 快照处理期间的写入进入新表，不影响快照
+        buffer.put(1000L, 1001L, false);
+        buffer.put(0L, 1L, false);
+        assertEquals(100, countEntries(first));
+        assertEquals(2, buffer.size());
+        buffer.release(first);
+
+        // 归还的表被复用，不残留上一轮的数据
+        for (int round = 0; round < 5; round++) {
+            LongPairStateBuffer.Snapshot snapshot = buffer.drain();
+            Map<String, Boolean> drained = new HashMap<>();
+            snapshot.forEach((a, b, state) -> drained.put(a + ":" + b, state));
+            assertEquals(snapshot.size(), drained.size());
+            buffer.release(snapshot);
+            if (round == 0) {
+                assertEquals(2, drained.size());
+                assertEquals(Boolean.FALSE, drained.get("0:1"));
+                assertEquals(Boolean.FALSE, drained.get("1000:1001"));
+            } else {
+                assertEquals(1, drained.size());
+                assertEquals(Boolean.TRUE, drained.get(round + ":" + (round * 7)));
+            }
+            buffer.put(round + 1, (round + 1) * 7L, true);
+        }
+
+        LongPairStateBuffer.Snapshot empty = new LongPairStateBuffer().drain();
+        assertTrue(empty.isEmpty());
+        assertEquals(0, countEntries(empty));
+    }
+
+    @Test
+    void testClear() {
+        LongPairStateBuffer buffer = new LongPairStateBuffer();
+        for (long i = 0; i < 50; i++) {
+            buffer.put(i, -i, true);
+        }
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        assertTrue(buffer.drain().isEmpty());
+        assertTrue(buffer.putIfAbsent(1L, -1L, false));
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    void testConcurrentPutAndDrain() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        LongPairStateBuffer buffer = new LongPairStateBuffer(4, 16);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long writer = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long i = 0; i < perThread; i++) {
+                        // 每个线程写入互不相同的键
+                        buffer.put(writer, i, true);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            // 写入过程中不断换出，每个键恰好出现在一个快照中
+            Map<String, Boolean> seen = new HashMap<>();
+            boolean done = false;
+            while (!done) {
+                done = futures.stream().allMatch(Future::isDone);
+                LongPairStateBuffer.Snapshot snapshot = buffer.drain();
+                snapshot.forEach((a, b, state) -> assertNull(seen.put(a + ":" + b, state)));
+                buffer.release(snapshot);
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(threads * perThread, seen.size());
+            assertTrue(buffer.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Map<String, Boolean> drainToMap(LongPairStateBuffer buffer) {
+        LongPairStateBuffer.Snapshot snapshot = buffer.drain();
+        Map<String, Boolean> drained = new HashMap<>();
+        snapshot.forEach((first, second, state) -> assertNull(drained.put(first + ":" + second, state)));
+        assertEquals(snapshot.size(), drained.size());
+        buffer.release(snapshot);
+        return drained;
+    }
+
+    private static Map<String, Boolean> drainChanges(LongPairStateBuffer buffer) {
+        LongPairStateBuffer.Snapshot snapshot = buffer.drain();
+        Map<String, Boolean> changed = new HashMap<>();
+        snapshot.forEachChange((first, second, state, netChange) ->
+                assertNull(changed.put(first + ":" + second + ":" + state, netChange)));
+        buffer.release(snapshot);
+        return changed;
+    }
+
+    private static int countEntries(LongPairStateBuffer.Snapshot snapshot) {
+        int[] count = new int[1];
+        snapshot.forEach((first, second, state) -> count[0]++);
+        return count[0];
+    }
+}
@@ -0,0 +1,191 @@
+package com.wait;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.wait.service.RelationBitmapService;
+import com.wait.util.BoundUtil;
+
+/**
+ * 压缩位图 Lua 脚本测试
+ * 覆盖增删查、跨容器 id、数组容器与位图容器之间的升级/降级（位序解码）、批量导入和惰性迁移
+ * 容器阈值调小为 64，便于少量 id 即可触发容器转换
+ */
+@SpringBootTest(properties = "relation.storage.bitmap.container-threshold=" + RelationBitmapLuaTest.THRESHOLD)
+public class RelationBitmapLuaTest {
+
+    static final int THRESHOLD = 64;
+
+    @Autowired
+    private RelationBitmapService bitmapService;
+
+    @Autowired
+    private BoundUtil boundUtil;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private String bitmapKey;
+    private String setKey;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString();
+        bitmapKey = "test:bitmap:" + suffix;
+        setKey = "test:bitmap:set:" + suffix;
+    }
+
+    @AfterEach
+    void tearDown() {
+        bitmapService.delete(bitmapKey);
+        stringRedisTemplate.delete(setKey);
+    }
+
+    @Test
+    void testAddRemoveContains() {
+        assertTrue(bitmapService.add(bitmapKey, 5L));
+        assertFalse(bitmapService.add(bitmapKey, 5L));
+        assertTrue(bitmapService.add(bitmapKey, 0L));
+        assertTrue(bitmapService.contains(bitmapKey, 5L, null));
+        assertTrue(bitmapService.contains(bitmapKey, 0L, null));
+        assertFalse(bitmapService.contains(bitmapKey, 6L, null));
+        assertEquals(Long.valueOf(2L), bitmapService.cardinality(bitmapKey, null));
+
+        assertFalse(bitmapService.remove(bitmapKey, 6L));
+        assertTrue(bitmapService.remove(bitmapKey, 5L));
+        assertFalse(bitmapService.remove(bitmapKey, 5L));
+        assertEquals(Long.valueOf(1L), bitmapService.cardinality(bitmapKey, null));
+
+        // 最后一个 id 移除后容器和元数据都被删除
+        assertTrue(bitmapService.remove(bitmapKey, 0L));
+        assertEquals(Long.valueOf(0L), bitmapService.cardinality(bitmapKey, null));
+        assertFalse(bitmapService.exists(bitmapKey));
+        assertEquals(DataType.NONE, stringRedisTemplate.type(containerKey(0)));
+    }
+
+    @Test
+    void testIdsAcrossContainers() {
+        List<Long> ids = Arrays.asList(0L, 65535L, 65536L, 131071L, (1L << 40) | 7, 3L);
+        for (Long id : ids) {
+            assertTrue(bitmapService.add(bitmapKey, id));
+        }
+        assertEquals(new TreeSet<>(ids), new TreeSet<>(bitmapService.members(bitmapKey, null)));
+        assertEquals(Long.valueOf(ids.size()), bitmapService.cardinality(bitmapKey, null));
+        assertFalse(bitmapService.contains(bitmapKey, 65537L, null));
+        assertFalse(bitmapService.contains(bitmapKey, 1L << 40, null));
+        assertEquals(Arrays.asList(65536L, 131071L), bitmapService.membersAfter(bitmapKey, 65535L, 2));
+        assertEquals(Arrays.asList(0L, 3L), bitmapService.membersAfter(bitmapKey, null, 2));
+    }
+
+    @Test
+    void testUpgradeAndDowngrade() {
+        // 同一容器内分散在不同字节和位上的 id
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i <= THRESHOLD; i++) {
+            ids.add(i * 1013);
+        }
+        for (int i = 0; i < THRESHOLD; i++) {
+            bitmapService.add(bitmapKey, ids.get(i));
+        }
+        assertEquals(DataType.SET, stringRedisTemplate.type(containerKey(0)));
+
+        // 基数超过阈值后升级为位图
+        bitmapService.add(bitmapKey, ids.get(THRESHOLD));
+        assertEquals(DataType.STRING, stringRedisTemplate.type(containerKey(0)));
+        assertEquals(new TreeSet<>(ids), new TreeSet<>(bitmapService.members(bitmapKey, null)));
+        for (Long id : ids) {
+            assertTrue(bitmapService.contains(bitmapKey, id, null), "id " + id);
+            assertFalse(bitmapService.contains(bitmapKey, id + 1, null), "id " + (id + 1));
+        }
+
+        // 滞后区间内保持位图，低于阈值一半时降级为 Set，脚本按大端位序解码出原有的 id
+        Set<Long> remaining = new TreeSet<>(ids);
+        int index = 0;
+        while (remaining.size() >= THRESHOLD / 2) {
+            assertEquals(DataType.STRING, stringRedisTemplate.type(containerKey(0)));
+            Long id = ids.get(index);
+            index += 2;
+            if (index > THRESHOLD) {
+                index = 1;
+            }
+            assertTrue(bitmapService.remove(bitmapKey, id));
+            remaining.remove(id);
+        }
+        assertEquals(DataType.SET, stringRedisTemplate.type(containerKey(0)));
+        assertEquals(remaining, new TreeSet<>(bitmapService.members(bitmapKey, null)));
+        assertEquals(Long.valueOf(remaining.size()), bitmapService.cardinality(bitmapKey, null));
+        for (Long id : remaining) {
+            assertTrue(bitmapService.contains(bitmapKey, id, null), "id " + id);
+        }
+    }
+
+    @Test
+    void testImportIds() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < 200; i++) {
+            ids.add(i * 7);
+            ids.add(65536 + i);
+        }
+        // 重复 id 和非法 id 不计入
+        ids.add(7L);
+        ids.add(-1L);
+        ids.add(null);
+        Set<Long> expected = new TreeSet<>();
+        for (Long id : ids) {
+            if (id != null && id >= 0) {
+                expected.add(id);
+            }
+        }
+
+        assertEquals(expected.size(), bitmapService.importIds(bitmapKey, ids));
+        assertEquals(DataType.STRING, stringRedisTemplate.type(containerKey(0)));
+        assertEquals(DataType.STRING, stringRedisTemplate.type(containerKey(1)));
+        assertEquals(expected, new TreeSet<>(bitmapService.members(bitmapKey, null)));
+        assertEquals(Long.valueOf(expected.size()), bitmapService.cardinality(bitmapKey, null));
+
+        // 重复导入不改变基数
+        assertEquals(0L, bitmapService.importIds(bitmapKey, ids));
+        assertEquals(Long.valueOf(expected.size()), bitmapService.cardinality(bitmapKey, null));
+    }
+
+    @Test
+    void testMigrateIfPresent() {
+        Set<Long> ids = new HashSet<>();
+        for (long i = 0; i < 300; i++) {
+            ids.add(i * 331);
+        }
+        boundUtil.sAdd(setKey, ids.toArray(new Long[0]));
+        // 尚未迁移时回退到旧版 Set
+        assertEquals(Long.valueOf(ids.size()), bitmapService.cardinality(bitmapKey, setKey));
+
+        bitmapService.migrateIfPresent(setKey, bitmapKey);
+        assertFalse(stringRedisTemplate.hasKey(setKey));
+        assertEquals(new TreeSet<>(ids), new TreeSet<>(bitmapService.members(bitmapKey, null)));
+        assertEquals(Long.valueOf(ids.size()), bitmapService.cardinality(bitmapKey, null));
+
+        // Set 已不存在时不做任何事
+        bitmapService.migrateIfPresent(setKey, bitmapKey);
+        assertEquals(Long.valueOf(ids.size()), bitmapService.cardinality(bitmapKey, null));
+    }
+
+    private String containerKey(long high) {
+        return bitmapKey + ":c:" + high;
+    }
+}
@@ -0,0 +1,119 @@
+package com.wait;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.wait.entity.dto.CursorPage;
+import com.wait.util.ScoreCursor;
+
+/**
+ * Sorted Set seek 分页游标测试
+ * 覆盖空游标、格式错误、整数与小数分数的书写与无损解析以及分页组装
+ */
+public class ScoreCursorTest {
+
+    @Test
+    void testParseEmpty() {
+        assertNull(ScoreCursor.parse(null));
+        assertNull(ScoreCursor.parse(""));
+    }
+
+    @Test
+    void testParseMalformed() {
+        for (String cursor : Arrays.asList("abc", "123", ":42", "123:", ":", "abc:42", "1.2.3:42", "NaN:42", " :42")) {
+            assertThrows(IllegalArgumentException.class, () -> ScoreCursor.parse(cursor), cursor);
+        }
+    }
+
+    @Test
+    void testParse() {
+        ScoreCursor cursor = ScoreCursor.parse("1700000000000:42");
+        assertEquals(1700000000000.0, cursor.getScore());
+        assertEquals("42", cursor.getMember());
+
+        ScoreCursor negative = ScoreCursor.parse("-2.5:7");
+        assertEquals(-2.5, negative.getScore());
+        assertEquals("7", negative.getMember());
+
+        // 只按第一个冒号切分，成员本身可以包含冒号
+        ScoreCursor colon = ScoreCursor.parse("3:post:9");
+        assertEquals(3.0, colon.getScore());
+        assertEquals("post:9", colon.getMember());
+    }
+
+    @Test
+    void testEncodeIntegerScores() {
+        assertEquals("1700000000000:42", ScoreCursor.encode(1700000000000.0, 42L));
+        assertEquals("0:1", ScoreCursor.encode(0.0, 1));
+        assertEquals("-15:abc", ScoreCursor.encode(-15.0, "abc"));
+        assertEquals("999999999999999:1", ScoreCursor.encode(999999999999999.0, 1));
+        // 超出无损整数范围后改用 Double.toString
+        assertEquals("1.0E15:1", ScoreCursor.encode(1e15, 1));
+        assertEquals("0.5:1", ScoreCursor.encode(0.5, 1));
+    }
+
+    @Test
+    void testRoundTrip() {
+        double[] scores = {0, 1, -1, 0.1 + 0.2, 1.0 / 3, -7.25, 1700000000123.0, 1e15, 1.2345678901234567e17,
+                Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, Math.log(3) + 12.5,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (double score : scores) {
+            String encoded = ScoreCursor.encode(score, "m:1");
+            ScoreCursor cursor = ScoreCursor.parse(encoded);
+            // 解析结果与原分数逐位相等，下一页的闭区间上界恰好落在游标成员上
+            assertEquals(Double.doubleToLongBits(score), Double.doubleToLongBits(cursor.getScore()), encoded);
+            assertEquals("m:1", cursor.getMember());
+        }
+    }
+
+    @Test
+    void testToPage() {
+        Map<Long, Double> entries = new LinkedHashMap<>();
+        entries.put(5L, 500.0);
+        entries.put(4L, 400.5);
+        entries.put(3L, 300.0);
+
+        CursorPage<Long> page = ScoreCursor.toPage(entries, 2);
+        assertEquals(Arrays.asList(5L, 4L), page.getItems());
+        assertTrue(page.isHasMore());
+        assertEquals("400.5:4", page.getNextCursor());
+
+        // 恰好一页或不足一页时没有下一页
+        CursorPage<Long> exact = ScoreCursor.toPage(entries, 3);
+        assertEquals(Arrays.asList(5L, 4L, 3L), exact.getItems());
+        assertFalse(exact.isHasMore());
+        assertNull(exact.getNextCursor());
+
+        CursorPage<Long> partial = ScoreCursor.toPage(entries, 10);
+        assertEquals(3, partial.getItems().size());
+        assertFalse(partial.isHasMore());
+
+        CursorPage<Long> empty = ScoreCursor.toPage(Collections.<Long, Double>emptyMap(), 10);
+        assertTrue(empty.getItems().isEmpty());
+        assertFalse(empty.isHasMore());
+        assertNull(empty.getNextCursor());
+    }
+
+    @Test
+    void testToPageCursorContinuesFromLastItem() {
+        Map<String, Double> entries = new LinkedHashMap<>();
+        entries.put("c", 2.0);
+        entries.put("b", 2.0);
+        entries.put("a", 1.0);
+
+        CursorPage<String> page = ScoreCursor.toPage(entries, 1);
+        ScoreCursor cursor = ScoreCursor.parse(page.getNextCursor());
+        assertEquals(2.0, cursor.getScore());
+        assertEquals("c", cursor.getMember());
+    }
+}
@@ -0,0 +1,181 @@
+package com.wait;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.wait.util.SortedLongArrays;
+
+/**
+ * 有序 long[] 集合运算测试
+ * 覆盖线性归并与倍增查找两条路径、空数组、limit 截断以及与 TreeSet 的随机对照
+ */
+public class SortedLongArraysTest {
+
+    private static final long[] EMPTY = SortedLongArrays.EMPTY;
+
+    @Test
+    void testIntersectLinear() {
+        long[] a = {1, 3, 5, 7, 9};
+        long[] b = {2, 3, 4, 7, 10};
+        assertArrayEquals(new long[]{3, 7}, SortedLongArrays.intersect(a, b));
+        assertArrayEquals(new long[]{3, 7}, SortedLongArrays.intersect(b, a));
+        assertEquals(2, SortedLongArrays.intersectCount(a, b));
+    }
+
+    @Test
+    void testIntersectGallop() {
+        // 大小之比 >= 32 时走倍增查找
+        long[] big = range(0, 10_000, 2);
+        long[] small = {-5, 0, 1, 998, 999, 1000, 9998, 9999, 20_000};
+        long[] expected = {0, 998, 1000, 9998};
+        assertArrayEquals(expected, SortedLongArrays.intersect(small, big));
+        assertArrayEquals(expected, SortedLongArrays.intersect(big, small));
+        assertEquals(expected.length, SortedLongArrays.intersectCount(small, big));
+        assertEquals(expected.length, SortedLongArrays.intersectCount(big, small));
+    }
+
+    @Test
+    void testIntersectGallopBoundaries() {
+        long[] big = range(100, 200, 1);
+        // 目标小于首元素、等于首尾元素、大于尾元素
+        assertArrayEquals(new long[]{100, 199}, SortedLongArrays.intersect(new long[]{1, 100, 199}, big));
+        assertArrayEquals(EMPTY, SortedLongArrays.intersect(new long[]{200, 300}, big));
+        assertArrayEquals(EMPTY, SortedLongArrays.intersect(new long[]{-1, 99}, big));
+        assertEquals(0, SortedLongArrays.intersectCount(new long[]{-1, 99, 200}, big));
+    }
+
+    @Test
+    void testIntersectWithLimit() {
+        long[] a = {1, 2, 3, 4, 5};
+        long[] b = {2, 3, 4, 5, 6};
+        assertArrayEquals(new long[]{2, 3}, SortedLongArrays.intersect(a, b, 2));
+        assertArrayEquals(EMPTY, SortedLongArrays.intersect(a, b, 0));
+        assertArrayEquals(new long[]{2, 3, 4, 5}, SortedLongArrays.intersect(a, b, 100));
+
+        long[] big = range(0, 1000, 1);
+        assertArrayEquals(new long[]{10, 20}, SortedLongArrays.intersect(new long[]{10, 20, 30}, big, 2));
+    }
+
+    @Test
+    void testEmptyInputs() {
+        long[] a = {1, 2, 3};
+        assertArrayEquals(EMPTY, SortedLongArrays.intersect(EMPTY, a));
+        assertArrayEquals(EMPTY, SortedLongArrays.intersect(a, EMPTY));
+        assertArrayEquals(EMPTY, SortedLongArrays.intersect(EMPTY, EMPTY));
+        assertEquals(0, SortedLongArrays.intersectCount(EMPTY, a));
+        assertEquals(0, SortedLongArrays.intersectCount(a, EMPTY));
+        assertSame(a, SortedLongArrays.difference(a, EMPTY));
+        assertArrayEquals(EMPTY, SortedLongArrays.difference(EMPTY, a));
+        assertSame(a, SortedLongArrays.union(EMPTY, a));
+        assertSame(a, SortedLongArrays.union(a, EMPTY));
+        assertArrayEquals(EMPTY, SortedLongArrays.intersectAll(null));
+        assertArrayEquals(EMPTY, SortedLongArrays.intersectAll(Collections.emptyList()));
+        assertArrayEquals(EMPTY, SortedLongArrays.fromStrings(null));
+        assertArrayEquals(EMPTY, SortedLongArrays.fromStrings(Collections.emptyList()));
+        assertArrayEquals(EMPTY, SortedLongArrays.sortDistinct(new long[4], 0));
+    }
+
+    @Test
+    void testDifferenceAndUnion() {
+        long[] a = {1, 3, 5, 7, 9};
+        long[] b = {3, 4, 9, 11};
+        assertArrayEquals(new long[]{1, 5, 7}, SortedLongArrays.difference(a, b));
+        assertArrayEquals(new long[]{4, 11}, SortedLongArrays.difference(b, a));
+        assertArrayEquals(new long[]{1, 3, 4, 5, 7, 9, 11}, SortedLongArrays.union(a, b));
+
+        long[] big = range(0, 10_000, 3);
+        assertArrayEquals(new long[]{1, 5, 7}, SortedLongArrays.difference(new long[]{0, 1, 3, 5, 6, 7}, big));
+    }
+
+    @Test
+    void testIntersectAll() {
+        List<long[]> arrays = Arrays.asList(range(0, 1000, 2), range(0, 1000, 3), new long[]{0, 6, 7, 12, 996});
+        assertArrayEquals(new long[]{0, 6, 12, 996}, SortedLongArrays.intersectAll(arrays));
+        // 有一个数组为空时结果为空
+        assertArrayEquals(EMPTY, SortedLongArrays.intersectAll(Arrays.asList(range(0, 10, 1), EMPTY)));
+        long[] single = {4, 5};
+        assertArrayEquals(single, SortedLongArrays.intersectAll(Collections.singletonList(single)));
+    }
+
+    @Test
+    void testFromStringsAndSortDistinct() {
+        long[] parsed = SortedLongArrays.fromStrings(Arrays.asList("5", "abc", "-3", "5", "", "9223372036854775807", "1"));
+        assertArrayEquals(new long[]{-3, 1, 5, Long.MAX_VALUE}, parsed);
+
+        long[] values = {4, 2, 4, 1, 2, 99, 99};
+        // 只处理前 5 个元素
+        assertArrayEquals(new long[]{1, 2, 4}, SortedLongArrays.sortDistinct(values, 5));
+        assertArrayEquals(new long[]{7}, SortedLongArrays.sortDistinct(new long[]{7}, 1));
+    }
+
+    @Test
+    void testExtremeValues() {
+        long[] a = {Long.MIN_VALUE, -1, 0, Long.MAX_VALUE};
+        long[] b = {Long.MIN_VALUE, 0, 1, Long.MAX_VALUE};
+        assertArrayEquals(new long[]{Long.MIN_VALUE, 0, Long.MAX_VALUE}, SortedLongArrays.intersect(a, b));
+        assertArrayEquals(new long[]{-1}, SortedLongArrays.difference(a, b));
+        assertArrayEquals(new long[]{Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE}, SortedLongArrays.union(a, b));
+    }
+
+    @Test
+    void testRandomAgainstTreeSet() {
+        Random random = new Random(20240601L);
+        int[][] sizes = {{1, 1}, {5, 7}, {31, 1000}, {32, 1024}, {1, 5000}, {10, 320}, {10, 319}, {300, 300}, {100, 20_000}};
+        for (int[] size : sizes) {
+            for (int round = 0; round < 20; round++) {
+                long[] a = randomSorted(random, size[0], size[1] * 4L);
+                long[] b = randomSorted(random, size[1], size[1] * 4L);
+                TreeSet<Long> setA = new TreeSet<>(SortedLongArrays.toList(a));
+                TreeSet<Long> setB = new TreeSet<>(SortedLongArrays.toList(b));
+
+                TreeSet<Long> intersection = new TreeSet<>(setA);
+                intersection.retainAll(setB);
+                TreeSet<Long> difference = new TreeSet<>(setA);
+                difference.removeAll(setB);
+                TreeSet<Long> union = new TreeSet<>(setA);
+                union.addAll(setB);
+
+                String context = Arrays.toString(size) + " round " + round;
+                assertArrayEquals(toArray(intersection), SortedLongArrays.intersect(a, b), context);
+                assertArrayEquals(toArray(intersection), SortedLongArrays.intersect(b, a), context);
+                assertEquals(intersection.size(), SortedLongArrays.intersectCount(a, b), context);
+                assertArrayEquals(toArray(difference), SortedLongArrays.difference(a, b), context);
+                assertArrayEquals(toArray(union), SortedLongArrays.union(a, b), context);
+            }
+        }
+    }
+
+    private static long[] range(long from, long to, long step) {
+        long[] values = new long[(int) ((to - from + step - 1) / step)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = from + i * step;
+        }
+        return values;
+    }
+
+    private static long[] randomSorted(Random random, int size, long bound) {
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = (long) (random.nextDouble() * bound);
+        }
+        return SortedLongArrays.sortDistinct(values, size);
+    }
+
+    private static long[] toArray(TreeSet<Long> set) {
+        long[] values = new long[set.size()];
+        int i = 0;
+        for (Long value : set) {
+            values[i++] = value;
+        }
+        return values;
+    }
+}